@@ -0,0 +1,20 @@
+package com.backoffice.alerta.chat;
+
+import com.backoffice.alerta.rag.RagStreamListener;
+
+/**
+ * Recebe as etapas de uma consulta do chat em streaming
+ * 
+ * Além das fontes e tokens da consulta RAG (RagStreamListener), recebe cada
+ * mensagem estruturada assim que a seção correspondente é concluída.
+ * A resposta completa é o retorno de UnifiedImpactChatService.processQueryStream.
+ * 
+ * US#46 - Chat Unificado de Análise de Impacto (Engenharia + Negócio)
+ */
+public interface ChatStreamListener extends RagStreamListener {
+    
+    /**
+     * Mensagem estruturada (INFO/WARNING/ACTION) recém-produzida
+     */
+    void onMessage(ChatMessageResponse message);
+}
@@ -1,5 +1,9 @@
 package com.backoffice.alerta.chat;
 
+import com.backoffice.alerta.rag.RagSourceReference;
+import com.backoffice.alerta.rag.RagSseEvents;
+import com.backoffice.alerta.rag.RagStreamAbortedException;
+import com.backoffice.alerta.rag.RagStreamingProperties;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -9,9 +13,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Controller para chat unificado de análise de impacto
@@ -40,9 +53,15 @@ public class UnifiedImpactChatController {
     private static final Logger log = LoggerFactory.getLogger(UnifiedImpactChatController.class);
     
     private final UnifiedImpactChatService chatService;
+    private final RagStreamingProperties streamingProperties;
+    private final ExecutorService streamingExecutor;
     
-    public UnifiedImpactChatController(UnifiedImpactChatService chatService) {
+    public UnifiedImpactChatController(UnifiedImpactChatService chatService,
+                                       RagStreamingProperties streamingProperties,
+                                       @Qualifier("ragStreamingExecutor") ExecutorService streamingExecutor) {
         this.chatService = chatService;
+        this.streamingProperties = streamingProperties;
+        this.streamingExecutor = streamingExecutor;
     }
     
     @PostMapping("/query")
@@ -202,22 +221,106 @@ public class UnifiedImpactChatController {
             log.error("❌ Erro ao processar chat: {}", e.getMessage(), e);
             
             // Nunca retornar 500 - sempre responder com fallback
-            ChatResponse fallback = new ChatResponse();
-            fallback.setAnswer(
-                "❌ Houve um erro ao processar sua pergunta. " +
-                "Tente reformular ou contate o suporte se o problema persistir."
-            );
-            fallback.setUsedFallback(true);
-            fallback.setConfidence(com.backoffice.alerta.rag.ConfidenceLevel.LOW);
+            return ResponseEntity.ok(buildFallback());
+        }
+    }
+    
+    @PostMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'RISK_MANAGER', 'ENGINEER')")
+    @Operation(
+        summary = "Consulta no chat em streaming (SSE)",
+        description = """
+            Mesma consulta de `/risk/chat/query`, entregue via Server-Sent Events.
             
-            ChatMessageResponse errorMsg = new ChatMessageResponse(
-                ChatMessageType.WARNING,
-                "Erro Técnico",
-                "Não foi possível processar completamente sua consulta."
-            );
-            fallback.getMessages().add(errorMsg);
+            **📡 Eventos:**
+            - `sources`: fontes de regras de negócio (antes da resposta da IA)
+            - `token`: `{"text": "..."}` — próximo trecho da resposta principal
+            - `message`: mensagem estruturada (INFO/WARNING/ACTION) assim que a seção termina
+            - `truncated`: `{"message": "..."}` — falha após tokens já enviados; o texto
+              recebido está incompleto e deve ser substituído pelo `complete`
+            - `complete`: resposta consolidada, igual à de `/risk/chat/query`
             
-            return ResponseEntity.ok(fallback);
+            Em erro, `complete` traz a resposta de fallback (nunca 500). Com a fila de
+            streams cheia (`rag.streaming.queue-capacity`) responde 503.
+            """
+    )
+    public ResponseEntity<SseEmitter> queryChatStream(@Valid @RequestBody ChatQueryRequest request) {
+        log.info("💬 POST /risk/chat/query/stream - Question: '{}'", request.getQuestion());
+        
+        SseEmitter emitter = new SseEmitter(streamingProperties.getTimeoutMs());
+        try {
+            streamingExecutor.execute(() -> streamChat(request, emitter));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Stream do chat rejeitado (fila de streams cheia ou executor encerrado)");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    private void streamChat(ChatQueryRequest request, SseEmitter emitter) {
+        // Tokens enviados ainda não marcados como incompletos
+        AtomicBoolean partialAnswer = new AtomicBoolean(false);
+        try {
+            ChatResponse response;
+            try {
+                response = chatService.processQueryStream(request, new ChatStreamListener() {
+                    @Override
+                    public void onSources(List<RagSourceReference> sources) {
+                        RagSseEvents.send(emitter, RagSseEvents.SOURCES, sources);
+                    }
+                    
+                    @Override
+                    public void onToken(String token) {
+                        RagSseEvents.sendToken(emitter, token);
+                        partialAnswer.set(true);
+                    }
+                    
+                    @Override
+                    public void onTruncated(String reason) {
+                        RagSseEvents.sendTruncated(emitter, reason);
+                        partialAnswer.set(false);
+                    }
+                    
+                    @Override
+                    public void onMessage(ChatMessageResponse message) {
+                        RagSseEvents.send(emitter, RagSseEvents.MESSAGE, message);
+                    }
+                });
+            } catch (RagStreamAbortedException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("❌ Erro ao processar chat em streaming: {}", e.getMessage(), e);
+                if (partialAnswer.get()) {
+                    RagSseEvents.sendTruncated(emitter, "Erro ao processar a consulta");
+                }
+                response = buildFallback();
+            }
+            RagSseEvents.send(emitter, RagSseEvents.COMPLETE, response);
+            emitter.complete();
+            
+        } catch (RagStreamAbortedException e) {
+            log.info("🔌 Cliente desconectou durante o stream do chat");
+            emitter.complete();
+        }
+    }
+    
+    private ChatResponse buildFallback() {
+        ChatResponse fallback = new ChatResponse();
+        fallback.setAnswer(
+            "❌ Houve um erro ao processar sua pergunta. " +
+            "Tente reformular ou contate o suporte se o problema persistir."
+        );
+        fallback.setUsedFallback(true);
+        fallback.setConfidence(com.backoffice.alerta.rag.ConfidenceLevel.LOW);
+        
+        ChatMessageResponse errorMsg = new ChatMessageResponse(
+            ChatMessageType.WARNING,
+            "Erro Técnico",
+            "Não foi possível processar completamente sua consulta."
+        );
+        fallback.getMessages().add(errorMsg);
+        
+        return fallback;
     }
 }
+
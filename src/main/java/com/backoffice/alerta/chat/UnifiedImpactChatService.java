@@ -10,6 +10,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Serviço unificado de chat para análise de impacto
@@ -53,6 +54,23 @@ public class UnifiedImpactChatService {
      * Processa consulta do chat e retorna resposta consolidada
      */
     public ChatResponse processQuery(ChatQueryRequest request) {
+        return execute(request, null);
+    }
+    
+    /**
+     * Processa consulta do chat em streaming: a resposta principal chega em tokens
+     * e as mensagens estruturadas à medida que cada seção é concluída
+     * 
+     * @return Resposta consolidada completa (mesma de processQuery)
+     */
+    public ChatResponse processQueryStream(ChatQueryRequest request, ChatStreamListener listener) {
+        return execute(request, Objects.requireNonNull(listener));
+    }
+    
+    /**
+     * @param listener Recebe tokens e mensagens em streaming (null = resposta apenas no retorno)
+     */
+    private ChatResponse execute(ChatQueryRequest request, ChatStreamListener listener) {
         log.info("💬 Chat Query: '{}' (focus: {})", request.getQuestion(), request.getFocus());
         
         // US#50: Escopo de projeto (opcional)
@@ -69,6 +87,7 @@ public class UnifiedImpactChatService {
         
         ChatResponse response = new ChatResponse();
         StringBuilder answer = new StringBuilder();
+        StreamCursor cursor = new StreamCursor(listener);
         
         try {
             // 1. Analisar intenção da pergunta
@@ -77,19 +96,23 @@ public class UnifiedImpactChatService {
             
             // 2. Executar consultas baseado na intenção
             if (intent.needsBusinessRules) {
-                addBusinessRulesInfo(request, response, answer);
+                addBusinessRulesInfo(request, response, answer, cursor);
+                cursor.flush(response, answer);
             }
             
             if (intent.needsCodeImpact) {
                 addCodeImpactInfo(request, response, answer);
+                cursor.flush(response, answer);
             }
             
             if (intent.needsOwnership) {
                 addOwnershipInfo(request, response, answer);
+                cursor.flush(response, answer);
             }
             
             if (intent.needsIncidentHistory) {
                 addIncidentHistoryInfo(request, response, answer);
+                cursor.flush(response, answer);
             }
             
             // 3. Adicionar mensagem de ação padrão
@@ -110,9 +133,15 @@ public class UnifiedImpactChatService {
             }
             
             response.setAnswer(answer.toString());
+            cursor.flush(response, answer);
+            
+        } catch (RagStreamAbortedException e) {
+            throw e;
             
         } catch (Exception e) {
             log.error("❌ Erro no chat: {}", e.getMessage(), e);
+            // Trechos já entregues ficam incompletos; a resposta de erro vem só no retorno
+            cursor.truncated("Erro ao processar a consulta");
             return buildErrorResponse(request, project);
         }
         
@@ -176,7 +205,8 @@ public class UnifiedImpactChatService {
     /**
      * Adiciona informações sobre regras de negócio
      */
-    private void addBusinessRulesInfo(ChatQueryRequest request, ChatResponse response, StringBuilder answer) {
+    private void addBusinessRulesInfo(ChatQueryRequest request, ChatResponse response, StringBuilder answer,
+                                      StreamCursor cursor) {
         try {
             log.info("🔍 Buscando regras de negócio...");
             
@@ -187,7 +217,9 @@ public class UnifiedImpactChatService {
             ragRequest.setMaxSources(5);
             ragRequest.setProjectId(request.getProjectId());
             
-            RagQueryResponse ragResponse = ragService.query(ragRequest);
+            RagQueryResponse ragResponse = cursor.isStreaming()
+                ? ragService.streamQuery(ragRequest, cursor.ragListener())
+                : ragService.query(ragRequest);
             
             if (!ragResponse.getSources().isEmpty()) {
                 // ✅ USAR A RESPOSTA INTELIGENTE DO CHATGPT
@@ -219,8 +251,14 @@ public class UnifiedImpactChatService {
                 
                 msg.setConfidence(ragResponse.getConfidence());
                 response.getMessages().add(msg);
+                
+                // Resposta da IA já entregue em tokens; não reenviar o mesmo texto
+                cursor.skipStreamedAnswer(answer);
             }
             
+        } catch (RagStreamAbortedException e) {
+            throw e;
+            
         } catch (Exception e) {
             log.warn("⚠️ Erro ao buscar regras: {}", e.getMessage());
         }
@@ -441,6 +479,104 @@ public class UnifiedImpactChatService {
         return response;
     }
     
+    /**
+     * Controla o que já foi entregue em streaming (trecho da resposta e mensagens)
+     * 
+     * Depois do primeiro token, uma falha nunca emenda texto de fallback no que já
+     * foi entregue: o cliente recebe onTruncated e a resposta completa no retorno.
+     * Sem listener, todas as operações são no-op.
+     */
+    private static final class StreamCursor {
+        
+        private final ChatStreamListener listener;
+        private int answerOffset;
+        private int messageOffset;
+        private boolean ragTokensStreamed;
+        private boolean tokensEmitted;
+        private boolean truncated;
+        
+        StreamCursor(ChatStreamListener listener) {
+            this.listener = listener;
+        }
+        
+        boolean isStreaming() {
+            return listener != null;
+        }
+        
+        /**
+         * Repassa fontes da consulta RAG; tokens só quando há fontes, pois sem
+         * fontes o chat não usa a resposta do RAG
+         */
+        RagStreamListener ragListener() {
+            return new RagStreamListener() {
+                private boolean forward;
+                
+                @Override
+                public void onSources(List<RagSourceReference> sources) {
+                    forward = !sources.isEmpty();
+                    listener.onSources(sources);
+                }
+                
+                @Override
+                public void onToken(String token) {
+                    if (forward) {
+                        ragTokensStreamed = true;
+                        tokensEmitted = true;
+                        listener.onToken(token);
+                    }
+                }
+                
+                @Override
+                public void onTruncated(String reason) {
+                    if (forward) {
+                        truncated(reason);
+                    }
+                }
+            };
+        }
+        
+        /**
+         * Sinaliza que o texto já entregue está incompleto (apenas se algum token foi enviado)
+         */
+        void truncated(String reason) {
+            if (listener != null && tokensEmitted && !truncated) {
+                truncated = true;
+                listener.onTruncated(reason);
+            }
+        }
+        
+        /**
+         * Marca a resposta do RAG como entregue (mantém o separador final pendente)
+         */
+        void skipStreamedAnswer(StringBuilder answer) {
+            if (ragTokensStreamed) {
+                boolean separator = answer.length() >= 2 && answer.lastIndexOf("\n\n") == answer.length() - 2;
+                answerOffset = separator ? answer.length() - 2 : answer.length();
+            }
+        }
+        
+        /**
+         * Entrega o texto e as mensagens adicionados desde o último flush
+         */
+        void flush(ChatResponse response, StringBuilder answer) {
+            if (listener == null) {
+                return;
+            }
+            if (truncated) {
+                // Após truncated, o texto segue apenas na resposta completa
+                answerOffset = answer.length();
+            } else if (answer.length() > answerOffset) {
+                listener.onToken(answer.substring(answerOffset));
+                tokensEmitted = true;
+                answerOffset = answer.length();
+            }
+            List<ChatMessageResponse> messages = response.getMessages();
+            while (messageOffset < messages.size()) {
+                listener.onMessage(messages.get(messageOffset++));
+            }
+        }
+    }
+    
     /**
      * Classe interna para representar intenção da query
      */
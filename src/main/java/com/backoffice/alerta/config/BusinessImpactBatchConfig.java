@@ -0,0 +1,48 @@
+package com.backoffice.alerta.config;
+
+import com.backoffice.alerta.service.BusinessImpactBatchProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuração do executor que avalia os PRs de uma análise de impacto em lote
+ *
+ * Pool fixo: o throughput do lote escala com os cores, não com o número de requisições.
+ * Fila limitada (queue-capacity): com a fila cheia o lote é recusado (503) em vez de
+ * acumular trabalho sem limite.
+ */
+@Configuration
+public class BusinessImpactBatchConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessImpactBatchConfig.class);
+
+    @Bean(name = "businessImpactBatchExecutor", destroyMethod = "shutdown")
+    public ExecutorService businessImpactBatchExecutor(BusinessImpactBatchProperties properties) {
+        int threads = properties.getThreads() > 0
+            ? properties.getThreads()
+            : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "impact-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        int queueCapacity = Math.max(1, properties.getQueueCapacity());
+
+        log.info("⚙️ [IMPACT] Executor de análise em lote criado | threads={} | queue={} | maxPullRequests={}",
+                 threads, queueCapacity, properties.getMaxPullRequests());
+
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
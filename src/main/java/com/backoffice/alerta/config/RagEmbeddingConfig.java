@@ -2,8 +2,11 @@ package com.backoffice.alerta.config;
 
 import com.backoffice.alerta.rag.embedding.BusinessRuleEmbeddingProvider;
 import com.backoffice.alerta.rag.embedding.EmbeddingProviderFactory;
+import com.backoffice.alerta.rag.embedding.EmbeddingProviderType;
 import com.backoffice.alerta.rag.embedding.RagEmbeddingProperties;
+import com.backoffice.alerta.rag.embedding.VersionedEmbeddingProvider;
 import com.backoffice.alerta.rag.persistence.BusinessRuleEmbeddingRepository;
+import com.backoffice.alerta.rag.persistence.BusinessRuleShadowEmbeddingRepository;
 import com.backoffice.alerta.rag.persistence.JpaBusinessRuleVectorStore;
 import com.backoffice.alerta.rag.persistence.RagVectorStoreProperties;
 import com.backoffice.alerta.rag.vector.BusinessRuleVectorStore;
@@ -13,6 +16,9 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
 
 /**
  * Configuração de providers de embeddings e vector store para RAG
@@ -35,20 +41,59 @@ public class RagEmbeddingConfig {
      * Usa EmbeddingProviderFactory para criar provider configurado
      * com fallback automático para DUMMY em caso de erro.
      * 
+     * Se o índice persistido foi gerado por outro provider e a migração online está
+     * habilitada, o provider desse índice continua servindo até a virada
+     * (EmbeddingModelMigrationService).
+     * 
      * @Primary garante que este bean será usado quando houver múltiplas implementações
      */
     @Bean
     @Primary
-    public BusinessRuleEmbeddingProvider embeddingProvider(EmbeddingProviderFactory factory) {
+    public VersionedEmbeddingProvider embeddingProvider(EmbeddingProviderFactory factory,
+                                                        RagEmbeddingProperties embeddingProperties,
+                                                        RagVectorStoreProperties vectorStoreProperties,
+                                                        JdbcTemplate jdbcTemplate) {
         log.info("🧠 [US#65] Criando bean BusinessRuleEmbeddingProvider via factory...");
         
-        BusinessRuleEmbeddingProvider provider = factory.createProviderWithRuntimeFallback();
+        EmbeddingProviderType configured = embeddingProperties.getProvider();
+        EmbeddingProviderType serving = embeddingProperties.getMigration().isEnabled() 
+                && vectorStoreProperties.getType() == RagVectorStoreProperties.VectorStoreType.JPA
+                && vectorStoreProperties.isPersist()
+            ? persistedIndexProvider(jdbcTemplate, configured)
+            : configured;
+        
+        if (serving != configured) {
+            log.info("🌗 [US#65] Índice persistido é de {}: servindo com {} até a migração para {} terminar", 
+                     serving, serving, configured);
+        }
+        
+        BusinessRuleEmbeddingProvider provider = factory.createProviderWithRuntimeFallback(serving);
         
         log.info("✅ [US#65] RAG Embedding Provider inicializado: {} | dimensões: {}", 
                  provider.getClass().getSimpleName(), 
                  provider.getDimension());
         
-        return provider;
+        return new VersionedEmbeddingProvider(serving, provider);
+    }
+    
+    /**
+     * Provider com mais embeddings na tabela ativa; o configurado se a tabela estiver vazia
+     * 
+     * Via JDBC (não JPA): o bean pode ser pedido pelas migrações Java do Flyway,
+     * antes do EntityManagerFactory existir.
+     */
+    private EmbeddingProviderType persistedIndexProvider(JdbcTemplate jdbcTemplate,
+                                                         EmbeddingProviderType configured) {
+        try {
+            List<String> providers = jdbcTemplate.queryForList(
+                "SELECT provider FROM business_rule_embeddings GROUP BY provider ORDER BY COUNT(*) DESC",
+                String.class);
+            return providers.isEmpty() ? configured : EmbeddingProviderType.valueOf(providers.get(0));
+        } catch (Exception e) {
+            log.warn("⚠️ [US#66] Não foi possível ler o provider do índice persistido ({}). Usando {}.", 
+                     e.getMessage(), configured);
+            return configured;
+        }
     }
     
     /**
@@ -61,13 +106,18 @@ public class RagEmbeddingConfig {
     @ConditionalOnProperty(name = "rag.vector-store.type", havingValue = "JPA", matchIfMissing = true)
     public JpaBusinessRuleVectorStore jpaVectorStore(
             BusinessRuleEmbeddingRepository repository,
-            RagEmbeddingProperties embeddingProperties) {
+            BusinessRuleShadowEmbeddingRepository shadowRepository,
+            VersionedEmbeddingProvider embeddingProvider,
+            RagVectorStoreProperties vectorStoreProperties) {
         
         log.info("📦 [US#66] Criando JpaBusinessRuleVectorStore...");
         
+        // Índice do provider que está servindo (durante migração, o anterior)
         JpaBusinessRuleVectorStore vectorStore = new JpaBusinessRuleVectorStore(
             repository,
-            embeddingProperties.getProvider()
+            shadowRepository,
+            embeddingProvider.getActiveType(),
+            vectorStoreProperties
         );
         
         log.info("✅ [US#66] JpaBusinessRuleVectorStore inicializado | embeddings em cache: {}", 
@@ -0,0 +1,61 @@
+package com.backoffice.alerta.config;
+
+import com.backoffice.alerta.rag.index.RagIndexingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuração dos executores da indexação de embeddings de regras
+ * 
+ * - ragIndexingScheduler: coordena as execuções (startup + verificações periódicas)
+ * - ragIndexingExecutor: workers limitados que geram embeddings por lote;
+ *   com a fila cheia, o lote roda na thread do coordenador
+ * 
+ * US#66 - Persistência de Vetores (indexação incremental)
+ */
+@Configuration
+public class RagIndexingConfig {
+    
+    private static final Logger log = LoggerFactory.getLogger(RagIndexingConfig.class);
+    
+    @Bean(name = "ragIndexingExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService ragIndexingExecutor(RagIndexingProperties properties) {
+        int threads = Math.max(1, properties.getThreads());
+        int queueCapacity = Math.max(1, properties.getQueueCapacity());
+        
+        log.info("⚙️ [US#66] Executor de indexação criado | threads={} | queue={} | chunk={}", 
+                 threads, queueCapacity, properties.getChunkSize());
+        
+        return new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            daemonThreads("rag-indexing-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+    
+    @Bean(name = "ragIndexingScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService ragIndexingScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(daemonThreads("rag-indexing-scheduler-"));
+    }
+    
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
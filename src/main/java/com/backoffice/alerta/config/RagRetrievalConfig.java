@@ -0,0 +1,42 @@
+package com.backoffice.alerta.config;
+
+import com.backoffice.alerta.rag.RagRetrievalProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuração do executor usado no retrieval híbrido do RAG
+ * 
+ * A busca semântica (embedding da query + vector store) roda neste pool
+ * enquanto a busca lexical roda na thread da requisição.
+ * 
+ * US#44 - Busca Semântica com Embeddings (hybrid search)
+ */
+@Configuration
+public class RagRetrievalConfig {
+    
+    private static final Logger log = LoggerFactory.getLogger(RagRetrievalConfig.class);
+    
+    @Bean(name = "ragRetrievalExecutor", destroyMethod = "shutdown")
+    public ExecutorService ragRetrievalExecutor(RagRetrievalProperties properties) {
+        int threads = Math.max(1, properties.getThreads());
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "rag-retrieval-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        
+        log.info("⚙️ [RAG] Executor de retrieval criado | threads={} | parallel={} | fusion={}", 
+                 threads, properties.isParallel(), properties.getFusion());
+        
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+}
@@ -0,0 +1,48 @@
+package com.backoffice.alerta.config;
+
+import com.backoffice.alerta.rag.RagStreamingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configuração do executor que produz os streams SSE do RAG e do chat
+ * 
+ * A thread da requisição retorna imediatamente o SseEmitter; retrieval,
+ * geração e envio dos eventos rodam neste pool.
+ * 
+ * Fila limitada (queue-capacity): atrás de streams lentos do LLM, novos streams
+ * são recusados (503) em vez de acumular sem limite.
+ */
+@Configuration
+public class RagStreamingConfig {
+    
+    private static final Logger log = LoggerFactory.getLogger(RagStreamingConfig.class);
+    
+    @Bean(name = "ragStreamingExecutor", destroyMethod = "shutdown")
+    public ExecutorService ragStreamingExecutor(RagStreamingProperties properties) {
+        int threads = Math.max(1, properties.getThreads());
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "rag-stream-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        
+        int queueCapacity = Math.max(1, properties.getQueueCapacity());
+        
+        log.info("⚙️ [RAG] Executor de streaming criado | threads={} | queue={} | timeout={}ms", 
+                 threads, queueCapacity, properties.getTimeoutMs());
+        
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
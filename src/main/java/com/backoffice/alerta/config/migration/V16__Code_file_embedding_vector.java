@@ -0,0 +1,150 @@
+package com.backoffice.alerta.config.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+
+/**
+ * Coluna pgvector + índice ANN para code_file_embeddings
+ *
+ * Migração Java (registrada pelo Spring Boot no Flyway) porque depende do banco:
+ * - PostgreSQL com extensão vector: cria embedding_vec vector(n), índice HNSW
+ *   (IVFFlat se a versão do pgvector não tiver HNSW) e copia os embeddings BYTEA existentes
+ * - H2 ou PostgreSQL sem pgvector: nada muda; a busca usa o índice ANN in-JVM
+ *
+ * n = placeholder do Flyway code-vector-dimension (spring.flyway.placeholders.code-vector-dimension),
+ * padrão 384 (Sentence Transformer). É configuração da migração, não do provider ativo:
+ * a mesma versão gera sempre o mesmo schema. Trocar a dimensão exige uma migração
+ * nova (ALTER COLUMN embedding_vec TYPE vector(n) USING NULL + índice); as linhas
+ * BYTEA da nova dimensão são copiadas na subida (CodeIndexingService) e as demais
+ * voltam ao pgvector quando forem re-indexadas.
+ * A coluna BYTEA original é mantida como fonte para o caminho in-JVM.
+ */
+@Component
+public class V16__Code_file_embedding_vector extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V16__Code_file_embedding_vector.class);
+
+    private static final String DIMENSION_PLACEHOLDER = "code-vector-dimension";
+    private static final int DEFAULT_DIMENSION = 384;
+
+    @Value("${rag.vector-store.hnsw.m:16}")
+    private int m;
+
+    @Value("${rag.vector-store.hnsw.ef-construction:200}")
+    private int efConstruction;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        String product = connection.getMetaData().getDatabaseProductName();
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("📦 [V16] {}: code_file_embeddings mantém BYTEA (busca via índice ANN in-JVM)", product);
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (!tryExecute(connection, statement, "CREATE EXTENSION IF NOT EXISTS vector")) {
+                log.warn("⚠️ [V16] Extensão pgvector indisponível: busca de código usará o índice ANN in-JVM");
+                return;
+            }
+
+            int dimension = resolveDimension(context);
+            statement.execute("ALTER TABLE code_file_embeddings ADD COLUMN embedding_vec vector(" + dimension + ")");
+            int copied = backfill(connection, dimension);
+
+            // HNSW (pgvector >= 0.5) com as mesmas métricas do índice in-JVM (cosseno)
+            String hnsw = "CREATE INDEX idx_code_file_embedding_vec ON code_file_embeddings "
+                + "USING hnsw (embedding_vec vector_cosine_ops) WITH (m = " + Math.max(2, m)
+                + ", ef_construction = " + Math.max(2 * Math.max(2, m), efConstruction) + ")";
+            String index = "HNSW";
+            if (!tryExecute(connection, statement, hnsw)) {
+                statement.execute("CREATE INDEX idx_code_file_embedding_vec ON code_file_embeddings "
+                    + "USING ivfflat (embedding_vec vector_cosine_ops) WITH (lists = 100)");
+                index = "IVFFlat";
+            }
+
+            statement.execute("COMMENT ON COLUMN code_file_embeddings.embedding_vec IS "
+                + "'Embedding em pgvector (cosseno) para busca ANN; NULL = dimensão diferente, re-indexar'");
+
+            log.info("✅ [V16] code_file_embeddings.embedding_vec vector({}) criado | índice={} | {} embeddings copiados",
+                     dimension, index, copied);
+        }
+    }
+
+    private static int resolveDimension(Context context) {
+        String configured = context.getConfiguration().getPlaceholders().get(DIMENSION_PLACEHOLDER);
+        if (configured == null || configured.isBlank()) {
+            return DEFAULT_DIMENSION;
+        }
+        int dimension = Integer.parseInt(configured.trim());
+        if (dimension <= 0) {
+            throw new IllegalStateException("Placeholder " + DIMENSION_PLACEHOLDER + " inválido: " + configured);
+        }
+        return dimension;
+    }
+
+    /**
+     * Converte os embeddings BYTEA (float32 big-endian) da mesma dimensão para vector
+     */
+    private int backfill(Connection connection, int dimension) throws SQLException {
+        int copied = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                 "SELECT file_path, embedding FROM code_file_embeddings WHERE dimension = ?");
+             PreparedStatement update = connection.prepareStatement(
+                 "UPDATE code_file_embeddings SET embedding_vec = ?::vector WHERE file_path = ?")) {
+            select.setInt(1, dimension);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    update.setString(1, toVectorLiteral(rs.getBytes("embedding")));
+                    update.setString(2, rs.getString("file_path"));
+                    update.addBatch();
+                    if (++copied % 500 == 0) {
+                        update.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+        }
+        return copied;
+    }
+
+    private static String toVectorLiteral(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        StringBuilder literal = new StringBuilder(bytes.length * 3).append('[');
+        for (int i = 0; i < bytes.length / Float.BYTES; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(buffer.getFloat());
+        }
+        return literal.append(']').toString();
+    }
+
+    /**
+     * Executa DDL opcional sem abortar a transação da migração em caso de erro
+     */
+    private static boolean tryExecute(Connection connection, Statement statement, String sql) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            statement.execute(sql);
+            connection.releaseSavepoint(savepoint);
+            return true;
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            log.debug("[V16] DDL opcional falhou: {} | {}", sql, e.getMessage());
+            return false;
+        }
+    }
+}
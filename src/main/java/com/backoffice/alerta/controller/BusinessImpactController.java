@@ -1,8 +1,12 @@
 package com.backoffice.alerta.controller;
 
+import com.backoffice.alerta.dto.BusinessImpactBatchRequest;
+import com.backoffice.alerta.dto.BusinessImpactBatchResult;
 import com.backoffice.alerta.dto.BusinessImpactRequest;
 import com.backoffice.alerta.dto.BusinessImpactResponse;
 import com.backoffice.alerta.service.BusinessImpactAnalysisService;
+import com.backoffice.alerta.service.BusinessImpactBatchProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -10,9 +14,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller REST para análise de impacto de negócio em Pull Requests
@@ -22,10 +37,21 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Business Impact Analysis", description = "API para análise de impacto de negócio em Pull Requests")
 public class BusinessImpactController {
 
+    private static final Logger log = LoggerFactory.getLogger(BusinessImpactController.class);
+
     private final BusinessImpactAnalysisService service;
+    private final BusinessImpactBatchProperties batchProperties;
+    private final ExecutorService batchExecutor;
+    private final ObjectMapper objectMapper;
 
-    public BusinessImpactController(BusinessImpactAnalysisService service) {
+    public BusinessImpactController(BusinessImpactAnalysisService service,
+                                    BusinessImpactBatchProperties batchProperties,
+                                    @Qualifier("businessImpactBatchExecutor") ExecutorService batchExecutor,
+                                    ObjectMapper objectMapper) {
         this.service = service;
+        this.batchProperties = batchProperties;
+        this.batchExecutor = batchExecutor;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -78,4 +104,83 @@ public class BusinessImpactController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+        summary = "Analisar impacto de negócio de vários Pull Requests (release train)",
+        description = """
+            Mesma análise de `/risk/business-impact` para N PRs em uma requisição.
+            
+            Arquivos alterados e regras impactadas são deduplicados entre os PRs
+            (incidentes e ownerships carregados uma vez por regra) e os PRs são
+            avaliados em paralelo.
+            
+            **📡 Resposta (NDJSON):** uma linha JSON por PR, na ordem em que cada
+            análise termina (`index` = posição do PR na requisição):
+            - `status = OK`: `result` igual à resposta de `/risk/business-impact`
+            - `status = ERROR`: PR inválido ou falha na análise, motivo em `error`
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stream NDJSON com um resultado por PR",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                schema = @Schema(implementation = BusinessImpactBatchResult.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Lote vazio ou acima de business-impact.batch.max-pull-requests",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "Fila de análise em lote cheia (business-impact.batch.queue-capacity); tente novamente",
+            content = @Content(mediaType = "application/json")
+        )
+    })
+    public ResponseEntity<ResponseBodyEmitter> analyzeBusinessImpactBatch(
+            @RequestBody BusinessImpactBatchRequest request) {
+        List<BusinessImpactRequest> pullRequests = request != null ? request.getPullRequests() : null;
+        if (pullRequests == null || pullRequests.isEmpty()
+                || pullRequests.size() > batchProperties.getMaxPullRequests()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<CompletableFuture<BusinessImpactBatchResult>> results;
+        try {
+            results = service.analyzeBatch(pullRequests, batchExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ [IMPACT] Lote rejeitado (fila do executor cheia ou encerrado) | prs={}", pullRequests.size());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        log.info("📦 [IMPACT] Análise em lote iniciada | prs={}", pullRequests.size());
+
+        // Cada PR é escrito assim que termina; o stream fecha depois da última linha
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchProperties.getTimeoutMs());
+        CompletableFuture<?>[] written = results.stream()
+            .map(result -> result.thenAccept(line -> writeLine(emitter, line)))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(written).whenComplete((ignored, e) -> emitter.complete());
+        emitter.onTimeout(() -> results.forEach(result -> result.cancel(false)));
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(emitter);
+    }
+
+    private void writeLine(ResponseBodyEmitter emitter, BusinessImpactBatchResult result) {
+        try {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            objectMapper.writeValue(line, result);
+            line.write('\n');
+            synchronized (emitter) {
+                emitter.send(line.toByteArray(), MediaType.APPLICATION_NDJSON);
+            }
+        } catch (Exception e) {
+            log.debug("[IMPACT] Linha do lote não enviada (cliente desconectado?): {}", e.getMessage());
+        }
+    }
 }
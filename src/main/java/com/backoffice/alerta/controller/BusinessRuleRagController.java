@@ -1,6 +1,8 @@
 package com.backoffice.alerta.controller;
 
 import com.backoffice.alerta.rag.*;
+import com.backoffice.alerta.rag.index.BusinessRuleEmbeddingIndexService;
+import com.backoffice.alerta.rag.index.RagIndexingStatus;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -8,9 +10,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller RAG para consultas sobre regras de negócio
@@ -21,10 +34,21 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "RAG - Consultas Inteligentes", description = "Perguntas em linguagem natural sobre regras de negócio com IA")
 public class BusinessRuleRagController {
     
+    private static final Logger log = LoggerFactory.getLogger(BusinessRuleRagController.class);
+    
     private final BusinessRuleRagService ragService;
+    private final BusinessRuleEmbeddingIndexService indexService;
+    private final RagStreamingProperties streamingProperties;
+    private final ExecutorService streamingExecutor;
     
-    public BusinessRuleRagController(BusinessRuleRagService ragService) {
+    public BusinessRuleRagController(BusinessRuleRagService ragService,
+                                     BusinessRuleEmbeddingIndexService indexService,
+                                     RagStreamingProperties streamingProperties,
+                                     @Qualifier("ragStreamingExecutor") ExecutorService streamingExecutor) {
         this.ragService = ragService;
+        this.indexService = indexService;
+        this.streamingProperties = streamingProperties;
+        this.streamingExecutor = streamingExecutor;
     }
     
     @PostMapping("/query")
@@ -121,4 +145,92 @@ public class BusinessRuleRagController {
         RagQueryResponse response = ragService.query(request);
         return ResponseEntity.ok(response);
     }
+    
+    @PostMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'RISK_MANAGER')")
+    @Operation(
+        summary = "Consulta RAG em streaming (SSE)",
+        description = """
+            Mesma consulta de `/risk/rag/query`, entregue via Server-Sent Events
+            para exibir a resposta enquanto a IA ainda está gerando.
+            
+            **📡 Eventos (em ordem):**
+            - `sources`: lista de fontes selecionadas (antes da geração)
+            - `token`: `{"text": "..."}` — próximo trecho da resposta (zero ou mais)
+            - `truncated`: `{"message": "..."}` — a IA falhou após tokens já enviados;
+              o texto recebido está incompleto e deve ser substituído pelo `complete`
+            - `complete`: resposta completa, igual à de `/risk/rag/query`
+            - `error`: `{"message": "..."}` — falha inesperada (stream encerrado)
+            
+            Se a IA falhar antes do primeiro token, o texto determinístico de fallback
+            chega como `token`; em qualquer caso `complete.usedFallback` = true.
+            
+            Com a fila de streams cheia (`rag.streaming.queue-capacity`) responde 503.
+            
+            **🔐 Acesso:** Apenas ADMIN e RISK_MANAGER
+            """
+    )
+    public ResponseEntity<SseEmitter> queryStream(@Valid @RequestBody RagQueryRequest request) {
+        SseEmitter emitter = new SseEmitter(streamingProperties.getTimeoutMs());
+        try {
+            streamingExecutor.execute(() -> streamQuery(request, emitter));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ [RAG] Stream rejeitado (fila de streams cheia ou executor encerrado)");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    private void streamQuery(RagQueryRequest request, SseEmitter emitter) {
+        try {
+            RagQueryResponse response = ragService.streamQuery(request, new RagStreamListener() {
+                @Override
+                public void onSources(List<RagSourceReference> sources) {
+                    RagSseEvents.send(emitter, RagSseEvents.SOURCES, sources);
+                }
+                
+                @Override
+                public void onToken(String token) {
+                    RagSseEvents.sendToken(emitter, token);
+                }
+                
+                @Override
+                public void onTruncated(String reason) {
+                    RagSseEvents.sendTruncated(emitter, reason);
+                }
+            });
+            RagSseEvents.send(emitter, RagSseEvents.COMPLETE, response);
+            emitter.complete();
+            
+        } catch (RagStreamAbortedException e) {
+            log.info("🔌 [RAG] Cliente desconectou durante o stream");
+            emitter.complete();
+            
+        } catch (Exception e) {
+            log.error("❌ [RAG] Erro no stream: {}", e.getMessage(), e);
+            try {
+                RagSseEvents.send(emitter, RagSseEvents.ERROR, Map.of("message", String.valueOf(e.getMessage())));
+                emitter.complete();
+            } catch (RagStreamAbortedException ignored) {
+                emitter.complete();
+            }
+        }
+    }
+    
+    @GetMapping("/index/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'RISK_MANAGER')")
+    @Operation(
+        summary = "Estado da indexação de embeddings",
+        description = """
+            Readiness e progresso da indexação incremental de embeddings das regras.
+            
+            - `ready`: primeira indexação concluída (antes disso a busca semântica pode estar incompleta)
+            - `unchangedRules` / `reembeddedRules`: regras puladas por hash igual / re-embedadas
+            
+            **🔐 Acesso:** Apenas ADMIN e RISK_MANAGER
+            """
+    )
+    public ResponseEntity<RagIndexingStatus> indexStatus() {
+        return ResponseEntity.ok(indexService.getStatus());
+    }
 }
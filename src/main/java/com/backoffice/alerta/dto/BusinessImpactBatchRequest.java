@@ -0,0 +1,30 @@
+package com.backoffice.alerta.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Request para análise de impacto de negócio de vários Pull Requests (release train)
+ */
+@Schema(description = "Requisição para análise de impacto de negócio em lote")
+public class BusinessImpactBatchRequest {
+
+    @Schema(description = "Pull Requests a analisar", required = true)
+    private List<BusinessImpactRequest> pullRequests;
+
+    public BusinessImpactBatchRequest() {
+    }
+
+    public BusinessImpactBatchRequest(List<BusinessImpactRequest> pullRequests) {
+        this.pullRequests = pullRequests;
+    }
+
+    public List<BusinessImpactRequest> getPullRequests() {
+        return pullRequests;
+    }
+
+    public void setPullRequests(List<BusinessImpactRequest> pullRequests) {
+        this.pullRequests = pullRequests;
+    }
+}
@@ -0,0 +1,88 @@
+package com.backoffice.alerta.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Resultado de um Pull Request na análise em lote (uma linha do stream NDJSON)
+ */
+@Schema(description = "Resultado da análise de impacto de um PR do lote")
+public class BusinessImpactBatchResult {
+
+    public enum Status { OK, ERROR }
+
+    @Schema(description = "ID do Pull Request", example = "PR-123")
+    private String pullRequestId;
+
+    @Schema(description = "Posição do PR na requisição (0-based)", example = "0")
+    private int index;
+
+    @Schema(description = "OK = análise concluída; ERROR = PR inválido ou falha na análise", example = "OK")
+    private Status status;
+
+    @Schema(description = "Análise do PR (null quando status = ERROR)")
+    private BusinessImpactResponse result;
+
+    @Schema(description = "Motivo da falha (null quando status = OK)", example = "changedFiles não pode ser vazio")
+    private String error;
+
+    public BusinessImpactBatchResult() {
+    }
+
+    public static BusinessImpactBatchResult ok(int index, BusinessImpactResponse result) {
+        BusinessImpactBatchResult batchResult = new BusinessImpactBatchResult();
+        batchResult.index = index;
+        batchResult.pullRequestId = result.getPullRequestId();
+        batchResult.status = Status.OK;
+        batchResult.result = result;
+        return batchResult;
+    }
+
+    public static BusinessImpactBatchResult error(int index, String pullRequestId, String error) {
+        BusinessImpactBatchResult batchResult = new BusinessImpactBatchResult();
+        batchResult.index = index;
+        batchResult.pullRequestId = pullRequestId;
+        batchResult.status = Status.ERROR;
+        batchResult.error = error;
+        return batchResult;
+    }
+
+    public String getPullRequestId() {
+        return pullRequestId;
+    }
+
+    public void setPullRequestId(String pullRequestId) {
+        this.pullRequestId = pullRequestId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public BusinessImpactResponse getResult() {
+        return result;
+    }
+
+    public void setResult(BusinessImpactResponse result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
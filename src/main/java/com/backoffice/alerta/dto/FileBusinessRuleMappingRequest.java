@@ -9,7 +9,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @Schema(description = "Requisição para mapear arquivo a uma regra de negócio")
 public class FileBusinessRuleMappingRequest {
 
-    @Schema(description = "Caminho completo do arquivo", 
+    @Schema(description = "Caminho completo do arquivo, diretório (terminado em '/') ou glob ('**', '*', '?')", 
             example = "src/main/java/com/app/payment/PaymentService.java", 
             required = true)
     private String filePath;
@@ -34,6 +34,9 @@ public class RagQualityMetricsResponse {
     @Schema(description = "Porcentagem de casos com confidence=HIGH mas score semântico médio < 0.4", example = "0.05")
     private Double confidenceMismatchRate;
 
+    @Schema(description = "Porcentagem de queries servidas do cache de respostas (0.0 a 1.0)", example = "0.30")
+    private Double cacheHitRate;
+
     @Schema(description = "Contexto do projeto (null = GLOBAL)", example = "550e8400-e29b-41d4-a716-446655440000")
     private UUID projectContext;
 
@@ -111,6 +114,14 @@ public class RagQualityMetricsResponse {
         this.confidenceMismatchRate = confidenceMismatchRate;
     }
 
+    public Double getCacheHitRate() {
+        return cacheHitRate;
+    }
+
+    public void setCacheHitRate(Double cacheHitRate) {
+        this.cacheHitRate = cacheHitRate;
+    }
+
     public UUID getProjectContext() {
         return projectContext;
     }
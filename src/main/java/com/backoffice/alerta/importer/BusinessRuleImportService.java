@@ -12,8 +12,7 @@ import com.backoffice.alerta.project.dto.ProjectContext;
 import com.backoffice.alerta.project.repository.ProjectRepository;
 import com.backoffice.alerta.project.domain.ProjectBusinessRule;
 import com.backoffice.alerta.project.repository.ProjectBusinessRuleRepository;
-import com.backoffice.alerta.rag.embedding.BusinessRuleEmbeddingProvider;
-import com.backoffice.alerta.rag.persistence.JpaBusinessRuleVectorStore;
+import com.backoffice.alerta.rag.index.BusinessRuleEmbeddingIndexService;
 import com.backoffice.alerta.rules.BusinessRule;
 import com.backoffice.alerta.rules.BusinessRuleRepository;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -48,16 +47,13 @@ public class BusinessRuleImportService {
     private final ProjectRepository projectRepository;
     private final BusinessRuleRepository businessRuleRepository;
     private final ProjectBusinessRuleRepository projectBusinessRuleRepository;
-    private final BusinessRuleEmbeddingProvider embeddingProvider;
+    private final BusinessRuleEmbeddingIndexService embeddingIndexService;
     private final CodeCommentRuleExtractor codeCommentExtractor;
     private final MarkdownRuleExtractor markdownExtractor;
     private final YamlRuleExtractor yamlExtractor;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
 
-    @Autowired(required = false)
-    private JpaBusinessRuleVectorStore jpaVectorStore;
-
     @Autowired(required = false)
     private com.backoffice.alerta.service.CodeIndexingService codeIndexingService;
 
@@ -77,14 +73,14 @@ public class BusinessRuleImportService {
             ProjectRepository projectRepository,
             BusinessRuleRepository businessRuleRepository,
             ProjectBusinessRuleRepository projectBusinessRuleRepository,
-            BusinessRuleEmbeddingProvider embeddingProvider,
+            BusinessRuleEmbeddingIndexService embeddingIndexService,
             CodeCommentRuleExtractor codeCommentExtractor,
             MarkdownRuleExtractor markdownExtractor,
             YamlRuleExtractor yamlExtractor) {
         this.projectRepository = projectRepository;
         this.businessRuleRepository = businessRuleRepository;
         this.projectBusinessRuleRepository = projectBusinessRuleRepository;
-        this.embeddingProvider = embeddingProvider;
+        this.embeddingIndexService = embeddingIndexService;
         this.codeCommentExtractor = codeCommentExtractor;
         this.markdownExtractor = markdownExtractor;
         this.yamlExtractor = yamlExtractor;
@@ -145,10 +141,11 @@ public class BusinessRuleImportService {
             int updated = 0;
             int skipped = 0;
             List<ImportedRuleSummary> summaries = new ArrayList<>();
+            List<BusinessRule> pendingIndex = new ArrayList<>();
 
             for (ExtractedBusinessRule extracted : extractedRules) {
                 try {
-                    String action = processRule(extracted, project, request.isDryRun());
+                    String action = processRule(extracted, project, request.isDryRun(), pendingIndex);
                     
                     summaries.add(new ImportedRuleSummary(
                         extracted.getRuleId(),
@@ -176,6 +173,9 @@ public class BusinessRuleImportService {
                 }
             }
 
+            // 5. Indexar embeddings das regras criadas/atualizadas (em lote)
+            indexRuleEmbeddings(pendingIndex, project.getId());
+
             log.info("📊 [US#68] Importação concluída | detectadas={} | criadas={} | atualizadas={} | ignoradas={}", 
                     extractedRules.size(), created, updated, skipped);
 
@@ -329,9 +329,11 @@ public class BusinessRuleImportService {
     /**
      * Processa regra: cria, atualiza ou ignora
      * 
+     * @param pendingIndex Recebe as regras persistidas, para indexação em lote ao final
      * @return "CREATED" | "UPDATED" | "SKIPPED"
      */
-    private String processRule(ExtractedBusinessRule extracted, Project project, boolean dryRun) {
+    private String processRule(ExtractedBusinessRule extracted, Project project, boolean dryRun,
+                               List<BusinessRule> pendingIndex) {
         // Verificar se regra já existe
         Optional<BusinessRule> existingOpt = businessRuleRepository.findById(extracted.getRuleId());
         
@@ -378,8 +380,8 @@ public class BusinessRuleImportService {
                     log.trace("🔗 [US#68] Associação já existe | project={} | rule={}", project.getId(), extracted.getRuleId());
                 }
                 
-                // Reindexar embedding
-                indexRuleEmbedding(existing, project.getId());
+                // Reindexar embedding (em lote, ao final da importação)
+                pendingIndex.add(existing);
                 
                 log.info("♻️ [US#68] Regra atualizada | id={}", extracted.getRuleId());
             } else {
@@ -410,8 +412,8 @@ public class BusinessRuleImportService {
                 );
                 projectBusinessRuleRepository.save(association);
                 
-                // Indexar embedding
-                indexRuleEmbedding(newRule, project.getId());
+                // Indexar embedding (em lote, ao final da importação)
+                pendingIndex.add(newRule);
                 
                 log.info("✅ [US#68] Regra criada | id={}", extracted.getRuleId());
             } else {
@@ -422,52 +424,36 @@ public class BusinessRuleImportService {
     }
 
     /**
-     * Indexa embedding da regra no Vector Store
+     * Indexa embeddings das regras no Vector Store
+     * 
+     * Delega ao BusinessRuleEmbeddingIndexService: mesmo texto do vetor de resumo,
+     * trechos do conteúdo (chunks) e hash de conteúdo da indexação periódica, em lote.
      */
-    private void indexRuleEmbedding(BusinessRule rule, UUID projectId) {
-        try {
-            String text = buildTextForEmbedding(rule);
-            float[] embedding = embeddingProvider.embed(text);
-            
-            if (jpaVectorStore != null) {
-                // Converte String ID para UUID deterministicamente via hash (US#68)
-                UUID ruleUuid = UUID.nameUUIDFromBytes(rule.getId().getBytes());
-                jpaVectorStore.save(ruleUuid, embedding);
-                log.debug("📊 [US#68] Embedding indexado | rule={}", rule.getId());
-            }
+    private void indexRuleEmbeddings(List<BusinessRule> rules, UUID projectId) {
+        if (rules.isEmpty()) {
+            return;
+        }
 
-            // Indexar código se habilitado (FASE 1)
-            if (indexCodeOnOnboarding && codeIndexingService != null) {
-                codeIndexingService.indexBusinessRuleCode(rule, projectId);
-            }
+        embeddingIndexService.indexRules(rules);
+        log.info("📊 [US#68] {} regra(s) enviada(s) para indexação de embeddings", rules.size());
+
+        // Indexar código se habilitado (FASE 1)
+        if (indexCodeOnOnboarding && codeIndexingService != null) {
+            codeIndexingService.indexBusinessRulesCode(rules, projectId);
+        }
 
-            // Indexar AST se habilitado (FASE 2 - opcional)
-            if (indexCodeOnOnboarding && astIndexingService != null) {
+        // Indexar AST se habilitado (FASE 2 - opcional)
+        if (indexCodeOnOnboarding && astIndexingService != null) {
+            for (BusinessRule rule : rules) {
                 try {
                     astIndexingService.indexBusinessRuleAst(rule, projectId);
                 } catch (Exception e) {
                     log.warn("⚠️ [US#68] Erro ao indexar AST | rule={} | error={}", rule.getId(), e.getMessage());
                 }
             }
-        } catch (Exception e) {
-            log.warn("⚠️ [US#68] Erro ao indexar embedding | rule={} | error={}", 
-                    rule.getId(), e.getMessage());
         }
     }
 
-    /**
-     * Constrói texto para embedding
-     */
-    private String buildTextForEmbedding(BusinessRule rule) {
-        return String.format("%s %s %s %s %s",
-            rule.getId(),
-            rule.getName(),
-            rule.getDescription(),
-            rule.getDomain(),
-            rule.getCriticality()
-        );
-    }
-
     /**
      * Cria response vazio em caso de erro
      */
@@ -266,7 +266,7 @@ public class ProjectOnboardingService {
             for (ProjectBusinessRule association : associations) {
                 String ruleId = association.getBusinessRuleId();
                 try {
-                    UUID ruleUuid = UUID.nameUUIDFromBytes(ruleId.getBytes());
+                    UUID ruleUuid = BusinessRule.toVectorId(ruleId);
                     float[] embedding = vectorStore.getEmbedding(ruleUuid);
                     
                     if (embedding != null && embedding.length > 0) {
@@ -1,6 +1,7 @@
 // US#48 - Entidade JPA de Projeto Organizacional
 package com.backoffice.alerta.project.domain;
 
+import com.backoffice.alerta.rag.cache.RagDataVersionEntityListener;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.Objects;
@@ -23,6 +24,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "projects")
+@EntityListeners(RagDataVersionEntityListener.class)
 public class Project {
 
     @Id
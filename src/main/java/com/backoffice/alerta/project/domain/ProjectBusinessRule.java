@@ -1,5 +1,6 @@
 package com.backoffice.alerta.project.domain;
 
+import com.backoffice.alerta.rag.cache.RagDataVersionEntityListener;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.Objects;
@@ -30,6 +31,7 @@ import java.util.UUID;
         @Index(name = "idx_pbr_created_at", columnList = "created_at")
     }
 )
+@EntityListeners(RagDataVersionEntityListener.class)
 public final class ProjectBusinessRule {
 
     @Id
@@ -6,13 +6,24 @@ import com.backoffice.alerta.project.repository.ProjectRepository;
 import com.backoffice.alerta.project.domain.ProjectBusinessRule;
 import com.backoffice.alerta.project.repository.ProjectBusinessRuleRepository;
 import com.backoffice.alerta.rag.cache.QueryEmbeddingCacheProvider;
+import com.backoffice.alerta.rag.cache.RagAnswerCache;
+import com.backoffice.alerta.rag.chunk.BusinessRuleChunkStore;
+import com.backoffice.alerta.rag.chunk.ChunkHit;
+import com.backoffice.alerta.rag.chunk.RagChunkingProperties;
+import com.backoffice.alerta.rag.chunk.RuleChunk;
+import com.backoffice.alerta.rag.chunk.RuleContentChunker;
 import com.backoffice.alerta.rag.embedding.BusinessRuleEmbeddingProvider;
+import com.backoffice.alerta.rag.keyword.KeywordMatch;
 import com.backoffice.alerta.rag.persistence.JpaBusinessRuleVectorStore;
+import com.backoffice.alerta.rag.quality.RagQualityRecorder;
 import com.backoffice.alerta.rag.vector.BusinessRuleVectorStore;
+import com.backoffice.alerta.rag.vector.ScoredRule;
 import com.backoffice.alerta.rules.BusinessRuleOwnership;
 import com.backoffice.alerta.rules.BusinessRuleOwnershipRepository;
 import com.backoffice.alerta.repository.BusinessRuleIncidentRepository;
 import com.backoffice.alerta.rules.BusinessRule;
+import com.backoffice.alerta.rules.BusinessRuleIncident;
+import com.backoffice.alerta.rules.BusinessRuleIncidentStats;
 import com.backoffice.alerta.rules.BusinessRuleRepository;
 import com.backoffice.alerta.rules.Criticality;
 import com.google.gson.Gson;
@@ -21,17 +32,25 @@ import com.google.gson.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.text.Normalizer;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
  * Service RAG para consultas sobre regras de negócio
  * 
- * US#43: Busca keyword-based + fallback determinístico
- * US#44: Busca semântica com embeddings + hybrid search
+ * US#43: Busca keyword-based (BM25 em índice invertido) + fallback determinístico
+ * US#44: Busca semântica com embeddings + hybrid search (paralela, fusão RRF/ponderada)
  * US#66: Suporte a vector store persistente
  * 
  * Read-only, não modifica dados
@@ -50,6 +69,13 @@ public class BusinessRuleRagService {
     private final ProjectRepository projectRepository;
     private final ProjectBusinessRuleRepository projectBusinessRuleRepository;
     private final QueryEmbeddingCacheProvider queryEmbeddingCache;
+    private final RagAnswerCache answerCache;
+    private final RagRetrievalProperties retrievalProperties;
+    private final BusinessRuleChunkStore chunkStore;
+    private final RuleContentChunker chunker;
+    private final RagChunkingProperties chunkingProperties;
+    private final RagQualityRecorder qualityRecorder;
+    private final ExecutorService retrievalExecutor;
     private final Gson gson;
     
     // US#66: VectorStore persistente (opcional, pode ser null se usando in-memory)
@@ -68,7 +94,14 @@ public class BusinessRuleRagService {
             BusinessRuleVectorStore vectorStore,
             ProjectRepository projectRepository,
             ProjectBusinessRuleRepository projectBusinessRuleRepository,
-            QueryEmbeddingCacheProvider queryEmbeddingCache) {
+            QueryEmbeddingCacheProvider queryEmbeddingCache,
+            RagAnswerCache answerCache,
+            RagRetrievalProperties retrievalProperties,
+            BusinessRuleChunkStore chunkStore,
+            RuleContentChunker chunker,
+            RagChunkingProperties chunkingProperties,
+            RagQualityRecorder qualityRecorder,
+            @Qualifier("ragRetrievalExecutor") ExecutorService retrievalExecutor) {
         this.ruleRepository = ruleRepository;
         this.ownershipRepository = ownershipRepository;
         this.incidentRepository = incidentRepository;
@@ -78,20 +111,70 @@ public class BusinessRuleRagService {
         this.projectRepository = projectRepository;
         this.projectBusinessRuleRepository = projectBusinessRuleRepository;
         this.queryEmbeddingCache = queryEmbeddingCache;
+        this.answerCache = answerCache;
+        this.retrievalProperties = retrievalProperties;
+        this.chunkStore = chunkStore;
+        this.chunker = chunker;
+        this.chunkingProperties = chunkingProperties;
+        this.qualityRecorder = qualityRecorder;
+        this.retrievalExecutor = retrievalExecutor;
         this.gson = new Gson();
     }
     
     public RagQueryResponse query(RagQueryRequest request) {
+        return recorded(execute(request, null));
+    }
+    
+    /**
+     * Consulta RAG em streaming: fontes primeiro, depois os tokens da resposta à medida que chegam
+     * 
+     * @return Resposta completa (mesma de query), após o último token
+     */
+    public RagQueryResponse streamQuery(RagQueryRequest request, RagStreamListener listener) {
+        return recorded(execute(request, Objects.requireNonNull(listener)));
+    }
+    
+    /**
+     * US#67: Toda resposta servida alimenta as métricas de qualidade
+     */
+    private RagQueryResponse recorded(RagQueryResponse response) {
+        qualityRecorder.record(response);
+        return response;
+    }
+    
+    /**
+     * @param listener Recebe fontes e tokens em streaming (null = resposta apenas no retorno)
+     */
+    private RagQueryResponse execute(RagQueryRequest request, RagStreamListener listener) {
         log.info("🔍 RAG Query: '{}' (focus: {}, maxSources: {})", 
                  request.getQuestion(), request.getFocus(), request.getMaxSources());
         
+        long queryStart = System.nanoTime();
+        
+        // US#64: Resposta completa cacheada (invalidada por alteração de dados)
+        RagAnswerCache.Key cacheKey = new RagAnswerCache.Key(normalizeQuery(request.getQuestion()),
+            request.getProjectId(), request.getFocus(), request.getMaxSources());
+        long dataVersion = answerCache.currentVersion();
+        Optional<RagQueryResponse> cached = answerCache.get(cacheKey);
+        if (cached.isPresent()) {
+            log.info("⚡ RAG Answer Cache HIT | dataVersion={} | {}µs", 
+                     dataVersion, (System.nanoTime() - queryStart) / 1_000);
+            RagQueryResponse response = servedFromCache(cached.get(), queryStart);
+            replay(listener, response);
+            return response;
+        }
+        
+        RagStageTimings timings = new RagStageTimings();
+        
         // US#63: Maps para rastrear scores durante a busca
         Map<String, Double> semanticScores = new HashMap<>();
-        Map<String, Integer> keywordScores = new HashMap<>();
+        Map<String, KeywordMatch> keywordScores = new HashMap<>();
+        Map<String, Double> fusedScores = new HashMap<>();
+        Map<String, ChunkHit> chunkHits = new HashMap<>();
         
         // US#50: Escopo de projeto (opcional)
         Project project = null;
-        Set<String> allowedRuleIds = null;
+        List<BusinessRule> projectRules = null;
         
         if (request.getProjectId() != null) {
             project = projectRepository.findById(request.getProjectId())
@@ -101,96 +184,155 @@ public class BusinessRuleRagService {
             log.info("🔎 Análise escopada para Projeto: {} ({})", 
                     project.getName(), request.getProjectId());
             
-            List<ProjectBusinessRule> associations = projectBusinessRuleRepository
-                .findByProjectId(request.getProjectId());
-            
-            // Converter IDs das regras para UUIDs (para match com busca semântica)
-            allowedRuleIds = associations.stream()
+            // Regras do projeto (cada regra já carrega seu ID de vetor)
+            projectRules = projectBusinessRuleRepository.findByProjectId(request.getProjectId()).stream()
                 .map(ProjectBusinessRule::getBusinessRuleId)
-                .map(ruleId -> UUID.nameUUIDFromBytes(ruleId.getBytes()).toString())
-                .collect(Collectors.toSet());
+                .map(ruleRepository::findById)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
             
-            log.info("📋 Regras permitidas no projeto: {} regras", allowedRuleIds.size());
+            log.info("📋 Regras permitidas no projeto: {} regras", projectRules.size());
         } else {
             log.info("🌐 Análise GLOBAL (sem escopo de projeto)");
         }
         
         // 1. Retrieval: buscar dados reais do sistema
-        List<BusinessRule> relevantRules = retrieveRelevantRules(request, allowedRuleIds, semanticScores, keywordScores);
+        List<BusinessRule> relevantRules = retrieveRelevantRules(
+            request, projectRules, semanticScores, keywordScores, fusedScores, chunkHits, timings);
         
         if (relevantRules.isEmpty()) {
-            return buildNoDataResponse(request, project);
+            RagQueryResponse noData = buildNoDataResponse(request, project);
+            timings.setTotalMs(elapsedMs(queryStart));
+            noData.setTimings(timings);
+            replay(listener, noData);
+            return noData;
         }
         
         // 2. Ranking: ordenar por relevância
-        List<BusinessRule> rankedRules = rankRules(relevantRules, request.getMaxSources());
+        long stageStart = System.nanoTime();
+        Map<String, BusinessRuleIncidentStats> incidentStats = loadIncidentStats(relevantRules);
+        List<BusinessRule> rankedRules = rankRules(relevantRules, incidentStats, request.getMaxSources());
+        timings.setRankingMs(elapsedMs(stageStart));
         
         // 3. Construir contexto estruturado
-        String context = buildStructuredContext(rankedRules, request);
+        stageStart = System.nanoTime();
+        String context = buildStructuredContext(rankedRules, request, chunkHits);
+        timings.setContextMs(elapsedMs(stageStart));
         
         // 4. Gerar resposta com IA (ou fallback)
-        RagQueryResponse response = generateResponse(request, context, rankedRules);
+        stageStart = System.nanoTime();
+        RagQueryResponse response = generateResponse(request, context, rankedRules, chunkHits,
+            incidentStats, listener);
+        timings.setGenerationMs(elapsedMs(stageStart));
         
         // US#63: Popular scores detalhados
-        populateRuleScores(response, rankedRules, semanticScores, keywordScores, response.isUsedFallback());
+        populateRuleScores(response, rankedRules, semanticScores, keywordScores, fusedScores, 
+                           response.isUsedFallback());
         
         // US#50: Adicionar contexto de projeto
         response.setProjectContext(project != null 
             ? ProjectContext.scoped(project.getId(), project.getName())
             : ProjectContext.global());
         
+        timings.setTotalMs(elapsedMs(queryStart));
+        response.setTimings(timings);
+        
         log.info("✅ RAG Response: confidence={}, sources={}, usedFallback={}, scoped={}", 
                  response.getConfidence(), response.getSources().size(), 
                  response.isUsedFallback(), response.getProjectContext().isScoped());
+        log.info("⏱️ RAG Timings: {}", timings);
+        
+        // Respostas de fallback não são cacheadas (LLM pode se recuperar)
+        if (!response.isUsedFallback()) {
+            answerCache.put(cacheKey, response, dataVersion);
+        }
         
         return response;
     }
     
-    private List<BusinessRule> retrieveRelevantRules(RagQueryRequest request, Set<String> allowedRuleIds,
-                                                     Map<String, Double> semanticScores, Map<String, Integer> keywordScores) {
+    /**
+     * @param chunkHits Saída: trecho vencedor por ID da regra (busca por trechos)
+     */
+    private List<BusinessRule> retrieveRelevantRules(RagQueryRequest request, List<BusinessRule> projectRules,
+                                                     Map<String, Double> semanticScores, 
+                                                     Map<String, KeywordMatch> keywordScores,
+                                                     Map<String, Double> fusedScores,
+                                                     Map<String, ChunkHit> chunkHits,
+                                                     RagStageTimings timings) {
         log.info("🔍 Iniciando hybrid search para pergunta: '{}'", request.getQuestion());
+        int topK = request.getMaxSources() * 2;
+        long retrievalStart = System.nanoTime();
+        
+        // US#50: Com escopo, cada busca avalia apenas as regras do projeto
+        Set<UUID> allowedVectorIds = projectRules == null ? null : projectRules.stream()
+            .map(BusinessRule::getVectorId)
+            .collect(Collectors.toSet());
+        Set<String> allowedRuleIds = projectRules == null ? null : projectRules.stream()
+            .map(BusinessRule::getId)
+            .collect(Collectors.toSet());
+        
+        // US#44: Busca semântica (embedding da query domina a latência) em paralelo à lexical;
+        // o embedding é assíncrono e só a busca vetorial ocupa o pool de retrieval
+        CompletableFuture<SemanticHits> semanticFuture =
+            retrieveSemanticRulesAsync(request.getQuestion(), topK, allowedVectorIds);
+        if (!retrievalProperties.isParallel()) {
+            semanticFuture = CompletableFuture.completedFuture(semanticFuture.join());
+        }
+        
+        // US#43: Busca keyword-based BM25 (mantida para robustez)
+        long keywordStart = System.nanoTime();
+        List<KeywordMatch> keywordHits = retrieveKeywordRules(request.getQuestion(), topK, allowedRuleIds);
+        timings.setKeywordMs(elapsedMs(keywordStart));
+        
+        SemanticHits semanticHits = awaitSemantic(semanticFuture);
+        timings.setSemanticMs(semanticHits.elapsedMs());
+        timings.setRetrievalMs(elapsedMs(retrievalStart));
+        
+        // Resolver IDs (lookup direto no repositório, sem varrer o catálogo)
+        long fusionStart = System.nanoTime();
+        Map<String, BusinessRule> rulesById = new HashMap<>();
+        List<String> semanticRanking = new ArrayList<>(semanticHits.hits().size());
+        for (ScoredRule scored : semanticHits.hits()) {
+            ruleRepository.findByVectorId(scored.ruleId()).ifPresent(rule -> {
+                rulesById.put(rule.getId(), rule);
+                semanticRanking.add(rule.getId());
+                // US#63: Capturar scores de similaridade (já calculados pelo vector store)
+                semanticScores.put(rule.getId(), scored.similarity());
+                ChunkHit chunk = semanticHits.chunks().get(scored.ruleId());
+                if (chunk != null) {
+                    chunkHits.put(rule.getId(), chunk);
+                }
+            });
+        }
+        List<String> keywordRanking = new ArrayList<>(keywordHits.size());
+        for (KeywordMatch match : keywordHits) {
+            ruleRepository.findById(match.ruleId()).ifPresent(rule -> {
+                rulesById.put(rule.getId(), rule);
+                keywordRanking.add(rule.getId());
+                keywordScores.put(rule.getId(), match);
+                log.info("✅ Match keyword [BM25={}, termos={}]: [{}] {}", 
+                         String.format("%.2f", match.score()), match.matchedTerms(), rule.getId(), rule.getName());
+            });
+        }
+        log.info("📊 Busca semântica retornou: {} regras | keyword retornou: {} regras", 
+                 semanticRanking.size(), keywordRanking.size());
+        
+        // Fusão das duas listas ranqueadas
+        fusedScores.putAll(fuse(semanticRanking, keywordRanking, semanticScores, keywordScores));
+        List<BusinessRule> matchedRules = fusedScores.entrySet().stream()
+            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+            .map(entry -> rulesById.get(entry.getKey()))
+            .collect(Collectors.toList());
+        timings.setFusionMs(elapsedMs(fusionStart));
         
-        // US#44: Busca semântica (com fallback automático)
-        Set<String> semanticRuleIds = retrieveSemanticRules(request.getQuestion(), request.getMaxSources() * 2, semanticScores);
-        log.info("📊 Busca semântica retornou: {} IDs -> {}", semanticRuleIds.size(), semanticRuleIds);
-        
-        // US#43: Busca keyword-based (mantida para robustez)
-        Set<String> keywordRuleIds = retrieveKeywordRules(request.getQuestion(), keywordScores);
-        log.info("📊 Busca keyword retornou: {} IDs -> {}", keywordRuleIds.size(), keywordRuleIds);
-        
-        // Merge: união dos resultados
-        Set<String> mergedIds = new HashSet<>();
-        mergedIds.addAll(semanticRuleIds);
-        mergedIds.addAll(keywordRuleIds);
-        
-        // US#50: Filtrar por projeto se especificado
-        if (allowedRuleIds != null) {
-            mergedIds.retainAll(allowedRuleIds);
-            log.info("📊 Após filtro de projeto: {} IDs", mergedIds.size());
-        }
-        
-        log.info("📊 Hybrid search total: {} IDs únicos", mergedIds.size());
-        
-        // Buscar objetos completos
-        List<BusinessRule> allRulesInRepo = ruleRepository.findAll();
-        log.info("🔍 DEBUG: Total de regras no repositório ANTES do filtro: {}", allRulesInRepo.size());
-        
-        List<BusinessRule> allRules;
-        if (allowedRuleIds != null) {
-            // US#50: Buscar apenas regras do projeto
-            allRules = allRulesInRepo.stream()
-                .filter(rule -> allowedRuleIds.contains(UUID.nameUUIDFromBytes(rule.getId().getBytes()).toString()))
-                .collect(Collectors.toList());
-            log.info("📊 Total de regras no projeto: {}", allRules.size());
-        } else {
-            allRules = ruleRepository.findAll();
-            log.info("📊 Total de regras no repositório: {}", allRules.size());
-        }
+        log.info("📊 Hybrid search total ({}): {} IDs únicos", retrievalProperties.getFusion(), matchedRules.size());
         
         // PASSO 5: Fallback se busca retornar vazia
-        if (mergedIds.isEmpty() && !allRules.isEmpty()) {
-            log.warn("⚠️ Nenhum match - ativando fallback: retornar TOP 3 por criticidade");
-            return allRules.stream()
+        if (matchedRules.isEmpty()) {
+            List<BusinessRule> candidateRules = projectRules != null ? projectRules : ruleRepository.findAll();
+            log.warn("⚠️ Nenhum match - ativando fallback: retornar TOP 3 de {} regras por criticidade", 
+                     candidateRules.size());
+            return candidateRules.stream()
                 .sorted((r1, r2) -> Integer.compare(
                     getCriticalityScore(r2.getCriticality()),
                     getCriticalityScore(r1.getCriticality())
@@ -199,208 +341,179 @@ public class BusinessRuleRagService {
                 .collect(Collectors.toList());
         }
         
-        List<BusinessRule> matchedRules = allRules.stream()
-            .filter(rule -> mergedIds.contains(UUID.nameUUIDFromBytes(rule.getId().getBytes()).toString()))
-            .collect(Collectors.toList());
-        
         log.info("✅ Regras encontradas após filtro: {}", matchedRules.size());
         
         return matchedRules;
     }
     
-    private Set<String> retrieveSemanticRules(String question, int topK, Map<String, Double> semanticScores) {
-        try {
-            if (question == null || question.trim().isEmpty()) {
-                log.warn("⚠️ Query vazia, pulando busca semântica");
-                return Collections.emptySet();
-            }
-            
-            // US#64: Normalizar query para chave de cache
-            String normalizedQuery = normalizeQuery(question);
-            
-            // US#64: Tentar buscar embedding no cache
-            float[] queryEmbedding = queryEmbeddingCache.get(normalizedQuery)
-                    .orElseGet(() -> {
-                        // Cache MISS: gerar embedding
-                        log.info("🔍 Gerando embedding para query...");
-                        float[] embedding = embeddingProvider.embed(question);
-                        log.info("✅ Query embedding gerado: dimensão {}", embedding.length);
-                        
-                        // US#64: Salvar no cache
-                        queryEmbeddingCache.put(normalizedQuery, embedding);
-                        
-                        return embedding;
-                    });
-            
-            // US#66: Usar JpaVectorStore se disponível, senão in-memory
-            List<UUID> topRuleIds;
-            if (jpaVectorStore != null) {
-                topRuleIds = jpaVectorStore.findTopK(queryEmbedding, topK);
-            } else {
-                topRuleIds = vectorStore.findTopK(queryEmbedding, topK);
+    /**
+     * Funde as listas semântica e lexical (sem duplicatas, por ID da regra)
+     * 
+     * RRF:      score = Σ 1 / (k + posição)  — usa só a posição, robusto a escalas diferentes
+     * WEIGHTED: score = wS · similaridade + wK · (BM25 / maior BM25 da lista)
+     * 
+     * @return Score fundido por ID da regra
+     */
+    private Map<String, Double> fuse(List<String> semanticRanking, List<String> keywordRanking,
+                                     Map<String, Double> semanticScores, Map<String, KeywordMatch> keywordScores) {
+        Map<String, Double> fused = new HashMap<>();
+        
+        if (retrievalProperties.getFusion() == RagRetrievalProperties.FusionStrategy.WEIGHTED) {
+            double maxBm25 = keywordScores.values().stream().mapToDouble(KeywordMatch::score).max().orElse(1.0);
+            for (String ruleId : semanticRanking) {
+                fused.merge(ruleId, retrievalProperties.getSemanticWeight() 
+                    * Math.max(0.0, semanticScores.get(ruleId)), Double::sum);
             }
-            
-            // US#63: Capturar scores de similaridade
-            for (UUID ruleId : topRuleIds) {
-                try {
-                    // Calcular cosine similarity real
-                    float[] ruleEmbedding;
-                    if (jpaVectorStore != null) {
-                        ruleEmbedding = jpaVectorStore.getEmbedding(ruleId);
-                    } else {
-                        ruleEmbedding = vectorStore.getEmbedding(ruleId);
-                    }
-                    
-                    if (ruleEmbedding != null) {
-                        double similarity = cosineSimilarity(queryEmbedding, ruleEmbedding);
-                        semanticScores.put(ruleId.toString(), similarity);
-                    }
-                } catch (Exception e) {
-                    log.debug("⚠️ Não foi possível calcular similarity para {}", ruleId);
-                }
+            for (String ruleId : keywordRanking) {
+                fused.merge(ruleId, retrievalProperties.getKeywordWeight() 
+                    * keywordScores.get(ruleId).score() / maxBm25, Double::sum);
             }
-            
-            Set<String> ruleIds = topRuleIds.stream()
-                .map(UUID::toString)
-                .collect(Collectors.toSet());
-            
-            log.info("✅ Busca semântica: {} regras encontradas", ruleIds.size());
-            return ruleIds;
-            
-        } catch (Exception e) {
-            log.warn("⚠️ Falha na busca semântica, usando apenas keywords: {}", e.getMessage());
-            return Collections.emptySet();
+            return fused;
         }
+        
+        int k = Math.max(1, retrievalProperties.getRrfK());
+        for (int i = 0; i < semanticRanking.size(); i++) {
+            fused.merge(semanticRanking.get(i), 1.0 / (k + i + 1), Double::sum);
+        }
+        for (int i = 0; i < keywordRanking.size(); i++) {
+            fused.merge(keywordRanking.get(i), 1.0 / (k + i + 1), Double::sum);
+        }
+        return fused;
     }
     
     /**
-     * US#63: Calcula cosine similarity entre dois vetores
+     * Aguarda a busca semântica; em timeout/erro segue apenas com a busca lexical
      */
-    private double cosineSimilarity(float[] vec1, float[] vec2) {
-        if (vec1.length != vec2.length) {
-            return 0.0;
-        }
-        
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-        
-        for (int i = 0; i < vec1.length; i++) {
-            dotProduct += vec1[i] * vec2[i];
-            norm1 += vec1[i] * vec1[i];
-            norm2 += vec2[i] * vec2[i];
-        }
-        
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
-        }
-        
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    private SemanticHits awaitSemantic(CompletableFuture<SemanticHits> future) {
+        try {
+            return future.get(retrievalProperties.getSemanticTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("⚠️ Busca semântica excedeu {}ms, usando apenas keywords", 
+                     retrievalProperties.getSemanticTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Busca semântica interrompida, usando apenas keywords");
+        } catch (ExecutionException e) {
+            log.warn("⚠️ Falha na busca semântica, usando apenas keywords: {}", e.getCause().getMessage());
+        }
+        return SemanticHits.empty(retrievalProperties.getSemanticTimeoutMs());
     }
     
-    private Set<String> retrieveKeywordRules(String question, Map<String, Integer> keywordScores) {
-        String questionLower = question.toLowerCase();
-        List<BusinessRule> allRules = ruleRepository.findAll();
-        
-        // US#63: Contar matches por regra
-        Set<String> matchedIds = new HashSet<>();
+    /**
+     * Resultado da busca semântica com o tempo gasto (embedding + vector store)
+     */
+    private record SemanticHits(List<ScoredRule> hits, long elapsedMs, Map<UUID, ChunkHit> chunks) {
         
-        for (BusinessRule rule : allRules) {
-            int matchCount = countKeywordMatches(rule, questionLower);
-            if (matchCount > 0) {
-                matchedIds.add(rule.getId());
-                keywordScores.put(rule.getId(), matchCount);
-            }
+        static SemanticHits empty(long elapsedMs) {
+            return new SemanticHits(Collections.emptyList(), elapsedMs, Collections.emptyMap());
         }
-        
-        return matchedIds;
     }
     
     /**
-     * US#63: Conta quantos termos da query deram match na regra
+     * Agregação max-sim: cada regra fica com a maior similaridade entre o vetor
+     * de resumo e seus trechos; o melhor trecho é guardado para o contexto do LLM
      */
-    private int countKeywordMatches(BusinessRule rule, String questionLower) {
-        if (rule == null || questionLower == null) {
-            return 0;
-        }
-        
-        String ruleName = normalize(rule.getName());
-        String ruleDesc = normalize(rule.getDescription());
-        String searchText = ruleName + " " + ruleDesc;
-        String questionNorm = normalize(questionLower);
-        
-        int matchCount = 0;
-        
-        // Pagamento
-        if (contains(questionNorm, "pagamento", "payment")) {
-            if (contains(searchText, "pagamento", "payment", "pagar", "pago")) {
-                matchCount++;
-            }
-        }
-        
-        // PIX
-        if (contains(questionNorm, "pix")) {
-            if (contains(searchText, "pix")) {
-                matchCount++;
-            }
-        }
-        
-        // Pessoa Jurídica / Corporativo / CNPJ
-        if (contains(questionNorm, "pj", "juridica", "corporativo", "empresa", "cnpj")) {
-            if (contains(searchText, "pj", "juridica", "corporativo", "cnpj", "pessoa juridica")) {
-                matchCount++;
-            }
-        }
-        
-        // CPF / Pessoa Física
-        if (contains(questionNorm, "cpf", "fisica", "individual")) {
-            if (contains(searchText, "cpf", "fisica", "pessoa fisica")) {
-                matchCount++;
-            }
-        }
+    private SemanticHits mergeChunkHits(List<ScoredRule> ruleHits, List<ChunkHit> chunkHits, 
+                                        int topK, long elapsedMs) {
+        Map<UUID, Double> best = new HashMap<>();
+        for (ScoredRule hit : ruleHits) {
+            best.merge(hit.ruleId(), hit.similarity(), Math::max);
+        }
+        Map<UUID, ChunkHit> chunks = new HashMap<>();
+        for (ChunkHit hit : chunkHits) {
+            best.merge(hit.ruleVectorId(), hit.similarity(), Math::max);
+            chunks.put(hit.ruleVectorId(), hit);
+        }
+        
+        List<ScoredRule> merged = best.entrySet().stream()
+            .map(entry -> new ScoredRule(entry.getKey(), entry.getValue()))
+            .sorted(Comparator.comparingDouble(ScoredRule::similarity).reversed())
+            .limit(topK)
+            .collect(Collectors.toList());
         
-        // Validação / Documentos / Cadastro
-        if (contains(questionNorm, "validar", "validacao", "documento", "cadastro", "registro")) {
-            if (contains(searchText, "validacao", "validar", "cadastro", "registro", "documento")) {
-                matchCount++;
-            }
+        log.info("✅ Busca por trechos: {} regra(s) com trecho relevante | {} após agregação", 
+                 chunkHits.size(), merged.size());
+        return new SemanticHits(merged, elapsedMs, chunks);
+    }
+    
+    /**
+     * Nunca completa com erro: falhas viram SemanticHits vazio (segue só com keywords)
+     * 
+     * @param allowedVectorIds US#50: IDs de vetor do projeto (null = busca global)
+     */
+    private CompletableFuture<SemanticHits> retrieveSemanticRulesAsync(String question, int topK,
+                                                                       Set<UUID> allowedVectorIds) {
+        long start = System.nanoTime();
+        if (question == null || question.trim().isEmpty()) {
+            log.warn("⚠️ Query vazia, pulando busca semântica");
+            return CompletableFuture.completedFuture(SemanticHits.empty(elapsedMs(start)));
         }
         
-        // Cálculo / Horas / Trabalho
-        if (contains(questionNorm, "calculo", "hora", "trabalho")) {
-            if (contains(searchText, "calculo", "hora", "trabalho")) {
-                matchCount++;
-            }
-        }
+        // US#64: Normalizar query para chave de cache
+        String normalizedQuery = normalizeQuery(question);
         
-        if (matchCount > 0) {
-            log.info("✅ Match keyword [{} matches]: [{}] {}", matchCount, rule.getId(), rule.getName());
+        CompletableFuture<float[]> embeddingFuture;
+        try {
+            // US#64: Buscar embedding no cache; MISSes concorrentes da mesma
+            // query compartilham uma única chamada ao provider
+            embeddingFuture = queryEmbeddingCache.getOrComputeAsync(normalizedQuery, key -> {
+                log.info("🔍 Gerando embedding para query...");
+                return embeddingProvider.embedAsync(question).thenApply(embedding -> {
+                    log.info("✅ Query embedding gerado: dimensão {}", embedding.length);
+                    return embedding;
+                });
+            });
+        } catch (Exception e) {
+            embeddingFuture = CompletableFuture.failedFuture(e);
         }
         
-        return matchCount;
+        return embeddingFuture
+            .thenApplyAsync(queryEmbedding -> {
+                // US#66: Usar JpaVectorStore se disponível, senão in-memory
+                List<ScoredRule> topRules;
+                if (jpaVectorStore != null) {
+                    topRules = jpaVectorStore.findTopKWithScores(queryEmbedding, topK, allowedVectorIds);
+                } else {
+                    topRules = vectorStore.findTopKWithScores(queryEmbedding, topK, allowedVectorIds);
+                }
+                
+                log.info("✅ Busca semântica: {} regras encontradas", topRules.size());
+                
+                // Trechos do conteúdo: score da regra = max(resumo, melhor trecho)
+                if (!chunkingProperties.isEnabled()) {
+                    return new SemanticHits(topRules, elapsedMs(start), Collections.emptyMap());
+                }
+                List<ChunkHit> chunkHits = chunkStore.findTopRules(queryEmbedding, topK, allowedVectorIds);
+                return mergeChunkHits(topRules, chunkHits, topK, elapsedMs(start));
+            }, retrievalExecutor)
+            .exceptionally(error -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                log.warn("⚠️ Falha na busca semântica, usando apenas keywords: {}", cause.getMessage());
+                return SemanticHits.empty(elapsedMs(start));
+            });
     }
     
-    private String normalize(String text) {
-        if (text == null) return "";
-        return text.toLowerCase()
-            .replace("á", "a").replace("à", "a").replace("ã", "a")
-            .replace("é", "e").replace("ê", "e")
-            .replace("í", "i")
-            .replace("ó", "o").replace("õ", "o").replace("ô", "o")
-            .replace("ú", "u")
-            .replace("ç", "c");
+    /**
+     * US#43: Busca lexical BM25 no índice invertido do repositório
+     * (mantido incrementalmente a cada save, sem varrer o catálogo)
+     * 
+     * @param allowedRuleIds US#50: IDs das regras do projeto (null = busca global)
+     */
+    private List<KeywordMatch> retrieveKeywordRules(String question, int topK, Set<String> allowedRuleIds) {
+        if (question == null || question.isBlank()) {
+            return Collections.emptyList();
+        }
+        return ruleRepository.searchByKeywords(question, topK, allowedRuleIds);
     }
     
-    private boolean contains(String text, String... keywords) {
-        for (String keyword : keywords) {
-            if (text.contains(keyword)) {
-                return true;
-            }
-        }
-        return false;
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
     
-    private List<BusinessRule> rankRules(List<BusinessRule> rules, int maxSources) {
+    private List<BusinessRule> rankRules(List<BusinessRule> rules, Map<String, BusinessRuleIncidentStats> incidentStats,
+                                         int maxSources) {
         // US#44: Re-ranking híbrido (semântica + criticidade + incidentes)
         log.debug("🎯 Re-ranking {} regras...", rules.size());
         
@@ -408,8 +521,10 @@ public class BusinessRuleRagService {
         List<RankedRule> rankedRules = rules.stream()
             .map(rule -> {
                 double criticalityScore = getCriticalityScore(rule.getCriticality()) * 10.0; // 10-40
-                long incidentCount = getIncidentCount(rule.getId());
-                double incidentScore = Math.min(incidentCount * 5.0, 20.0); // Max 20
+                // Peso por severidade (LOW=5 ... CRITICAL=20)
+                long incidentWeight = incidentStats.getOrDefault(rule.getId(), BusinessRuleIncidentStats.EMPTY)
+                    .getTotalWeight();
+                double incidentScore = Math.min(incidentWeight, 20.0); // Max 20
                 
                 // Score total: criticidade + incidentes (até 60 pontos)
                 double totalScore = criticalityScore + incidentScore;
@@ -441,16 +556,44 @@ public class BusinessRuleRagService {
         };
     }
     
-    private long getIncidentCount(String ruleId) {
+    /**
+     * Estatísticas de incidentes de todas as regras candidatas em uma única consulta agrupada
+     * 
+     * @return Estatísticas por ID da regra (regras sem incidentes ficam fora do mapa)
+     */
+    private Map<String, BusinessRuleIncidentStats> loadIncidentStats(List<BusinessRule> rules) {
+        Map<UUID, BusinessRuleIncidentStats> byUuid = incidentRepository.findStatsByBusinessRuleIds(ruleUuids(rules));
+        Map<String, BusinessRuleIncidentStats> stats = new HashMap<>();
+        for (BusinessRule rule : rules) {
+            BusinessRuleIncidentStats ruleStats = byUuid.get(toUuid(rule.getId()));
+            if (ruleStats != null) {
+                stats.put(rule.getId(), ruleStats);
+            }
+        }
+        return stats;
+    }
+    
+    private static Set<UUID> ruleUuids(List<BusinessRule> rules) {
+        Set<UUID> ruleUuids = new LinkedHashSet<>();
+        for (BusinessRule rule : rules) {
+            UUID ruleUuid = toUuid(rule.getId());
+            if (ruleUuid != null) {
+                ruleUuids.add(ruleUuid);
+            }
+        }
+        return ruleUuids;
+    }
+    
+    private static UUID toUuid(String ruleId) {
         try {
-            UUID uuid = UUID.fromString(ruleId);
-            return incidentRepository.findByBusinessRuleIdOrderByOccurredAtDesc(uuid).size();
+            return UUID.fromString(ruleId);
         } catch (IllegalArgumentException e) {
-            return 0;
+            return null; // ID inválido, ignorar
         }
     }
     
-    private String buildStructuredContext(List<BusinessRule> rules, RagQueryRequest request) {
+    private String buildStructuredContext(List<BusinessRule> rules, RagQueryRequest request,
+                                          Map<String, ChunkHit> chunkHits) {
         JsonObject context = new JsonObject();
         
         // Rules
@@ -461,9 +604,13 @@ public class BusinessRuleRagService {
             ruleObj.addProperty("name", rule.getName());
             ruleObj.addProperty("description", rule.getDescription());
             
-            // Adicionar conte\u00fado completo se dispon\u00edvel
-            if (rule.getContent() != null && !rule.getContent().isBlank()) {
-                ruleObj.addProperty("content", rule.getContent());
+            // Conteúdo: só o trecho relevante (ou o início) quando o chunking está ativo
+            String content = contextContent(rule, chunkHits.get(rule.getId()));
+            if (content != null) {
+                ruleObj.addProperty("content", content);
+                if (content.length() < rule.getContent().length()) {
+                    ruleObj.addProperty("contentExcerpt", true);
+                }
             }
                         // Adicionar sourceFile se disponível
             if (rule.getSourceFile() != null && !rule.getSourceFile().isBlank()) {
@@ -475,21 +622,21 @@ public class BusinessRuleRagService {
         }
         context.add("rules", rulesArray);
         
-        // Incidents
+        // Incidents (uma consulta para todas as regras, agrupados na ordem do ranking)
         JsonArray incidentsArray = new JsonArray();
+        Set<UUID> ruleUuids = ruleUuids(rules);
+        Map<UUID, List<BusinessRuleIncident>> incidentsByRule = ruleUuids.isEmpty()
+            ? Map.of()
+            : incidentRepository.findByBusinessRuleIdInOrderByOccurredAtDesc(ruleUuids).stream()
+                .collect(Collectors.groupingBy(BusinessRuleIncident::getBusinessRuleId));
         for (BusinessRule rule : rules) {
-            try {
-                UUID ruleUuid = UUID.fromString(rule.getId());
-                var incidents = incidentRepository.findByBusinessRuleIdOrderByOccurredAtDesc(ruleUuid);
-                for (var incident : incidents) {
-                    JsonObject incidentObj = new JsonObject();
-                    incidentObj.addProperty("ruleId", rule.getId());
-                    incidentObj.addProperty("severity", incident.getSeverity().name());
-                    incidentObj.addProperty("description", incident.getDescription());
-                    incidentsArray.add(incidentObj);
-                }
-            } catch (IllegalArgumentException e) {
-                // ID inválido, ignorar
+            UUID ruleUuid = toUuid(rule.getId());
+            for (BusinessRuleIncident incident : incidentsByRule.getOrDefault(ruleUuid, List.of())) {
+                JsonObject incidentObj = new JsonObject();
+                incidentObj.addProperty("ruleId", rule.getId());
+                incidentObj.addProperty("severity", incident.getSeverity().name());
+                incidentObj.addProperty("description", incident.getDescription());
+                incidentsArray.add(incidentObj);
             }
         }
         context.add("incidents", incidentsArray);
@@ -543,16 +690,29 @@ public class BusinessRuleRagService {
         return gson.toJson(context);
     }
     
-    private RagQueryResponse generateResponse(RagQueryRequest request, String context, List<BusinessRule> rules) {
+    private RagQueryResponse generateResponse(RagQueryRequest request, String context, List<BusinessRule> rules,
+                                              Map<String, ChunkHit> chunkHits,
+                                              Map<String, BusinessRuleIncidentStats> incidentStats,
+                                              RagStreamListener listener) {
         RagQueryResponse response = new RagQueryResponse();
         
+        // Adicionar fontes (em streaming, enviadas antes da geração)
+        populateSources(response, rules, chunkHits);
+        populateOwnerships(response, rules);
+        populateImpacts(response, rules, incidentStats);
+        if (listener != null) {
+            listener.onSources(response.getSources());
+        }
+        
+        AtomicBoolean tokensStreamed = new AtomicBoolean(false);
         try {
             // Tentar usar IA
-            RagLLMClient.RagAnswer aiAnswer = llmClient.generateAnswer(
-                request.getQuestion(),
-                context,
-                request.getFocus()
-            );
+            RagLLMClient.RagAnswer aiAnswer = listener == null
+                ? llmClient.generateAnswer(request.getQuestion(), context, request.getFocus())
+                : llmClient.streamAnswer(request.getQuestion(), context, request.getFocus(), token -> {
+                    tokensStreamed.set(true);
+                    listener.onToken(token);
+                });
             
             if (aiAnswer.isSuccess() && aiAnswer.getAnswer() != null && !aiAnswer.getAnswer().isBlank()) {
                 response.setAnswer(aiAnswer.getAnswer());
@@ -563,19 +723,62 @@ public class BusinessRuleRagService {
                 generateFallbackResponse(response, request, rules);
             }
             
+        } catch (RagStreamAbortedException e) {
+            throw e;
+            
         } catch (Exception e) {
             log.warn("⚠️ IA falhou, usando fallback determinístico: {}", e.getMessage());
             generateFallbackResponse(response, request, rules);
         }
         
-        // Adicionar fontes
-        populateSources(response, rules);
-        populateOwnerships(response, rules);
-        populateImpacts(response, rules);
+        if (listener != null && response.isUsedFallback()) {
+            // Tokens parciais da IA já entregues: não emendar o fallback depois deles
+            if (tokensStreamed.get()) {
+                listener.onTruncated("Geração da resposta interrompida");
+            } else {
+                listener.onToken(response.getAnswer());
+            }
+        }
         
         return response;
     }
     
+    /**
+     * Entrega em streaming uma resposta já pronta (cache ou sem dados)
+     */
+    /**
+     * US#64: Cópia rasa da resposta cacheada, marcada como cache e com os timings do hit
+     * (a instância do cache continua descrevendo o cálculo original)
+     */
+    private static RagQueryResponse servedFromCache(RagQueryResponse cached, long queryStart) {
+        RagQueryResponse response = new RagQueryResponse();
+        response.setAnswer(cached.getAnswer());
+        response.setConfidence(cached.getConfidence());
+        response.setSources(cached.getSources());
+        response.setRelatedImpacts(cached.getRelatedImpacts());
+        response.setOwnerships(cached.getOwnerships());
+        response.setDisclaimer(cached.getDisclaimer());
+        response.setUsedFallback(cached.isUsedFallback());
+        response.setProjectContext(cached.getProjectContext());
+        response.setRuleScores(cached.getRuleScores());
+        response.setCached(true);
+        
+        RagStageTimings timings = new RagStageTimings();
+        timings.setTotalMs((System.nanoTime() - queryStart) / 1_000_000);
+        response.setTimings(timings);
+        return response;
+    }
+    
+    private void replay(RagStreamListener listener, RagQueryResponse response) {
+        if (listener == null) {
+            return;
+        }
+        listener.onSources(response.getSources());
+        if (response.getAnswer() != null) {
+            listener.onToken(response.getAnswer());
+        }
+    }
+    
     private void generateFallbackResponse(RagQueryResponse response, RagQueryRequest request, List<BusinessRule> rules) {
         StringBuilder answer = new StringBuilder();
         
@@ -602,7 +805,25 @@ public class BusinessRuleRagService {
         response.setUsedFallback(true);
     }
     
-    private void populateSources(RagQueryResponse response, List<BusinessRule> rules) {
+    /**
+     * US#44: Conteúdo enviado ao LLM — trecho vencedor da busca, senão o primeiro
+     * trecho; conteúdo completo com chunking desligado. Null se a regra não tem conteúdo.
+     */
+    private String contextContent(BusinessRule rule, ChunkHit hit) {
+        String content = rule.getContent();
+        if (content == null || content.isBlank()) {
+            return null;
+        }
+        String passage = hit != null ? hit.chunk().textOf(content) : null;
+        if (passage == null) {
+            RuleChunk head = chunker.head(content);
+            passage = head != null ? head.textOf(content) : null;
+        }
+        return passage != null ? passage : content;
+    }
+    
+    private void populateSources(RagQueryResponse response, List<BusinessRule> rules, 
+                                 Map<String, ChunkHit> chunkHits) {
         List<RagSourceReference> sources = new ArrayList<>();
         
         for (BusinessRule rule : rules) {
@@ -613,6 +834,13 @@ public class BusinessRuleRagService {
             source.setDomain(rule.getDomain());
             source.setCriticality(rule.getCriticality());
             source.setSummary(rule.getDescription());
+            // US#44: Trecho do conteúdo que venceu a busca semântica
+            ChunkHit hit = chunkHits.get(rule.getId());
+            String passage = hit != null ? hit.chunk().textOf(rule.getContent()) : null;
+            if (passage != null) {
+                source.setChunkNo(hit.chunk().chunkNo());
+                source.setPassage(passage);
+            }
             sources.add(source);
         }
         
@@ -644,11 +872,12 @@ public class BusinessRuleRagService {
         response.setOwnerships(ownerships);
     }
     
-    private void populateImpacts(RagQueryResponse response, List<BusinessRule> rules) {
+    private void populateImpacts(RagQueryResponse response, List<BusinessRule> rules,
+                                 Map<String, BusinessRuleIncidentStats> incidentStats) {
         List<String> impacts = new ArrayList<>();
         
         for (BusinessRule rule : rules) {
-            long incidentCount = getIncidentCount(rule.getId());
+            long incidentCount = incidentStats.getOrDefault(rule.getId(), BusinessRuleIncidentStats.EMPTY).getTotal();
             if (incidentCount > 0) {
                 impacts.add(String.format("Regra '%s' tem %d incidente(s) registrado(s)", 
                     rule.getName(), incidentCount));
@@ -666,8 +895,8 @@ public class BusinessRuleRagService {
      * US#63: Popular scores detalhados de cada regra retornada
      */
     private void populateRuleScores(RagQueryResponse response, List<BusinessRule> rankedRules,
-                                    Map<String, Double> semanticScores, Map<String, Integer> keywordScores,
-                                    boolean usedFallback) {
+                                    Map<String, Double> semanticScores, Map<String, KeywordMatch> keywordScores,
+                                    Map<String, Double> fusedScores, boolean usedFallback) {
         List<RagRuleScoreDetail> ruleScores = new ArrayList<>();
         
         for (int i = 0; i < rankedRules.size(); i++) {
@@ -675,7 +904,8 @@ public class BusinessRuleRagService {
             String ruleId = rule.getId();
             
             double semanticScore = semanticScores.getOrDefault(ruleId, 0.0);
-            int keywordScore = keywordScores.getOrDefault(ruleId, 0);
+            KeywordMatch keywordMatch = keywordScores.get(ruleId);
+            int keywordScore = keywordMatch != null ? keywordMatch.matchedTerms() : 0;
             
             // Determinar tipo de match
             RagMatchType matchType;
@@ -704,6 +934,8 @@ public class BusinessRuleRagService {
                 i + 1, // finalRankPosition (1-based)
                 includedByFallback
             );
+            scoreDetail.setBm25Score(keywordMatch != null ? keywordMatch.score() : 0.0);
+            scoreDetail.setFusionScore(fusedScores.getOrDefault(ruleId, 0.0));
             
             ruleScores.add(scoreDetail);
             
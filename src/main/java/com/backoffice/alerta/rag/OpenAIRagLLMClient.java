@@ -3,17 +3,25 @@ package com.backoffice.alerta.rag;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.backoffice.alerta.rag.resilience.BackendUnavailableException;
+import com.backoffice.alerta.rag.resilience.RagResilienceRegistry;
+import com.backoffice.alerta.rag.resilience.ResilientBackend;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Cliente LLM REAL usando OpenAI Chat Completions API
@@ -28,35 +36,47 @@ import java.time.Duration;
  * rag.llm.provider=OPENAI
  * rag.llm.openai.api-key=${OPENAI_API_KEY}
  * rag.llm.openai.model=gpt-4o-mini
+ * rag.llm.openai.api-url=https://api.openai.com/v1/chat/completions (permite apontar para um stub local)
+ * 
+ * Streaming: streamAnswer usa stream=true e repassa cada delta do SSE da OpenAI
+ * 
+ * Resiliência (rag.resilience.llm): bulkhead, timeout adaptativo e circuit breaker;
+ * com o circuito aberto a resposta cai direto no fallback, sem chamada HTTP.
  */
 @Component
 @ConditionalOnProperty(name = "rag.llm.provider", havingValue = "OPENAI")
 public class OpenAIRagLLMClient implements RagLLMClient {
     
     private static final Logger log = LoggerFactory.getLogger(OpenAIRagLLMClient.class);
-    private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
+    private static final String SSE_DATA_PREFIX = "data:";
+    private static final String SSE_DONE = "[DONE]";
     
     private final String apiKey;
+    private final String apiUrl;
     private final String model;
-    private final int timeoutSeconds;
     private final HttpClient httpClient;
+    private final ResilientBackend resilience;
     private final Gson gson;
     
     public OpenAIRagLLMClient(
             @Value("${rag.llm.openai.api-key}") String apiKey,
             @Value("${rag.llm.openai.model:gpt-4o-mini}") String model,
-            @Value("${rag.llm.openai.timeout-seconds:15}") int timeoutSeconds) {
+            @Value("${rag.llm.openai.timeout-seconds:15}") int timeoutSeconds,
+            @Value("${rag.llm.openai.api-url:https://api.openai.com/v1/chat/completions}") String apiUrl,
+            RagResilienceRegistry resilienceRegistry) {
         
         this.apiKey = apiKey;
+        this.apiUrl = apiUrl;
         this.model = model;
-        this.timeoutSeconds = timeoutSeconds;
+        this.resilience = resilienceRegistry.llm();
         this.gson = new Gson();
         
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(timeoutSeconds))
                 .build();
         
-        log.info("🤖 [LLM] OpenAI Client inicializado | model={} | timeout={}s", model, timeoutSeconds);
+        log.info("🤖 [LLM] OpenAI Client inicializado | model={} | connectTimeout={}s | requestTimeout≤{}", 
+                 model, timeoutSeconds, resilience.currentTimeout());
     }
     
     @Override
@@ -65,22 +85,17 @@ public class OpenAIRagLLMClient implements RagLLMClient {
             log.info("🤖 [LLM] Calling OpenAI model={}", model);
             
             String prompt = buildPrompt(question, context, focus);
-            String requestBody = buildRequestBody(prompt);
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(OPENAI_API_URL))
-                    .timeout(Duration.ofSeconds(timeoutSeconds))
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
+            String requestBody = buildRequestBody(prompt, false);
             
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() != 200) {
-                log.warn("⚠️ [LLM] OpenAI API returned {}: {}", response.statusCode(), response.body());
-                return fallbackWithReason("HTTP_" + response.statusCode(), question, context, focus);
-            }
+            HttpResponse<String> response = resilience.execute(timeout -> {
+                HttpResponse<String> sent = httpClient.send(buildHttpRequest(requestBody, timeout), 
+                                                            HttpResponse.BodyHandlers.ofString());
+                if (sent.statusCode() != 200) {
+                    log.warn("⚠️ [LLM] OpenAI API returned {}: {}", sent.statusCode(), sent.body());
+                    throw new HttpStatusException(sent.statusCode());
+                }
+                return sent;
+            });
             
             String answer = parseOpenAIResponse(response.body());
             int tokens = extractTokenCount(response.body());
@@ -89,14 +104,111 @@ public class OpenAIRagLLMClient implements RagLLMClient {
             
             return new RagAnswer(answer, ConfidenceLevel.MEDIUM, true);
             
-        } catch (java.net.http.HttpTimeoutException e) {
-            log.warn("⚠️ [LLM] Fallback to Dummy client (reason=TIMEOUT)");
-            return fallbackWithReason("TIMEOUT", question, context, focus);
+        } catch (Exception e) {
+            String reason = fallbackReason(e);
+            log.warn("⚠️ [LLM] Fallback to Dummy client (reason={})", reason);
+            return fallbackWithReason(reason, question, context, focus);
+        }
+    }
+    
+    @Override
+    public RagAnswer streamAnswer(String question, String context, ExplainFocus focus, Consumer<String> onToken) {
+        StringBuilder streamed = new StringBuilder();
+        try {
+            log.info("🤖 [LLM] Streaming OpenAI model={}", model);
+            
+            String prompt = buildPrompt(question, context, focus);
+            String requestBody = buildRequestBody(prompt, true);
+            
+            resilience.executeStreaming(timeout -> {
+                HttpResponse<Stream<String>> response = httpClient.send(buildHttpRequest(requestBody, timeout), 
+                                                                        HttpResponse.BodyHandlers.ofLines());
+                
+                try (Stream<String> lines = response.body()) {
+                    if (response.statusCode() != 200) {
+                        log.warn("⚠️ [LLM] OpenAI API returned {}: {}", response.statusCode(), 
+                                 lines.collect(Collectors.joining("\n")));
+                        throw new HttpStatusException(response.statusCode());
+                    }
+                    
+                    // Cada evento: "data: {json com choices[0].delta.content}"; fim em "data: [DONE]"
+                    Iterator<String> iterator = lines.iterator();
+                    while (iterator.hasNext()) {
+                        String line = iterator.next();
+                        if (!line.startsWith(SSE_DATA_PREFIX)) {
+                            continue;
+                        }
+                        String data = line.substring(SSE_DATA_PREFIX.length()).trim();
+                        if (SSE_DONE.equals(data)) {
+                            break;
+                        }
+                        String token = parseStreamDelta(data);
+                        if (token != null && !token.isEmpty()) {
+                            streamed.append(token);
+                            onToken.accept(token);
+                        }
+                    }
+                }
+                return null;
+            });
+            
+            if (streamed.length() == 0) {
+                return fallbackWithReason("EMPTY_STREAM", question, context, focus);
+            }
+            
+            log.info("🤖 [LLM] Stream concluído (chars={})", streamed.length());
+            
+            return new RagAnswer(streamed.toString(), ConfidenceLevel.MEDIUM, true);
+            
+        } catch (RagStreamAbortedException e) {
+            throw e;
             
         } catch (Exception e) {
-            log.warn("⚠️ [LLM] Fallback to Dummy client (reason={})", e.getClass().getSimpleName());
-            return fallbackWithReason(e.getClass().getSimpleName(), question, context, focus);
+            String reason = fallbackReason(e);
+            log.warn("⚠️ [LLM] Fallback to Dummy client (reason={}, streamedChars={})", reason, streamed.length());
+            return fallbackWithReason(reason, question, context, focus);
+        }
+    }
+    
+    /**
+     * Motivo do fallback: rejeição do circuito/bulkhead, HTTP, timeout ou tipo da exceção
+     */
+    private static String fallbackReason(Exception e) {
+        if (e instanceof BackendUnavailableException unavailable) {
+            return unavailable.getReason().name();
+        }
+        if (e instanceof HttpStatusException status) {
+            return "HTTP_" + status.statusCode;
         }
+        if (e instanceof java.net.http.HttpTimeoutException) {
+            return "TIMEOUT";
+        }
+        return e.getClass().getSimpleName();
+    }
+    
+    /**
+     * Resposta não-200 (contabilizada como falha pelo circuit breaker)
+     */
+    private static class HttpStatusException extends IOException {
+        private final int statusCode;
+        
+        HttpStatusException(int statusCode) {
+            super("HTTP " + statusCode);
+            this.statusCode = statusCode;
+        }
+    }
+    
+    /**
+     * @param timeout Timeout adaptativo do backend (rag.resilience.llm)
+     */
+    private HttpRequest buildHttpRequest(String requestBody, Duration timeout) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                .build();
     }
     
     /**
@@ -139,7 +251,7 @@ public class OpenAIRagLLMClient implements RagLLMClient {
         };
     }
     
-    private String buildRequestBody(String prompt) {
+    private String buildRequestBody(String prompt, boolean stream) {
         JsonObject message = new JsonObject();
         message.addProperty("role", "user");
         message.addProperty("content", prompt);
@@ -149,6 +261,9 @@ public class OpenAIRagLLMClient implements RagLLMClient {
         requestBody.add("messages", gson.toJsonTree(new Object[]{gson.fromJson(message, Object.class)}));
         requestBody.addProperty("temperature", 0.3); // Baixa criatividade (mais determinístico)
         requestBody.addProperty("max_tokens", 500);
+        if (stream) {
+            requestBody.addProperty("stream", true);
+        }
         
         return gson.toJson(requestBody);
     }
@@ -166,6 +281,24 @@ public class OpenAIRagLLMClient implements RagLLMClient {
         }
     }
     
+    /**
+     * Extrai o trecho de texto de um chunk do stream (choices[0].delta.content)
+     * 
+     * @return Trecho, ou null para chunks sem conteúdo (ex: role, finish_reason)
+     */
+    private String parseStreamDelta(String data) {
+        JsonObject json = JsonParser.parseString(data).getAsJsonObject();
+        var choices = json.getAsJsonArray("choices");
+        if (choices == null || choices.isEmpty()) {
+            return null;
+        }
+        JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+        if (delta == null || !delta.has("content") || delta.get("content").isJsonNull()) {
+            return null;
+        }
+        return delta.get("content").getAsString();
+    }
+    
     private int extractTokenCount(String responseBody) {
         try {
             JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
@@ -1,5 +1,7 @@
 package com.backoffice.alerta.rag;
 
+import java.util.function.Consumer;
+
 /**
  * Interface para cliente LLM do RAG
  * Permite troca de implementação (dummy, OpenAI, local, etc.)
@@ -16,6 +18,22 @@ public interface RagLLMClient {
      */
     RagAnswer generateAnswer(String question, String context, ExplainFocus focus);
     
+    /**
+     * Gera resposta entregando os tokens à medida que chegam (streaming)
+     * 
+     * Implementação padrão: gera a resposta completa e entrega como um único token.
+     * 
+     * @param onToken Recebe cada trecho da resposta, na ordem
+     * @return Resposta completa (mesmo conteúdo dos tokens entregues quando success=true)
+     */
+    default RagAnswer streamAnswer(String question, String context, ExplainFocus focus, Consumer<String> onToken) {
+        RagAnswer answer = generateAnswer(question, context, focus);
+        if (answer.isSuccess() && answer.getAnswer() != null && !answer.getAnswer().isEmpty()) {
+            onToken.accept(answer.getAnswer());
+        }
+        return answer;
+    }
+    
     /**
      * Classe interna para resposta da IA
      */
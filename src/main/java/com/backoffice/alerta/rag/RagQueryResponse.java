@@ -10,6 +10,8 @@ import java.util.List;
  * 
  * US#50 - Campo projectContext para indicar escopo
  * US#63 - Campo ruleScores para transparência do RAG
+ * US#63 - Campo timings com o tempo de cada etapa
+ * US#64 - Campo cached para respostas servidas do cache
  */
 public class RagQueryResponse {
     
@@ -28,6 +30,16 @@ public class RagQueryResponse {
      */
     private List<RagRuleScoreDetail> ruleScores = new ArrayList<>();
     
+    /**
+     * Tempo gasto em cada etapa (retrieval, fusão, ranking, contexto, geração)
+     */
+    private RagStageTimings timings;
+    
+    /**
+     * US#64 - Resposta servida do cache (timings medem só o hit, não o cálculo original)
+     */
+    private boolean cached;
+    
     public RagQueryResponse() {
         this.disclaimer = "⚠️ Esta resposta é baseada exclusivamente em dados reais do sistema. " +
                          "Não constitui decisão executiva. Para ações críticas, consulte os " +
@@ -105,4 +117,20 @@ public class RagQueryResponse {
     public void setRuleScores(List<RagRuleScoreDetail> ruleScores) {
         this.ruleScores = ruleScores;
     }
+    
+    public RagStageTimings getTimings() {
+        return timings;
+    }
+    
+    public void setTimings(RagStageTimings timings) {
+        this.timings = timings;
+    }
+    
+    public boolean isCached() {
+        return cached;
+    }
+    
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
 }
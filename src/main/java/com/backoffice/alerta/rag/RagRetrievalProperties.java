@@ -0,0 +1,135 @@
+package com.backoffice.alerta.rag;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração do pipeline de retrieval híbrido do RAG
+ * 
+ * Lê configurações de application.yml:
+ * 
+ * rag:
+ *   retrieval:
+ *     parallel: true
+ *     threads: 4
+ *     semantic-timeout-ms: 10000
+ *     fusion: RRF
+ *     rrf-k: 60
+ *     semantic-weight: 0.6
+ *     keyword-weight: 0.4
+ * 
+ * US#44 - Busca Semântica com Embeddings (hybrid search)
+ */
+@Component
+@ConfigurationProperties(prefix = "rag.retrieval")
+public class RagRetrievalProperties {
+    
+    /**
+     * Estratégia de fusão das listas semântica e lexical
+     */
+    public enum FusionStrategy {
+        /** Reciprocal Rank Fusion: Σ 1 / (k + posição) */
+        RRF,
+        /** Soma ponderada dos scores normalizados (0-1) de cada retriever */
+        WEIGHTED
+    }
+    
+    /**
+     * Executa busca semântica e lexical em paralelo.
+     * Default: true
+     */
+    private boolean parallel = true;
+    
+    /**
+     * Threads do executor de retrieval.
+     * Default: 4
+     */
+    private int threads = 4;
+    
+    /**
+     * Tempo máximo de espera pela busca semântica (embedding + vector store);
+     * ao estourar, a resposta segue apenas com a busca lexical.
+     * Default: 10000 ms
+     */
+    private long semanticTimeoutMs = 10000;
+    
+    /**
+     * Estratégia de fusão.
+     * Default: RRF
+     */
+    private FusionStrategy fusion = FusionStrategy.RRF;
+    
+    /**
+     * Constante k do RRF (amortece o peso das primeiras posições).
+     * Default: 60
+     */
+    private int rrfK = 60;
+    
+    /**
+     * Peso da busca semântica na fusão WEIGHTED.
+     * Default: 0.6
+     */
+    private double semanticWeight = 0.6;
+    
+    /**
+     * Peso da busca lexical na fusão WEIGHTED.
+     * Default: 0.4
+     */
+    private double keywordWeight = 0.4;
+    
+    public boolean isParallel() {
+        return parallel;
+    }
+    
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    
+    public long getSemanticTimeoutMs() {
+        return semanticTimeoutMs;
+    }
+    
+    public void setSemanticTimeoutMs(long semanticTimeoutMs) {
+        this.semanticTimeoutMs = semanticTimeoutMs;
+    }
+    
+    public FusionStrategy getFusion() {
+        return fusion;
+    }
+    
+    public void setFusion(FusionStrategy fusion) {
+        this.fusion = fusion;
+    }
+    
+    public int getRrfK() {
+        return rrfK;
+    }
+    
+    public void setRrfK(int rrfK) {
+        this.rrfK = rrfK;
+    }
+    
+    public double getSemanticWeight() {
+        return semanticWeight;
+    }
+    
+    public void setSemanticWeight(double semanticWeight) {
+        this.semanticWeight = semanticWeight;
+    }
+    
+    public double getKeywordWeight() {
+        return keywordWeight;
+    }
+    
+    public void setKeywordWeight(double keywordWeight) {
+        this.keywordWeight = keywordWeight;
+    }
+}
@@ -7,7 +7,7 @@ package com.backoffice.alerta.rag;
  * 
  * Expõe explicitamente:
  * - Score de similaridade semântica (0.0 - 1.0)
- * - Score de match por palavras-chave (quantidade de matches)
+ * - Score de match por palavras-chave (quantidade de termos) e score BM25
  * - Tipo de match (SEMANTIC, KEYWORD, HYBRID, FALLBACK)
  * - Posição final no ranking
  * - Se foi incluída por fallback
@@ -37,6 +37,18 @@ public class RagRuleScoreDetail {
      */
     private int keywordScore;
     
+    /**
+     * Score BM25 da regra para a query (busca lexical)
+     * 0.0 se não aplicável (ex: apenas SEMANTIC)
+     */
+    private double bm25Score;
+    
+    /**
+     * Score após a fusão semântica + lexical (RRF ou ponderada)
+     * 0.0 se incluída por fallback
+     */
+    private double fusionScore;
+    
     /**
      * Posição no ranking final após merge + re-ranking
      * 1 = mais relevante
@@ -104,6 +116,22 @@ public class RagRuleScoreDetail {
         this.keywordScore = keywordScore;
     }
     
+    public double getBm25Score() {
+        return bm25Score;
+    }
+    
+    public void setBm25Score(double bm25Score) {
+        this.bm25Score = bm25Score;
+    }
+    
+    public double getFusionScore() {
+        return fusionScore;
+    }
+    
+    public void setFusionScore(double fusionScore) {
+        this.fusionScore = fusionScore;
+    }
+    
     public int getFinalRankPosition() {
         return finalRankPosition;
     }
@@ -14,6 +14,8 @@ public class RagSourceReference {
     private Domain domain;
     private Criticality criticality;
     private String summary;
+    private Integer chunkNo; // Trecho do conteúdo que venceu a busca (null = regra inteira)
+    private String passage;
     
     public RagSourceReference() {}
     
@@ -72,4 +74,20 @@ public class RagSourceReference {
     public void setSummary(String summary) {
         this.summary = summary;
     }
+    
+    public Integer getChunkNo() {
+        return chunkNo;
+    }
+    
+    public void setChunkNo(Integer chunkNo) {
+        this.chunkNo = chunkNo;
+    }
+    
+    public String getPassage() {
+        return passage;
+    }
+    
+    public void setPassage(String passage) {
+        this.passage = passage;
+    }
 }
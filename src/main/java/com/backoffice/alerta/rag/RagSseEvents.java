@@ -0,0 +1,48 @@
+package com.backoffice.alerta.rag;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Envio de eventos SSE dos endpoints de streaming do RAG e do chat
+ * 
+ * Eventos: sources → token* → [truncated] → complete (ou error).
+ * Payloads sempre em JSON (tokens como {"text": ...}) para preservar quebras de linha.
+ */
+public final class RagSseEvents {
+    
+    public static final String SOURCES = "sources";
+    public static final String TOKEN = "token";
+    public static final String MESSAGE = "message";
+    public static final String TRUNCATED = "truncated";
+    public static final String COMPLETE = "complete";
+    public static final String ERROR = "error";
+    
+    private RagSseEvents() {
+    }
+    
+    /**
+     * @throws RagStreamAbortedException se o cliente desconectou
+     */
+    public static void send(SseEmitter emitter, String name, Object payload) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(payload, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            throw new RagStreamAbortedException("Cliente SSE desconectado", e);
+        }
+    }
+    
+    public static void sendToken(SseEmitter emitter, String token) {
+        send(emitter, TOKEN, Map.of("text", token));
+    }
+    
+    /**
+     * Tokens já enviados ficaram incompletos; o cliente deve substituí-los pela resposta do complete
+     */
+    public static void sendTruncated(SseEmitter emitter, String reason) {
+        send(emitter, TRUNCATED, Map.of("message", reason));
+    }
+}
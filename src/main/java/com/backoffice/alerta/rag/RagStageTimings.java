@@ -0,0 +1,91 @@
+package com.backoffice.alerta.rag;
+
+/**
+ * Tempo gasto (ms) em cada etapa de uma consulta RAG
+ * 
+ * Com retrieval paralelo, semanticMs e keywordMs se sobrepõem;
+ * retrievalMs é o tempo de parede das duas buscas juntas.
+ * 
+ * US#63 - Transparência do RAG
+ */
+public class RagStageTimings {
+    
+    private long semanticMs;
+    private long keywordMs;
+    private long retrievalMs;
+    private long fusionMs;
+    private long rankingMs;
+    private long contextMs;
+    private long generationMs;
+    private long totalMs;
+    
+    public long getSemanticMs() {
+        return semanticMs;
+    }
+    
+    public void setSemanticMs(long semanticMs) {
+        this.semanticMs = semanticMs;
+    }
+    
+    public long getKeywordMs() {
+        return keywordMs;
+    }
+    
+    public void setKeywordMs(long keywordMs) {
+        this.keywordMs = keywordMs;
+    }
+    
+    public long getRetrievalMs() {
+        return retrievalMs;
+    }
+    
+    public void setRetrievalMs(long retrievalMs) {
+        this.retrievalMs = retrievalMs;
+    }
+    
+    public long getFusionMs() {
+        return fusionMs;
+    }
+    
+    public void setFusionMs(long fusionMs) {
+        this.fusionMs = fusionMs;
+    }
+    
+    public long getRankingMs() {
+        return rankingMs;
+    }
+    
+    public void setRankingMs(long rankingMs) {
+        this.rankingMs = rankingMs;
+    }
+    
+    public long getContextMs() {
+        return contextMs;
+    }
+    
+    public void setContextMs(long contextMs) {
+        this.contextMs = contextMs;
+    }
+    
+    public long getGenerationMs() {
+        return generationMs;
+    }
+    
+    public void setGenerationMs(long generationMs) {
+        this.generationMs = generationMs;
+    }
+    
+    public long getTotalMs() {
+        return totalMs;
+    }
+    
+    public void setTotalMs(long totalMs) {
+        this.totalMs = totalMs;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("semantic=%dms keyword=%dms retrieval=%dms fusion=%dms ranking=%dms context=%dms generation=%dms total=%dms",
+                semanticMs, keywordMs, retrievalMs, fusionMs, rankingMs, contextMs, generationMs, totalMs);
+    }
+}
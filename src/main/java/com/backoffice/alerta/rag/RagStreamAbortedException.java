@@ -0,0 +1,13 @@
+package com.backoffice.alerta.rag;
+
+/**
+ * Lançada quando o consumidor de um stream (ex: cliente SSE) deixa de aceitar eventos
+ * 
+ * Não é tratada como falha da IA: interrompe a geração sem acionar fallback.
+ */
+public class RagStreamAbortedException extends RuntimeException {
+    
+    public RagStreamAbortedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
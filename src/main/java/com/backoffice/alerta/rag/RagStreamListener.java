@@ -0,0 +1,29 @@
+package com.backoffice.alerta.rag;
+
+import java.util.List;
+
+/**
+ * Recebe as etapas de uma consulta RAG em streaming
+ * 
+ * Ordem garantida: onSources (uma vez), depois zero ou mais onToken e,
+ * se a geração falhar depois de tokens entregues, onTruncated.
+ * A resposta completa (autoritativa) é o retorno de BusinessRuleRagService.streamQuery.
+ */
+public interface RagStreamListener {
+    
+    /**
+     * Fontes selecionadas, disponíveis antes da geração da resposta
+     */
+    void onSources(List<RagSourceReference> sources);
+    
+    /**
+     * Próximo trecho da resposta
+     */
+    void onToken(String token);
+    
+    /**
+     * A geração falhou depois de tokens já entregues: o texto recebido está incompleto
+     * e não será continuado (o fallback vem apenas na resposta completa)
+     */
+    void onTruncated(String reason);
+}
@@ -0,0 +1,62 @@
+package com.backoffice.alerta.rag;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração dos endpoints SSE (streaming) do RAG e do chat
+ * 
+ * Lê configurações de application.yml:
+ * 
+ * rag:
+ *   streaming:
+ *     threads: 8
+ *     queue-capacity: 64
+ *     timeout-ms: 120000
+ */
+@Component
+@ConfigurationProperties(prefix = "rag.streaming")
+public class RagStreamingProperties {
+    
+    /**
+     * Threads do executor que produz os streams (uma por stream ativo).
+     * Default: 8
+     */
+    private int threads = 8;
+    
+    /**
+     * Streams aguardando thread; com a fila cheia o endpoint responde 503.
+     * Default: 64
+     */
+    private int queueCapacity = 64;
+    
+    /**
+     * Tempo máximo de um stream SSE antes de ser encerrado.
+     * Default: 120000 ms
+     */
+    private long timeoutMs = 120000;
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+    
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+}
@@ -0,0 +1,90 @@
+package com.backoffice.alerta.rag.cache;
+
+/**
+ * Count-Min Sketch com contadores de 4 bits para estimar a frequência
+ * de acesso de cada chave (filtro de admissão TinyLFU).
+ *
+ * - 4 linhas, largura potência de 2 proporcional à capacidade do cache
+ * - Contadores saturam em 15
+ * - A cada sampleSize incrementos todos os contadores são divididos por 2
+ *   (envelhecimento: chaves populares no passado perdem peso)
+ *
+ * Não é thread-safe: o chamador deve sincronizar.
+ *
+ * US#64 - Cache de embeddings de query
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.table = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = Math.max(10, capacity * 10);
+    }
+
+    /**
+     * Incrementa a frequência estimada da chave
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (table[row][index] < MAX_COUNT) {
+                table[row][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Frequência estimada (mínimo entre as linhas, nunca subestima)
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, table[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    void clear() {
+        for (byte[] row : table) {
+            java.util.Arrays.fill(row, (byte) 0);
+        }
+        additions = 0;
+    }
+
+    private void reset() {
+        for (byte[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x45D9F3B;
+        return h ^ (h >>> 16);
+    }
+}
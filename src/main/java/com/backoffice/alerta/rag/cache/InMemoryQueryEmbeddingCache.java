@@ -1,25 +1,37 @@
 package com.backoffice.alerta.rag.cache;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * US#64 - Cache in-memory de embeddings de query.
- * 
+ *
  * Características:
- * - Thread-safe (ConcurrentHashMap)
- * - TTL configurável
+ * - Thread-safe (ConcurrentHashMap para leitura + lock da política de eviction)
+ * - Política W-TinyLFU: janela LRU (1%) + região principal SLRU
+ *   (probation/protected), com admissão por frequência (FrequencySketch)
+ * - Admissão e eviction O(1) (listas duplamente encadeadas intrusivas)
+ * - TTL configurável, verificado no acesso
  * - maxEntries configurável
- * - Limpeza lazy (on access)
- * - Fail-safe (nunca propaga exceções)
- * - Logs INFO para HIT/MISS/EXPIRED
- * 
+ * - Single-flight: MISSes concorrentes da mesma query compartilham
+ *   uma única geração de embedding (getOrCompute)
+ * - Métricas Micrometer (rag.query.embedding.cache.*); logs em DEBUG
+ * - Fail-safe (erros do cache nunca propagam para o caller)
+ *
  * Princípios:
  * - READ-ONLY (não persiste nada)
  * - Determinístico
@@ -30,18 +42,58 @@ public class InMemoryQueryEmbeddingCache implements QueryEmbeddingCacheProvider
 
     private static final Logger log = LoggerFactory.getLogger(InMemoryQueryEmbeddingCache.class);
 
-    private final ConcurrentHashMap<String, CachedEmbedding> cache = new ConcurrentHashMap<>();
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = -1;
+
+    private final ConcurrentHashMap<String, Node> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
     private final RagCacheProperties properties;
 
-    // Métricas in-memory
+    // Política W-TinyLFU (acesso apenas com policyLock)
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final FrequencySketch sketch;
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedSegment = new AccessOrder();
+
+    // Métricas in-memory (expostas ao Micrometer)
     private final AtomicLong totalQueries = new AtomicLong(0);
     private final AtomicLong cacheHits = new AtomicLong(0);
     private final AtomicLong cacheMisses = new AtomicLong(0);
+    private final AtomicLong sizeEvictions = new AtomicLong(0);
+    private final AtomicLong expiredEvictions = new AtomicLong(0);
+    private final AtomicLong coalescedLoads = new AtomicLong(0);
 
-    public InMemoryQueryEmbeddingCache(RagCacheProperties properties) {
+    public InMemoryQueryEmbeddingCache(RagCacheProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
         this.properties = properties;
-        log.info("🧠 [US#64] InMemoryQueryEmbeddingCache inicializado | enabled={} | ttl={}min | maxEntries={}", 
-                properties.isEnabled(), properties.getTtlMinutes(), properties.getMaxEntries());
+        this.maximumSize = Math.max(1, properties.getMaxEntries());
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = Math.max(1, (maximumSize - windowMaximum) * 4 / 5);
+        this.sketch = new FrequencySketch(maximumSize);
+        meterRegistry.ifAvailable(this::registerMetrics);
+
+        log.info("🧠 [US#64] InMemoryQueryEmbeddingCache inicializado | enabled={} | ttl={}min | maxEntries={} | policy=W-TinyLFU",
+                properties.isEnabled(), properties.getTtlMinutes(), maximumSize);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("rag.query.embedding.cache.requests", cacheHits, AtomicLong::get)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("rag.query.embedding.cache.requests", cacheMisses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("rag.query.embedding.cache.evictions", sizeEvictions, AtomicLong::get)
+                .tag("cause", "size").register(registry);
+        FunctionCounter.builder("rag.query.embedding.cache.evictions", expiredEvictions, AtomicLong::get)
+                .tag("cause", "expired").register(registry);
+        FunctionCounter.builder("rag.query.embedding.cache.coalesced", coalescedLoads, AtomicLong::get)
+                .description("MISSes que aguardaram uma geração de embedding já em andamento")
+                .register(registry);
+        Gauge.builder("rag.query.embedding.cache.size", cache, ConcurrentHashMap::size).register(registry);
     }
 
     @Override
@@ -53,24 +105,26 @@ public class InMemoryQueryEmbeddingCache implements QueryEmbeddingCacheProvider
 
             totalQueries.incrementAndGet();
 
-            CachedEmbedding cached = cache.get(normalizedQuery);
-            
-            if (cached == null) {
+            Node node = cache.get(normalizedQuery);
+
+            if (node == null) {
                 cacheMisses.incrementAndGet();
-                log.info("🧠 RAG Query Embedding Cache MISS | key=\"{}\"", normalizedQuery);
+                log.debug("🧠 RAG Query Embedding Cache MISS | key=\"{}\"", normalizedQuery);
                 return Optional.empty();
             }
 
             // Verificar expiração
+            CachedEmbedding cached = node.value;
             if (cached.isExpired(properties.getTtlMinutes())) {
-                cache.remove(normalizedQuery);
+                removeExpired(node);
                 cacheMisses.incrementAndGet();
-                log.info("🧹 RAG Query Embedding Cache EXPIRED | key=\"{}\"", normalizedQuery);
+                log.debug("🧹 RAG Query Embedding Cache EXPIRED | key=\"{}\"", normalizedQuery);
                 return Optional.empty();
             }
 
             cacheHits.incrementAndGet();
-            log.info("🧠 RAG Query Embedding Cache HIT | key=\"{}\"", normalizedQuery);
+            recordAccess(node);
+            log.debug("🧠 RAG Query Embedding Cache HIT | key=\"{}\"", normalizedQuery);
             return Optional.of(cached.getEmbedding());
 
         } catch (Exception e) {
@@ -80,27 +134,124 @@ public class InMemoryQueryEmbeddingCache implements QueryEmbeddingCacheProvider
         }
     }
 
+    @Override
+    public float[] getOrCompute(String normalizedQuery, Function<String, float[]> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(normalizedQuery);
+        }
+
+        Optional<float[]> cached = get(normalizedQuery);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // Single-flight: apenas o primeiro MISS chama o loader; os demais aguardam
+        CompletableFuture<float[]> mine = new CompletableFuture<>();
+        CompletableFuture<float[]> shared = inFlight.putIfAbsent(normalizedQuery, mine);
+        if (shared != null) {
+            coalescedLoads.incrementAndGet();
+            log.debug("⏳ [US#64] Aguardando embedding em andamento | key=\"{}\"", normalizedQuery);
+            return await(shared);
+        }
+
+        try {
+            float[] embedding = loader.apply(normalizedQuery);
+            put(normalizedQuery, embedding);
+            mine.complete(embedding);
+            return embedding;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(normalizedQuery, mine);
+        }
+    }
+
+    @Override
+    public CompletableFuture<float[]> getOrComputeAsync(String normalizedQuery,
+                                                        Function<String, CompletableFuture<float[]>> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(normalizedQuery);
+        }
+
+        Optional<float[]> cached = get(normalizedQuery);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        // Single-flight compartilhado com getOrCompute: MISSes concorrentes recebem o mesmo future
+        CompletableFuture<float[]> mine = new CompletableFuture<>();
+        CompletableFuture<float[]> shared = inFlight.putIfAbsent(normalizedQuery, mine);
+        if (shared != null) {
+            coalescedLoads.incrementAndGet();
+            log.debug("⏳ [US#64] Aguardando embedding em andamento | key=\"{}\"", normalizedQuery);
+            return shared;
+        }
+
+        CompletableFuture<float[]> load;
+        try {
+            load = loader.apply(normalizedQuery);
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(normalizedQuery, mine);
+            mine.completeExceptionally(e);
+            return mine;
+        }
+        load.whenComplete((embedding, error) -> {
+            if (error == null) {
+                put(normalizedQuery, embedding);
+            }
+            // Remove antes de completar: quem chegar depois já encontra o valor no cache
+            inFlight.remove(normalizedQuery, mine);
+            if (error == null) {
+                mine.complete(embedding);
+            } else {
+                mine.completeExceptionally(error);
+            }
+        });
+        return mine;
+    }
+
+    private static float[] await(CompletableFuture<float[]> shared) {
+        try {
+            return shared.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
     @Override
     public void put(String normalizedQuery, float[] embedding) {
         try {
-            if (!properties.isEnabled()) {
+            if (!properties.isEnabled() || embedding == null) {
                 return;
             }
 
-            // Verificar limite máximo de entradas
-            if (cache.size() >= properties.getMaxEntries()) {
-                evictExpired();
-                
-                // Se ainda estiver cheio após limpeza, remover entrada mais antiga
-                if (cache.size() >= properties.getMaxEntries()) {
-                    evictOldest();
+            CachedEmbedding cachedEmbedding = new CachedEmbedding(embedding, Instant.now());
+
+            policyLock.lock();
+            try {
+                sketch.increment(normalizedQuery);
+
+                Node existing = cache.get(normalizedQuery);
+                if (existing != null) {
+                    existing.value = cachedEmbedding;
+                    onAccess(existing);
+                    return;
                 }
+
+                Node node = new Node(normalizedQuery, cachedEmbedding);
+                cache.put(normalizedQuery, node);
+                node.queue = WINDOW;
+                window.addFirst(node);
+                evictIfNeeded();
+            } finally {
+                policyLock.unlock();
             }
 
-            CachedEmbedding cachedEmbedding = new CachedEmbedding(embedding, Instant.now());
-            cache.put(normalizedQuery, cachedEmbedding);
-            
-            log.debug("💾 [US#64] Embedding salvo no cache | key=\"{}\" | size={}", 
+            log.debug("💾 [US#64] Embedding salvo no cache | key=\"{}\" | size={}",
                     normalizedQuery, cache.size());
 
         } catch (Exception e) {
@@ -108,6 +259,11 @@ public class InMemoryQueryEmbeddingCache implements QueryEmbeddingCacheProvider
         }
     }
 
+    /**
+     * Remove todos os embeddings expirados (varredura completa).
+     * Não é chamado no caminho de put/get: entradas expiradas são removidas
+     * no acesso ou deixam o cache pela política de eviction.
+     */
     @Override
     public void evictExpired() {
         try {
@@ -118,17 +274,26 @@ public class InMemoryQueryEmbeddingCache implements QueryEmbeddingCacheProvider
             int evictedCount = 0;
             long ttl = properties.getTtlMinutes();
 
-            for (String key : cache.keySet()) {
-                CachedEmbedding cached = cache.get(key);
-                if (cached != null && cached.isExpired(ttl)) {
-                    cache.remove(key);
-                    evictedCount++;
-                    log.debug("🧹 [US#64] Embedding expirado removido | key=\"{}\"", key);
+            policyLock.lock();
+            try {
+                for (AccessOrder segment : new AccessOrder[] {window, probation, protectedSegment}) {
+                    Node node = segment.head.next;
+                    while (node != segment.head) {
+                        Node next = node.next;
+                        if (node.value.isExpired(ttl)) {
+                            discard(node);
+                            expiredEvictions.incrementAndGet();
+                            evictedCount++;
+                        }
+                        node = next;
+                    }
                 }
+            } finally {
+                policyLock.unlock();
             }
 
             if (evictedCount > 0) {
-                log.info("🧹 [US#64] Limpeza de cache concluída | removed={} | remaining={}", 
+                log.debug("🧹 [US#64] Limpeza de cache concluída | removed={} | remaining={}",
                         evictedCount, cache.size());
             }
 
@@ -142,37 +307,110 @@ public class InMemoryQueryEmbeddingCache implements QueryEmbeddingCacheProvider
         return new CacheStats(
                 totalQueries.get(),
                 cacheHits.get(),
-                cacheMisses.get()
+                cacheMisses.get(),
+                sizeEvictions.get() + expiredEvictions.get()
         );
     }
 
+    // ===== Política W-TinyLFU =====
+
     /**
-     * Remove a entrada mais antiga do cache quando atingir maxEntries.
-     * LRU simplificado baseado em timestamp de criação.
+     * Registra um HIT na política. Se o lock estiver disputado o reordenamento
+     * é descartado (perda aceitável, evita serializar leituras).
      */
-    private void evictOldest() {
+    private void recordAccess(Node node) {
+        if (!policyLock.tryLock()) {
+            return;
+        }
         try {
-            String oldestKey = null;
-            Instant oldestTime = Instant.now();
-
-            for (var entry : cache.entrySet()) {
-                Instant createdAt = entry.getValue().getCreatedAt();
-                if (createdAt.isBefore(oldestTime)) {
-                    oldestTime = createdAt;
-                    oldestKey = entry.getKey();
+            if (node.queue != REMOVED) {
+                sketch.increment(node.key);
+                onAccess(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void onAccess(Node node) {
+        switch (node.queue) {
+            case WINDOW -> window.moveToFront(node);
+            case PROTECTED -> protectedSegment.moveToFront(node);
+            case PROBATION -> {
+                // Segundo acesso na região principal: promove para protected
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedSegment.addFirst(node);
+                if (protectedSegment.size > protectedMaximum) {
+                    Node demoted = protectedSegment.removeLast();
+                    demoted.queue = PROBATION;
+                    probation.addFirst(demoted);
                 }
             }
+            default -> { }
+        }
+    }
+
+    /**
+     * Move o excedente da janela para probation e, com o cache cheio,
+     * decide por frequência entre o candidato e a vítima de probation.
+     */
+    private void evictIfNeeded() {
+        Node candidate = null;
+        if (window.size > windowMaximum) {
+            candidate = window.removeLast();
+            candidate.queue = PROBATION;
+            probation.addFirst(candidate);
+        }
+
+        while (cache.size() > maximumSize) {
+            Node victim = probation.peekLast();
+            if (victim == null) {
+                victim = protectedSegment.peekLast();
+            }
+            if (victim == null) {
+                victim = window.peekLast();
+            }
 
-            if (oldestKey != null) {
-                cache.remove(oldestKey);
-                log.debug("🗑️ [US#64] Entrada mais antiga removida por limite | key=\"{}\"", oldestKey);
+            if (candidate != null && victim != candidate && candidate.queue == PROBATION
+                    && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                // TinyLFU: candidato menos frequente que a vítima não é admitido
+                victim = candidate;
             }
+            candidate = null;
 
-        } catch (Exception e) {
-            log.error("❌ [US#64] Erro ao remover entrada mais antiga, ignorando (fail-safe)", e);
+            discard(victim);
+            sizeEvictions.incrementAndGet();
+            log.debug("🗑️ [US#64] Entrada removida por limite | key=\"{}\"", victim.key);
+        }
+    }
+
+    private void removeExpired(Node node) {
+        policyLock.lock();
+        try {
+            if (node.queue != REMOVED) {
+                discard(node);
+                expiredEvictions.incrementAndGet();
+            }
+        } finally {
+            policyLock.unlock();
         }
     }
 
+    private void discard(Node node) {
+        segmentOf(node).remove(node);
+        node.queue = REMOVED;
+        cache.remove(node.key, node);
+    }
+
+    private AccessOrder segmentOf(Node node) {
+        return switch (node.queue) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            default -> protectedSegment;
+        };
+    }
+
     /**
      * Retorna o tamanho atual do cache.
      */
@@ -181,13 +419,90 @@ public class InMemoryQueryEmbeddingCache implements QueryEmbeddingCacheProvider
     }
 
     /**
-     * Limpa todo o cache (útil para testes).
+     * Limpa todo o cache (testes e troca do modelo de embeddings).
      */
     public void clear() {
-        cache.clear();
+        policyLock.lock();
+        try {
+            cache.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+            sketch.clear();
+        } finally {
+            policyLock.unlock();
+        }
         totalQueries.set(0);
         cacheHits.set(0);
         cacheMisses.set(0);
         log.info("🧹 [US#64] Cache completamente limpo");
     }
+
+    /**
+     * Entrada do cache, encadeada na lista do seu segmento
+     */
+    private static final class Node {
+        final String key;
+        volatile CachedEmbedding value;
+        int queue;
+        Node prev;
+        Node next;
+
+        Node(String key, CachedEmbedding value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Lista LRU duplamente encadeada com sentinela (mais recente na frente)
+     */
+    private static final class AccessOrder {
+        final Node head = new Node(null, null);
+        int size;
+
+        AccessOrder() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void addFirst(Node node) {
+            node.prev = head;
+            node.next = head.next;
+            head.next.prev = node;
+            head.next = node;
+            size++;
+        }
+
+        void remove(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToFront(Node node) {
+            remove(node);
+            addFirst(node);
+        }
+
+        Node peekLast() {
+            return head.prev == head ? null : head.prev;
+        }
+
+        Node removeLast() {
+            Node last = peekLast();
+            if (last != null) {
+                remove(last);
+            }
+            return last;
+        }
+
+        void clear() {
+            head.prev = head;
+            head.next = head;
+            size = 0;
+        }
+    }
 }
@@ -0,0 +1,348 @@
+package com.backoffice.alerta.rag.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Segundo nível do cache de embeddings de query: log binário append-only em disco
+ *
+ * Formato (little-endian):
+ * <pre>
+ *   int   magic    ("BRQC")
+ *   int   version
+ *   registros, cada um:
+ *     int   bodyLength
+ *     long  createdAt (epoch millis)
+ *     int   keyLength
+ *     byte[keyLength]  chave (UTF-8)
+ *     int   dimension
+ *     dimension × float
+ *     int   crc32 (do corpo)
+ * </pre>
+ *
+ * - Em memória fica apenas o índice chave → posição do vetor no arquivo
+ * - Gravações acrescentam um registro (a versão mais recente de uma chave vence)
+ * - Registro truncado/corrompido no fim do arquivo (crash) é descartado no open
+ * - Compactação (arquivo temporário + move) mantém os maxEntries registros
+ *   mais recentes ainda dentro do TTL, quando o log passa de 2x maxEntries
+ *
+ * US#64 - Cache de embeddings de query (persistente)
+ */
+public final class PersistentQueryEmbeddingStore implements Closeable {
+
+    static final int MAGIC = 0x42525143;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Slot> index = new HashMap<>();
+
+    private FileChannel channel;
+    private long records = 0;
+
+    private PersistentQueryEmbeddingStore(Path path, long ttlMillis, int maxEntries) {
+        this.path = path;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Abre (ou cria) o log e reconstrói o índice
+     *
+     * @param path Arquivo do log
+     * @param ttlMillis Idade máxima de um registro
+     * @param maxEntries Registros mantidos após compactação
+     */
+    public static PersistentQueryEmbeddingStore open(Path path, long ttlMillis, int maxEntries) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        PersistentQueryEmbeddingStore store = new PersistentQueryEmbeddingStore(path, ttlMillis, maxEntries);
+        store.load();
+        return store;
+    }
+
+    /**
+     * Posição do vetor de uma chave no arquivo (sequence = ordem de gravação)
+     */
+    private record Slot(long vectorOffset, int dimension, long createdAt, long sequence) {}
+
+    private void load() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() < HEADER_BYTES || !validHeader()) {
+            channel.truncate(0);
+            writeHeader(channel);
+        }
+
+        long now = System.currentTimeMillis();
+        long position = HEADER_BYTES;
+        long fileSize = channel.size();
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (position + Integer.BYTES <= fileSize) {
+            lengthBuffer.clear();
+            readFully(lengthBuffer, position);
+            int bodyLength = lengthBuffer.flip().getInt();
+
+            long recordEnd = position + Integer.BYTES + (long) bodyLength + Integer.BYTES;
+            if (bodyLength < Long.BYTES + 2 * Integer.BYTES || recordEnd > fileSize) {
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(bodyLength + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(record, position + Integer.BYTES);
+            record.flip();
+
+            CRC32 crc = new CRC32();
+            crc.update(record.duplicate().limit(bodyLength));
+            if ((int) crc.getValue() != record.getInt(bodyLength)) {
+                break;
+            }
+
+            long createdAt = record.getLong();
+            int keyLength = record.getInt();
+            if (keyLength < 0 || keyLength > bodyLength) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            record.get(keyBytes);
+            int dimension = record.getInt();
+            long vectorOffset = position + Integer.BYTES + record.position();
+
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (now - createdAt <= ttlMillis) {
+                index.put(key, new Slot(vectorOffset, dimension, createdAt, records));
+            } else {
+                index.remove(key);
+            }
+            records++;
+            position = recordEnd;
+        }
+
+        // Cauda truncada/corrompida (crash durante gravação): descarta
+        if (position < fileSize) {
+            channel.truncate(position);
+        }
+
+        if (records > 2L * maxEntries) {
+            compact();
+        }
+    }
+
+    /**
+     * Busca o embedding de uma chave, se presente e dentro do TTL
+     */
+    public Optional<float[]> get(String key) throws IOException {
+        lock.readLock().lock();
+        try {
+            Slot slot = index.get(key);
+            if (slot == null || System.currentTimeMillis() - slot.createdAt() > ttlMillis) {
+                return Optional.empty();
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(slot.dimension() * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(buffer, slot.vectorOffset());
+            float[] embedding = new float[slot.dimension()];
+            buffer.flip().asFloatBuffer().get(embedding);
+            return Optional.of(embedding);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Acrescenta (ou substitui) o embedding de uma chave
+     */
+    public void put(String key, float[] embedding) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long createdAt = System.currentTimeMillis();
+        int bodyLength = Long.BYTES + Integer.BYTES + keyBytes.length + Integer.BYTES + embedding.length * Float.BYTES;
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bodyLength + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(bodyLength)
+            .putLong(createdAt)
+            .putInt(keyBytes.length)
+            .put(keyBytes)
+            .putInt(embedding.length);
+        int vectorStart = record.position();
+        for (float value : embedding) {
+            record.putFloat(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, bodyLength);
+        record.putInt((int) crc.getValue()).flip();
+
+        lock.writeLock().lock();
+        try {
+            long position = channel.size();
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            long recordStart = position - record.limit();
+            index.put(key, new Slot(recordStart + vectorStart, embedding.length, createdAt, records));
+            records++;
+
+            if (records > 2L * maxEntries) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove do índice as chaves expiradas e compacta se o log tiver muitos registros mortos
+     *
+     * @return Quantidade de chaves expiradas
+     */
+    public int evictExpired() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            int before = index.size();
+            index.values().removeIf(slot -> now - slot.createdAt() > ttlMillis);
+            int expired = before - index.size();
+            if (records > 2L * Math.max(index.size(), 1)) {
+                compact();
+            }
+            return expired;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Chaves válidas no índice
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reescreve o log só com os registros vivos mais recentes (chamado com write lock)
+     */
+    private void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, Slot>> live = new ArrayList<>(index.entrySet());
+        live.removeIf(entry -> now - entry.getValue().createdAt() > ttlMillis);
+        live.sort(Comparator.comparingLong((Map.Entry<String, Slot> entry) -> entry.getValue().sequence()).reversed());
+        if (live.size() > maxEntries) {
+            live = live.subList(0, maxEntries);
+        }
+        // Regrava do mais antigo para o mais recente (preserva a ordem de gravação)
+        Collections.reverse(live);
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Map<String, Slot> compacted = new HashMap<>();
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out);
+            long position = HEADER_BYTES;
+
+            for (Map.Entry<String, Slot> entry : live) {
+                Slot slot = entry.getValue();
+                byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                int vectorBytes = slot.dimension() * Float.BYTES;
+                int bodyLength = Long.BYTES + Integer.BYTES + keyBytes.length + Integer.BYTES + vectorBytes;
+
+                ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bodyLength + Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                record.putInt(bodyLength)
+                    .putLong(slot.createdAt())
+                    .putInt(keyBytes.length)
+                    .put(keyBytes)
+                    .putInt(slot.dimension());
+                int vectorStart = record.position();
+                ByteBuffer vector = record.duplicate().limit(vectorStart + vectorBytes);
+                readFully(vector, slot.vectorOffset());
+                record.position(vectorStart + vectorBytes);
+
+                CRC32 crc = new CRC32();
+                crc.update(record.array(), Integer.BYTES, bodyLength);
+                record.putInt((int) crc.getValue()).flip();
+
+                compacted.put(entry.getKey(),
+                    new Slot(position + vectorStart, slot.dimension(), slot.createdAt(), compacted.size()));
+                while (record.hasRemaining()) {
+                    position += out.write(record, position);
+                }
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        index.clear();
+        index.putAll(compacted);
+        records = compacted.size();
+    }
+
+    private boolean validHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        target.write(header, 0);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Fim inesperado do arquivo: " + path);
+            }
+            position += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(true);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
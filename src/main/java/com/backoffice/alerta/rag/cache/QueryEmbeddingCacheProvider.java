@@ -1,6 +1,8 @@
 package com.backoffice.alerta.rag.cache;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * US#64 - Interface de cache de embeddings de query.
@@ -31,6 +33,47 @@ public interface QueryEmbeddingCacheProvider {
      */
     void put(String normalizedQuery, float[] embedding);
 
+    /**
+     * Busca embedding no cache ou calcula (e armazena) em caso de MISS.
+     * 
+     * Implementações devem coalescer MISSes concorrentes da mesma chave
+     * em uma única chamada ao loader (single-flight). Exceções do loader
+     * são propagadas ao caller.
+     * 
+     * @param normalizedQuery Query normalizada
+     * @param loader Gera o embedding (ex.: chamada ao provider)
+     * @return Embedding cacheado ou recém-gerado
+     */
+    default float[] getOrCompute(String normalizedQuery, Function<String, float[]> loader) {
+        return get(normalizedQuery).orElseGet(() -> {
+            float[] embedding = loader.apply(normalizedQuery);
+            put(normalizedQuery, embedding);
+            return embedding;
+        });
+    }
+
+    /**
+     * Versão assíncrona de {@link #getOrCompute(String, Function)}: o MISS não bloqueia
+     * a thread chamadora enquanto o loader gera o embedding.
+     * 
+     * Mesmo contrato de single-flight; falhas do loader completam o future com erro.
+     * 
+     * @param normalizedQuery Query normalizada
+     * @param loader Gera o embedding de forma assíncrona (ex.: provider.embedAsync)
+     * @return Future do embedding cacheado ou recém-gerado
+     */
+    default CompletableFuture<float[]> getOrComputeAsync(String normalizedQuery,
+                                                         Function<String, CompletableFuture<float[]>> loader) {
+        Optional<float[]> cached = get(normalizedQuery);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        return loader.apply(normalizedQuery).thenApply(embedding -> {
+            put(normalizedQuery, embedding);
+            return embedding;
+        });
+    }
+
     /**
      * Remove embeddings expirados do cache.
      * Chamado de forma lazy (on access) ou periódica.
@@ -53,11 +96,17 @@ public interface QueryEmbeddingCacheProvider {
         private final long totalQueries;
         private final long cacheHits;
         private final long cacheMisses;
+        private final long evictions;
 
         public CacheStats(long totalQueries, long cacheHits, long cacheMisses) {
+            this(totalQueries, cacheHits, cacheMisses, 0);
+        }
+
+        public CacheStats(long totalQueries, long cacheHits, long cacheMisses, long evictions) {
             this.totalQueries = totalQueries;
             this.cacheHits = cacheHits;
             this.cacheMisses = cacheMisses;
+            this.evictions = evictions;
         }
 
         public long getTotalQueries() {
@@ -72,6 +121,10 @@ public interface QueryEmbeddingCacheProvider {
             return cacheMisses;
         }
 
+        public long getEvictions() {
+            return evictions;
+        }
+
         public double getHitRate() {
             return totalQueries > 0 ? (double) cacheHits / totalQueries : 0.0;
         }
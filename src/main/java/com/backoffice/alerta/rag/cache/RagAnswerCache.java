@@ -0,0 +1,139 @@
+package com.backoffice.alerta.rag.cache;
+
+import com.backoffice.alerta.rag.ExplainFocus;
+import com.backoffice.alerta.rag.RagQueryResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * US#64 - Cache de respostas completas do RAG.
+ *
+ * Chave: pergunta normalizada + projectId + focus + maxSources.
+ * Cada resposta guarda a RagDataVersion lida ANTES de ser calculada;
+ * qualquer escrita nos dados do RAG incrementa a versão e a resposta
+ * deixa de ser servida (inclusive escritas concorrentes ao cálculo).
+ *
+ * - LRU limitado a maxEntries (LinkedHashMap em ordem de acesso)
+ * - TTL como limite adicional de idade
+ * - Respostas são instâncias compartilhadas: não devem ser modificadas
+ *   após entrarem no cache
+ */
+@Component
+public class RagAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RagAnswerCache.class);
+
+    /**
+     * Chave de uma resposta cacheada
+     */
+    public record Key(String normalizedQuestion, UUID projectId, ExplainFocus focus, Integer maxSources) {}
+
+    private record Entry(RagQueryResponse response, long dataVersion, long createdAtNanos) {}
+
+    private final RagAnswerCacheProperties properties;
+    private final RagDataVersion dataVersion;
+    private final Map<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong stale = new AtomicLong(0);
+
+    public RagAnswerCache(RagAnswerCacheProperties properties, RagDataVersion dataVersion,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.dataVersion = dataVersion;
+        int maxEntries = Math.max(1, properties.getMaxEntries());
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        meterRegistry.ifAvailable(this::registerMetrics);
+
+        log.info("⚡ [US#64] RagAnswerCache inicializado | enabled={} | ttl={}min | maxEntries={}",
+                properties.isEnabled(), properties.getTtlMinutes(), maxEntries);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("rag.answer.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("rag.answer.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("rag.answer.cache.requests", stale, AtomicLong::get)
+                .tag("result", "stale").register(registry);
+        Gauge.builder("rag.answer.cache.size", entries, Map::size).register(registry);
+        Gauge.builder("rag.data.version", dataVersion, RagDataVersion::current).register(registry);
+    }
+
+    /**
+     * Versão atual dos dados; deve ser lida antes de calcular a resposta
+     */
+    public long currentVersion() {
+        return dataVersion.current();
+    }
+
+    /**
+     * Busca resposta válida (mesma versão de dados e dentro do TTL)
+     */
+    public Optional<RagQueryResponse> get(Key key) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        long ageNanos = System.nanoTime() - entry.createdAtNanos();
+        if (entry.dataVersion() != dataVersion.current()
+                || ageNanos > TimeUnit.MINUTES.toNanos(properties.getTtlMinutes())) {
+            entries.remove(key, entry);
+            stale.incrementAndGet();
+            log.debug("🧹 RAG Answer Cache STALE | key={}", key);
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(entry.response());
+    }
+
+    /**
+     * Armazena uma resposta calculada com os dados da versão informada
+     *
+     * @param dataVersionAtStart Versão lida antes do cálculo (currentVersion)
+     */
+    public void put(Key key, RagQueryResponse response, long dataVersionAtStart) {
+        if (!properties.isEnabled() || response == null) {
+            return;
+        }
+        // Dados mudaram durante o cálculo: resposta já nasceu desatualizada
+        if (dataVersionAtStart != dataVersion.current()) {
+            return;
+        }
+        entries.put(key, new Entry(response, dataVersionAtStart, System.nanoTime()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,62 @@
+package com.backoffice.alerta.rag.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * US#64 - Configuração do cache de respostas do RAG.
+ *
+ * Lê configurações de application.yml:
+ *
+ * rag:
+ *   answer-cache:
+ *     enabled: true
+ *     ttl-minutes: 10
+ *     max-entries: 500
+ */
+@Component
+@ConfigurationProperties(prefix = "rag.answer-cache")
+public class RagAnswerCacheProperties {
+
+    /**
+     * Habilita/desabilita o cache.
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * TTL em minutos (limite de idade mesmo sem alteração de dados).
+     * Default: 10 minutos
+     */
+    private long ttlMinutes = 10;
+
+    /**
+     * Número máximo de respostas (LRU).
+     * Default: 500
+     */
+    private int maxEntries = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTtlMinutes() {
+        return ttlMinutes;
+    }
+
+    public void setTtlMinutes(long ttlMinutes) {
+        this.ttlMinutes = ttlMinutes;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
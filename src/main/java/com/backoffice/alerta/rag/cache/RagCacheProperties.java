@@ -13,6 +13,11 @@ import org.springframework.stereotype.Component;
  *     enabled: true
  *     ttl-minutes: 30
  *     max-entries: 1000
+ *     persistent:
+ *       enabled: true
+ *       directory: data/query-embedding-cache
+ *       ttl-minutes: 10080
+ *       max-entries: 10000
  */
 @Component
 @ConfigurationProperties(prefix = "rag.query-embedding-cache")
@@ -36,6 +41,11 @@ public class RagCacheProperties {
      */
     private int maxEntries = 1000;
 
+    /**
+     * Segundo nível persistente (sobrevive a restarts/deploys).
+     */
+    private Persistent persistent = new Persistent();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -59,4 +69,76 @@ public class RagCacheProperties {
     public void setMaxEntries(int maxEntries) {
         this.maxEntries = maxEntries;
     }
+
+    public Persistent getPersistent() {
+        return persistent;
+    }
+
+    public void setPersistent(Persistent persistent) {
+        this.persistent = persistent;
+    }
+
+    /**
+     * Configuração do cache persistente (rag.query-embedding-cache.persistent.*)
+     *
+     * Log append-only em disco, chaveado por provider + dimensão + query normalizada.
+     */
+    public static class Persistent {
+
+        /**
+         * Habilita o segundo nível em disco.
+         * Default: true
+         */
+        private boolean enabled = true;
+
+        /**
+         * Diretório do arquivo de cache.
+         * Default: data/query-embedding-cache
+         */
+        private String directory = "data/query-embedding-cache";
+
+        /**
+         * TTL em minutos.
+         * Default: 10080 (7 dias)
+         */
+        private long ttlMinutes = 10080;
+
+        /**
+         * Entradas mantidas após compactação.
+         * Default: 10000
+         */
+        private int maxEntries = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getTtlMinutes() {
+            return ttlMinutes;
+        }
+
+        public void setTtlMinutes(long ttlMinutes) {
+            this.ttlMinutes = ttlMinutes;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.backoffice.alerta.rag.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão monotônica dos dados que alimentam as respostas do RAG
+ *
+ * Incrementada a cada escrita em regras, ownerships, incidentes,
+ * projetos/associações e após re-indexação de embeddings.
+ * Respostas cacheadas com versão diferente da atual são descartadas.
+ *
+ * US#64 - Cache de respostas do RAG
+ */
+@Component
+public class RagDataVersion {
+
+    private final AtomicLong version = new AtomicLong(0);
+
+    /**
+     * Versão atual
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Registra uma alteração de dados (invalida respostas cacheadas)
+     *
+     * @return Nova versão
+     */
+    public long bump() {
+        return version.incrementAndGet();
+    }
+}
@@ -0,0 +1,56 @@
+package com.backoffice.alerta.rag.cache;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Entity listener JPA que incrementa RagDataVersion em qualquer escrita
+ *
+ * Registrado com @EntityListeners nas entidades usadas no contexto do RAG
+ * (incidentes, projetos e associações projeto-regra). Instanciado pelo
+ * Spring (SpringBeanContainer do Hibernate), por isso recebe o bean por construtor.
+ *
+ * Os callbacks rodam no flush, antes do commit: uma resposta calculada entre o
+ * flush e o commit ainda lê os dados antigos e seria cacheada com a versão nova.
+ * Por isso a versão é incrementada no flush e de novo após o commit (uma vez por
+ * transação); sem transação ativa, apenas o incremento imediato.
+ *
+ * US#64 - Cache de respostas do RAG
+ */
+@Component
+public class RagDataVersionEntityListener {
+
+    private final RagDataVersion dataVersion;
+
+    public RagDataVersionEntityListener(RagDataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        dataVersion.bump();
+        bumpAfterCommit();
+    }
+
+    private void bumpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.getSynchronizations().stream()
+                    .anyMatch(AfterCommitBump.class::isInstance)) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new AfterCommitBump());
+    }
+
+    private class AfterCommitBump implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            dataVersion.bump();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.backoffice.alerta.rag.cache;
+
+import com.backoffice.alerta.rag.embedding.EmbeddingModelActivatedEvent;
+import com.backoffice.alerta.rag.embedding.FallbackEmbeddings;
+import com.backoffice.alerta.rag.embedding.VersionedEmbeddingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * US#64 - Cache de embeddings de query em dois níveis.
+ *
+ * - L1: InMemoryQueryEmbeddingCache (W-TinyLFU, single-flight)
+ * - L2: PersistentQueryEmbeddingStore (log append-only em disco)
+ *
+ * O L2 é chaveado por provider + dimensão + query normalizada, então
+ * trocar de provider nunca reaproveita vetores incompatíveis; o L1 é
+ * esvaziado na virada de modelo. Só vetores do modelo real vão para o L2:
+ * vetores de fallback (FallbackEmbeddings) ficam apenas no L1. Após um restart,
+ * perguntas frequentes são servidas do disco sem chamar o provider.
+ *
+ * Fail-safe: erros de I/O no L2 são logados e tratados como MISS;
+ * se o arquivo não puder ser aberto, o cache opera só com o L1.
+ */
+@Component
+@Primary
+public class TieredQueryEmbeddingCache implements QueryEmbeddingCacheProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredQueryEmbeddingCache.class);
+
+    private static final String FILE_NAME = "query-embeddings.log";
+
+    private final InMemoryQueryEmbeddingCache memory;
+    private final VersionedEmbeddingProvider embeddingProvider;
+    private final PersistentQueryEmbeddingStore persistent;
+
+    private final AtomicLong persistentHits = new AtomicLong(0);
+    private final AtomicLong persistentMisses = new AtomicLong(0);
+
+    public TieredQueryEmbeddingCache(RagCacheProperties properties,
+                                     InMemoryQueryEmbeddingCache memory,
+                                     VersionedEmbeddingProvider embeddingProvider,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        this.memory = memory;
+        this.embeddingProvider = embeddingProvider;
+        this.persistent = properties.isEnabled() && properties.getPersistent().isEnabled()
+                ? openPersistent(properties.getPersistent())
+                : null;
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+
+    private PersistentQueryEmbeddingStore openPersistent(RagCacheProperties.Persistent config) {
+        Path path = Paths.get(config.getDirectory(), FILE_NAME);
+        try {
+            PersistentQueryEmbeddingStore store = PersistentQueryEmbeddingStore.open(
+                    path, TimeUnit.MINUTES.toMillis(config.getTtlMinutes()), config.getMaxEntries());
+            log.info("💾 [US#64] Cache persistente de embeddings aberto | entries={} | ttl={}min | file={}",
+                    store.size(), config.getTtlMinutes(), path);
+            return store;
+        } catch (Exception e) {
+            log.warn("⚠️ [US#64] Cache persistente indisponível ({}). Usando apenas memória.", e.getMessage());
+            return null;
+        }
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        if (persistent == null) {
+            return;
+        }
+        FunctionCounter.builder("rag.query.embedding.cache.persistent.requests", persistentHits, AtomicLong::get)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("rag.query.embedding.cache.persistent.requests", persistentMisses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("rag.query.embedding.cache.persistent.size", persistent, PersistentQueryEmbeddingStore::size)
+                .register(registry);
+    }
+
+    @Override
+    public Optional<float[]> get(String normalizedQuery) {
+        Optional<float[]> cached = memory.get(normalizedQuery);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<float[]> stored = readPersistent(normalizedQuery);
+        stored.ifPresent(embedding -> memory.put(normalizedQuery, embedding));
+        return stored;
+    }
+
+    @Override
+    public float[] getOrCompute(String normalizedQuery, Function<String, float[]> loader) {
+        // Single-flight do L1 cobre também a leitura do disco
+        return memory.getOrCompute(normalizedQuery, key -> readPersistent(key).orElseGet(() -> {
+            float[] embedding = loader.apply(key);
+            writePersistent(key, embedding);
+            return embedding;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<float[]> getOrComputeAsync(String normalizedQuery,
+                                                        Function<String, CompletableFuture<float[]>> loader) {
+        return memory.getOrComputeAsync(normalizedQuery, key -> {
+            Optional<float[]> stored = readPersistent(key);
+            if (stored.isPresent()) {
+                return CompletableFuture.completedFuture(stored.get());
+            }
+            return loader.apply(key).thenApply(embedding -> {
+                writePersistent(key, embedding);
+                return embedding;
+            });
+        });
+    }
+
+    @Override
+    public void put(String normalizedQuery, float[] embedding) {
+        memory.put(normalizedQuery, embedding);
+        writePersistent(normalizedQuery, embedding);
+    }
+
+    @Override
+    public void evictExpired() {
+        memory.evictExpired();
+        if (persistent == null) {
+            return;
+        }
+        try {
+            int expired = persistent.evictExpired();
+            if (expired > 0) {
+                log.debug("🧹 [US#64] Cache persistente: {} entradas expiradas", expired);
+            }
+        } catch (Exception e) {
+            log.error("❌ [US#64] Erro ao limpar cache persistente, ignorando (fail-safe)", e);
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return memory.getStats();
+    }
+
+    private Optional<float[]> readPersistent(String normalizedQuery) {
+        if (persistent == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<float[]> stored = persistent.get(persistentKey(normalizedQuery));
+            (stored.isPresent() ? persistentHits : persistentMisses).incrementAndGet();
+            return stored;
+        } catch (Exception e) {
+            log.error("❌ [US#64] Erro ao ler cache persistente, retornando empty (fail-safe)", e);
+            persistentMisses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    private void writePersistent(String normalizedQuery, float[] embedding) {
+        if (persistent == null || embedding == null || embedding.length == 0) {
+            return;
+        }
+        // Fallback (DUMMY/semântico) não é resultado do modelo: não sobrevive ao TTL longo do L2
+        if (FallbackEmbeddings.isFallback(embedding) || embedding.length != embeddingProvider.getDimension()) {
+            return;
+        }
+        try {
+            persistent.put(persistentKey(normalizedQuery), embedding);
+        } catch (Exception e) {
+            log.error("❌ [US#64] Erro ao gravar no cache persistente, ignorando (fail-safe)", e);
+        }
+    }
+
+    /**
+     * Chave do L2: provider + dimensão + query normalizada (mesma origem na leitura e na escrita)
+     */
+    private String persistentKey(String normalizedQuery) {
+        return embeddingProvider.getActiveType().name() + ":" + embeddingProvider.getDimension() + ":" + normalizedQuery;
+    }
+
+    /**
+     * Virada de modelo: embeddings do L1 foram gerados pelo modelo anterior
+     */
+    @EventListener
+    public void onModelActivated(EmbeddingModelActivatedEvent event) {
+        memory.clear();
+        log.info("🗑️ [US#64] Cache L1 de embeddings de query limpo após troca de modelo ({} → {})",
+                event.previous(), event.current());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (persistent == null) {
+            return;
+        }
+        try {
+            persistent.close();
+        } catch (Exception e) {
+            log.warn("⚠️ [US#64] Erro ao fechar cache persistente: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.backoffice.alerta.rag.chunk;
+
+import com.backoffice.alerta.rag.embedding.EmbeddingModelActivatedEvent;
+import com.backoffice.alerta.rag.embedding.VersionedEmbeddingProvider;
+import com.backoffice.alerta.rag.persistence.BusinessRuleChunkEmbeddingEntity;
+import com.backoffice.alerta.rag.persistence.BusinessRuleChunkEmbeddingRepository;
+import com.backoffice.alerta.rag.persistence.RagVectorStoreProperties;
+import com.backoffice.alerta.rag.vector.EmbeddingMatrix;
+import com.backoffice.alerta.rag.vector.HnswIndex;
+import com.backoffice.alerta.rag.vector.ScoredRule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vector store dos trechos (chunks) do conteúdo das regras
+ *
+ * Um vetor por (vectorId da regra, número do trecho), em matriz contígua
+ * (EmbeddingMatrix) + HNSW acima de rag.vector-store.hnsw.exact-search-threshold.
+ * A busca agrega os trechos por regra (max-sim) e devolve o trecho vencedor.
+ *
+ * Com rag.vector-store.type=JPA e persist=true os trechos também são gravados
+ * em business_rule_chunk_embeddings e recarregados no startup.
+ *
+ * Os trechos pertencem ao provider do índice ativo: na virada de modelo o índice
+ * é descartado e a indexação incremental gera os trechos com o novo modelo.
+ *
+ * US#44 - Busca Semântica com Embeddings
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+@Component
+public class BusinessRuleChunkStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessRuleChunkStore.class);
+
+    // Mesmo threshold mínimo dos vector stores de regra
+    private static final double SIMILARITY_THRESHOLD = 0.1;
+
+    private final BusinessRuleChunkEmbeddingRepository repository;
+    private final RagChunkingProperties chunkingProperties;
+    private final RagVectorStoreProperties.Hnsw hnswProperties;
+    private final boolean persistent;
+    private volatile String provider;
+
+    private final EmbeddingMatrix embeddings = new EmbeddingMatrix();
+    private final HnswIndex annIndex;
+
+    // ID do vetor do trecho → (regra, trecho); regra → IDs dos seus trechos
+    private final Map<UUID, ChunkRef> chunksById = new ConcurrentHashMap<>();
+    private final Map<UUID, List<UUID>> chunkIdsByRule = new ConcurrentHashMap<>();
+    private final Map<UUID, String> contentHashes = new ConcurrentHashMap<>();
+
+    public BusinessRuleChunkStore(BusinessRuleChunkEmbeddingRepository repository,
+                                  RagChunkingProperties chunkingProperties,
+                                  RagVectorStoreProperties vectorStoreProperties,
+                                  VersionedEmbeddingProvider embeddingProvider) {
+        this.repository = repository;
+        this.chunkingProperties = chunkingProperties;
+        this.hnswProperties = vectorStoreProperties.getHnsw();
+        this.persistent = vectorStoreProperties.getType() == RagVectorStoreProperties.VectorStoreType.JPA
+            && vectorStoreProperties.isPersist();
+        this.provider = embeddingProvider.getActiveType().name();
+        this.annIndex = new HnswIndex(
+            hnswProperties.getM(),
+            hnswProperties.getEfConstruction(),
+            hnswProperties.getEfSearch()
+        );
+    }
+
+    /**
+     * Carrega os trechos persistidos do provider atual
+     */
+    @PostConstruct
+    void load() {
+        if (!persistent || !chunkingProperties.isEnabled()) {
+            return;
+        }
+        try {
+            int loaded = 0;
+            for (BusinessRuleChunkEmbeddingEntity entity : repository.findByProvider(provider)) {
+                RuleChunk chunk = new RuleChunk(entity.getChunkNo(), entity.getStartOffset(), entity.getEndOffset());
+                cache(entity.getRuleVectorId(), chunk, deserialize(entity.getEmbedding(), entity.getDimension()));
+                if (entity.getContentHash() != null) {
+                    contentHashes.put(entity.getRuleVectorId(), entity.getContentHash());
+                }
+                loaded++;
+            }
+            log.info("📦 [US#66] Trechos de regras carregados do database | chunks={} | regras={}",
+                     loaded, chunkIdsByRule.size());
+        } catch (Exception e) {
+            log.error("❌ [US#66] Erro ao carregar trechos do database. Continuando com índice vazio.", e);
+        }
+    }
+
+    /**
+     * Substitui todos os trechos de uma regra
+     *
+     * @param embeddings Um vetor por trecho, na mesma ordem de {@code chunks}
+     * @param contentHash Hash do conteúdo que gerou os trechos; null para vetores de fallback
+     *                    (trechos continuam desatualizados)
+     */
+    @Transactional
+    public void replace(UUID ruleVectorId, List<RuleChunk> chunks, List<float[]> embeddings, String contentHash) {
+        if (persistent) {
+            repository.deleteByRuleVectorId(ruleVectorId);
+            List<BusinessRuleChunkEmbeddingEntity> entities = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                RuleChunk chunk = chunks.get(i);
+                float[] embedding = embeddings.get(i);
+                entities.add(new BusinessRuleChunkEmbeddingEntity(ruleVectorId, chunk.chunkNo(), chunk.start(),
+                    chunk.end(), embedding.length, provider, serialize(embedding), contentHash));
+            }
+            repository.saveAll(entities);
+        }
+
+        evict(ruleVectorId);
+        for (int i = 0; i < chunks.size(); i++) {
+            cache(ruleVectorId, chunks.get(i), embeddings.get(i));
+        }
+        if (contentHash != null) {
+            contentHashes.put(ruleVectorId, contentHash);
+        } else {
+            contentHashes.remove(ruleVectorId);
+        }
+
+        log.debug("📦 [US#44] {} trecho(s) indexado(s) | regra={}", chunks.size(), ruleVectorId);
+    }
+
+    /**
+     * Remove os trechos de uma regra (ex: conteúdo ficou vazio)
+     */
+    @Transactional
+    public void remove(UUID ruleVectorId) {
+        if (persistent) {
+            repository.deleteByRuleVectorId(ruleVectorId);
+        }
+        evict(ruleVectorId);
+        contentHashes.remove(ruleVectorId);
+    }
+
+    /**
+     * Top-K regras pelo melhor trecho de cada uma (max-sim)
+     *
+     * @param allowedRuleVectorIds US#50: regras do projeto (null = busca global)
+     * @return Um ChunkHit por regra, ordenados por similaridade (maior primeiro)
+     */
+    public List<ChunkHit> findTopRules(float[] queryEmbedding, int k, Collection<UUID> allowedRuleVectorIds) {
+        int size = embeddings.size();
+        if (queryEmbedding == null || size == 0 || k <= 0 || queryEmbedding.length != embeddings.dimension()) {
+            return Collections.emptyList();
+        }
+
+        int candidates = k * Math.max(1, chunkingProperties.getCandidatesPerRule());
+        List<ScoredRule> scored;
+        if (allowedRuleVectorIds != null) {
+            List<UUID> allowedChunks = new ArrayList<>();
+            for (UUID ruleVectorId : allowedRuleVectorIds) {
+                allowedChunks.addAll(chunkIdsByRule.getOrDefault(ruleVectorId, Collections.emptyList()));
+            }
+            scored = embeddings.topK(queryEmbedding, candidates, SIMILARITY_THRESHOLD, allowedChunks);
+        } else if (hnswProperties.isEnabled() && size >= hnswProperties.getExactSearchThreshold()) {
+            scored = annIndex.search(queryEmbedding, candidates);
+        } else {
+            scored = embeddings.topK(queryEmbedding, candidates, SIMILARITY_THRESHOLD);
+        }
+
+        // Resultados já vêm ordenados: o primeiro trecho de cada regra é o vencedor
+        Map<UUID, ChunkHit> best = new LinkedHashMap<>();
+        for (ScoredRule hit : scored) {
+            ChunkRef ref = chunksById.get(hit.ruleId());
+            if (ref != null && hit.similarity() >= SIMILARITY_THRESHOLD) {
+                best.putIfAbsent(ref.ruleVectorId(), new ChunkHit(ref.ruleVectorId(), ref.chunk(), hit.similarity()));
+            }
+        }
+
+        log.info("🔍 [US#44] Busca por trechos: {} trecho(s) candidatos → {} regra(s) (k={})",
+                 scored.size(), best.size(), k);
+        return best.values().stream().limit(k).toList();
+    }
+
+    /**
+     * Hash de conteúdo dos trechos indexados de uma regra (null = sem trechos)
+     */
+    public String contentHash(UUID ruleVectorId) {
+        return contentHashes.get(ruleVectorId);
+    }
+
+    /**
+     * Virada de modelo: trechos do modelo anterior não são comparáveis com as consultas
+     */
+    @EventListener
+    public void onModelActivated(EmbeddingModelActivatedEvent event) {
+        clear();
+        provider = event.current().name();
+        load();
+    }
+    
+    /**
+     * Número de trechos indexados
+     */
+    public int size() {
+        return embeddings.size();
+    }
+
+    /**
+     * Limpa o índice em memória (não remove do banco)
+     */
+    public void clear() {
+        embeddings.clear();
+        annIndex.clear();
+        chunksById.clear();
+        chunkIdsByRule.clear();
+        contentHashes.clear();
+        log.info("🗑️ [US#44] Índice de trechos limpo");
+    }
+
+    private void cache(UUID ruleVectorId, RuleChunk chunk, float[] embedding) {
+        UUID chunkId = chunkId(ruleVectorId, chunk.chunkNo());
+        if (!embeddings.put(chunkId, embedding)) {
+            log.warn("⚠️ [US#44] Trecho {} da regra {} rejeitado: dimensão {} difere do índice ({})",
+                     chunk.chunkNo(), ruleVectorId, embedding.length, embeddings.dimension());
+            return;
+        }
+        if (hnswProperties.isEnabled()) {
+            annIndex.add(chunkId, embedding);
+        }
+        chunksById.put(chunkId, new ChunkRef(ruleVectorId, chunk));
+        chunkIdsByRule.computeIfAbsent(ruleVectorId, id -> Collections.synchronizedList(new ArrayList<>()))
+            .add(chunkId);
+    }
+
+    private void evict(UUID ruleVectorId) {
+        List<UUID> chunkIds = chunkIdsByRule.remove(ruleVectorId);
+        if (chunkIds == null) {
+            return;
+        }
+        synchronized (chunkIds) {
+            for (UUID chunkId : chunkIds) {
+                embeddings.remove(chunkId);
+                annIndex.remove(chunkId);
+                chunksById.remove(chunkId);
+            }
+        }
+    }
+
+    /**
+     * ID de vetor de um trecho, derivado de (vectorId da regra, número do trecho)
+     */
+    private static UUID chunkId(UUID ruleVectorId, int chunkNo) {
+        return UUID.nameUUIDFromBytes((ruleVectorId + "#" + chunkNo).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] serialize(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES);
+        for (float value : embedding) {
+            buffer.putFloat(value);
+        }
+        return buffer.array();
+    }
+
+    private static float[] deserialize(byte[] bytes, int dimension) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        float[] embedding = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            embedding[i] = buffer.getFloat();
+        }
+        return embedding;
+    }
+
+    private record ChunkRef(UUID ruleVectorId, RuleChunk chunk) {}
+}
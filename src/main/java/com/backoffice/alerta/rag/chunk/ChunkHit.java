@@ -0,0 +1,12 @@
+package com.backoffice.alerta.rag.chunk;
+
+import java.util.UUID;
+
+/**
+ * Melhor trecho de uma regra para a query (agregação max-sim)
+ * 
+ * @param ruleVectorId ID de vetor da regra (BusinessRule.vectorId)
+ * @param chunk Trecho vencedor
+ * @param similarity Similaridade de cosseno do trecho com a query
+ */
+public record ChunkHit(UUID ruleVectorId, RuleChunk chunk, double similarity) {}
@@ -0,0 +1,97 @@
+package com.backoffice.alerta.rag.chunk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração da indexação por trechos (chunks) do conteúdo das regras
+ * 
+ * Lê configurações de application.yml:
+ * 
+ * rag:
+ *   chunking:
+ *     enabled: true
+ *     chunk-chars: 1000
+ *     overlap-chars: 200
+ *     max-chunks: 32
+ *     candidates-per-rule: 3
+ * 
+ * US#44 - Busca Semântica com Embeddings
+ */
+@Component
+@ConfigurationProperties(prefix = "rag.chunking")
+public class RagChunkingProperties {
+    
+    /**
+     * Gera um embedding por trecho de BusinessRule.content (além do vetor
+     * de nome/descrição) e envia ao LLM apenas o trecho relevante.
+     * Default: true
+     */
+    private boolean enabled = true;
+    
+    /**
+     * Tamanho alvo de cada trecho, em caracteres (o corte é ajustado para
+     * a quebra de parágrafo/linha/palavra mais próxima).
+     * Default: 1000
+     */
+    private int chunkChars = 1000;
+    
+    /**
+     * Sobreposição entre trechos consecutivos, em caracteres.
+     * Default: 200
+     */
+    private int overlapChars = 200;
+    
+    /**
+     * Máximo de trechos por regra; o restante do conteúdo não é indexado.
+     * Default: 32
+     */
+    private int maxChunks = 32;
+    
+    /**
+     * Trechos buscados por regra pedida no top-K (várias regras podem ter
+     * mais de um trecho entre os melhores antes da agregação max-sim).
+     * Default: 3
+     */
+    private int candidatesPerRule = 3;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getChunkChars() {
+        return chunkChars;
+    }
+    
+    public void setChunkChars(int chunkChars) {
+        this.chunkChars = chunkChars;
+    }
+    
+    public int getOverlapChars() {
+        return overlapChars;
+    }
+    
+    public void setOverlapChars(int overlapChars) {
+        this.overlapChars = overlapChars;
+    }
+    
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+    
+    public void setMaxChunks(int maxChunks) {
+        this.maxChunks = maxChunks;
+    }
+    
+    public int getCandidatesPerRule() {
+        return candidatesPerRule;
+    }
+    
+    public void setCandidatesPerRule(int candidatesPerRule) {
+        this.candidatesPerRule = candidatesPerRule;
+    }
+}
@@ -0,0 +1,19 @@
+package com.backoffice.alerta.rag.chunk;
+
+/**
+ * Trecho do conteúdo de uma regra: [start, end) em BusinessRule.content
+ * 
+ * @param chunkNo Posição do trecho na regra (0 = início do conteúdo)
+ */
+public record RuleChunk(int chunkNo, int start, int end) {
+    
+    /**
+     * Texto do trecho, ou null se o conteúdo mudou e os offsets não valem mais
+     */
+    public String textOf(String content) {
+        if (content == null || start < 0 || end > content.length() || start >= end) {
+            return null;
+        }
+        return content.substring(start, end);
+    }
+}
@@ -0,0 +1,89 @@
+package com.backoffice.alerta.rag.chunk;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Divide BusinessRule.content em trechos sobrepostos para indexação multi-vetor
+ * 
+ * Cada trecho tem até chunkChars caracteres; o corte recua para o fim de
+ * parágrafo, linha ou palavra mais próximo (sem recuar mais que metade do trecho),
+ * e o trecho seguinte começa overlapChars antes do corte.
+ * 
+ * US#44 - Busca Semântica com Embeddings
+ */
+@Component
+public class RuleContentChunker {
+    
+    private final RagChunkingProperties properties;
+    
+    public RuleContentChunker(RagChunkingProperties properties) {
+        this.properties = properties;
+    }
+    
+    /**
+     * @return Trechos em ordem; vazio se o conteúdo for vazio ou o chunking estiver desligado
+     */
+    public List<RuleChunk> split(String content) {
+        if (!properties.isEnabled() || content == null || content.isBlank()) {
+            return Collections.emptyList();
+        }
+        
+        int size = Math.max(100, properties.getChunkChars());
+        int overlap = Math.max(0, Math.min(properties.getOverlapChars(), size / 2));
+        int maxChunks = Math.max(1, properties.getMaxChunks());
+        
+        List<RuleChunk> chunks = new ArrayList<>();
+        int start = skipWhitespace(content, 0);
+        while (start < content.length() && chunks.size() < maxChunks) {
+            int end = content.length() - start <= size 
+                ? content.length() 
+                : breakPoint(content, start, start + size);
+            chunks.add(new RuleChunk(chunks.size(), start, end));
+            if (end >= content.length()) {
+                break;
+            }
+            start = skipWhitespace(content, Math.max(start + 1, end - overlap));
+        }
+        return chunks;
+    }
+    
+    /**
+     * Primeiro trecho do conteúdo (contexto quando nenhum trecho venceu a busca)
+     */
+    public RuleChunk head(String content) {
+        List<RuleChunk> chunks = split(content);
+        return chunks.isEmpty() ? null : chunks.get(0);
+    }
+    
+    /**
+     * Melhor ponto de corte em (start + metade, limit]: parágrafo > linha > espaço
+     */
+    private static int breakPoint(String content, int start, int limit) {
+        int floor = start + (limit - start) / 2;
+        int paragraph = content.lastIndexOf("\n\n", limit - 1);
+        if (paragraph >= floor) {
+            return paragraph + 1;
+        }
+        int line = content.lastIndexOf('\n', limit - 1);
+        if (line >= floor) {
+            return line + 1;
+        }
+        int space = content.lastIndexOf(' ', limit - 1);
+        if (space >= floor) {
+            return space + 1;
+        }
+        return limit;
+    }
+    
+    private static int skipWhitespace(String content, int from) {
+        int i = from;
+        while (i < content.length() && Character.isWhitespace(content.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -1,5 +1,11 @@
 package com.backoffice.alerta.rag.embedding;
 
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface pluggável para geração de embeddings de regras de negócio
  * 
@@ -18,6 +24,62 @@ public interface BusinessRuleEmbeddingProvider {
      */
     float[] embed(String text);
     
+    /**
+     * Gera embeddings para vários textos
+     * 
+     * Providers remotos sobrescrevem com batching nativo (uma requisição por lote);
+     * a implementação padrão chama {@link #embed(String)} para cada texto.
+     * 
+     * @param texts Textos para gerar embedding
+     * @return Lista do mesmo tamanho e na mesma ordem de {@code texts};
+     *         posição null quando aquele texto não pôde ser processado
+     */
+    default List<float[]> embedBatch(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            try {
+                embeddings.add(embed(text));
+            } catch (Exception e) {
+                LoggerFactory.getLogger(getClass())
+                    .warn("⚠️ [US#65] Falha ao gerar embedding em lote | erro={}", e.getMessage());
+                embeddings.add(null);
+            }
+        }
+        return embeddings;
+    }
+    
+    /**
+     * Versão assíncrona de {@link #embed(String)}
+     * 
+     * Providers com cliente HTTP não-bloqueante sobrescrevem para não prender a thread
+     * chamadora durante a requisição; a implementação padrão executa {@code embed}
+     * na própria thread e devolve um future já completo.
+     * 
+     * @param text Texto para gerar embedding
+     * @return Future do vetor; completa com a exceção de {@code embed} em caso de erro
+     */
+    default CompletableFuture<float[]> embedAsync(String text) {
+        try {
+            return CompletableFuture.completedFuture(embed(text));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Versão assíncrona de {@link #embedBatch(List)}, com o mesmo contrato de resultado
+     * 
+     * @param texts Textos para gerar embedding
+     * @return Future da lista, no mesmo tamanho e ordem de {@code texts}
+     */
+    default CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+        try {
+            return CompletableFuture.completedFuture(embedBatch(texts));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
     /**
      * Retorna dimensão dos embeddings gerados
      * 
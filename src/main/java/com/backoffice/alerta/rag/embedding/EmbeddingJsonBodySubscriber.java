@@ -0,0 +1,190 @@
+package com.backoffice.alerta.rag.embedding;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * BodySubscriber que extrai embeddings direto dos bytes da resposta HTTP
+ *
+ * Usa o parser não-bloqueante do Jackson: cada chunk recebido é consumido na hora
+ * e os números do campo alvo vão direto para um float[dimension] pré-alocado,
+ * sem montar a resposta como String nem árvore JSON.
+ *
+ * Formatos suportados (campo no objeto raiz):
+ * - {"embedding": [0.1, ...]}             → nested=false, uma linha
+ * - {"embeddings": [[0.1, ...], [...]]}   → nested=true, uma linha por texto
+ *
+ * Vetores maiores que dimension são truncados; menores, completados com zero.
+ *
+ * US#65 - Substituição do DummyEmbedding por Modelo Real
+ */
+final class EmbeddingJsonBodySubscriber implements HttpResponse.BodySubscriber<List<float[]>> {
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final String field;
+    private final boolean nested;
+    private final int dimension;
+    private final List<float[]> rows = new ArrayList<>();
+    private final CompletableFuture<List<float[]>> result = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+
+    // Estado do parse
+    private int depth;
+    private boolean fieldPending;
+    private boolean found;
+    private boolean done;
+    private int targetDepth = -1;
+    private float[] row;
+    private int index;
+
+    EmbeddingJsonBodySubscriber(JsonFactory factory, String field, boolean nested, int dimension) {
+        try {
+            this.parser = factory.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.field = field;
+        this.nested = nested;
+        this.dimension = dimension;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        try {
+            for (ByteBuffer buffer : items) {
+                feed(buffer);
+            }
+            subscription.request(1);
+        } catch (IOException | RuntimeException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            feeder.endOfInput();
+            drain();
+            if (!found) {
+                throw new IOException("Campo '" + field + "' ausente na resposta de embedding");
+            }
+            result.complete(rows);
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public CompletionStage<List<float[]>> getBody() {
+        return result;
+    }
+
+    private void feed(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        if (length == 0 || result.isDone()) {
+            return;
+        }
+        byte[] bytes;
+        int offset;
+        if (buffer.hasArray()) {
+            bytes = buffer.array();
+            offset = buffer.arrayOffset() + buffer.position();
+        } else {
+            bytes = new byte[length];
+            buffer.get(bytes);
+            offset = 0;
+        }
+        // O parser guarda referência ao array: drenar antes de devolver o buffer
+        feeder.feedInput(bytes, offset, offset + length);
+        drain();
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT -> {
+                depth++;
+                fieldPending = false;
+            }
+            case END_OBJECT -> depth--;
+            case FIELD_NAME -> fieldPending = depth == 1 && !found && field.equals(parser.currentName());
+            case START_ARRAY -> {
+                depth++;
+                if (fieldPending) {
+                    found = true;
+                    targetDepth = depth;
+                    if (!nested) {
+                        beginRow();
+                    }
+                } else if (nested && !done && depth == targetDepth + 1) {
+                    beginRow();
+                }
+                fieldPending = false;
+            }
+            case END_ARRAY -> {
+                if (!done && depth == targetDepth) {
+                    if (!nested) {
+                        endRow();
+                    }
+                    done = true;
+                } else if (nested && !done && depth == targetDepth + 1) {
+                    endRow();
+                }
+                depth--;
+            }
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                if (row != null && depth == (nested ? targetDepth + 1 : targetDepth)) {
+                    if (index < row.length) {
+                        row[index] = parser.getFloatValue();
+                    }
+                    index++;
+                }
+                fieldPending = false;
+            }
+            default -> fieldPending = false;
+        }
+    }
+
+    private void beginRow() {
+        row = new float[dimension];
+        index = 0;
+    }
+
+    private void endRow() {
+        rows.add(row);
+        row = null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.backoffice.alerta.rag.embedding;
+
+/**
+ * Publicado quando a migração de modelo vira o índice ativo para um novo provider
+ * 
+ * Caches e índices derivados do modelo anterior (embeddings de consulta, trechos)
+ * devem ser descartados ao receber o evento.
+ * 
+ * @param previous Provider do índice anterior
+ * @param current Provider do novo índice ativo
+ * @param dimension Dimensão dos vetores do novo índice
+ */
+public record EmbeddingModelActivatedEvent(EmbeddingProviderType previous, 
+                                           EmbeddingProviderType current, 
+                                           int dimension) {}
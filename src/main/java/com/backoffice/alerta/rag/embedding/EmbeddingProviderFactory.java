@@ -1,9 +1,16 @@
 package com.backoffice.alerta.rag.embedding;
 
+import com.backoffice.alerta.rag.resilience.BackendUnavailableException;
+import com.backoffice.alerta.rag.resilience.RagResilienceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
 /**
  * Factory para criação de providers de embeddings com fallback automático
  * 
@@ -18,6 +25,10 @@ import org.springframework.stereotype.Component;
  * OPENAI (token ausente/erro) -> DUMMY
  * DUMMY -> sempre funciona (determinístico)
  * 
+ * Em tempo de execução, cada chamada com erro (ou rejeitada pelo circuit breaker
+ * do provider, ver RagResilienceRegistry) cai no DUMMY; o provider real volta a ser
+ * usado assim que o circuito fecha.
+ * 
  * US#65 - Substituição do DummyEmbedding por Modelo Real
  */
 @Component
@@ -27,11 +38,14 @@ public class EmbeddingProviderFactory {
     
     private final RagEmbeddingProperties properties;
     private final DummyBusinessRuleEmbeddingProvider dummyProvider;
+    private final RagResilienceRegistry resilienceRegistry;
     
     public EmbeddingProviderFactory(RagEmbeddingProperties properties, 
-                                   DummyBusinessRuleEmbeddingProvider dummyProvider) {
+                                   DummyBusinessRuleEmbeddingProvider dummyProvider,
+                                   RagResilienceRegistry resilienceRegistry) {
         this.properties = properties;
         this.dummyProvider = dummyProvider;
+        this.resilienceRegistry = resilienceRegistry;
     }
     
     /**
@@ -40,32 +54,57 @@ public class EmbeddingProviderFactory {
      * @return Provider configurado ou DUMMY (fallback)
      */
     public BusinessRuleEmbeddingProvider createProvider() {
-        EmbeddingProviderType providerType = properties.getProvider();
-        
+        return createProvider(properties.getProvider());
+    }
+    
+    /**
+     * Cria provider de um tipo específico (ex: modelo do índice ativo durante migração)
+     * 
+     * @return Provider do tipo pedido ou DUMMY (fallback)
+     */
+    public BusinessRuleEmbeddingProvider createProvider(EmbeddingProviderType providerType) {
         log.info("🧠 [US#65] Inicializando RAG Embedding Provider: {}", providerType);
         
         try {
-            switch (providerType) {
-                case SENTENCE_TRANSFORMER:
-                    return createSentenceTransformerProvider();
-                
-                case OPENAI:
-                    return createOpenAIProvider();
-                
-                case DUMMY:
-                default:
-                    return createDummyProvider();
-            }
+            return instantiate(providerType);
         } catch (Exception e) {
             return handleProviderCreationError(providerType, e);
         }
     }
     
+    /**
+     * Cria provider sem nenhum fallback (nem na criação, nem em tempo de execução)
+     * 
+     * Usado para gerar o índice sombra de uma migração: um erro deve falhar o lote,
+     * nunca gravar vetores DUMMY como se fossem do novo modelo.
+     * 
+     * @throws RuntimeException se o provider não puder ser criado/testado
+     */
+    public BusinessRuleEmbeddingProvider createProviderWithoutFallback(EmbeddingProviderType providerType) {
+        log.info("🧠 [US#65] Inicializando RAG Embedding Provider sem fallback: {}", providerType);
+        return instantiate(providerType);
+    }
+    
+    private BusinessRuleEmbeddingProvider instantiate(EmbeddingProviderType providerType) {
+        switch (providerType) {
+            case SENTENCE_TRANSFORMER:
+                return createSentenceTransformerProvider();
+            
+            case OPENAI:
+                return createOpenAIProvider();
+            
+            case DUMMY:
+            default:
+                return createDummyProvider();
+        }
+    }
+    
     private BusinessRuleEmbeddingProvider createSentenceTransformerProvider() {
         log.info("🌐 [US#65] Criando Sentence Transformer Provider...");
         
         SentenceTransformerEmbeddingProvider provider = 
-            new SentenceTransformerEmbeddingProvider(properties.getTimeoutSeconds());
+            new SentenceTransformerEmbeddingProvider(properties.getTimeoutSeconds(), properties.getBatchSize(),
+                resilienceRegistry.embedding(RagResilienceRegistry.EMBEDDING_SENTENCE_TRANSFORMER));
         
         // Testa provider com texto simples
         testProvider(provider, "teste de inicialização");
@@ -90,7 +129,9 @@ public class EmbeddingProviderFactory {
         OpenAIEmbeddingProvider provider = new OpenAIEmbeddingProvider(
             apiKey,
             properties.getOpenaiApiUrl(),
-            properties.getTimeoutSeconds()
+            properties.getTimeoutSeconds(),
+            properties.getBatchSize(),
+            resilienceRegistry.embedding(RagResilienceRegistry.EMBEDDING_OPENAI)
         );
         
         // Testa provider com texto simples
@@ -140,8 +181,20 @@ public class EmbeddingProviderFactory {
      * durante chamadas embed().
      */
     public BusinessRuleEmbeddingProvider createProviderWithRuntimeFallback() {
-        BusinessRuleEmbeddingProvider primaryProvider = createProvider();
-        
+        return createProviderWithRuntimeFallback(properties.getProvider());
+    }
+    
+    /**
+     * Como {@link #createProviderWithRuntimeFallback()}, para um tipo específico
+     */
+    public BusinessRuleEmbeddingProvider createProviderWithRuntimeFallback(EmbeddingProviderType providerType) {
+        return withRuntimeFallback(createProvider(providerType));
+    }
+    
+    /**
+     * Adiciona fallback em tempo de execução a um provider já criado
+     */
+    public BusinessRuleEmbeddingProvider withRuntimeFallback(BusinessRuleEmbeddingProvider primaryProvider) {
         // Se já é DUMMY, não precisa wrapper
         if (primaryProvider instanceof DummyBusinessRuleEmbeddingProvider) {
             return primaryProvider;
@@ -153,6 +206,10 @@ public class EmbeddingProviderFactory {
     
     /**
      * Provider wrapper que faz fallback automático em caso de erro
+     * 
+     * O fallback vale por chamada: a recuperação do provider real é decidida pelo
+     * circuit breaker dele (half-open), não por uma flag permanente.
+     * Vetores do fallback são marcados (FallbackEmbeddings).
      */
     private static class FallbackEmbeddingProvider implements BusinessRuleEmbeddingProvider {
         
@@ -160,7 +217,6 @@ public class EmbeddingProviderFactory {
         
         private final BusinessRuleEmbeddingProvider primary;
         private final BusinessRuleEmbeddingProvider fallback;
-        private boolean primaryFailed = false;
         
         FallbackEmbeddingProvider(BusinessRuleEmbeddingProvider primary, 
                                  BusinessRuleEmbeddingProvider fallback) {
@@ -170,18 +226,72 @@ public class EmbeddingProviderFactory {
         
         @Override
         public float[] embed(String text) {
-            // Se primary já falhou antes, usa fallback direto
-            if (primaryFailed) {
-                return fallback.embed(text);
-            }
-            
             try {
                 return primary.embed(text);
+            } catch (BackendUnavailableException e) {
+                log.debug("🔌 [US#65] Provider real indisponível ({}). Usando DummyEmbeddingProvider.", e.getReason());
+                return FallbackEmbeddings.mark(fallback.embed(text));
             } catch (Exception e) {
                 log.warn("⚠️ [US#65] Erro ao gerar embedding real. Usando DummyEmbeddingProvider. Erro: {}", 
                          e.getMessage());
-                primaryFailed = true;
-                return fallback.embed(text);
+                return FallbackEmbeddings.mark(fallback.embed(text));
+            }
+        }
+        
+        @Override
+        public List<float[]> embedBatch(List<String> texts) {
+            try {
+                return primary.embedBatch(texts);
+            } catch (BackendUnavailableException e) {
+                log.debug("🔌 [US#65] Provider real indisponível ({}). Usando DummyEmbeddingProvider.", e.getReason());
+                return markAll(fallback.embedBatch(texts));
+            } catch (Exception e) {
+                log.warn("⚠️ [US#65] Erro ao gerar embeddings em lote. Usando DummyEmbeddingProvider. Erro: {}", 
+                         e.getMessage());
+                return markAll(fallback.embedBatch(texts));
+            }
+        }
+        
+        @Override
+        public CompletableFuture<float[]> embedAsync(String text) {
+            return primaryAsync(() -> primary.embedAsync(text))
+                .exceptionally(error -> {
+                    logFallback(error);
+                    return FallbackEmbeddings.mark(fallback.embed(text));
+                });
+        }
+        
+        @Override
+        public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+            return primaryAsync(() -> primary.embedBatchAsync(texts))
+                .exceptionally(error -> {
+                    logFallback(error);
+                    return markAll(fallback.embedBatch(texts));
+                });
+        }
+        
+        private static List<float[]> markAll(List<float[]> embeddings) {
+            embeddings.forEach(FallbackEmbeddings::mark);
+            return embeddings;
+        }
+        
+        private static <T> CompletableFuture<T> primaryAsync(Supplier<CompletableFuture<T>> call) {
+            try {
+                return call.get();
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        
+        private void logFallback(Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            if (cause instanceof BackendUnavailableException unavailable) {
+                log.debug("🔌 [US#65] Provider real indisponível ({}). Usando DummyEmbeddingProvider.",
+                          unavailable.getReason());
+            } else {
+                log.warn("⚠️ [US#65] Erro ao gerar embedding real. Usando DummyEmbeddingProvider. Erro: {}",
+                         cause.getMessage());
             }
         }
         
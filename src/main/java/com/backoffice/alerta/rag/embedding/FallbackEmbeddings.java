@@ -0,0 +1,45 @@
+package com.backoffice.alerta.rag.embedding;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Marca vetores gerados por fallback (DUMMY em tempo de execução ou fallback
+ * semântico do Sentence Transformer) em vez do modelo real
+ *
+ * A marcação é por identidade do array: quem copia o vetor perde a marca, então
+ * a verificação deve ser feita sobre o array devolvido pelo provider. As marcas
+ * somem junto com os arrays (referências fracas).
+ *
+ * Usado para não gravar vetores de fallback como se fossem do modelo (hash de
+ * conteúdo do índice, cache persistente de queries).
+ *
+ * US#65 - Substituição do DummyEmbedding por Modelo Real
+ */
+public final class FallbackEmbeddings {
+
+    private static final Map<float[], Boolean> MARKED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private FallbackEmbeddings() {
+    }
+
+    /**
+     * Marca o vetor como fallback
+     *
+     * @return O próprio vetor
+     */
+    public static float[] mark(float[] embedding) {
+        if (embedding != null) {
+            MARKED.put(embedding, Boolean.TRUE);
+        }
+        return embedding;
+    }
+
+    /**
+     * @return true se o vetor foi gerado por fallback
+     */
+    public static boolean isFallback(float[] embedding) {
+        return embedding != null && MARKED.containsKey(embedding);
+    }
+}
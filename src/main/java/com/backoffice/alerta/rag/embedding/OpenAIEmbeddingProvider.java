@@ -2,6 +2,9 @@ package com.backoffice.alerta.rag.embedding;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.backoffice.alerta.rag.resilience.BackendUnavailableException;
+import com.backoffice.alerta.rag.resilience.ResilientBackend;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,6 +14,9 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Provider de embeddings usando OpenAI text-embedding-3-small
@@ -21,6 +27,13 @@ import java.time.Duration;
  * 
  * Dimensões: 1536 (padrão do modelo)
  * 
+ * embedBatch envia até batchSize textos por requisição (campo "input" como array);
+ * se um lote falhar, os textos daquele lote são tentados individualmente.
+ * 
+ * Resiliência (rag.resilience.embedding): bulkhead, timeout adaptativo e circuit breaker;
+ * com o circuito aberto as chamadas falham na hora (BackendUnavailableException) e o
+ * wrapper da factory responde com o provider DUMMY.
+ * 
  * Caso de erro:
  * - Token ausente
  * - Timeout
@@ -40,16 +53,22 @@ public class OpenAIEmbeddingProvider implements BusinessRuleEmbeddingProvider {
     private final String apiKey;
     private final String apiUrl;
     private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final ResilientBackend resilience;
     
-    public OpenAIEmbeddingProvider(String apiKey, String apiUrl, int timeoutSeconds) {
+    public OpenAIEmbeddingProvider(String apiKey, String apiUrl, int timeoutSeconds, int batchSize,
+                                   ResilientBackend resilience) {
         this.apiKey = apiKey;
         this.apiUrl = apiUrl;
+        this.batchSize = Math.max(1, batchSize);
+        this.resilience = resilience;
         this.objectMapper = new ObjectMapper();
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(timeoutSeconds))
                 .build();
         
-        log.info("🌐 [US#65] OpenAI Embedding Provider inicializado | model={} | url={}", MODEL, apiUrl);
+        log.info("🌐 [US#65] OpenAI Embedding Provider inicializado | model={} | url={} | batchSize={}", 
+                 MODEL, apiUrl, this.batchSize);
     }
     
     @Override
@@ -59,14 +78,103 @@ public class OpenAIEmbeddingProvider implements BusinessRuleEmbeddingProvider {
         }
         
         try {
-            return callOpenAI(text);
+            return resilience.execute(timeout -> callOpenAI(text, timeout));
+        } catch (BackendUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("❌ [US#65] Erro ao gerar embedding OpenAI: {}", e.getMessage());
             throw new RuntimeException("Failed to generate OpenAI embedding", e);
         }
     }
     
-    private float[] callOpenAI(String text) throws IOException, InterruptedException {
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        
+        for (int start = 0; start < texts.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, texts.size());
+            
+            // Textos vazios não são enviados (mesmo comportamento de embed)
+            List<Integer> positions = new ArrayList<>();
+            List<String> inputs = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                String text = texts.get(i);
+                if (text == null || text.trim().isEmpty()) {
+                    embeddings.set(i, new float[DIMENSION]);
+                } else {
+                    positions.add(i);
+                    inputs.add(text);
+                }
+            }
+            if (inputs.isEmpty()) {
+                continue;
+            }
+            
+            try {
+                List<float[]> batch = resilience.executeBatch(timeout -> callOpenAIBatch(inputs, timeout));
+                for (int j = 0; j < positions.size(); j++) {
+                    embeddings.set(positions.get(j), batch.get(j));
+                }
+            } catch (BackendUnavailableException e) {
+                // Circuito aberto/bulkhead cheio: não adianta tentar item a item
+                log.warn("🔌 [US#65] Lote de {} embeddings não enviado ({})", inputs.size(), e.getReason());
+            } catch (Exception e) {
+                log.warn("⚠️ [US#65] Lote de {} embeddings falhou, tentando individualmente: {}", 
+                         inputs.size(), e.getMessage());
+                for (int j = 0; j < positions.size(); j++) {
+                    try {
+                        String input = inputs.get(j);
+                        embeddings.set(positions.get(j), resilience.execute(timeout -> callOpenAI(input, timeout)));
+                    } catch (Exception single) {
+                        log.error("❌ [US#65] Erro ao gerar embedding OpenAI: {}", single.getMessage());
+                    }
+                }
+            }
+        }
+        
+        return embeddings;
+    }
+    
+    /**
+     * Uma requisição para N textos; a resposta traz "index" de cada item
+     * 
+     * @return Embeddings na ordem de {@code inputs} (null se o item não veio na resposta)
+     */
+    private List<float[]> callOpenAIBatch(List<String> inputs, Duration timeout) throws IOException, InterruptedException {
+        ObjectNode payload = objectMapper.createObjectNode();
+        inputs.forEach(payload.putArray("input")::add);
+        payload.put("model", MODEL);
+        
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/embeddings"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(payload)))
+                .build();
+        
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        
+        if (response.statusCode() != 200) {
+            throw new IOException("OpenAI API returned " + response.statusCode() + ": " + response.body());
+        }
+        
+        JsonNode data = objectMapper.readTree(response.body()).path("data");
+        if (!data.isArray()) {
+            throw new IOException("Invalid OpenAI response format");
+        }
+        
+        List<float[]> embeddings = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+        for (JsonNode item : data) {
+            int index = item.path("index").asInt(-1);
+            if (index >= 0 && index < inputs.size()) {
+                embeddings.set(index, toEmbedding(item.path("embedding")));
+            }
+        }
+        return embeddings;
+    }
+    
+    private float[] callOpenAI(String text, Duration timeout) throws IOException, InterruptedException {
         // Payload JSON
         String jsonPayload = String.format(
             "{\"input\": \"%s\", \"model\": \"%s\"}",
@@ -77,7 +185,7 @@ public class OpenAIEmbeddingProvider implements BusinessRuleEmbeddingProvider {
         // Request HTTP
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(apiUrl + "/embeddings"))
-                .timeout(Duration.ofSeconds(10))
+                .timeout(timeout)
                 .header("Content-Type", "application/json")
                 .header("Authorization", "Bearer " + apiKey)
                 .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
@@ -96,8 +204,11 @@ public class OpenAIEmbeddingProvider implements BusinessRuleEmbeddingProvider {
     
     private float[] parseOpenAIResponse(String json) throws IOException {
         JsonNode root = objectMapper.readTree(json);
-        JsonNode embeddingNode = root.path("data").get(0).path("embedding");
-        
+        JsonNode embeddingNode = root.path("data").path(0).path("embedding");
+        return toEmbedding(embeddingNode);
+    }
+    
+    private float[] toEmbedding(JsonNode embeddingNode) throws IOException {
         if (embeddingNode == null || !embeddingNode.isArray()) {
             throw new IOException("Invalid OpenAI response format");
         }
@@ -35,17 +35,29 @@ public class RagEmbeddingProperties {
     private String openaiApiUrl = "https://api.openai.com/v1";
     
     /**
-     * Timeout em segundos para chamadas de embedding
+     * Timeout de conexão em segundos para chamadas de embedding
+     * (o timeout da requisição é adaptativo, ver rag.resilience.embedding)
      * Default: 10 segundos
      */
     private int timeoutSeconds = 10;
     
+    /**
+     * Máximo de textos por requisição em embedBatch
+     * Default: 64
+     */
+    private int batchSize = 64;
+    
     /**
      * Habilitar fallback automático para DUMMY em caso de erro
      * Default: true (sempre usar fallback)
      */
     private boolean enableFallback = true;
     
+    /**
+     * Migração online ao trocar de provider (índice sombra em background)
+     */
+    private Migration migration = new Migration();
+    
     // Getters e Setters
     
     public EmbeddingProviderType getProvider() {
@@ -84,6 +96,14 @@ public class RagEmbeddingProperties {
         this.timeoutSeconds = timeoutSeconds;
     }
     
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
     public boolean isEnableFallback() {
         return enableFallback;
     }
@@ -91,4 +111,77 @@ public class RagEmbeddingProperties {
     public void setEnableFallback(boolean enableFallback) {
         this.enableFallback = enableFallback;
     }
+    
+    public Migration getMigration() {
+        return migration;
+    }
+    
+    public void setMigration(Migration migration) {
+        this.migration = migration;
+    }
+    
+    /**
+     * Migração de modelo: ao trocar rag.embedding.provider, o índice persistido do
+     * provider anterior continua servindo enquanto o novo é gerado em background
+     * (vector store JPA persistente apenas)
+     */
+    public static class Migration {
+        
+        /**
+         * Habilitar migração online
+         * Default: true (false = novo provider serve imediatamente e a indexação
+         * incremental re-embeda tudo)
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Regras por lote enviado ao novo provider
+         * Default: 32
+         */
+        private int batchSize = 32;
+        
+        /**
+         * Taxa máxima de regras re-embedadas por segundo (não compete com as consultas)
+         * Default: 20
+         */
+        private double rulesPerSecond = 20;
+        
+        /**
+         * Espera após o startup antes do primeiro lote (deixa a indexação inicial terminar)
+         * Default: 30 segundos
+         */
+        private long startDelaySeconds = 30;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getBatchSize() {
+            return batchSize;
+        }
+        
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+        
+        public double getRulesPerSecond() {
+            return rulesPerSecond;
+        }
+        
+        public void setRulesPerSecond(double rulesPerSecond) {
+            this.rulesPerSecond = rulesPerSecond;
+        }
+        
+        public long getStartDelaySeconds() {
+            return startDelaySeconds;
+        }
+        
+        public void setStartDelaySeconds(long startDelaySeconds) {
+            this.startDelaySeconds = startDelaySeconds;
+        }
+    }
 }
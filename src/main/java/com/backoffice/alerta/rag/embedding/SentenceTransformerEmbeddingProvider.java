@@ -1,9 +1,14 @@
 package com.backoffice.alerta.rag.embedding;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.backoffice.alerta.rag.resilience.BackendUnavailableException;
+import com.backoffice.alerta.rag.resilience.ResilientBackend;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -11,7 +16,12 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Provider de embeddings usando Sentence Transformers
@@ -25,6 +35,17 @@ import java.util.Random;
  * Para rodar serviço local (opcional):
  * python -m sentence_transformers.server --model paraphrase-multilingual-mpnet-base-v2
  * 
+ * Batching: embedBatch envia {"texts": [...]} para o mesmo /embed e espera
+ * {"embeddings": [[...], ...]} na mesma ordem, até batchSize textos por requisição.
+ * 
+ * Cliente assíncrono HTTP/2: embedAsync/embedBatchAsync não prendem thread durante a
+ * requisição (lotes saem em paralelo na mesma conexão) e a resposta é lida em streaming
+ * direto para float[] pré-alocados; embed/embedBatch apenas aguardam o future.
+ * 
+ * Resiliência (rag.resilience.embedding): chamadas HTTP passam por bulkhead, timeout
+ * adaptativo e circuit breaker. Serviço fora do ar abre o circuito (fallback semântico
+ * imediato) e é testado de novo após open-duration-ms, sem exigir restart.
+ * 
  * US#65 - Substituição do DummyEmbedding por Modelo Real
  */
 public class SentenceTransformerEmbeddingProvider implements BusinessRuleEmbeddingProvider {
@@ -36,13 +57,18 @@ public class SentenceTransformerEmbeddingProvider implements BusinessRuleEmbeddi
     
     private final HttpClient httpClient;
     private final String endpoint;
-    private final int timeoutSeconds;
-    private boolean serviceAvailable = false;
+    private final int batchSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResilientBackend resilience;
     
-    public SentenceTransformerEmbeddingProvider(int timeoutSeconds) {
-        this.timeoutSeconds = timeoutSeconds;
+    public SentenceTransformerEmbeddingProvider(int timeoutSeconds, int batchSize, ResilientBackend resilience) {
+        this.batchSize = Math.max(1, batchSize);
+        this.resilience = resilience;
         this.endpoint = DEFAULT_ENDPOINT;
+        // HTTP/2 multiplexa as requisições concorrentes numa única conexão
+        // (cai para HTTP/1.1 se o serviço não suportar)
         this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
                 .connectTimeout(Duration.ofSeconds(timeoutSeconds))
                 .build();
         
@@ -61,68 +87,151 @@ public class SentenceTransformerEmbeddingProvider implements BusinessRuleEmbeddi
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
             
             if (response.statusCode() == 200) {
-                serviceAvailable = true;
-                log.info("🌐 [US#65] Serviço Sentence Transformer disponível em {}", endpoint);
+                log.info("🌐 [US#65] Serviço Sentence Transformer disponível em {} ({})", endpoint, response.version());
+                return;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
-            serviceAvailable = false;
-            log.warn("⚠️ [US#65] Serviço Sentence Transformer não disponível. Usando embeddings simulados semânticos.");
+            // Indisponível: tratado abaixo
         }
+        log.warn("⚠️ [US#65] Serviço Sentence Transformer não disponível. Usando embeddings simulados semânticos.");
+        resilience.forceOpen();
     }
     
     @Override
     public float[] embed(String text) {
+        return embedAsync(text).join();
+    }
+    
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        return embedBatchAsync(texts).join();
+    }
+    
+    /**
+     * Embedding sem bloquear a thread chamadora; nunca completa com erro
+     * (falhas do serviço caem no fallback semântico)
+     */
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text) {
         if (text == null || text.trim().isEmpty()) {
-            return new float[DIMENSION];
+            return CompletableFuture.completedFuture(new float[DIMENSION]);
         }
         
-        // Tenta usar serviço HTTP se disponível
-        if (serviceAvailable) {
-            try {
-                return embedViaHttp(text);
-            } catch (Exception e) {
-                log.warn("⚠️ [US#65] Erro ao chamar serviço de embedding. Usando fallback semântico. Erro: {}", e.getMessage());
-                serviceAvailable = false; // Desabilita tentativas futuras até próximo restart
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("text", text);
+        
+        // Circuito aberto rejeita sem chamada
+        return resilience.<List<float[]>>executeAsync(timeout -> postAsync(payload, timeout, "embedding", false))
+            .thenApply(rows -> rows.get(0))
+            .handle((embedding, error) -> {
+                if (error == null) {
+                    return embedding;
+                }
+                logFallback(error, "");
+                // Fallback: embeddings simulados semanticamente inteligentes
+                return embedSemanticFallback(text);
+            });
+    }
+    
+    /**
+     * Lotes de até batchSize textos enviados em paralelo; cada lote que falhar
+     * cai no fallback semântico isoladamente. Nunca completa com erro.
+     */
+    @Override
+    public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+        float[][] embeddings = new float[texts.size()][];
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        
+        for (int start = 0; start < texts.size(); start += batchSize) {
+            int end = Math.min(start + batchSize, texts.size());
+            
+            List<Integer> positions = new ArrayList<>();
+            List<String> inputs = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                String text = texts.get(i);
+                if (text == null || text.trim().isEmpty()) {
+                    embeddings[i] = new float[DIMENSION];
+                } else {
+                    positions.add(i);
+                    inputs.add(text);
+                }
+            }
+            if (inputs.isEmpty()) {
+                continue;
             }
+            
+            ObjectNode payload = objectMapper.createObjectNode();
+            inputs.forEach(payload.putArray("texts")::add);
+            
+            batches.add(resilience.<List<float[]>>executeBatchAsync(timeout -> postAsync(payload, timeout, "embeddings", true))
+                .handle((rows, error) -> {
+                    if (error == null && rows.size() != inputs.size()) {
+                        error = new IOException("Resposta de lote inválida: esperados " + inputs.size()
+                            + " embeddings, recebidos " + rows.size());
+                    }
+                    if (error != null) {
+                        logFallback(error, " em lote");
+                    }
+                    for (int j = 0; j < positions.size(); j++) {
+                        embeddings[positions.get(j)] = error == null
+                            ? rows.get(j) : embedSemanticFallback(inputs.get(j));
+                    }
+                    return null;
+                }));
         }
         
-        // Fallback: embeddings simulados semanticamente inteligentes
-        return embedSemanticFallback(text);
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+            .thenApply(ignored -> Arrays.asList(embeddings));
     }
     
-    private float[] embedViaHttp(String text) throws IOException, InterruptedException {
-        String jsonPayload = String.format("{\"text\": \"%s\"}", text.replace("\"", "\\\""));
+    /**
+     * POST assíncrono no /embed; a resposta 200 é lida em streaming direto para
+     * float[] pré-alocados (ver EmbeddingJsonBodySubscriber)
+     */
+    private CompletableFuture<List<float[]>> postAsync(ObjectNode payload, Duration timeout,
+                                                       String field, boolean nested) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
         
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(endpoint))
-                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .timeout(timeout)
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(jsonPayload))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
                 .build();
         
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != 200) {
-            throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
-        }
-        
-        // Parse JSON response (simplificado - assume array de floats)
-        return parseEmbeddingResponse(response.body());
+        return httpClient.sendAsync(request, responseInfo -> {
+            if (responseInfo.statusCode() == 200) {
+                return new EmbeddingJsonBodySubscriber(objectMapper.getFactory(), field, nested, DIMENSION);
+            }
+            return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                error -> {
+                    throw new UncheckedIOException(
+                        new IOException("HTTP " + responseInfo.statusCode() + ": " + error));
+                });
+        }).thenApply(HttpResponse::body);
     }
     
-    private float[] parseEmbeddingResponse(String json) {
-        // Simplificação: assume formato {"embedding": [0.1, 0.2, ...]}
-        // Em produção, usar biblioteca JSON como Jackson
-        
-        String embeddingStr = json.substring(json.indexOf("[") + 1, json.lastIndexOf("]"));
-        String[] values = embeddingStr.split(",");
-        
-        float[] embedding = new float[Math.min(values.length, DIMENSION)];
-        for (int i = 0; i < embedding.length; i++) {
-            embedding[i] = Float.parseFloat(values[i].trim());
+    private void logFallback(Throwable error, String scope) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        if (cause instanceof UncheckedIOException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof BackendUnavailableException unavailable) {
+            log.debug("🔌 [US#65] Serviço de embedding indisponível ({}). Usando fallback semântico.",
+                      unavailable.getReason());
+        } else {
+            log.warn("⚠️ [US#65] Erro ao chamar serviço de embedding{}. Usando fallback semântico. Erro: {}",
+                     scope, cause.getMessage());
         }
-        
-        return embedding;
     }
     
     /**
@@ -130,6 +239,7 @@ public class SentenceTransformerEmbeddingProvider implements BusinessRuleEmbeddi
      * 
      * Diferente do DummyProvider que usa hash puro, este detecta palavras-chave
      * e ajusta dimensões específicas para criar proximidade semântica.
+     * O vetor é marcado como fallback (FallbackEmbeddings).
      */
     private float[] embedSemanticFallback(String text) {
         String normalized = text.toLowerCase().trim();
@@ -143,7 +253,7 @@ public class SentenceTransformerEmbeddingProvider implements BusinessRuleEmbeddi
         // Normaliza vetor
         normalize(embedding);
         
-        return embedding;
+        return FallbackEmbeddings.mark(embedding);
     }
     
     private float[] generateBaseEmbedding(String text) {
@@ -0,0 +1,70 @@
+package com.backoffice.alerta.rag.embedding;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provider de embeddings com troca atômica do modelo ativo
+ * 
+ * Durante a migração de modelo (EmbeddingModelMigrationService) as consultas e a
+ * indexação incremental continuam usando o modelo do índice ativo; na virada o
+ * novo modelo passa a ser usado por todas as chamadas seguintes.
+ * 
+ * US#65 - Substituição do DummyEmbedding por Modelo Real
+ */
+public class VersionedEmbeddingProvider implements BusinessRuleEmbeddingProvider {
+    
+    private volatile Version active;
+    
+    public VersionedEmbeddingProvider(EmbeddingProviderType type, BusinessRuleEmbeddingProvider provider) {
+        this.active = new Version(type, provider);
+    }
+    
+    /**
+     * Tipo do provider que gerou o índice ativo
+     */
+    public EmbeddingProviderType getActiveType() {
+        return active.type();
+    }
+    
+    /**
+     * Provider efetivo (ex: para logar a implementação em uso)
+     */
+    public BusinessRuleEmbeddingProvider getActiveProvider() {
+        return active.provider();
+    }
+    
+    /**
+     * Troca o modelo ativo (chamadas em andamento terminam no modelo anterior)
+     */
+    public void activate(EmbeddingProviderType type, BusinessRuleEmbeddingProvider provider) {
+        this.active = new Version(type, provider);
+    }
+    
+    @Override
+    public float[] embed(String text) {
+        return active.provider().embed(text);
+    }
+    
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        return active.provider().embedBatch(texts);
+    }
+    
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text) {
+        return active.provider().embedAsync(text);
+    }
+    
+    @Override
+    public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts) {
+        return active.provider().embedBatchAsync(texts);
+    }
+    
+    @Override
+    public int getDimension() {
+        return active.provider().getDimension();
+    }
+    
+    private record Version(EmbeddingProviderType type, BusinessRuleEmbeddingProvider provider) {}
+}
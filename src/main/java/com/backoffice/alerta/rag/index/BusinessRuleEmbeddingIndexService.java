@@ -1,24 +1,71 @@
 package com.backoffice.alerta.rag.index;
 
-import com.backoffice.alerta.rag.embedding.BusinessRuleEmbeddingProvider;
+import com.backoffice.alerta.rag.cache.RagDataVersion;
+import com.backoffice.alerta.rag.chunk.BusinessRuleChunkStore;
+import com.backoffice.alerta.rag.chunk.RagChunkingProperties;
+import com.backoffice.alerta.rag.chunk.RuleChunk;
+import com.backoffice.alerta.rag.chunk.RuleContentChunker;
+import com.backoffice.alerta.rag.embedding.EmbeddingModelActivatedEvent;
+import com.backoffice.alerta.rag.embedding.EmbeddingProviderType;
+import com.backoffice.alerta.rag.embedding.FallbackEmbeddings;
+import com.backoffice.alerta.rag.embedding.VersionedEmbeddingProvider;
 import com.backoffice.alerta.rag.persistence.JpaBusinessRuleVectorStore;
+import com.backoffice.alerta.rag.resilience.RagResilienceRegistry;
+import com.backoffice.alerta.rag.resilience.ResilientBackend;
 import com.backoffice.alerta.rag.vector.BusinessRuleVectorStore;
 import com.backoffice.alerta.rules.BusinessRule;
 import com.backoffice.alerta.rules.BusinessRuleRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * Serviço de indexação de embeddings de regras de negócio
  * 
- * Executa automaticamente no startup (@PostConstruct) e indexa
- * todas as regras existentes no vector store.
+ * Indexação incremental em background:
+ * - Cada embedding guarda o hash (SHA-256) do texto que o gerou
+ * - Só regras novas ou com texto alterado são enviadas ao modelo
+ * - Vetores de fallback (FallbackEmbeddings) são gravados sem hash, para a regra
+ *   ser re-embedada quando o modelo real voltar (circuito fora de OPEN)
+ * - Lotes de regras são processados em paralelo por um pool limitado
+ * - Conteúdo longo (BusinessRule.content) ganha um vetor por trecho (BusinessRuleChunkStore),
+ *   além do vetor de nome/descrição da regra
+ * - Executa após o startup e periodicamente (rag.indexing.refresh-interval-seconds)
+ * - Toda indexação roda no ragIndexingScheduler (também a de indexRules), serializada
+ *   com a virada de modelo da EmbeddingModelMigrationService
+ * - Expõe readiness e progresso (getStatus + métricas rag.indexing.*)
  * 
  * US#44 - Busca Semântica com Embeddings
  * US#66 - Persistência de Vetores (evita regeneração desnecessária)
@@ -29,119 +76,432 @@ public class BusinessRuleEmbeddingIndexService {
     private static final Logger log = LoggerFactory.getLogger(BusinessRuleEmbeddingIndexService.class);
     
     private final BusinessRuleRepository ruleRepository;
-    private final BusinessRuleEmbeddingProvider embeddingProvider;
+    private final VersionedEmbeddingProvider embeddingProvider;
     private final BusinessRuleVectorStore vectorStore;
+    private final BusinessRuleChunkStore chunkStore;
+    private final RuleContentChunker chunker;
+    private final RagChunkingProperties chunkingProperties;
+    private final RagIndexingProperties properties;
+    private final RagDataVersion dataVersion;
+    private final RagResilienceRegistry resilienceRegistry;
+    private final ExecutorService indexingExecutor;
+    private final ScheduledExecutorService indexingScheduler;
     
     // US#66: VectorStore persistente (opcional, pode ser null se usando in-memory)
     @Autowired(required = false)
     private JpaBusinessRuleVectorStore jpaVectorStore;
     
+    // Hash do texto de cada regra já indexada (vectorId → SHA-256)
+    private final Map<UUID, String> indexedHashes = new ConcurrentHashMap<>();
+    
+    // Conteúdo (resumo + trechos) de regras indexadas com vetores de fallback (vectorId → chave)
+    private final Map<UUID, String> fallbackContent = new ConcurrentHashMap<>();
+    private volatile boolean persistedHashesLoaded = false;
+    
+    // Readiness: true após a primeira execução concluída sem erro
+    private volatile boolean ready = false;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    
+    // Progresso da execução mais recente
+    private final AtomicInteger totalRules = new AtomicInteger();
+    private final AtomicInteger processedRules = new AtomicInteger();
+    private final AtomicInteger unchangedRules = new AtomicInteger();
+    private final AtomicInteger reembeddedRules = new AtomicInteger();
+    private final AtomicInteger failedRules = new AtomicInteger();
+    private volatile Instant lastRunStartedAt;
+    private volatile Instant lastRunCompletedAt;
+    private volatile long lastRunDurationMs;
+    
     public BusinessRuleEmbeddingIndexService(
             BusinessRuleRepository ruleRepository,
-            BusinessRuleEmbeddingProvider embeddingProvider,
-            BusinessRuleVectorStore vectorStore) {
+            VersionedEmbeddingProvider embeddingProvider,
+            BusinessRuleVectorStore vectorStore,
+            BusinessRuleChunkStore chunkStore,
+            RuleContentChunker chunker,
+            RagChunkingProperties chunkingProperties,
+            RagIndexingProperties properties,
+            RagDataVersion dataVersion,
+            RagResilienceRegistry resilienceRegistry,
+            @Qualifier("ragIndexingExecutor") ExecutorService indexingExecutor,
+            @Qualifier("ragIndexingScheduler") ScheduledExecutorService indexingScheduler,
+            ObjectProvider<MeterRegistry> meterRegistry) {
         this.ruleRepository = ruleRepository;
         this.embeddingProvider = embeddingProvider;
         this.vectorStore = vectorStore;
+        this.chunkStore = chunkStore;
+        this.chunker = chunker;
+        this.chunkingProperties = chunkingProperties;
+        this.properties = properties;
+        this.dataVersion = dataVersion;
+        this.resilienceRegistry = resilienceRegistry;
+        this.indexingExecutor = indexingExecutor;
+        this.indexingScheduler = indexingScheduler;
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+    
+    private void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("rag.indexing.ready", this, s -> s.ready ? 1 : 0)
+            .description("1 quando a primeira indexação de embeddings terminou")
+            .register(registry);
+        Gauge.builder("rag.indexing.rules.total", totalRules, AtomicInteger::get).register(registry);
+        Gauge.builder("rag.indexing.rules.processed", processedRules, AtomicInteger::get).register(registry);
+        Gauge.builder("rag.indexing.rules.unchanged", unchangedRules, AtomicInteger::get).register(registry);
+        Gauge.builder("rag.indexing.rules.reembedded", reembeddedRules, AtomicInteger::get).register(registry);
+        Gauge.builder("rag.indexing.rules.failed", failedRules, AtomicInteger::get).register(registry);
     }
     
     /**
-     * Indexa todas as regras no startup
+     * Agenda a indexação em background no startup
      * 
      * Usa ApplicationReadyEvent para garantir que execute DEPOIS
-     * do DemoDataInitializer carregar os dados
+     * do DemoDataInitializer carregar os dados. A aplicação não espera
+     * os embeddings: até ficar pronta, a busca lexical cobre as consultas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleIndexing() {
+        long interval = properties.getRefreshIntervalSeconds();
+        if (interval > 0) {
+            indexingScheduler.scheduleWithFixedDelay(this::indexAllRules, 0, interval, TimeUnit.SECONDS);
+            log.info("🚀 [US#66] Indexação de embeddings agendada em background | refresh={}s", interval);
+        } else {
+            indexingScheduler.execute(this::indexAllRules);
+            log.info("🚀 [US#66] Indexação de embeddings iniciada em background");
+        }
+    }
+    
+    /**
+     * Indexa regras novas ou alteradas (bloqueia até o fim da execução)
      * 
-     * US#66: Verifica embeddings persistidos antes de regenerar
+     * Regras cujo texto tem o mesmo hash do embedding já indexado são puladas,
+     * então execuções sem alterações não chamam o provider.
+     * Execuções concorrentes são ignoradas.
      */
-    @EventListener(org.springframework.boot.context.event.ApplicationReadyEvent.class)
     public void indexAllRules() {
-        log.info("🚀 Iniciando indexação de embeddings...");
+        if (!running.compareAndSet(false, true)) {
+            log.debug("⏭️ [US#66] Indexação já em andamento, ignorando");
+            return;
+        }
+        
+        long start = System.nanoTime();
+        lastRunStartedAt = Instant.now();
         
         try {
+            loadPersistedHashes();
+            
             List<BusinessRule> allRules = ruleRepository.findAll();
+            resetProgress(allRules.size());
             
             if (allRules.isEmpty()) {
-                log.warn("⚠️ Nenhuma regra encontrada para indexar");
+                log.debug("⚠️ Nenhuma regra encontrada para indexar");
+                ready = true;
                 return;
             }
             
-            // US#66: Verifica embeddings persistidos
-            long persistedCount = jpaVectorStore != null ? jpaVectorStore.persistedCount() : 0;
+            List<PendingRule> pending = new ArrayList<>();
+            for (BusinessRule rule : allRules) {
+                PendingRule rulePending = pendingFor(rule);
+                if (rulePending == null) {
+                    unchangedRules.incrementAndGet();
+                    processedRules.incrementAndGet();
+                } else {
+                    pending.add(rulePending);
+                }
+            }
             
-            if (persistedCount > 0) {
-                log.info("🧠 [US#66] Found {} persisted embeddings. Skipping regeneration.", persistedCount);
-                log.info("📊 Vector store: {} embeddings em cache (dimensão: {})", 
-                         jpaVectorStore.size(), embeddingProvider.getDimension());
+            if (pending.isEmpty()) {
+                log.debug("🧠 [US#66] {} regras sem alteração. Nada a re-embedar.", allRules.size());
+                ready = true;
                 return;
             }
             
-            log.info("🧠 [US#66] No embeddings found. Generating and persisting...");
+            log.info("🧠 [US#66] {} de {} regras novas/alteradas. Gerando embeddings...", 
+                     pending.size(), allRules.size());
             
-            int indexed = 0;
-            int failed = 0;
+            embedPending(pending, true);
             
-            for (BusinessRule rule : allRules) {
-                try {
-                    UUID ruleId = UUID.fromString(rule.getId());
-                    
-                    // US#66: Verifica se embedding já existe para esta regra específica
-                    if (jpaVectorStore != null && jpaVectorStore.hasEmbedding(ruleId)) {
-                        log.debug("⏭️ [US#66] Embedding já existe para rule={}, pulando", ruleId);
-                        indexed++;
-                        continue;
+            log.info("✅ Indexação concluída: {} re-embedadas, {} sem alteração, {} falharam", 
+                     reembeddedRules.get(), unchangedRules.get(), failedRules.get());
+            
+            // US#64: Novos embeddings mudam a busca semântica (invalida respostas cacheadas)
+            if (reembeddedRules.get() > 0) {
+                dataVersion.bump();
+            }
+            
+            // US#66: Atualiza o segmento em disco para o próximo startup
+            if (jpaVectorStore != null) {
+                jpaVectorStore.flushSegment();
+            }
+            
+            log.info("📊 Vector store: {} embeddings (dimensão: {})", 
+                     indexedEmbeddings(), embeddingProvider.getDimension());
+            ready = true;
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ [US#66] Indexação interrompida");
+        } catch (Exception e) {
+            log.error("❌ Erro crítico na indexação de embeddings", e);
+        } finally {
+            lastRunDurationMs = (System.nanoTime() - start) / 1_000_000;
+            lastRunCompletedAt = Instant.now();
+            running.set(false);
+        }
+    }
+    
+    /**
+     * Regra com vetor de resumo e/ou trechos desatualizados; null se nada mudou
+     */
+    private PendingRule pendingFor(BusinessRule rule) {
+        UUID vectorId = rule.getVectorId();
+        String text = buildTextForEmbedding(rule);
+        String hash = contentHash(text);
+        boolean summaryChanged = !hash.equals(indexedHashes.get(vectorId));
+        
+        // US#44: Um vetor por trecho de content (regras sem conteúdo não têm trechos)
+        List<RuleChunk> chunks = chunker.split(rule.getContent());
+        String chunkHash = chunks.isEmpty() ? null : contentHash(chunkHashInput(rule));
+        boolean chunksChanged = !Objects.equals(chunkHash, chunkStore.contentHash(vectorId));
+        
+        if (!summaryChanged && !chunksChanged) {
+            return null;
+        }
+        
+        // Já indexada com fallback para este conteúdo: só re-embeda se o modelo real pode responder
+        String contentKey = hash + ":" + chunkHash;
+        if (contentKey.equals(fallbackContent.get(vectorId)) && !realModelAvailable()) {
+            return null;
+        }
+        
+        List<String> texts = new ArrayList<>();
+        if (summaryChanged) {
+            texts.add(text);
+        }
+        if (chunksChanged) {
+            for (RuleChunk chunk : chunks) {
+                texts.add(buildChunkTextForEmbedding(rule, chunk));
+            }
+        }
+        return new PendingRule(rule, summaryChanged ? hash : null, chunksChanged, chunks, chunkHash, 
+                               contentKey, texts);
+    }
+    
+    /**
+     * false enquanto o circuito do provider ativo estiver OPEN (novas chamadas cairiam no fallback)
+     */
+    private boolean realModelAvailable() {
+        ResilientBackend backend = resilienceRegistry.embedding(embeddingProvider.getActiveType());
+        return backend == null || backend.getState() != ResilientBackend.State.OPEN;
+    }
+    
+    /**
+     * Gera e grava os embeddings das regras pendentes em lotes paralelos
+     * (uma chamada embedBatchAsync por lote): no máximo `threads` requisições
+     * em voo; a gravação no vector store roda no executor de indexação
+     * 
+     * @param countProgress Atualiza os contadores da execução (getStatus)
+     */
+    private void embedPending(List<PendingRule> pending, boolean countProgress) throws InterruptedException {
+        // Modelo que gera os vetores: a gravação é descartada se o índice ativo mudar
+        EmbeddingProviderType provider = embeddingProvider.getActiveType();
+        int batchSize = Math.max(1, properties.getChunkSize());
+        Semaphore inFlight = new Semaphore(Math.max(1, properties.getThreads()));
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<PendingRule> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            inFlight.acquire();
+            batches.add(embedBatchAsync(batch)
+                .thenAcceptAsync(embeddings -> storeBatch(batch, embeddings, provider, countProgress), indexingExecutor)
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    log.error("❌ Erro ao gerar embeddings de {} regras: {}", batch.size(), cause.getMessage());
+                    if (countProgress) {
+                        failedRules.addAndGet(batch.size());
+                        processedRules.addAndGet(batch.size());
                     }
-                    
-                    String textToEmbed = buildTextForEmbedding(rule);
-                    
-                    if (textToEmbed == null || textToEmbed.trim().isEmpty()) {
-                        log.warn("⚠️ Regra {} tem texto vazio, pulando indexação", rule.getId());
-                        failed++;
-                        continue;
+                    return null;
+                })
+                .whenComplete((ignored, error) -> inFlight.release()));
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+    }
+    
+    /**
+     * Gera os embeddings de um lote sem prender thread durante a chamada ao provider
+     * (resumo e trechos de todas as regras do lote numa única lista)
+     */
+    private CompletableFuture<List<float[]>> embedBatchAsync(List<PendingRule> batch) {
+        try {
+            return embeddingProvider.embedBatchAsync(batch.stream()
+                .flatMap(pending -> pending.texts().stream())
+                .collect(Collectors.toList()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Salva os embeddings gerados para um lote de regras
+     */
+    private void storeBatch(List<PendingRule> batch, List<float[]> embeddings, EmbeddingProviderType provider,
+                            boolean countProgress) {
+        int offset = 0;
+        for (PendingRule pending : batch) {
+            BusinessRule rule = pending.rule();
+            List<float[]> ruleEmbeddings = embeddings.subList(offset, offset + pending.texts().size());
+            offset += pending.texts().size();
+            
+            boolean stored = false;
+            int dimension = embeddingProvider.getDimension();
+            try {
+                if (ruleEmbeddings.stream().anyMatch(embedding -> embedding == null || embedding.length == 0)) {
+                    log.warn("⚠️ Embedding nulo/vazio para regra {}", rule.getId());
+                } else if (ruleEmbeddings.stream().anyMatch(embedding -> embedding.length != dimension)) {
+                    // Ex: DUMMY do fallback em tempo de execução (128) no lugar do modelo real
+                    log.warn("⚠️ Embedding da regra {} com dimensão diferente do provider ({}), não indexado", 
+                             rule.getId(), dimension);
+                } else {
+                    // Fallback: grava sem hash para a regra ser re-embedada com o modelo real
+                    boolean fallback = ruleEmbeddings.stream().anyMatch(FallbackEmbeddings::isFallback);
+                    UUID vectorId = rule.getVectorId();
+                    int next = 0;
+                    if (pending.summaryHash() != null) {
+                        store(vectorId, ruleEmbeddings.get(next++), fallback ? null : pending.summaryHash(), provider);
                     }
-                    
-                    float[] embedding = embeddingProvider.embed(textToEmbed);
-                    
-                    if (embedding == null || embedding.length == 0) {
-                        log.warn("⚠️ Embedding nulo/vazio para regra {}", rule.getId());
-                        failed++;
-                        continue;
+                    if (pending.chunksChanged()) {
+                        storeChunks(vectorId, pending, ruleEmbeddings.subList(next, ruleEmbeddings.size()), 
+                                    fallback ? null : pending.chunkHash());
                     }
-                    
-                    // Salva no vector store (que pode persistir ou não)
-                    if (jpaVectorStore != null) {
-                        jpaVectorStore.save(ruleId, embedding);
+                    if (fallback) {
+                        fallbackContent.put(vectorId, pending.contentKey());
                     } else {
-                        vectorStore.save(ruleId, embedding);
+                        fallbackContent.remove(vectorId);
                     }
+                    stored = true;
                     
-                    log.info("✅ Indexed rule [{}] '{}' with embedding size {}", 
-                             rule.getId(), rule.getName(), embedding.length);
-                    
-                    indexed++;
-                    
-                } catch (Exception e) {
-                    log.error("❌ Erro ao indexar regra {}: {}", rule.getId(), e.getMessage());
-                    failed++;
+                    log.debug("✅ Indexed rule [{}] '{}' | embeddings={} | fallback={}", 
+                              rule.getId(), rule.getName(), ruleEmbeddings.size(), fallback);
                 }
+            } catch (Exception e) {
+                log.error("❌ Erro ao indexar regra {}: {}", rule.getId(), e.getMessage());
             }
             
-            log.info("✅ Indexação concluída: {} regras indexadas, {} falharam", indexed, failed);
-            
-            int finalSize = jpaVectorStore != null ? jpaVectorStore.size() : vectorStore.size();
-            log.info("📊 Vector store: {} embeddings (dimensão: {})", 
-                     finalSize, embeddingProvider.getDimension());
-            
-        } catch (Exception e) {
-            log.error("❌ Erro crítico na indexação de embeddings", e);
+            if (countProgress) {
+                (stored ? reembeddedRules : failedRules).incrementAndGet();
+                processedRules.incrementAndGet();
+            }
         }
     }
     
+    /**
+     * Salva no vector store ativo (persistente ou in-memory) e registra o hash
+     * 
+     * @param hash null para vetores de fallback (a regra continua desatualizada)
+     * @param provider Modelo que gerou o vetor
+     */
+    private void store(UUID vectorId, float[] embedding, String hash, EmbeddingProviderType provider) {
+        if (jpaVectorStore != null) {
+            jpaVectorStore.save(vectorId, embedding, hash, provider);
+        } else {
+            vectorStore.save(vectorId, embedding);
+        }
+        if (hash != null) {
+            indexedHashes.put(vectorId, hash);
+        } else {
+            indexedHashes.remove(vectorId);
+        }
+    }
+    
+    /**
+     * US#44: Substitui os trechos da regra (ou remove, se o conteúdo ficou vazio)
+     */
+    private void storeChunks(UUID vectorId, PendingRule pending, List<float[]> embeddings, String chunkHash) {
+        if (pending.chunks().isEmpty()) {
+            chunkStore.remove(vectorId);
+        } else {
+            chunkStore.replace(vectorId, pending.chunks(), embeddings, chunkHash);
+        }
+    }
+    
+    /**
+     * Carrega (uma vez) os hashes dos embeddings persistidos
+     */
+    private void loadPersistedHashes() {
+        if (persistedHashesLoaded || jpaVectorStore == null) {
+            return;
+        }
+        Map<UUID, String> persisted = jpaVectorStore.contentHashes();
+        indexedHashes.putAll(persisted);
+        persistedHashesLoaded = true;
+        log.info("🧠 [US#66] {} hashes de conteúdo carregados do database", persisted.size());
+    }
+    
+    private void resetProgress(int total) {
+        totalRules.set(total);
+        processedRules.set(0);
+        unchangedRules.set(0);
+        reembeddedRules.set(0);
+        failedRules.set(0);
+    }
+    
+    private int indexedEmbeddings() {
+        return jpaVectorStore != null ? jpaVectorStore.size() : vectorStore.size();
+    }
+    
+    /**
+     * SHA-256 do texto embedado; inclui a dimensão para invalidar
+     * os embeddings quando o provider muda
+     */
+    private String contentHash(String text) {
+        return contentHash(text, embeddingProvider.getDimension());
+    }
+    
+    /**
+     * Hash com a dimensão de um provider específico (índice sombra da migração de modelo)
+     */
+    String contentHash(String text, int dimension) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Integer.toString(dimension).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+    
+    /**
+     * Readiness: true após a primeira execução da indexação
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Estado atual da indexação (readiness + progresso)
+     */
+    public RagIndexingStatus getStatus() {
+        RagIndexingStatus status = new RagIndexingStatus();
+        status.setReady(ready);
+        status.setRunning(running.get());
+        status.setTotalRules(totalRules.get());
+        status.setProcessedRules(processedRules.get());
+        status.setUnchangedRules(unchangedRules.get());
+        status.setReembeddedRules(reembeddedRules.get());
+        status.setFailedRules(failedRules.get());
+        status.setIndexedEmbeddings(indexedEmbeddings());
+        status.setLastRunStartedAt(lastRunStartedAt);
+        status.setLastRunCompletedAt(lastRunCompletedAt);
+        status.setLastRunDurationMs(lastRunDurationMs);
+        return status;
+    }
+    
     /**
      * Constrói texto rico para gerar embedding
      * 
      * Combina múltiplos campos para melhor qualidade semântica
      */
-    private String buildTextForEmbedding(BusinessRule rule) {
+    String buildTextForEmbedding(BusinessRule rule) {
         StringBuilder text = new StringBuilder();
         
         // Nome da regra (peso alto)
@@ -175,32 +535,141 @@ public class BusinessRuleEmbeddingIndexService {
         return result;
     }
     
+    /**
+     * US#44: Texto de um trecho — nome da regra + passagem, para o vetor
+     * manter o contexto da regra mesmo em trechos do meio do documento
+     */
+    private String buildChunkTextForEmbedding(BusinessRule rule, RuleChunk chunk) {
+        String passage = chunk.textOf(rule.getContent());
+        if (rule.getName() == null || rule.getName().isBlank()) {
+            return passage;
+        }
+        return rule.getName().trim() + ". " + passage;
+    }
+    
+    /**
+     * Entrada do hash dos trechos: muda com o conteúdo, o nome ou os parâmetros de chunking
+     */
+    private String chunkHashInput(BusinessRule rule) {
+        return "chunks:" + chunkingProperties.getChunkChars() + ":" + chunkingProperties.getOverlapChars()
+            + ":" + chunkingProperties.getMaxChunks() + "\n" + rule.getName() + "\n" + rule.getContent();
+    }
+    
     /**
      * Indexa uma única regra (útil para novos cadastros)
      * 
+     * Não chama o provider se o texto da regra não mudou.
+     * 
      * @param rule Regra a ser indexada
      */
     public void indexRule(BusinessRule rule) {
+        indexRules(List.of(rule));
+    }
+    
+    /**
+     * Indexa um conjunto de regras (ex: importação), em lote
+     * 
+     * Regras sem alteração são puladas; os contadores da execução periódica não mudam.
+     * Roda no ragIndexingScheduler, para nunca concorrer com a virada de modelo, e
+     * espera no máximo rag.indexing.on-demand-wait-ms: atrás de uma execução completa
+     * ou de um lote de migração, retorna e a indexação termina em background.
+     * 
+     * @param rules Regras a serem indexadas
+     */
+    public void indexRules(List<BusinessRule> rules) {
+        Future<?> indexing;
+        try {
+            indexing = indexingScheduler.submit(() -> indexRulesNow(rules));
+        } catch (RejectedExecutionException e) {
+            log.error("❌ Erro ao indexar {} regra(s): {}", rules.size(), e.getMessage());
+            return;
+        }
         try {
-            String textToEmbed = buildTextForEmbedding(rule);
-            float[] embedding = embeddingProvider.embed(textToEmbed);
+            indexing.get(properties.getOnDemandWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.info("⏳ [US#66] Indexador ocupado: {} regra(s) serão indexadas em background", rules.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ [US#66] Indexação de {} regra(s) interrompida", rules.size());
+        } catch (ExecutionException e) {
+            log.error("❌ Erro ao indexar {} regra(s): {}", rules.size(), e.getMessage());
+        }
+    }
+    
+    private void indexRulesNow(List<BusinessRule> rules) {
+        try {
+            loadPersistedHashes();
+            
+            List<PendingRule> pending = new ArrayList<>();
+            for (BusinessRule rule : rules) {
+                PendingRule rulePending = pendingFor(rule);
+                if (rulePending != null) {
+                    pending.add(rulePending);
+                }
+            }
+            if (pending.isEmpty()) {
+                log.debug("⏭️ [US#66] {} regra(s) sem alteração, pulando", rules.size());
+                return;
+            }
             
-            UUID ruleId = UUID.fromString(rule.getId());
-            vectorStore.save(ruleId, embedding);
+            embedPending(pending, false);
+            dataVersion.bump();
+            if (jpaVectorStore != null) {
+                jpaVectorStore.flushSegment();
+            }
             
-            log.debug("✅ Regra {} re-indexada", rule.getId());
+            log.debug("✅ {} regra(s) re-indexada(s)", pending.size());
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ [US#66] Indexação interrompida");
         } catch (Exception e) {
-            log.error("❌ Erro ao indexar regra {}: {}", rule.getId(), e.getMessage());
+            log.error("❌ Erro ao indexar {} regra(s): {}", rules.size(), e.getMessage());
         }
     }
     
     /**
-     * Reindexar todas as regras (útil para atualizações em lote)
+     * Virada de modelo: os hashes carregados eram do índice anterior; recarrega os do
+     * novo índice e agenda uma execução (regras alteradas durante a migração e trechos)
+     */
+    @EventListener
+    public void onModelActivated(EmbeddingModelActivatedEvent event) {
+        indexedHashes.clear();
+        fallbackContent.clear();
+        persistedHashesLoaded = false;
+        indexingScheduler.execute(this::indexAllRules);
+        log.info("🔀 [US#66] Modelo de embeddings trocado ({} → {}), agendando indexação incremental",
+                 event.previous(), event.current());
+    }
+    
+    /**
+     * Reindexar todas as regras (ignora os hashes, re-embeda tudo)
+     * 
+     * Agendada no ragIndexingScheduler, como as demais execuções; o banco não é
+     * apagado, os vetores são sobrescritos à medida que são re-embedados.
      */
     public void reindexAll() {
-        log.info("🔄 Iniciando reindexação completa...");
-        vectorStore.clear();
-        indexAllRules();
+        indexingScheduler.execute(() -> {
+            log.info("🔄 Iniciando reindexação completa...");
+            vectorStore.clear();
+            if (jpaVectorStore != null) {
+                jpaVectorStore.clearCache();
+            }
+            chunkStore.clear();
+            indexedHashes.clear();
+            fallbackContent.clear();
+            persistedHashesLoaded = true;
+            indexAllRules();
+        });
     }
+    
+    /**
+     * @param summaryHash Hash do vetor de resumo; null = resumo sem alteração
+     * @param chunksChanged Trechos devem ser substituídos (ou removidos, se chunks vazio)
+     * @param contentKey Hash do resumo + hash dos trechos (conteúdo atual da regra)
+     * @param texts Textos a embedar: resumo (se alterado) seguido dos trechos (se alterados)
+     */
+    private record PendingRule(BusinessRule rule, String summaryHash, boolean chunksChanged,
+                               List<RuleChunk> chunks, String chunkHash, String contentKey,
+                               List<String> texts) {}
 }
@@ -0,0 +1,326 @@
+package com.backoffice.alerta.rag.index;
+
+import com.backoffice.alerta.rag.cache.RagDataVersion;
+import com.backoffice.alerta.rag.embedding.BusinessRuleEmbeddingProvider;
+import com.backoffice.alerta.rag.embedding.EmbeddingModelActivatedEvent;
+import com.backoffice.alerta.rag.embedding.EmbeddingProviderFactory;
+import com.backoffice.alerta.rag.embedding.EmbeddingProviderType;
+import com.backoffice.alerta.rag.embedding.RagEmbeddingProperties;
+import com.backoffice.alerta.rag.embedding.VersionedEmbeddingProvider;
+import com.backoffice.alerta.rag.persistence.JpaBusinessRuleVectorStore;
+import com.backoffice.alerta.rag.resilience.RagResilienceRegistry;
+import com.backoffice.alerta.rag.resilience.ResilientBackend;
+import com.backoffice.alerta.rules.BusinessRule;
+import com.backoffice.alerta.rules.BusinessRuleRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Migração online do modelo de embeddings (troca de rag.embedding.provider)
+ *
+ * Fluxo:
+ * 1. No startup, o índice persistido de outro provider continua ativo e as consultas
+ *    seguem usando o modelo dele (VersionedEmbeddingProvider)
+ * 2. Um índice sombra do novo provider é gerado em background, em lotes espaçados
+ *    para respeitar rag.embedding.migration.rules-per-second (retomado após restart)
+ * 3. Cobertura = regras atuais cujo embedding sombra tem o hash do texto atual;
+ *    regras alteradas durante a migração voltam para a fila
+ * 4. Com cobertura 100%, o índice sombra vira o ativo (uma transação + troca em memória),
+ *    o modelo de consulta é trocado e EmbeddingModelActivatedEvent invalida caches e trechos
+ *
+ * Lotes em que o serviço do novo modelo falhou (provider caiu no fallback interno)
+ * são descartados: o índice sombra só recebe vetores reais do novo modelo.
+ *
+ * Os lotes e a virada rodam no ragIndexingScheduler, assim como toda indexação incremental
+ * (periódica e BusinessRuleEmbeddingIndexService.indexRules): nenhuma gravação do modelo
+ * anterior está em andamento durante a virada. JpaBusinessRuleVectorStore.save ainda
+ * descarta vetores de um provider diferente do índice ativo.
+ *
+ * US#65 - Substituição do DummyEmbedding por Modelo Real
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+@Service
+public class EmbeddingModelMigrationService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingModelMigrationService.class);
+
+    private final RagEmbeddingProperties properties;
+    private final EmbeddingProviderFactory providerFactory;
+    private final VersionedEmbeddingProvider embeddingProvider;
+    private final RagResilienceRegistry resilienceRegistry;
+    private final BusinessRuleRepository ruleRepository;
+    private final BusinessRuleEmbeddingIndexService indexService;
+    private final RagDataVersion dataVersion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScheduledExecutorService indexingScheduler;
+
+    // US#66: Migração só existe com o vector store persistente
+    @Autowired(required = false)
+    private JpaBusinessRuleVectorStore jpaVectorStore;
+
+    private volatile RagEmbeddingMigrationStatus.Phase phase = RagEmbeddingMigrationStatus.Phase.NOT_NEEDED;
+    private volatile EmbeddingProviderType targetType;
+    private volatile BusinessRuleEmbeddingProvider target;
+    private volatile ScheduledFuture<?> task;
+
+    // Hash do texto de cada embedding sombra (vectorId → SHA-256 com a dimensão do novo modelo)
+    private final Map<UUID, String> shadowHashes = new ConcurrentHashMap<>();
+
+    // Progresso
+    private final AtomicInteger totalRules = new AtomicInteger();
+    private final AtomicInteger coveredRules = new AtomicInteger();
+    private final AtomicInteger embeddedRules = new AtomicInteger();
+    private final AtomicInteger failedBatches = new AtomicInteger();
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile String lastError;
+
+    public EmbeddingModelMigrationService(
+            RagEmbeddingProperties properties,
+            EmbeddingProviderFactory providerFactory,
+            VersionedEmbeddingProvider embeddingProvider,
+            RagResilienceRegistry resilienceRegistry,
+            BusinessRuleRepository ruleRepository,
+            BusinessRuleEmbeddingIndexService indexService,
+            RagDataVersion dataVersion,
+            ApplicationEventPublisher eventPublisher,
+            @Qualifier("ragIndexingScheduler") ScheduledExecutorService indexingScheduler,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.providerFactory = providerFactory;
+        this.embeddingProvider = embeddingProvider;
+        this.resilienceRegistry = resilienceRegistry;
+        this.ruleRepository = ruleRepository;
+        this.indexService = indexService;
+        this.dataVersion = dataVersion;
+        this.eventPublisher = eventPublisher;
+        this.indexingScheduler = indexingScheduler;
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("rag.embedding.migration.active", this,
+                s -> s.phase == RagEmbeddingMigrationStatus.Phase.BUILDING ? 1 : 0)
+            .description("1 enquanto um índice sombra de embeddings está sendo gerado")
+            .register(registry);
+        Gauge.builder("rag.embedding.migration.coverage", this, EmbeddingModelMigrationService::coverage)
+            .description("Fração das regras com embedding do novo modelo no índice sombra")
+            .register(registry);
+        Gauge.builder("rag.embedding.migration.failed.batches", failedBatches, AtomicInteger::get)
+            .register(registry);
+    }
+
+    /**
+     * Inicia a migração se o índice ativo não é do provider configurado
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        RagEmbeddingProperties.Migration config = properties.getMigration();
+        if (jpaVectorStore == null || !config.isEnabled()) {
+            phase = RagEmbeddingMigrationStatus.Phase.DISABLED;
+            return;
+        }
+
+        EmbeddingProviderType configured = properties.getProvider();
+        if (configured == embeddingProvider.getActiveType()) {
+            phase = RagEmbeddingMigrationStatus.Phase.NOT_NEEDED;
+            return;
+        }
+
+        targetType = configured;
+        startedAt = Instant.now();
+        try {
+            shadowHashes.putAll(jpaVectorStore.openShadow(configured.name()));
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            phase = RagEmbeddingMigrationStatus.Phase.FAILED;
+            log.error("❌ [US#66] Não foi possível abrir o índice sombra de {}: {}", configured, e.getMessage());
+            return;
+        }
+        phase = RagEmbeddingMigrationStatus.Phase.BUILDING;
+
+        // Um lote a cada batchSize / rulesPerSecond segundos
+        int batchSize = Math.max(1, config.getBatchSize());
+        long intervalMs = Math.max(1L, Math.round(batchSize * 1000.0 / Math.max(0.01, config.getRulesPerSecond())));
+        task = indexingScheduler.scheduleWithFixedDelay(this::migrateNextBatch,
+            TimeUnit.SECONDS.toMillis(Math.max(0, config.getStartDelaySeconds())), intervalMs, TimeUnit.MILLISECONDS);
+
+        log.info("🌗 [US#66] Migração de embeddings agendada | {} → {} | lote={} | intervalo={}ms | retomados={}",
+                 embeddingProvider.getActiveType(), configured, batchSize, intervalMs, shadowHashes.size());
+    }
+
+    /**
+     * Gera um lote do índice sombra; promove quando todas as regras estão cobertas
+     */
+    void migrateNextBatch() {
+        if (phase != RagEmbeddingMigrationStatus.Phase.BUILDING) {
+            return;
+        }
+
+        try {
+            BusinessRuleEmbeddingProvider provider = targetProvider();
+            ResilientBackend backend = resilienceRegistry.embedding(targetType);
+
+            List<BusinessRule> rules = ruleRepository.findAll();
+            List<BusinessRule> missing = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            List<String> hashes = new ArrayList<>();
+            int batchSize = Math.max(1, properties.getMigration().getBatchSize());
+            int uncovered = 0;
+            for (BusinessRule rule : rules) {
+                String text = indexService.buildTextForEmbedding(rule);
+                String hash = indexService.contentHash(text, provider.getDimension());
+                if (hash.equals(shadowHashes.get(rule.getVectorId()))) {
+                    continue;
+                }
+                uncovered++;
+                if (missing.size() < batchSize) {
+                    missing.add(rule);
+                    texts.add(text);
+                    hashes.add(hash);
+                }
+            }
+            totalRules.set(rules.size());
+            coveredRules.set(rules.size() - uncovered);
+
+            if (missing.isEmpty()) {
+                activate(provider);
+                return;
+            }
+
+            // Circuito aberto ou erro no lote = vetores de fallback: descarta e tenta no próximo intervalo
+            long failuresBefore = failureCount(backend);
+            List<float[]> embeddings = provider.embedBatch(texts);
+            if (failureCount(backend) != failuresBefore) {
+                failedBatches.incrementAndGet();
+                lastError = "Serviço de " + targetType + " falhou durante o lote (vetores de fallback descartados)";
+                log.warn("⚠️ [US#66] {}", lastError);
+                return;
+            }
+
+            int stored = 0;
+            for (int i = 0; i < missing.size(); i++) {
+                float[] embedding = embeddings.get(i);
+                if (embedding == null || embedding.length == 0) {
+                    continue;
+                }
+                UUID vectorId = missing.get(i).getVectorId();
+                jpaVectorStore.saveShadow(vectorId, embedding, hashes.get(i));
+                shadowHashes.put(vectorId, hashes.get(i));
+                stored++;
+            }
+            embeddedRules.addAndGet(stored);
+            coveredRules.addAndGet(stored);
+            lastError = null;
+
+            log.info("🌗 [US#66] Migração de embeddings | +{} | cobertura {}/{} ({}%)", stored,
+                     coveredRules.get(), totalRules.get(), Math.round(coverage() * 100));
+
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            lastError = e.getMessage();
+            log.warn("⚠️ [US#66] Falha no lote da migração de embeddings ({}): {}", targetType, e.getMessage());
+        }
+    }
+
+    /**
+     * Virada: índice sombra → ativo, modelo de consulta → novo provider
+     * 
+     * As duas trocas em memória acontecem juntas após o commit da promoção; se o
+     * commit falhar, nada muda e a migração continua BUILDING.
+     */
+    private void activate(BusinessRuleEmbeddingProvider provider) {
+        EmbeddingProviderType previous = embeddingProvider.getActiveType();
+        BusinessRuleEmbeddingProvider queryProvider = providerFactory.withRuntimeFallback(provider);
+        int embeddings = jpaVectorStore.promoteShadow(
+            () -> embeddingProvider.activate(targetType, queryProvider));
+        jpaVectorStore.flushSegment();
+
+        phase = RagEmbeddingMigrationStatus.Phase.COMPLETED;
+        completedAt = Instant.now();
+        shadowHashes.clear();
+        ScheduledFuture<?> scheduled = task;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+
+        // US#64: Respostas cacheadas foram geradas com o índice anterior
+        dataVersion.bump();
+        eventPublisher.publishEvent(new EmbeddingModelActivatedEvent(previous, targetType, provider.getDimension()));
+
+        log.info("✅ [US#66] Migração de embeddings concluída | {} → {} | embeddings={} | duração={}s",
+                 previous, targetType, embeddings,
+                 Duration.between(startedAt, completedAt).toSeconds());
+    }
+
+    /**
+     * Provider do novo modelo, sem fallback (criado na primeira execução; recriado após falha)
+     */
+    private BusinessRuleEmbeddingProvider targetProvider() {
+        BusinessRuleEmbeddingProvider provider = target;
+        if (provider == null) {
+            provider = providerFactory.createProviderWithoutFallback(targetType);
+            target = provider;
+        }
+        return provider;
+    }
+
+    private static long failureCount(ResilientBackend backend) {
+        if (backend == null) {
+            return 0;
+        }
+        return backend.getOutcomeCount(ResilientBackend.Outcome.FAILURE)
+            + backend.getOutcomeCount(ResilientBackend.Outcome.REJECTED_OPEN)
+            + backend.getOutcomeCount(ResilientBackend.Outcome.REJECTED_BULKHEAD);
+    }
+
+    private double coverage() {
+        int total = totalRules.get();
+        if (phase == RagEmbeddingMigrationStatus.Phase.COMPLETED) {
+            return 1.0;
+        }
+        return total > 0 ? (double) coveredRules.get() / total : 0.0;
+    }
+
+    /**
+     * Estado atual da migração (actuator)
+     */
+    public RagEmbeddingMigrationStatus getStatus() {
+        RagEmbeddingMigrationStatus status = new RagEmbeddingMigrationStatus();
+        status.setPhase(phase);
+        status.setActiveProvider(embeddingProvider.getActiveType().name());
+        status.setTargetProvider(targetType != null ? targetType.name() : properties.getProvider().name());
+        status.setTotalRules(totalRules.get());
+        status.setCoveredRules(coveredRules.get());
+        status.setCoverage(coverage());
+        status.setShadowEmbeddings(jpaVectorStore != null ? jpaVectorStore.shadowSize() : 0);
+        status.setEmbeddedRules(embeddedRules.get());
+        status.setFailedBatches(failedBatches.get());
+        status.setRulesPerSecond(properties.getMigration().getRulesPerSecond());
+        status.setStartedAt(startedAt);
+        status.setCompletedAt(completedAt);
+        status.setLastError(lastError);
+        return status;
+    }
+}
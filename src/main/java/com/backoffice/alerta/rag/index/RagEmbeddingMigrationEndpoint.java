@@ -0,0 +1,28 @@
+package com.backoffice.alerta.rag.index;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator: progresso da migração de modelo de embeddings
+ * 
+ * GET /actuator/ragembeddingmigration (expor via management.endpoints.web.exposure.include)
+ * 
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+@Component
+@Endpoint(id = "ragembeddingmigration")
+public class RagEmbeddingMigrationEndpoint {
+    
+    private final EmbeddingModelMigrationService migrationService;
+    
+    public RagEmbeddingMigrationEndpoint(EmbeddingModelMigrationService migrationService) {
+        this.migrationService = migrationService;
+    }
+    
+    @ReadOperation
+    public RagEmbeddingMigrationStatus status() {
+        return migrationService.getStatus();
+    }
+}
@@ -0,0 +1,150 @@
+package com.backoffice.alerta.rag.index;
+
+import java.time.Instant;
+
+/**
+ * Estado da migração de modelo de embeddings (índice sombra)
+ * 
+ * Exposto no actuator (/actuator/ragembeddingmigration).
+ * 
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+public class RagEmbeddingMigrationStatus {
+    
+    /**
+     * Fase da migração
+     */
+    public enum Phase {
+        /** Migração online desligada ou vector store sem persistência */
+        DISABLED,
+        /** Índice ativo já é do provider configurado */
+        NOT_NEEDED,
+        /** Gerando o índice sombra; o índice anterior continua servindo */
+        BUILDING,
+        /** Índice sombra promovido a ativo */
+        COMPLETED,
+        /** Índice sombra não pôde ser aberto; nova tentativa no próximo startup */
+        FAILED
+    }
+    
+    private Phase phase;
+    private String activeProvider;
+    private String targetProvider;
+    private int totalRules;
+    private int coveredRules;
+    private double coverage;
+    private int shadowEmbeddings;
+    private int embeddedRules;
+    private int failedBatches;
+    private double rulesPerSecond;
+    private Instant startedAt;
+    private Instant completedAt;
+    private String lastError;
+    
+    public Phase getPhase() {
+        return phase;
+    }
+    
+    public void setPhase(Phase phase) {
+        this.phase = phase;
+    }
+    
+    public String getActiveProvider() {
+        return activeProvider;
+    }
+    
+    public void setActiveProvider(String activeProvider) {
+        this.activeProvider = activeProvider;
+    }
+    
+    public String getTargetProvider() {
+        return targetProvider;
+    }
+    
+    public void setTargetProvider(String targetProvider) {
+        this.targetProvider = targetProvider;
+    }
+    
+    public int getTotalRules() {
+        return totalRules;
+    }
+    
+    public void setTotalRules(int totalRules) {
+        this.totalRules = totalRules;
+    }
+    
+    public int getCoveredRules() {
+        return coveredRules;
+    }
+    
+    public void setCoveredRules(int coveredRules) {
+        this.coveredRules = coveredRules;
+    }
+    
+    /**
+     * Fração das regras atuais com embedding atualizado no índice sombra (0..1)
+     */
+    public double getCoverage() {
+        return coverage;
+    }
+    
+    public void setCoverage(double coverage) {
+        this.coverage = coverage;
+    }
+    
+    public int getShadowEmbeddings() {
+        return shadowEmbeddings;
+    }
+    
+    public void setShadowEmbeddings(int shadowEmbeddings) {
+        this.shadowEmbeddings = shadowEmbeddings;
+    }
+    
+    public int getEmbeddedRules() {
+        return embeddedRules;
+    }
+    
+    public void setEmbeddedRules(int embeddedRules) {
+        this.embeddedRules = embeddedRules;
+    }
+    
+    public int getFailedBatches() {
+        return failedBatches;
+    }
+    
+    public void setFailedBatches(int failedBatches) {
+        this.failedBatches = failedBatches;
+    }
+    
+    public double getRulesPerSecond() {
+        return rulesPerSecond;
+    }
+    
+    public void setRulesPerSecond(double rulesPerSecond) {
+        this.rulesPerSecond = rulesPerSecond;
+    }
+    
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
@@ -0,0 +1,97 @@
+package com.backoffice.alerta.rag.index;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração da indexação incremental de embeddings de regras
+ * 
+ * Lê configurações de application.yml:
+ * 
+ * rag:
+ *   indexing:
+ *     threads: 2
+ *     queue-capacity: 16
+ *     chunk-size: 32
+ *     refresh-interval-seconds: 15
+ *     on-demand-wait-ms: 5000
+ * 
+ * US#66 - Persistência de Vetores (indexação incremental)
+ */
+@Component
+@ConfigurationProperties(prefix = "rag.indexing")
+public class RagIndexingProperties {
+    
+    /**
+     * Workers que geram embeddings em paralelo.
+     * Default: 2
+     */
+    private int threads = 2;
+    
+    /**
+     * Lotes aguardando worker; acima disso o coordenador processa o lote
+     * na própria thread (backpressure).
+     * Default: 16
+     */
+    private int queueCapacity = 16;
+    
+    /**
+     * Regras por lote enviado a um worker (uma chamada embedBatch por lote).
+     * Default: 32
+     */
+    private int chunkSize = 32;
+    
+    /**
+     * Intervalo entre verificações de regras novas/alteradas (0 = apenas no startup).
+     * Default: 15 segundos
+     */
+    private long refreshIntervalSeconds = 15;
+    
+    /**
+     * Espera máxima de indexRules (ex: importação) pela indexação sob demanda; se o
+     * scheduler estiver ocupado com uma execução completa ou migração, a chamada
+     * retorna e a indexação continua em background.
+     * Default: 5000 ms
+     */
+    private long onDemandWaitMs = 5000;
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+    
+    public long getRefreshIntervalSeconds() {
+        return refreshIntervalSeconds;
+    }
+    
+    public void setRefreshIntervalSeconds(long refreshIntervalSeconds) {
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+    }
+    
+    public long getOnDemandWaitMs() {
+        return onDemandWaitMs;
+    }
+    
+    public void setOnDemandWaitMs(long onDemandWaitMs) {
+        this.onDemandWaitMs = onDemandWaitMs;
+    }
+}
@@ -0,0 +1,113 @@
+package com.backoffice.alerta.rag.index;
+
+import java.time.Instant;
+
+/**
+ * Estado da indexação de embeddings de regras (readiness + progresso)
+ * 
+ * Contadores referem-se à execução mais recente (ou em andamento).
+ * 
+ * US#66 - Persistência de Vetores (indexação incremental)
+ */
+public class RagIndexingStatus {
+    
+    private boolean ready;
+    private boolean running;
+    private int totalRules;
+    private int processedRules;
+    private int unchangedRules;
+    private int reembeddedRules;
+    private int failedRules;
+    private int indexedEmbeddings;
+    private Instant lastRunStartedAt;
+    private Instant lastRunCompletedAt;
+    private long lastRunDurationMs;
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+    
+    public int getTotalRules() {
+        return totalRules;
+    }
+    
+    public void setTotalRules(int totalRules) {
+        this.totalRules = totalRules;
+    }
+    
+    public int getProcessedRules() {
+        return processedRules;
+    }
+    
+    public void setProcessedRules(int processedRules) {
+        this.processedRules = processedRules;
+    }
+    
+    public int getUnchangedRules() {
+        return unchangedRules;
+    }
+    
+    public void setUnchangedRules(int unchangedRules) {
+        this.unchangedRules = unchangedRules;
+    }
+    
+    public int getReembeddedRules() {
+        return reembeddedRules;
+    }
+    
+    public void setReembeddedRules(int reembeddedRules) {
+        this.reembeddedRules = reembeddedRules;
+    }
+    
+    public int getFailedRules() {
+        return failedRules;
+    }
+    
+    public void setFailedRules(int failedRules) {
+        this.failedRules = failedRules;
+    }
+    
+    public int getIndexedEmbeddings() {
+        return indexedEmbeddings;
+    }
+    
+    public void setIndexedEmbeddings(int indexedEmbeddings) {
+        this.indexedEmbeddings = indexedEmbeddings;
+    }
+    
+    public Instant getLastRunStartedAt() {
+        return lastRunStartedAt;
+    }
+    
+    public void setLastRunStartedAt(Instant lastRunStartedAt) {
+        this.lastRunStartedAt = lastRunStartedAt;
+    }
+    
+    public Instant getLastRunCompletedAt() {
+        return lastRunCompletedAt;
+    }
+    
+    public void setLastRunCompletedAt(Instant lastRunCompletedAt) {
+        this.lastRunCompletedAt = lastRunCompletedAt;
+    }
+    
+    public long getLastRunDurationMs() {
+        return lastRunDurationMs;
+    }
+    
+    public void setLastRunDurationMs(long lastRunDurationMs) {
+        this.lastRunDurationMs = lastRunDurationMs;
+    }
+}
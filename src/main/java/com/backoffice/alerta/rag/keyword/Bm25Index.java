@@ -0,0 +1,173 @@
+package com.backoffice.alerta.rag.keyword;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido com ranking BM25 (Okapi)
+ * 
+ * - Postings por termo: documento → frequência do termo
+ * - Atualização incremental: reindexar um documento remove os postings
+ *   anteriores e insere os novos (sem reconstruir o índice)
+ * - Consulta percorre apenas as listas de postings dos termos da query
+ * - Thread-safe: escritas com write lock, buscas com read lock
+ * 
+ *   score(d, q) = Σ idf(t) · tf·(k1 + 1) / (tf + k1·(1 − b + b·|d|/avgdl))
+ *   idf(t)      = ln(1 + (N − df + 0.5) / (df + 0.5))
+ * 
+ * US#43 - Busca keyword-based
+ */
+public class Bm25Index {
+    
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    private final Map<String, Map<String, Integer>> documentTerms = new HashMap<>();
+    private final Map<String, Integer> documentLengths = new HashMap<>();
+    private long totalLength = 0;
+    
+    /**
+     * Indexa (ou reindexa) um documento a partir dos seus tokens
+     */
+    public void index(String documentId, List<String> tokens) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokens) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(documentId);
+            if (frequencies.isEmpty()) {
+                return;
+            }
+            documentTerms.put(documentId, frequencies);
+            documentLengths.put(documentId, tokens.size());
+            totalLength += tokens.size();
+            frequencies.forEach((term, tf) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(documentId, tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Busca os K documentos com maior score BM25
+     * 
+     * @param queryTokens Tokens da consulta (duplicatas são ignoradas)
+     * @param k Número máximo de resultados
+     * @param allowedIds Restringe a busca a estes documentos; null = todos
+     * @return Resultados ordenados por score (maior primeiro)
+     */
+    public List<KeywordMatch> search(List<String> queryTokens, int k, Set<String> allowedIds) {
+        if (queryTokens.isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        
+        lock.readLock().lock();
+        try {
+            int documentCount = documentTerms.size();
+            if (documentCount == 0) {
+                return Collections.emptyList();
+            }
+            double averageLength = (double) totalLength / documentCount;
+            
+            Map<String, double[]> accumulators = new HashMap<>();
+            for (String term : new LinkedHashSet<>(queryTokens)) {
+                Map<String, Integer> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                
+                int df = termPostings.size();
+                double idf = Math.log(1.0 + (documentCount - df + 0.5) / (df + 0.5));
+                
+                for (Map.Entry<String, Integer> posting : termPostings.entrySet()) {
+                    String documentId = posting.getKey();
+                    if (allowedIds != null && !allowedIds.contains(documentId)) {
+                        continue;
+                    }
+                    int tf = posting.getValue();
+                    int length = documentLengths.get(documentId);
+                    double norm = K1 * (1 - B + B * length / averageLength);
+                    
+                    double[] acc = accumulators.computeIfAbsent(documentId, id -> new double[2]);
+                    acc[0] += idf * tf * (K1 + 1) / (tf + norm);
+                    acc[1] += 1;
+                }
+            }
+            
+            return topK(accumulators, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            documentLengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void removeUnlocked(String documentId) {
+        Map<String, Integer> previous = documentTerms.remove(documentId);
+        if (previous == null) {
+            return;
+        }
+        documentLengths.remove(documentId);
+        previous.forEach((term, tf) -> {
+            totalLength -= tf;
+            Map<String, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(documentId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        });
+    }
+    
+    private static List<KeywordMatch> topK(Map<String, double[]> accumulators, int k) {
+        Comparator<KeywordMatch> byScore = Comparator.comparingDouble(KeywordMatch::score);
+        PriorityQueue<KeywordMatch> heap = new PriorityQueue<>(byScore);
+        for (Map.Entry<String, double[]> entry : accumulators.entrySet()) {
+            KeywordMatch match = new KeywordMatch(entry.getKey(), entry.getValue()[0], (int) entry.getValue()[1]);
+            if (heap.size() < k) {
+                heap.add(match);
+            } else if (match.score() > heap.peek().score()) {
+                heap.poll();
+                heap.add(match);
+            }
+        }
+        List<KeywordMatch> results = new ArrayList<>(heap);
+        results.sort(byScore.reversed());
+        return results;
+    }
+}
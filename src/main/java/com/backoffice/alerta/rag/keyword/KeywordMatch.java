@@ -0,0 +1,9 @@
+package com.backoffice.alerta.rag.keyword;
+
+/**
+ * Resultado da busca lexical: regra, score BM25 e quantos termos distintos
+ * da consulta aparecem na regra
+ * 
+ * US#43 - Busca keyword-based
+ */
+public record KeywordMatch(String ruleId, double score, int matchedTerms) {}
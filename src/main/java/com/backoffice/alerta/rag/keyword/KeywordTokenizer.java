@@ -0,0 +1,77 @@
+package com.backoffice.alerta.rag.keyword;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizador para busca lexical (BM25) de regras de negócio
+ * 
+ * - Remove acentos (NFD + remoção de marcas) e converte para minúsculas
+ * - Quebra em sequências alfanuméricas
+ * - Descarta stopwords (pt/en) e tokens de 1 caractere
+ * - Stemming leve de plural ("regras" → "regra", "horas" → "hora")
+ * 
+ * O mesmo tokenizador é usado na indexação e na consulta.
+ * 
+ * US#43 - Busca keyword-based
+ */
+public final class KeywordTokenizer {
+    
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+    
+    private static final Set<String> STOPWORDS = Set.of(
+        // Português
+        "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas", "um", "uma",
+        "os", "as", "ao", "aos", "para", "pra", "por", "com", "sem", "que", "se",
+        "qual", "quais", "como", "quando", "onde", "ou", "mais", "menos", "ser",
+        "sao", "esta", "este", "essa", "esse", "isso", "tem", "sobre", "entre",
+        // Inglês
+        "the", "of", "and", "to", "for", "in", "is", "are", "on", "at", "by",
+        "with", "what", "which", "how", "an", "or", "be", "it"
+    );
+    
+    private KeywordTokenizer() {
+    }
+    
+    /**
+     * Remove acentos e converte para minúsculas
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Tokeniza um texto (termos repetidos são mantidos, para frequência)
+     */
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        
+        List<String> tokens = new ArrayList<>();
+        for (String raw : SEPARATORS.split(folded)) {
+            if (raw.length() < 2 || STOPWORDS.contains(raw)) {
+                continue;
+            }
+            tokens.add(stem(raw));
+        }
+        return tokens;
+    }
+    
+    private static String stem(String token) {
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
@@ -0,0 +1,148 @@
+package com.backoffice.alerta.rag.persistence;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Entidade JPA para embeddings por trecho do conteúdo de uma regra
+ * 
+ * Chave (rule_vector_id, chunk_no): uma linha por trecho de BusinessRule.content,
+ * com os offsets do trecho para recortar a passagem enviada ao LLM.
+ * 
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+@Entity
+@Table(name = "business_rule_chunk_embeddings", indexes = {
+    @Index(name = "idx_chunk_embedding_provider", columnList = "provider")
+})
+@IdClass(BusinessRuleChunkEmbeddingEntity.Key.class)
+public class BusinessRuleChunkEmbeddingEntity {
+    
+    @Id
+    @Column(name = "rule_vector_id", nullable = false)
+    private UUID ruleVectorId;
+    
+    @Id
+    @Column(name = "chunk_no", nullable = false)
+    private int chunkNo;
+    
+    /**
+     * Início do trecho em BusinessRule.content (inclusivo)
+     */
+    @Column(name = "start_offset", nullable = false)
+    private int startOffset;
+    
+    /**
+     * Fim do trecho em BusinessRule.content (exclusivo)
+     */
+    @Column(name = "end_offset", nullable = false)
+    private int endOffset;
+    
+    @Column(name = "dimension", nullable = false)
+    private int dimension;
+    
+    @Column(name = "provider", nullable = false, length = 50)
+    private String provider;
+    
+    /**
+     * Embedding serializado como byte array (float[] → bytes)
+     */
+    @Column(name = "embedding", nullable = false, columnDefinition = "BYTEA")
+    private byte[] embedding;
+    
+    /**
+     * SHA-256 (hex) do conteúdo da regra + parâmetros de chunking (igual em todos os trechos)
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    /**
+     * Construtor protegido (JPA)
+     */
+    protected BusinessRuleChunkEmbeddingEntity() {
+    }
+    
+    public BusinessRuleChunkEmbeddingEntity(UUID ruleVectorId, int chunkNo, int startOffset, int endOffset,
+                                            int dimension, String provider, byte[] embedding, String contentHash) {
+        this.ruleVectorId = ruleVectorId;
+        this.chunkNo = chunkNo;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.dimension = dimension;
+        this.provider = provider;
+        this.embedding = embedding;
+        this.contentHash = contentHash;
+        this.createdAt = Instant.now();
+    }
+    
+    public UUID getRuleVectorId() {
+        return ruleVectorId;
+    }
+    
+    public int getChunkNo() {
+        return chunkNo;
+    }
+    
+    public int getStartOffset() {
+        return startOffset;
+    }
+    
+    public int getEndOffset() {
+        return endOffset;
+    }
+    
+    public int getDimension() {
+        return dimension;
+    }
+    
+    public String getProvider() {
+        return provider;
+    }
+    
+    public byte[] getEmbedding() {
+        return embedding;
+    }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    /**
+     * Chave composta (rule_vector_id, chunk_no)
+     */
+    public static class Key implements Serializable {
+        
+        private UUID ruleVectorId;
+        private int chunkNo;
+        
+        public Key() {
+        }
+        
+        public Key(UUID ruleVectorId, int chunkNo) {
+            this.ruleVectorId = ruleVectorId;
+            this.chunkNo = chunkNo;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return chunkNo == key.chunkNo && Objects.equals(ruleVectorId, key.ruleVectorId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(ruleVectorId, chunkNo);
+        }
+    }
+}
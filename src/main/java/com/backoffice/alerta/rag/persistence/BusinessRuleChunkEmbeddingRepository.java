@@ -0,0 +1,41 @@
+package com.backoffice.alerta.rag.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository para embeddings por trecho de regra
+ * 
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+@Repository
+public interface BusinessRuleChunkEmbeddingRepository 
+        extends JpaRepository<BusinessRuleChunkEmbeddingEntity, BusinessRuleChunkEmbeddingEntity.Key> {
+    
+    /**
+     * Trechos de um provider (carga do índice no startup)
+     */
+    List<BusinessRuleChunkEmbeddingEntity> findByProvider(String provider);
+    
+    /**
+     * Remove todos os trechos de uma regra (antes de gravar a nova versão)
+     */
+    @Modifying
+    @Query("DELETE FROM BusinessRuleChunkEmbeddingEntity e WHERE e.ruleVectorId = :ruleVectorId")
+    int deleteByRuleVectorId(@Param("ruleVectorId") UUID ruleVectorId);
+    
+    /**
+     * Hash de conteúdo por regra (sem carregar os vetores)
+     * 
+     * @return Pares [ruleVectorId, contentHash]
+     */
+    @Query("SELECT DISTINCT e.ruleVectorId, e.contentHash FROM BusinessRuleChunkEmbeddingEntity e "
+         + "WHERE e.provider = :provider")
+    List<Object[]> findContentHashesByProvider(@Param("provider") String provider);
+}
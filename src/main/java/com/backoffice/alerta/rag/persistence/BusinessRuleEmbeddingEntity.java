@@ -47,6 +47,13 @@ public class BusinessRuleEmbeddingEntity {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
     
+    /**
+     * SHA-256 (hex) do texto usado para gerar o embedding.
+     * Null em embeddings gravados antes da indexação incremental.
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
     /**
      * Construtor protegido (JPA)
      */
@@ -62,10 +69,25 @@ public class BusinessRuleEmbeddingEntity {
      * @param embedding Embedding serializado
      */
     public BusinessRuleEmbeddingEntity(UUID businessRuleId, int dimension, String provider, byte[] embedding) {
+        this(businessRuleId, dimension, provider, embedding, null);
+    }
+    
+    /**
+     * Construtor com hash do conteúdo (indexação incremental)
+     * 
+     * @param businessRuleId ID da regra de negócio
+     * @param dimension Dimensão do vetor
+     * @param provider Tipo de provider (DUMMY, SENTENCE_TRANSFORMER, OPENAI)
+     * @param embedding Embedding serializado
+     * @param contentHash SHA-256 (hex) do texto embedado
+     */
+    public BusinessRuleEmbeddingEntity(UUID businessRuleId, int dimension, String provider, 
+                                       byte[] embedding, String contentHash) {
         this.businessRuleId = businessRuleId;
         this.dimension = dimension;
         this.provider = provider;
         this.embedding = embedding;
+        this.contentHash = contentHash;
         this.createdAt = Instant.now();
     }
     
@@ -90,4 +112,8 @@ public class BusinessRuleEmbeddingEntity {
     public Instant getCreatedAt() {
         return createdAt;
     }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
 }
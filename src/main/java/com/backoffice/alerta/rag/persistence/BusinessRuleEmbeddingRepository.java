@@ -2,8 +2,10 @@ package com.backoffice.alerta.rag.persistence;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -47,4 +49,21 @@ public interface BusinessRuleEmbeddingRepository extends JpaRepository<BusinessR
      */
     @Query("SELECT e FROM BusinessRuleEmbeddingEntity e WHERE e.dimension = :dimension")
     List<BusinessRuleEmbeddingEntity> findByDimension(int dimension);
+    
+    /**
+     * Data do embedding mais recente (usado no fingerprint dos segmentos em disco)
+     * 
+     * @return Maior created_at ou null se a tabela estiver vazia
+     */
+    @Query("SELECT MAX(e.createdAt) FROM BusinessRuleEmbeddingEntity e")
+    Instant findLatestCreatedAt();
+    
+    /**
+     * Hash de conteúdo de cada embedding de um provider (sem carregar os vetores)
+     * 
+     * @param provider Tipo de provider
+     * @return Pares [businessRuleId, contentHash]; contentHash pode ser null
+     */
+    @Query("SELECT e.businessRuleId, e.contentHash FROM BusinessRuleEmbeddingEntity e WHERE e.provider = :provider")
+    List<Object[]> findContentHashesByProvider(@Param("provider") String provider);
 }
@@ -0,0 +1,85 @@
+package com.backoffice.alerta.rag.persistence;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Embedding do índice sombra (migração de modelo em andamento)
+ * 
+ * Mesmo formato de BusinessRuleEmbeddingEntity, em tabela separada: o índice
+ * ativo continua intacto até a virada.
+ * 
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+@Entity
+@Table(name = "business_rule_embeddings_shadow", indexes = {
+    @Index(name = "idx_shadow_embedding_provider", columnList = "provider")
+})
+public class BusinessRuleShadowEmbeddingEntity {
+    
+    @Id
+    @Column(name = "business_rule_id", nullable = false)
+    private UUID businessRuleId;
+    
+    @Column(name = "dimension", nullable = false)
+    private int dimension;
+    
+    /**
+     * Provider de destino da migração
+     */
+    @Column(name = "provider", nullable = false, length = 50)
+    private String provider;
+    
+    @Column(name = "embedding", nullable = false, columnDefinition = "BYTEA")
+    private byte[] embedding;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    /**
+     * SHA-256 (hex) do texto embedado, calculado com a dimensão do provider de destino
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    /**
+     * Construtor protegido (JPA)
+     */
+    protected BusinessRuleShadowEmbeddingEntity() {
+    }
+    
+    public BusinessRuleShadowEmbeddingEntity(UUID businessRuleId, int dimension, String provider, 
+                                             byte[] embedding, String contentHash) {
+        this.businessRuleId = businessRuleId;
+        this.dimension = dimension;
+        this.provider = provider;
+        this.embedding = embedding;
+        this.contentHash = contentHash;
+        this.createdAt = Instant.now();
+    }
+    
+    public UUID getBusinessRuleId() {
+        return businessRuleId;
+    }
+    
+    public int getDimension() {
+        return dimension;
+    }
+    
+    public String getProvider() {
+        return provider;
+    }
+    
+    public byte[] getEmbedding() {
+        return embedding;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+}
@@ -0,0 +1,52 @@
+package com.backoffice.alerta.rag.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository do índice sombra de embeddings (migração de modelo)
+ * 
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+@Repository
+public interface BusinessRuleShadowEmbeddingRepository extends JpaRepository<BusinessRuleShadowEmbeddingEntity, UUID> {
+    
+    /**
+     * Embeddings já gerados para o provider de destino (retomada após restart)
+     */
+    List<BusinessRuleShadowEmbeddingEntity> findByProvider(String provider);
+    
+    /**
+     * Remove sobras de migrações para outro provider
+     * 
+     * @return Linhas removidas
+     */
+    @Modifying
+    @Query("DELETE FROM BusinessRuleShadowEmbeddingEntity e WHERE e.provider <> :provider")
+    int deleteByProviderNot(@Param("provider") String provider);
+    
+    /**
+     * Remove o índice sombra de um provider (após a virada)
+     */
+    @Modifying
+    @Query("DELETE FROM BusinessRuleShadowEmbeddingEntity e WHERE e.provider = :provider")
+    int deleteByProvider(@Param("provider") String provider);
+    
+    /**
+     * Copia o índice sombra para a tabela ativa (que deve estar vazia)
+     * 
+     * @return Linhas copiadas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO business_rule_embeddings "
+        + "(business_rule_id, dimension, provider, embedding, created_at, content_hash) "
+        + "SELECT business_rule_id, dimension, provider, embedding, created_at, content_hash "
+        + "FROM business_rule_embeddings_shadow WHERE provider = :provider", nativeQuery = true)
+    int copyToActive(@Param("provider") String provider);
+}
@@ -1,27 +1,46 @@
 package com.backoffice.alerta.rag.persistence;
 
 import com.backoffice.alerta.rag.embedding.EmbeddingProviderType;
+import com.backoffice.alerta.rag.vector.EmbeddingMatrix;
+import com.backoffice.alerta.rag.vector.EmbeddingStorage;
+import com.backoffice.alerta.rag.vector.HnswIndex;
+import com.backoffice.alerta.rag.vector.QuantizedEmbeddingMatrix;
+import com.backoffice.alerta.rag.vector.ScoredRule;
+import com.backoffice.alerta.rag.vector.VectorMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * Vector Store com persistência JPA para embeddings de regras de negócio
  * 
  * Armazena embeddings em banco de dados (PostgreSQL/H2) e mantém cache in-memory
- * para performance. Thread-safe usando ConcurrentHashMap.
+ * para performance, em matriz contígua de vetores pré-normalizados (EmbeddingMatrix).
  * 
  * Responsabilidades:
  * - Persistir embeddings em banco
  * - Carregar embeddings do banco no startup
  * - Busca por similaridade (cosine) em memória
+ * - Busca aproximada via HNSW para catálogos grandes (exata abaixo do threshold)
+ * - Modo quantizado opcional (int8 + re-ranking em precisão total)
+ * - Segmento em disco (memory-mapped) para startup sem deserializar o banco
+ * - Índice sombra para migração de modelo: o novo provider é montado à parte
+ *   (business_rule_embeddings_shadow) e vira o ativo de forma atômica (promoteShadow)
  * - Fallback seguro em caso de erro
  * 
+ * Cada índice em memória (ativo ou sombra) pertence a um único provider: embeddings
+ * persistidos de outro provider nunca são misturados na busca.
+ * 
  * US#66 - Persistência de Vetores (Vector DB)
  */
 public class JpaBusinessRuleVectorStore {
@@ -29,31 +48,149 @@ public class JpaBusinessRuleVectorStore {
     private static final Logger log = LoggerFactory.getLogger(JpaBusinessRuleVectorStore.class);
     
     private final BusinessRuleEmbeddingRepository repository;
-    private final String currentProvider;
+    private final BusinessRuleShadowEmbeddingRepository shadowRepository;
+    
+    // Threshold mínimo de similaridade
+    private static final double SIMILARITY_THRESHOLD = 0.1;
+    
+    // Índice ANN sobre o cache (mantido em sincronia em save/load)
+    private final RagVectorStoreProperties.Hnsw hnswProperties;
+    private final boolean annEnabled;
     
-    // Cache in-memory para performance
-    private final Map<UUID, float[]> embeddingCache = new ConcurrentHashMap<>();
+    // Modo quantizado: vetores em precisão total usados no re-ranking (LRU)
+    private final RagVectorStoreProperties.Quantization quantizationProperties;
+    private final boolean quantized;
     
+    // Segmento em disco: null quando desabilitado
+    private final String segmentDirectory;
+    private volatile boolean segmentDirty = false;
+    
+    // Índice que responde às buscas; sombra = migração de modelo em andamento (senão null)
+    private volatile Generation active;
+    private volatile Generation shadow;
+    
+    /**
+     * @param providerType Provider do índice ativo (durante uma migração, o provider anterior)
+     */
     public JpaBusinessRuleVectorStore(BusinessRuleEmbeddingRepository repository, 
-                                     EmbeddingProviderType providerType) {
+                                     BusinessRuleShadowEmbeddingRepository shadowRepository,
+                                     EmbeddingProviderType providerType,
+                                     RagVectorStoreProperties properties) {
         this.repository = repository;
-        this.currentProvider = providerType.name();
+        this.shadowRepository = shadowRepository;
+        this.hnswProperties = properties.getHnsw();
+        this.quantizationProperties = properties.getQuantization();
+        this.quantized = quantizationProperties.isEnabled();
+        this.annEnabled = hnswProperties.isEnabled() && !quantized;
+        this.segmentDirectory = properties.getSegment().isEnabled() ? properties.getSegment().getDirectory() : null;
+        this.active = new Generation(providerType.name());
+        
+        log.info("📦 [US#66] JpaBusinessRuleVectorStore inicializado | provider={} | quantized={}", 
+                 active.provider, quantized);
+        
+        // Carrega embeddings existentes no startup (segmento em disco, se válido; senão banco)
+        if (!loadEmbeddingsFromSegment()) {
+            loadEmbeddingsFromDatabase();
+            segmentDirty = true;
+            flushSegment();
+        }
+    }
+    
+    /**
+     * Carrega o cache a partir do segmento em disco, se ele corresponder ao estado do banco
+     * 
+     * @return true se o cache foi carregado do segmento
+     */
+    private boolean loadEmbeddingsFromSegment() {
+        Generation g = active;
+        Path segmentPath = g.segmentPath;
+        if (segmentPath == null) {
+            return false;
+        }
         
-        log.info("📦 [US#66] JpaBusinessRuleVectorStore inicializado | provider={}", currentProvider);
+        try {
+            Optional<VectorSegmentFile> segment = VectorSegmentFile.open(segmentPath);
+            if (segment.isEmpty()) {
+                log.info("📦 [US#66] Segmento não encontrado em {}. Carregando do database.", segmentPath);
+                return false;
+            }
+            
+            long fingerprint = databaseFingerprint(g.provider);
+            if (segment.get().getFingerprint() != fingerprint) {
+                log.info("📦 [US#66] Segmento desatualizado em relação ao database. Reconstruindo.");
+                return false;
+            }
+            
+            VectorSegmentFile file = segment.get();
+            for (int ordinal = 0; ordinal < file.size(); ordinal++) {
+                cache(g, file.ruleId(ordinal), file.row(ordinal));
+            }
+            
+            log.info("📦 [US#66] Embeddings carregados do segmento | loaded={} | dim={} | file={}", 
+                     file.size(), file.getDimension(), segmentPath);
+            return true;
+            
+        } catch (Exception e) {
+            log.warn("⚠️ [US#66] Segmento inválido ({}). Carregando do database.", e.getMessage());
+            g.embeddings.clear();
+            g.annIndex.clear();
+            return false;
+        }
+    }
+    
+    /**
+     * Grava o cache atual em disco se houve alterações desde a última gravação
+     * 
+     * Chamado após indexações em lote e no shutdown. Falhas são apenas logadas:
+     * no próximo startup o segmento será detectado como desatualizado.
+     */
+    @PreDestroy
+    public void flushSegment() {
+        Generation g = active;
+        Path segmentPath = g.segmentPath;
+        if (segmentPath == null || !segmentDirty) {
+            return;
+        }
         
-        // Carrega embeddings existentes no startup
-        loadEmbeddingsFromDatabase();
+        try {
+            segmentDirty = false;
+            long fingerprint = databaseFingerprint(g.provider);
+            List<UUID> ruleIds = g.embeddings.ruleIds();
+            
+            VectorSegmentFile.write(segmentPath, g.embeddings.dimension(), ruleIds, 
+                                    g.embeddings::get, fingerprint);
+            
+            log.info("📦 [US#66] Segmento gravado | embeddings={} | file={}", ruleIds.size(), segmentPath);
+        } catch (Exception e) {
+            segmentDirty = true;
+            log.warn("⚠️ [US#66] Falha ao gravar segmento {}: {}", segmentPath, e.getMessage());
+        }
+    }
+    
+    /**
+     * Fingerprint do estado do banco: quantidade + created_at mais recente
+     * 
+     * Inserções e atualizações alteram created_at; remoções alteram a contagem.
+     */
+    private long databaseFingerprint(String provider) {
+        long count = repository.count();
+        Instant latest = repository.findLatestCreatedAt();
+        long latestMicros = latest != null 
+            ? latest.getEpochSecond() * 1_000_000L + latest.getNano() / 1_000 
+            : 0L;
+        return (count * 1_000_003L) ^ latestMicros ^ provider.hashCode();
     }
     
     /**
-     * Carrega todos os embeddings do banco para o cache in-memory
+     * Carrega os embeddings do provider ativo do banco para o cache in-memory
      */
     private void loadEmbeddingsFromDatabase() {
+        Generation g = active;
         try {
-            List<BusinessRuleEmbeddingEntity> entities = repository.findAll();
+            List<BusinessRuleEmbeddingEntity> entities = repository.findByProvider(g.provider);
             
             if (entities.isEmpty()) {
-                log.info("📦 [US#66] Nenhum embedding persistido encontrado. Database vazio.");
+                log.info("📦 [US#66] Nenhum embedding persistido encontrado para provider={}.", g.provider);
                 return;
             }
             
@@ -63,7 +200,7 @@ public class JpaBusinessRuleVectorStore {
             for (BusinessRuleEmbeddingEntity entity : entities) {
                 try {
                     float[] embedding = deserializeEmbedding(entity.getEmbedding(), entity.getDimension());
-                    embeddingCache.put(entity.getBusinessRuleId(), embedding);
+                    cache(g, entity.getBusinessRuleId(), embedding);
                     loaded++;
                     
                     log.debug("📦 [US#66] VectorStore | Loaded embedding | rule={} | provider={} | dim={}", 
@@ -91,11 +228,47 @@ public class JpaBusinessRuleVectorStore {
      */
     @Transactional
     public void save(UUID ruleId, float[] embedding) {
+        save(ruleId, embedding, null);
+    }
+    
+    /**
+     * Salva embedding no banco e no cache, com o hash do texto de origem
+     * 
+     * @param ruleId ID da regra de negócio
+     * @param embedding Vetor de embedding
+     * @param contentHash SHA-256 (hex) do texto embedado; null se desconhecido
+     */
+    @Transactional
+    public void save(UUID ruleId, float[] embedding, String contentHash) {
+        save(ruleId, embedding, contentHash, null);
+    }
+    
+    /**
+     * Salva embedding no índice ativo, apenas se ele ainda é do provider que gerou o vetor
+     * 
+     * Um vetor do modelo anterior que chega depois da virada (promoteShadow) é descartado.
+     * 
+     * @param provider Provider que gerou o embedding; null = sem verificação
+     */
+    @Transactional
+    public void save(UUID ruleId, float[] embedding, String contentHash, EmbeddingProviderType provider) {
         if (ruleId == null || embedding == null || embedding.length == 0) {
             log.warn("⚠️ [US#66] Tentativa de salvar embedding inválido para ruleId={}", ruleId);
             return;
         }
         
+        Generation g = active;
+        if (provider != null && !g.provider.equals(provider.name())) {
+            log.warn("⚠️ [US#66] Embedding da regra {} descartado: gerado por {}, índice ativo é {}", 
+                     ruleId, provider, g.provider);
+            return;
+        }
+        if (g.embeddings.size() > 0 && embedding.length != g.embeddings.dimension()) {
+            // Não persiste: o vetor seria rejeitado pelo índice e a linha ficaria órfã
+            log.warn("⚠️ [US#66] Embedding da regra {} rejeitado: dimensão {} difere do índice ({}) | provider={}", 
+                     ruleId, embedding.length, g.embeddings.dimension(), g.provider);
+            return;
+        }
         try {
             // Serializa embedding
             byte[] serialized = serializeEmbedding(embedding);
@@ -104,24 +277,28 @@ public class JpaBusinessRuleVectorStore {
             BusinessRuleEmbeddingEntity entity = new BusinessRuleEmbeddingEntity(
                 ruleId,
                 embedding.length,
-                currentProvider,
-                serialized
+                g.provider,
+                serialized,
+                contentHash
             );
             
             // Persiste no banco
             repository.save(entity);
             
             // Atualiza cache
-            embeddingCache.put(ruleId, embedding);
+            if (cache(g, ruleId, embedding)) {
+                rememberFullPrecision(g, ruleId, embedding);
+            }
+            segmentDirty = true;
             
             log.info("📦 [US#66] VectorStore | Saved embedding | rule={} | provider={} | dim={}", 
-                     ruleId, currentProvider, embedding.length);
+                     ruleId, g.provider, embedding.length);
             
         } catch (Exception e) {
             log.error("❌ [US#66] Erro ao persistir embedding rule={}. Salvando apenas em cache.", ruleId, e);
             
             // Fallback: salva apenas em cache
-            embeddingCache.put(ruleId, embedding);
+            cache(g, ruleId, embedding);
         }
     }
     
@@ -132,15 +309,18 @@ public class JpaBusinessRuleVectorStore {
      * @return Embedding ou null se não encontrado
      */
     public float[] getEmbedding(UUID ruleId) {
-        // Tenta cache primeiro
-        float[] cached = embeddingCache.get(ruleId);
+        Generation g = active;
+        
+        // Tenta cache primeiro (no modo quantizado, apenas vetores em precisão total)
+        float[] cached = quantized ? g.fullPrecision.get(ruleId) : g.embeddings.get(ruleId);
         if (cached != null) {
             return cached;
         }
         
         // Se não está em cache, tenta carregar do banco
         try {
-            Optional<BusinessRuleEmbeddingEntity> entity = repository.findById(ruleId);
+            Optional<BusinessRuleEmbeddingEntity> entity = repository.findById(ruleId)
+                .filter(found -> g.provider.equals(found.getProvider()));
             
             if (entity.isPresent()) {
                 float[] embedding = deserializeEmbedding(
@@ -149,7 +329,8 @@ public class JpaBusinessRuleVectorStore {
                 );
                 
                 // Atualiza cache
-                embeddingCache.put(ruleId, embedding);
+                cache(g, ruleId, embedding);
+                rememberFullPrecision(g, ruleId, embedding);
                 
                 log.info("📦 [US#66] VectorStore | Loaded embedding from DB | rule={}", ruleId);
                 return embedding;
@@ -158,7 +339,8 @@ public class JpaBusinessRuleVectorStore {
             log.error("❌ [US#66] Erro ao carregar embedding do database rule={}", ruleId, e);
         }
         
-        return null;
+        // Modo quantizado: vetor reconstruído a partir dos códigos int8
+        return quantized ? g.embeddings.get(ruleId) : null;
     }
     
     /**
@@ -169,40 +351,60 @@ public class JpaBusinessRuleVectorStore {
      * @return Lista de IDs ordenados por similaridade (maior primeiro)
      */
     public List<UUID> findTopK(float[] queryEmbedding, int k) {
+        return findTopKWithScores(queryEmbedding, k).stream()
+            .map(ScoredRule::ruleId)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Busca Top-K regras mais similares, com a similaridade de cada uma
+     * 
+     * @param queryEmbedding Embedding da pergunta
+     * @param k Número máximo de resultados
+     * @return Resultados ordenados por similaridade (maior primeiro)
+     */
+    public List<ScoredRule> findTopKWithScores(float[] queryEmbedding, int k) {
         if (queryEmbedding == null || queryEmbedding.length == 0) {
             log.warn("⚠️ [US#66] Query embedding inválido");
             return Collections.emptyList();
         }
         
-        if (embeddingCache.isEmpty()) {
+        Generation g = active;
+        int size = g.embeddings.size();
+        if (size == 0) {
             log.warn("⚠️ [US#66] Vector store VAZIO - nenhum embedding em cache!");
             return Collections.emptyList();
         }
         
-        log.info("🔍 [US#66] Vector store tem {} embeddings em cache", embeddingCache.size());
+        if (queryEmbedding.length != g.embeddings.dimension()) {
+            log.error("❌ [US#66] Dimensões incompatíveis: {} vs {} (provider do índice: {})", 
+                     queryEmbedding.length, g.embeddings.dimension(), g.provider);
+            return Collections.emptyList();
+        }
         
-        // Threshold mínimo de similaridade
-        final double SIMILARITY_THRESHOLD = 0.1;
+        log.info("🔍 [US#66] Vector store tem {} embeddings em cache", size);
         
         try {
-            // Calcula similaridade com todas as regras
-            List<SimilarityResult> results = embeddingCache.entrySet().stream()
-                .map(entry -> {
-                    double similarity = cosineSimilarity(queryEmbedding, entry.getValue());
-                    log.info("📊 [US#66] Similarity computed | rule={} | score={}", entry.getKey(), similarity);
-                    return new SimilarityResult(entry.getKey(), similarity);
-                })
-                .filter(result -> result.similarity() >= SIMILARITY_THRESHOLD)
-                .sorted(Comparator.comparingDouble(SimilarityResult::similarity).reversed())
-                .limit(k)
-                .collect(Collectors.toList());
+            if (useAnnIndex(size)) {
+                List<ScoredRule> annResults = g.annIndex.search(queryEmbedding, k).stream()
+                    .filter(result -> result.similarity() >= SIMILARITY_THRESHOLD)
+                    .collect(Collectors.toList());
+                
+                log.info("📊 [US#66] VectorStore | HNSW search | topK={} | efSearch={} | threshold={} | total={}", 
+                         annResults.size(), g.annIndex.getEfSearch(), SIMILARITY_THRESHOLD, k);
+                return annResults;
+            }
+            
+            if (quantized) {
+                return findTopKQuantized(g, queryEmbedding, k, null);
+            }
+            
+            List<ScoredRule> results = g.embeddings.topK(queryEmbedding, k, SIMILARITY_THRESHOLD);
             
             log.info("📊 [US#66] VectorStore | Similarity computed | topK={} | threshold={} | total={}", 
                      results.size(), SIMILARITY_THRESHOLD, k);
             
-            return results.stream()
-                .map(SimilarityResult::ruleId)
-                .collect(Collectors.toList());
+            return results;
                 
         } catch (Exception e) {
             log.error("❌ [US#66] Erro ao calcular similaridade", e);
@@ -211,44 +413,159 @@ public class JpaBusinessRuleVectorStore {
     }
     
     /**
-     * Calcula cosine similarity entre dois vetores
+     * US#50: Busca Top-K restrita às regras de um projeto
      * 
-     * @param a Vetor A
-     * @param b Vetor B
-     * @return Similaridade [-1, 1] (1 = idênticos)
+     * O filtro é aplicado dentro da busca (só as linhas do projeto são lidas),
+     * sempre de forma exata; no modo quantizado os candidatos do projeto
+     * também são re-ranqueados em precisão total.
+     * 
+     * @param queryEmbedding Embedding da pergunta
+     * @param k Número máximo de resultados
+     * @param allowedRuleIds IDs de vetor permitidos; null = sem escopo
+     * @return Resultados ordenados por similaridade (maior primeiro)
      */
-    private double cosineSimilarity(float[] a, float[] b) {
-        if (a == null || b == null) {
-            log.error("❌ [US#66] Vetores nulos fornecidos para similaridade");
-            return 0.0;
+    public List<ScoredRule> findTopKWithScores(float[] queryEmbedding, int k, Collection<UUID> allowedRuleIds) {
+        if (allowedRuleIds == null) {
+            return findTopKWithScores(queryEmbedding, k);
+        }
+        if (queryEmbedding == null || queryEmbedding.length == 0) {
+            log.warn("⚠️ [US#66] Query embedding inválido");
+            return Collections.emptyList();
         }
         
-        if (a.length != b.length) {
-            log.error("❌ [US#66] Dimensões incompatíveis: {} vs {}", a.length, b.length);
-            return 0.0;
+        Generation g = active;
+        try {
+            if (quantized) {
+                return findTopKQuantized(g, queryEmbedding, k, allowedRuleIds);
+            }
+            
+            List<ScoredRule> results = g.embeddings.topK(queryEmbedding, k, SIMILARITY_THRESHOLD, allowedRuleIds);
+            
+            log.info("📊 [US#66] VectorStore | Scoped search | topK={} | projectRules={} | threshold={}", 
+                     results.size(), allowedRuleIds.size(), SIMILARITY_THRESHOLD);
+            return results;
+            
+        } catch (Exception e) {
+            log.error("❌ [US#66] Erro ao calcular similaridade", e);
+            return Collections.emptyList();
         }
+    }
+    
+    /**
+     * Busca no cache int8 e re-ranqueia os melhores candidatos em precisão total
+     * 
+     * @param allowedRuleIds Restringe a busca a estes IDs; null = catálogo inteiro
+     */
+    private List<ScoredRule> findTopKQuantized(Generation g, float[] queryEmbedding, int k, 
+                                               Collection<UUID> allowedRuleIds) {
+        int candidates = k * Math.max(1, quantizationProperties.getRescoreMultiplier());
+        List<ScoredRule> approximate = allowedRuleIds == null
+            ? g.embeddings.topK(queryEmbedding, candidates, Double.NEGATIVE_INFINITY)
+            : g.embeddings.topK(queryEmbedding, candidates, Double.NEGATIVE_INFINITY, allowedRuleIds);
         
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
+        Map<UUID, float[]> fullPrecision = loadFullPrecision(g, approximate);
+        float[] query = VectorMath.normalize(queryEmbedding);
         
-        for (int i = 0; i < a.length; i++) {
-            dotProduct += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
-        }
+        List<ScoredRule> results = approximate.stream()
+            .map(candidate -> {
+                float[] vector = fullPrecision.get(candidate.ruleId());
+                return vector != null && vector.length == query.length
+                    ? new ScoredRule(candidate.ruleId(), VectorMath.dot(query, vector))
+                    : candidate;
+            })
+            .filter(result -> result.similarity() >= SIMILARITY_THRESHOLD)
+            .sorted(Comparator.comparingDouble(ScoredRule::similarity).reversed())
+            .limit(k)
+            .collect(Collectors.toList());
+        
+        log.info("📊 [US#66] VectorStore | Quantized search | candidates={} | rescored={} | topK={} | threshold={}", 
+                 approximate.size(), fullPrecision.size(), results.size(), SIMILARITY_THRESHOLD);
+        
+        return results;
+    }
+    
+    /**
+     * Carrega vetores normalizados em precisão total dos candidatos (LRU + uma consulta ao banco)
+     * 
+     * Em caso de erro no banco, os candidatos sem vetor mantêm o score aproximado.
+     */
+    private Map<UUID, float[]> loadFullPrecision(Generation g, List<ScoredRule> candidates) {
+        Map<UUID, float[]> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
         
-        // Proteção contra divisão por zero
-        double sqrtNormA = Math.sqrt(normA);
-        double sqrtNormB = Math.sqrt(normB);
+        for (ScoredRule candidate : candidates) {
+            float[] vector = g.fullPrecision.get(candidate.ruleId());
+            if (vector != null) {
+                result.put(candidate.ruleId(), vector);
+            } else {
+                missing.add(candidate.ruleId());
+            }
+        }
         
-        if (sqrtNormA < 1e-10 || sqrtNormB < 1e-10) {
-            log.warn("⚠️ [US#66] Norma próxima de zero: A={}, B={}", sqrtNormA, sqrtNormB);
-            return 0.0;
+        if (!missing.isEmpty()) {
+            try {
+                for (BusinessRuleEmbeddingEntity entity : repository.findAllById(missing)) {
+                    if (!g.provider.equals(entity.getProvider())) {
+                        continue;
+                    }
+                    float[] vector = VectorMath.normalize(
+                        deserializeEmbedding(entity.getEmbedding(), entity.getDimension()));
+                    g.fullPrecision.put(entity.getBusinessRuleId(), vector);
+                    result.put(entity.getBusinessRuleId(), vector);
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ [US#66] Falha ao carregar vetores para re-ranking, usando scores quantizados: {}", 
+                         e.getMessage());
+            }
         }
         
-        double denominator = sqrtNormA * sqrtNormB;
-        return dotProduct / denominator;
+        return result;
+    }
+    
+    /**
+     * Atualiza cache in-memory e índice ANN de um índice (ativo ou sombra)
+     * 
+     * @return false se o vetor foi rejeitado (dimensão diferente da do índice)
+     */
+    private boolean cache(Generation g, UUID ruleId, float[] embedding) {
+        if (!g.embeddings.put(ruleId, embedding)) {
+            log.warn("⚠️ [US#66] Embedding da regra {} rejeitado: dimensão {} difere do índice ({}) | provider={}", 
+                     ruleId, embedding.length, g.embeddings.dimension(), g.provider);
+            return false;
+        }
+        if (annEnabled) {
+            g.annIndex.add(ruleId, embedding);
+        }
+        return true;
+    }
+    
+    /**
+     * Modo quantizado: mantém o vetor em precisão total no LRU de re-ranking
+     */
+    private void rememberFullPrecision(Generation g, UUID ruleId, float[] embedding) {
+        if (quantized) {
+            g.fullPrecision.put(ruleId, VectorMath.normalize(embedding));
+        }
+    }
+    
+    /**
+     * Catálogos pequenos usam busca exata (recall 100%, custo desprezível)
+     */
+    private boolean useAnnIndex(int size) {
+        return annEnabled 
+            && size >= hnswProperties.getExactSearchThreshold();
+    }
+    
+    /**
+     * Mapa LRU sincronizado com tamanho máximo
+     */
+    private static Map<UUID, float[]> lruCache(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<UUID, float[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, float[]> eldest) {
+                return size() > maxEntries;
+            }
+        });
     }
     
     /**
@@ -278,7 +595,14 @@ public class JpaBusinessRuleVectorStore {
      * Retorna número de embeddings em cache
      */
     public int size() {
-        return embeddingCache.size();
+        return active.embeddings.size();
+    }
+    
+    /**
+     * Provider do índice ativo
+     */
+    public String getProvider() {
+        return active.provider;
     }
     
     /**
@@ -293,12 +617,35 @@ public class JpaBusinessRuleVectorStore {
         }
     }
     
+    /**
+     * Hash de conteúdo dos embeddings persistidos do provider atual
+     * 
+     * Embeddings de outro provider (ou sem hash) não aparecem e, portanto,
+     * são tratados como desatualizados pela indexação incremental.
+     * 
+     * @return Mapa ruleId → contentHash (vazio em caso de erro)
+     */
+    public Map<UUID, String> contentHashes() {
+        try {
+            Map<UUID, String> hashes = new HashMap<>();
+            for (Object[] row : repository.findContentHashesByProvider(active.provider)) {
+                if (row[1] != null) {
+                    hashes.put((UUID) row[0], (String) row[1]);
+                }
+            }
+            return hashes;
+        } catch (Exception e) {
+            log.error("❌ [US#66] Erro ao carregar hashes de conteúdo dos embeddings", e);
+            return Collections.emptyMap();
+        }
+    }
+    
     /**
      * Verifica se existe embedding para uma regra
      */
     public boolean hasEmbedding(UUID ruleId) {
         // Verifica cache primeiro
-        if (embeddingCache.containsKey(ruleId)) {
+        if (active.embeddings.contains(ruleId)) {
             return true;
         }
         
@@ -315,12 +662,143 @@ public class JpaBusinessRuleVectorStore {
      * Limpa cache (não remove do banco)
      */
     public void clearCache() {
-        embeddingCache.clear();
+        Generation g = active;
+        g.embeddings.clear();
+        g.fullPrecision.clear();
+        g.annIndex.clear();
         log.info("🗑️ [US#66] Cache de embeddings limpo (banco não afetado)");
     }
     
+    // ------------------------------------------------------------------
+    // Índice sombra (migração de modelo)
+    // ------------------------------------------------------------------
+    
+    /**
+     * Abre o índice sombra de um provider, retomando o que já foi gerado
+     * 
+     * Linhas de migrações anteriores para outro provider são descartadas.
+     * 
+     * @param provider Provider de destino da migração
+     * @return Mapa ruleId → contentHash dos embeddings sombra já persistidos
+     */
+    @Transactional
+    public Map<UUID, String> openShadow(String provider) {
+        int stale = shadowRepository.deleteByProviderNot(provider);
+        if (stale > 0) {
+            log.info("🗑️ [US#66] {} embedding(s) sombra de migração anterior descartado(s)", stale);
+        }
+        
+        Generation g = new Generation(provider);
+        Map<UUID, String> hashes = new HashMap<>();
+        for (BusinessRuleShadowEmbeddingEntity entity : shadowRepository.findByProvider(provider)) {
+            cache(g, entity.getBusinessRuleId(), deserializeEmbedding(entity.getEmbedding(), entity.getDimension()));
+            if (entity.getContentHash() != null) {
+                hashes.put(entity.getBusinessRuleId(), entity.getContentHash());
+            }
+        }
+        shadow = g;
+        
+        log.info("🌗 [US#66] Índice sombra aberto | provider={} | retomados={}", provider, hashes.size());
+        return hashes;
+    }
+    
     /**
-     * Record interno para resultados de similaridade
+     * Grava um embedding do novo modelo no índice sombra (banco + memória)
+     * 
+     * @throws IllegalStateException se não há índice sombra aberto
      */
-    private record SimilarityResult(UUID ruleId, double similarity) {}
+    @Transactional
+    public void saveShadow(UUID ruleId, float[] embedding, String contentHash) {
+        Generation g = shadow;
+        if (g == null) {
+            throw new IllegalStateException("Nenhum índice sombra aberto");
+        }
+        shadowRepository.save(new BusinessRuleShadowEmbeddingEntity(
+            ruleId, embedding.length, g.provider, serializeEmbedding(embedding), contentHash));
+        cache(g, ruleId, embedding);
+        rememberFullPrecision(g, ruleId, embedding);
+    }
+    
+    /**
+     * Número de embeddings no índice sombra (0 sem migração)
+     */
+    public int shadowSize() {
+        Generation g = shadow;
+        return g != null ? g.embeddings.size() : 0;
+    }
+    
+    /**
+     * Vira o índice sombra para ativo
+     * 
+     * No banco (uma transação): a tabela ativa é substituída pelas linhas sombra.
+     * Em memória: a troca só acontece após o commit (se o commit falhar, o índice
+     * ativo continua o anterior, coerente com o modelo de consulta). É uma única
+     * atribuição seguida de onPromoted, que deve virar o modelo de consulta no mesmo
+     * passo; buscas em andamento terminam no índice anterior. O segmento em disco
+     * passa a ser o do novo provider.
+     * 
+     * @param onPromoted Executado logo após a troca em memória (ex: ativar o novo provider)
+     * @return Embeddings no novo índice ativo
+     * @throws IllegalStateException se não há índice sombra aberto
+     */
+    @Transactional
+    public int promoteShadow(Runnable onPromoted) {
+        Generation g = shadow;
+        if (g == null) {
+            throw new IllegalStateException("Nenhum índice sombra aberto");
+        }
+        
+        repository.deleteAllInBatch();
+        int copied = shadowRepository.copyToActive(g.provider);
+        shadowRepository.deleteByProvider(g.provider);
+        
+        Runnable swap = () -> {
+            String previous = active.provider;
+            active = g;
+            shadow = null;
+            segmentDirty = true;
+            onPromoted.run();
+            log.info("🔀 [US#66] Índice de embeddings promovido | {} → {} | embeddings={} | persistidos={}", 
+                     previous, g.provider, g.embeddings.size(), copied);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    swap.run();
+                }
+            });
+        } else {
+            swap.run();
+        }
+        return g.embeddings.size();
+    }
+    
+    /**
+     * Índice em memória de um provider: vetores (float32 ou int8), HNSW e LRU de re-ranking
+     */
+    private final class Generation {
+        
+        final String provider;
+        final EmbeddingStorage embeddings;
+        final HnswIndex annIndex;
+        final Map<UUID, float[]> fullPrecision;
+        final Path segmentPath;
+        
+        Generation(String provider) {
+            this.provider = provider;
+            this.embeddings = quantized ? new QuantizedEmbeddingMatrix() : new EmbeddingMatrix();
+            this.annIndex = new HnswIndex(
+                hnswProperties.getM(),
+                hnswProperties.getEfConstruction(),
+                hnswProperties.getEfSearch()
+            );
+            this.fullPrecision = quantized 
+                ? lruCache(Math.max(1, quantizationProperties.getFullPrecisionCacheSize())) 
+                : Collections.emptyMap();
+            this.segmentPath = segmentDirectory != null
+                ? Paths.get(segmentDirectory, "business-rule-embeddings-" + provider + ".seg")
+                : null;
+        }
+    }
 }
@@ -28,6 +28,21 @@ public class RagVectorStoreProperties {
      */
     private boolean persist = true;
     
+    /**
+     * Índice ANN (HNSW) usado pelo findTopK dos vector stores
+     */
+    private Hnsw hnsw = new Hnsw();
+    
+    /**
+     * Quantização int8 do cache in-memory (apenas vector store JPA)
+     */
+    private Quantization quantization = new Quantization();
+    
+    /**
+     * Segmentos de vetores em disco para startup rápido (apenas vector store JPA)
+     */
+    private Segment segment = new Segment();
+    
     /**
      * Enum de tipos de vector store
      */
@@ -53,4 +68,189 @@ public class RagVectorStoreProperties {
     public void setPersist(boolean persist) {
         this.persist = persist;
     }
+    
+    public Hnsw getHnsw() {
+        return hnsw;
+    }
+    
+    public void setHnsw(Hnsw hnsw) {
+        this.hnsw = hnsw;
+    }
+    
+    public Quantization getQuantization() {
+        return quantization;
+    }
+    
+    public void setQuantization(Quantization quantization) {
+        this.quantization = quantization;
+    }
+    
+    public Segment getSegment() {
+        return segment;
+    }
+    
+    public void setSegment(Segment segment) {
+        this.segment = segment;
+    }
+    
+    /**
+     * Configuração do índice HNSW (rag.vector-store.hnsw.*)
+     * 
+     * Abaixo de exactSearchThreshold embeddings a busca continua exata (brute force),
+     * que é mais barata e tem recall 100% para catálogos pequenos.
+     */
+    public static class Hnsw {
+        
+        /**
+         * Habilitar busca aproximada via HNSW
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Conexões por nó (M). Maior = mais recall e mais memória
+         */
+        private int m = 16;
+        
+        /**
+         * Tamanho da lista de candidatos na construção do grafo
+         */
+        private int efConstruction = 200;
+        
+        /**
+         * Tamanho da lista de candidatos na busca. Maior = mais recall e mais latência
+         */
+        private int efSearch = 64;
+        
+        /**
+         * Quantidade mínima de embeddings para usar o HNSW em vez da busca exata
+         */
+        private int exactSearchThreshold = 1000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getM() {
+            return m;
+        }
+        
+        public void setM(int m) {
+            this.m = m;
+        }
+        
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+        
+        public void setEfConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+        }
+        
+        public int getEfSearch() {
+            return efSearch;
+        }
+        
+        public void setEfSearch(int efSearch) {
+            this.efSearch = efSearch;
+        }
+        
+        public int getExactSearchThreshold() {
+            return exactSearchThreshold;
+        }
+        
+        public void setExactSearchThreshold(int exactSearchThreshold) {
+            this.exactSearchThreshold = exactSearchThreshold;
+        }
+    }
+    
+    /**
+     * Configuração de quantização int8 (rag.vector-store.quantization.*)
+     * 
+     * Trade-off recall x memória: o cache guarda 1 byte por dimensão (~4x menos heap)
+     * e a busca re-ranqueia k * rescoreMultiplier candidatos com os vetores em
+     * precisão total (carregados sob demanda de business_rule_embeddings).
+     * Com quantização ativa o índice HNSW não é usado.
+     */
+    public static class Quantization {
+        
+        /**
+         * Habilitar cache quantizado em int8
+         */
+        private boolean enabled = false;
+        
+        /**
+         * Candidatos re-ranqueados em precisão total = k * rescoreMultiplier.
+         * Maior = mais recall e mais leituras do banco
+         */
+        private int rescoreMultiplier = 4;
+        
+        /**
+         * Máximo de vetores em precisão total mantidos em memória (LRU) para re-ranking
+         */
+        private int fullPrecisionCacheSize = 1000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getRescoreMultiplier() {
+            return rescoreMultiplier;
+        }
+        
+        public void setRescoreMultiplier(int rescoreMultiplier) {
+            this.rescoreMultiplier = rescoreMultiplier;
+        }
+        
+        public int getFullPrecisionCacheSize() {
+            return fullPrecisionCacheSize;
+        }
+        
+        public void setFullPrecisionCacheSize(int fullPrecisionCacheSize) {
+            this.fullPrecisionCacheSize = fullPrecisionCacheSize;
+        }
+    }
+    
+    /**
+     * Configuração de segmentos em disco (rag.vector-store.segment.*)
+     * 
+     * No startup o store abre o segmento via memory-map em vez de ler e
+     * deserializar todos os embeddings do banco. O banco continua sendo a
+     * fonte da verdade: segmento desatualizado ou corrompido é reconstruído.
+     */
+    public static class Segment {
+        
+        /**
+         * Habilitar leitura/gravação de segmentos
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Diretório dos arquivos de segmento
+         */
+        private String directory = "data/vector-segments";
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getDirectory() {
+            return directory;
+        }
+        
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
 }
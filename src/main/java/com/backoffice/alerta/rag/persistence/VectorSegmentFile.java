@@ -0,0 +1,218 @@
+package com.backoffice.alerta.rag.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Segmento binário de embeddings, lido via FileChannel.map no startup
+ *
+ * Formato (little-endian):
+ * <pre>
+ *   int   magic       ("BRVS")
+ *   int   version
+ *   int   dimension
+ *   int   count
+ *   long  fingerprint (estado do banco quando o segmento foi gravado)
+ *   long  checksum    (CRC32 do corpo)
+ *   count × (long msb, long lsb)   tabela ordinal → UUID
+ *   count × dimension × float      vetores, uma linha por regra
+ * </pre>
+ *
+ * O banco continua sendo a fonte da verdade: o fingerprint detecta segmentos
+ * desatualizados e o checksum detecta arquivos corrompidos/truncados.
+ *
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+public final class VectorSegmentFile {
+
+    static final int MAGIC = 0x42525653;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    private static final int WRITE_CHUNK_BYTES = 64 * 1024;
+
+    private final int dimension;
+    private final long fingerprint;
+    private final UUID[] ruleIds;
+    private final FloatBuffer vectors;
+
+    private VectorSegmentFile(int dimension, long fingerprint, UUID[] ruleIds, FloatBuffer vectors) {
+        this.dimension = dimension;
+        this.fingerprint = fingerprint;
+        this.ruleIds = ruleIds;
+        this.vectors = vectors;
+    }
+
+    /**
+     * Grava um segmento de forma atômica (arquivo temporário + move)
+     *
+     * @param path Caminho do segmento
+     * @param dimension Dimensão dos vetores
+     * @param ruleIds Regras, na ordem dos ordinais
+     * @param rows Vetor de cada regra (deve ter a dimensão informada)
+     * @param fingerprint Estado do banco correspondente ao conteúdo
+     */
+    public static void write(Path path, int dimension, List<UUID> ruleIds,
+                             Function<UUID, float[]> rows, long fingerprint) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            channel.position(HEADER_BYTES);
+
+            for (UUID ruleId : ruleIds) {
+                if (chunk.remaining() < 16) {
+                    flush(channel, chunk, crc);
+                }
+                chunk.putLong(ruleId.getMostSignificantBits());
+                chunk.putLong(ruleId.getLeastSignificantBits());
+            }
+
+            for (UUID ruleId : ruleIds) {
+                float[] row = rows.apply(ruleId);
+                if (row == null || row.length != dimension) {
+                    throw new IOException("Vetor ausente ou com dimensão inválida para regra " + ruleId);
+                }
+                for (float value : row) {
+                    if (chunk.remaining() < Float.BYTES) {
+                        flush(channel, chunk, crc);
+                    }
+                    chunk.putFloat(value);
+                }
+            }
+            flush(channel, chunk, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(dimension)
+                .putInt(ruleIds.size())
+                .putLong(fingerprint)
+                .putLong(crc.getValue())
+                .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer chunk, CRC32 crc) throws IOException {
+        chunk.flip();
+        crc.update(chunk.duplicate());
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Abre um segmento via memory-map
+     *
+     * @return Segmento, ou vazio se o arquivo não existir
+     * @throws IOException se o arquivo for inválido (magic, versão, tamanho ou checksum)
+     */
+    public static Optional<VectorSegmentFile> open(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Segmento truncado: " + path);
+            }
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Segmento maior que 2GB não suportado: " + path);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Magic inválido no segmento: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Versão de segmento não suportada: " + version);
+            }
+
+            int dimension = buffer.getInt(8);
+            int count = buffer.getInt(12);
+            long fingerprint = buffer.getLong(16);
+            long checksum = buffer.getLong(24);
+
+            long expectedSize = HEADER_BYTES + (long) count * 16 + (long) count * dimension * Float.BYTES;
+            if (dimension < 0 || count < 0 || expectedSize != fileSize) {
+                throw new IOException("Tamanho de segmento inconsistente: " + path);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(HEADER_BYTES));
+            if (crc.getValue() != checksum) {
+                throw new IOException("Checksum inválido no segmento: " + path);
+            }
+
+            UUID[] ruleIds = new UUID[count];
+            ByteBuffer idTable = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                ruleIds[i] = new UUID(idTable.getLong(), idTable.getLong());
+            }
+
+            FloatBuffer vectors = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+                .position(HEADER_BYTES + count * 16)
+                .slice()
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+
+            return Optional.of(new VectorSegmentFile(dimension, fingerprint, ruleIds, vectors));
+        }
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public int size() {
+        return ruleIds.length;
+    }
+
+    public UUID ruleId(int ordinal) {
+        return ruleIds[ordinal];
+    }
+
+    /**
+     * Copia (bulk) o vetor de um ordinal a partir da região mapeada
+     */
+    public float[] row(int ordinal) {
+        float[] row = new float[dimension];
+        vectors.get(ordinal * dimension, row);
+        return row;
+    }
+}
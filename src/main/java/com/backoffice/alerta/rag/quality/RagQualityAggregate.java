@@ -0,0 +1,263 @@
+package com.backoffice.alerta.rag.quality;
+
+import com.backoffice.alerta.rag.RagMatchType;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores incrementais de qualidade de um escopo (GLOBAL ou projeto)
+ *
+ * Métricas do escopo e por regra: janela do ring buffer (amostra entra com +1
+ * e sai com -1 quando sobrescrita). Tendência diária: acumulada por dia.
+ * Todas as taxas são lidas em O(1), sem percorrer as consultas.
+ *
+ * US#67 - Avaliação de qualidade do RAG
+ */
+public class RagQualityAggregate {
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder fallbackQueries = new LongAdder();
+    private final LongAdder highConfidenceQueries = new LongAdder();
+    private final LongAdder confidenceMismatches = new LongAdder();
+    private final LongAdder cachedQueries = new LongAdder();
+
+    private final LongAdder scores = new LongAdder();
+    private final LongAdder hybridMatches = new LongAdder();
+    private final LongAdder semanticMatches = new LongAdder();
+    private final LongAdder keywordMatches = new LongAdder();
+    private final LongAdder fallbackInclusions = new LongAdder();
+    private final DoubleAdder semanticSum = new DoubleAdder();
+    private final LongAdder semanticCount = new LongAdder();
+    private final DoubleAdder keywordSum = new DoubleAdder();
+
+    // Regras com ao menos uma ocorrência na janela
+    private final LongAdder activeRules = new LongAdder();
+    private final Map<String, RuleAggregate> rules = new ConcurrentHashMap<>();
+    private final Map<LocalDate, DayAggregate> days = new ConcurrentHashMap<>();
+
+    /**
+     * Soma (sign=+1) ou remove (sign=-1) uma amostra da janela
+     */
+    void apply(RagQuerySample sample, int sign) {
+        queries.add(sign);
+        if (sample.usedFallback()) {
+            fallbackQueries.add(sign);
+        }
+        if (sample.highConfidence()) {
+            highConfidenceQueries.add(sign);
+        }
+        if (sample.confidenceMismatch()) {
+            confidenceMismatches.add(sign);
+        }
+        if (sample.cached()) {
+            cachedQueries.add(sign);
+        }
+
+        for (RagQuerySample.RuleScore score : sample.ruleScores()) {
+            scores.add(sign);
+            if (score.matchType() == RagMatchType.HYBRID) {
+                hybridMatches.add(sign);
+            } else if (score.matchType() == RagMatchType.SEMANTIC) {
+                semanticMatches.add(sign);
+            } else if (score.matchType() == RagMatchType.KEYWORD) {
+                keywordMatches.add(sign);
+            }
+            if (score.includedByFallback()) {
+                fallbackInclusions.add(sign);
+            }
+            if (score.semanticScore() > 0.0) {
+                semanticSum.add(sign * score.semanticScore());
+                semanticCount.add(sign);
+            }
+            keywordSum.add(sign * score.keywordScore());
+
+            RuleAggregate rule = rules.computeIfAbsent(score.businessRuleId(), RuleAggregate::new);
+            long before = rule.apply(score, sign);
+            if (before == 0 && sign > 0) {
+                activeRules.increment();
+            } else if (before == 1 && sign < 0) {
+                activeRules.decrement();
+            }
+        }
+    }
+
+    /**
+     * Acumula a amostra no dia dela e descarta dias fora da retenção
+     */
+    void addToDay(RagQuerySample sample, int retentionDays) {
+        DayAggregate[] created = new DayAggregate[1];
+        DayAggregate day = days.computeIfAbsent(sample.day(), d -> created[0] = new DayAggregate());
+        day.add(sample);
+        if (created[0] != null) {
+            LocalDate cutoff = sample.day().minusDays(Math.max(1, retentionDays));
+            days.keySet().removeIf(d -> d.isBefore(cutoff));
+        }
+    }
+
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    public long getActiveRules() {
+        return activeRules.sum();
+    }
+
+    public double getFallbackRate() {
+        return ratio(fallbackQueries.sum(), queries.sum());
+    }
+
+    public double getAvgSemanticScore() {
+        long count = semanticCount.sum();
+        return count > 0 ? semanticSum.sum() / count : 0.0;
+    }
+
+    public double getAvgKeywordScore() {
+        long count = scores.sum();
+        return count > 0 ? keywordSum.sum() / count : 0.0;
+    }
+
+    public double getHybridMatchRate() {
+        return ratio(hybridMatches.sum(), scores.sum());
+    }
+
+    public double getSemanticOnlyRate() {
+        return ratio(semanticMatches.sum(), scores.sum());
+    }
+
+    public double getKeywordOnlyRate() {
+        return ratio(keywordMatches.sum(), scores.sum());
+    }
+
+    public double getFallbackInclusionRate() {
+        return ratio(fallbackInclusions.sum(), scores.sum());
+    }
+
+    public double getConfidenceMismatchRate() {
+        return ratio(confidenceMismatches.sum(), highConfidenceQueries.sum());
+    }
+
+    public double getCacheHitRate() {
+        return ratio(cachedQueries.sum(), queries.sum());
+    }
+
+    /**
+     * Regras da janela (inclui regras cujas ocorrências já saíram: filtrar por occurrences > 0)
+     */
+    public Collection<RuleAggregate> getRules() {
+        return rules.values();
+    }
+
+    public DayAggregate getDay(LocalDate date) {
+        return days.get(date);
+    }
+
+    private static double ratio(long part, long total) {
+        return total > 0 ? (double) part / total : 0.0;
+    }
+
+    /**
+     * Contadores de uma regra dentro do escopo
+     */
+    public static class RuleAggregate {
+
+        private final String businessRuleId;
+        private volatile String businessRuleName;
+        private final AtomicLong occurrences = new AtomicLong();
+        private final DoubleAdder semanticSum = new DoubleAdder();
+        private final LongAdder semanticCount = new LongAdder();
+        private final LongAdder keywordOnly = new LongAdder();
+        private final LongAdder fallbackInclusions = new LongAdder();
+
+        RuleAggregate(String businessRuleId) {
+            this.businessRuleId = businessRuleId;
+        }
+
+        /**
+         * @return Ocorrências antes da atualização
+         */
+        long apply(RagQuerySample.RuleScore score, int sign) {
+            if (sign > 0) {
+                businessRuleName = score.businessRuleName();
+            }
+            if (score.semanticScore() > 0.0) {
+                semanticSum.add(sign * score.semanticScore());
+                semanticCount.add(sign);
+            }
+            if (score.matchType() == RagMatchType.KEYWORD) {
+                keywordOnly.add(sign);
+            }
+            if (score.includedByFallback()) {
+                fallbackInclusions.add(sign);
+            }
+            return occurrences.getAndAdd(sign);
+        }
+
+        public String getBusinessRuleId() {
+            return businessRuleId;
+        }
+
+        public String getBusinessRuleName() {
+            return businessRuleName;
+        }
+
+        public long getOccurrences() {
+            return occurrences.get();
+        }
+
+        public double getAvgSemanticScore() {
+            long count = semanticCount.sum();
+            return count > 0 ? semanticSum.sum() / count : 0.0;
+        }
+
+        public double getKeywordDependencyRate() {
+            return ratio(keywordOnly.sum(), occurrences.get());
+        }
+
+        public double getFallbackInclusionRate() {
+            return ratio(fallbackInclusions.sum(), occurrences.get());
+        }
+    }
+
+    /**
+     * Contadores de um dia dentro do escopo
+     */
+    public static class DayAggregate {
+
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder fallbackQueries = new LongAdder();
+        private final DoubleAdder semanticSum = new DoubleAdder();
+        private final LongAdder semanticCount = new LongAdder();
+
+        void add(RagQuerySample sample) {
+            queries.increment();
+            if (sample.usedFallback()) {
+                fallbackQueries.increment();
+            }
+            for (RagQuerySample.RuleScore score : sample.ruleScores()) {
+                if (score.semanticScore() > 0.0) {
+                    semanticSum.add(score.semanticScore());
+                    semanticCount.increment();
+                }
+            }
+        }
+
+        public long getQueries() {
+            return queries.sum();
+        }
+
+        public double getFallbackRate() {
+            return ratio(fallbackQueries.sum(), queries.sum());
+        }
+
+        public double getAvgSemanticScore() {
+            long count = semanticCount.sum();
+            return count > 0 ? semanticSum.sum() / count : 0.0;
+        }
+    }
+}
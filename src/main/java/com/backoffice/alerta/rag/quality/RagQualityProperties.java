@@ -0,0 +1,65 @@
+package com.backoffice.alerta.rag.quality;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração da captura de tráfego RAG para avaliação de qualidade
+ *
+ * Lê configurações de application.yml:
+ *
+ * rag:
+ *   quality:
+ *     enabled: true
+ *     buffer-capacity: 4096
+ *     trend-retention-days: 90
+ *
+ * US#67 - Avaliação de qualidade do RAG
+ */
+@Component
+@ConfigurationProperties(prefix = "rag.quality")
+public class RagQualityProperties {
+
+    /**
+     * Captura o resumo de cada resposta RAG servida.
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Número de respostas recentes mantidas no ring buffer. As métricas
+     * globais, por projeto e por regra refletem exatamente essa janela.
+     * Default: 4096
+     */
+    private int bufferCapacity = 4096;
+
+    /**
+     * Dias mantidos nas tendências diárias (independente da janela do buffer).
+     * Default: 90
+     */
+    private int trendRetentionDays = 90;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    public void setBufferCapacity(int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    public int getTrendRetentionDays() {
+        return trendRetentionDays;
+    }
+
+    public void setTrendRetentionDays(int trendRetentionDays) {
+        this.trendRetentionDays = trendRetentionDays;
+    }
+}
@@ -0,0 +1,102 @@
+package com.backoffice.alerta.rag.quality;
+
+import com.backoffice.alerta.rag.RagQueryResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Captura das respostas RAG servidas para avaliação de qualidade
+ *
+ * Ring buffer lock-free (sequência atômica + AtomicReferenceArray) com as
+ * últimas rag.quality.buffer-capacity respostas. Cada gravação atualiza de
+ * forma incremental os agregados GLOBAL e do projeto: a amostra sobrescrita
+ * sai dos contadores e a nova entra, então as métricas sempre refletem a janela.
+ *
+ * Nunca propaga exceções para o fluxo de consulta.
+ *
+ * US#67 - Avaliação de qualidade do RAG
+ */
+@Component
+public class RagQualityRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(RagQualityRecorder.class);
+
+    private final RagQualityProperties properties;
+    private final AtomicReferenceArray<RagQuerySample> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final RagQualityAggregate global = new RagQualityAggregate();
+    private final Map<UUID, RagQualityAggregate> byProject = new ConcurrentHashMap<>();
+
+    public RagQualityRecorder(RagQualityProperties properties) {
+        this.properties = properties;
+        this.buffer = new AtomicReferenceArray<>(Math.max(1, properties.getBufferCapacity()));
+    }
+
+    /**
+     * Registra o resumo de uma resposta servida (inclusive cache hit)
+     */
+    public void record(RagQueryResponse response) {
+        if (!properties.isEnabled() || response == null) {
+            return;
+        }
+        try {
+            RagQuerySample sample = RagQuerySample.of(response, LocalDate.now());
+            int slot = (int) (sequence.getAndIncrement() % buffer.length());
+            RagQuerySample evicted = buffer.getAndSet(slot, sample);
+
+            apply(sample, 1);
+            if (evicted != null) {
+                apply(evicted, -1);
+            }
+            addToDay(sample);
+        } catch (Exception e) {
+            log.warn("⚠️ [US#67] Falha ao registrar amostra de qualidade: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Agregado do escopo (null = GLOBAL); projeto sem tráfego retorna agregado vazio
+     */
+    public RagQualityAggregate aggregate(UUID projectId) {
+        if (projectId == null) {
+            return global;
+        }
+        RagQualityAggregate aggregate = byProject.get(projectId);
+        return aggregate != null ? aggregate : new RagQualityAggregate();
+    }
+
+    /**
+     * Número de respostas atualmente no buffer
+     */
+    public int bufferedQueries() {
+        return (int) Math.min(sequence.get(), buffer.length());
+    }
+
+    public int capacity() {
+        return buffer.length();
+    }
+
+    private void apply(RagQuerySample sample, int sign) {
+        global.apply(sample, sign);
+        if (sample.projectId() != null) {
+            byProject.computeIfAbsent(sample.projectId(), id -> new RagQualityAggregate()).apply(sample, sign);
+        }
+    }
+
+    private void addToDay(RagQuerySample sample) {
+        int retention = properties.getTrendRetentionDays();
+        global.addToDay(sample, retention);
+        if (sample.projectId() != null) {
+            byProject.get(sample.projectId()).addToDay(sample, retention);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.backoffice.alerta.rag.quality;
+
+import com.backoffice.alerta.rag.ConfidenceLevel;
+import com.backoffice.alerta.rag.RagMatchType;
+import com.backoffice.alerta.rag.RagQueryResponse;
+import com.backoffice.alerta.rag.RagRuleScoreDetail;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resumo imutável de uma resposta RAG servida (sem pergunta nem resposta)
+ *
+ * @param projectId Projeto do escopo (null = consulta GLOBAL)
+ * @param confidenceMismatch Confiança HIGH com score semântico médio abaixo de 0.4
+ * @param cached Resposta servida do cache de respostas (US#64)
+ *
+ * US#67 - Avaliação de qualidade do RAG
+ */
+public record RagQuerySample(LocalDate day,
+                             UUID projectId,
+                             boolean usedFallback,
+                             boolean highConfidence,
+                             boolean confidenceMismatch,
+                             boolean cached,
+                             List<RuleScore> ruleScores) {
+
+    // Abaixo disso uma resposta HIGH é considerada incoerente com o retrieval
+    static final double MISMATCH_SEMANTIC_THRESHOLD = 0.4;
+
+    /**
+     * Score de uma regra retornada na resposta
+     */
+    public record RuleScore(String businessRuleId,
+                            String businessRuleName,
+                            RagMatchType matchType,
+                            double semanticScore,
+                            int keywordScore,
+                            boolean includedByFallback) {}
+
+    public static RagQuerySample of(RagQueryResponse response, LocalDate day) {
+        UUID projectId = response.getProjectContext() != null && response.getProjectContext().isScoped()
+            ? response.getProjectContext().getProjectId()
+            : null;
+
+        List<RagRuleScoreDetail> details = response.getRuleScores() != null ? response.getRuleScores() : List.of();
+        List<RuleScore> scores = details.stream()
+            .map(s -> new RuleScore(s.getBusinessRuleId(), s.getBusinessRuleName(), s.getMatchType(),
+                s.getSemanticScore(), s.getKeywordScore(), s.isIncludedByFallback()))
+            .toList();
+
+        boolean high = ConfidenceLevel.HIGH.equals(response.getConfidence());
+        double avgSemantic = scores.stream()
+            .mapToDouble(RuleScore::semanticScore)
+            .filter(s -> s > 0.0)
+            .average()
+            .orElse(0.0);
+
+        return new RagQuerySample(day, projectId, response.isUsedFallback(), high,
+            high && avgSemantic < MISMATCH_SEMANTIC_THRESHOLD, response.isCached(), scores);
+    }
+}
@@ -0,0 +1,34 @@
+package com.backoffice.alerta.rag.resilience;
+
+/**
+ * Chamada rejeitada sem tocar o backend (circuito aberto ou bulkhead cheio)
+ * 
+ * O chamador deve responder com seu fallback determinístico.
+ */
+public class BackendUnavailableException extends RuntimeException {
+    
+    /**
+     * Motivo da rejeição
+     */
+    public enum Reason {
+        CIRCUIT_OPEN,
+        BULKHEAD_FULL
+    }
+    
+    private final String backend;
+    private final Reason reason;
+    
+    public BackendUnavailableException(String backend, Reason reason) {
+        super(backend + ": " + reason);
+        this.backend = backend;
+        this.reason = reason;
+    }
+    
+    public String getBackend() {
+        return backend;
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,165 @@
+package com.backoffice.alerta.rag.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração de resiliência das chamadas externas do RAG (LLM e embeddings)
+ * 
+ * Lê configurações de application.yml:
+ * 
+ * rag:
+ *   resilience:
+ *     llm:
+ *       max-concurrent: 8
+ *       acquire-timeout-ms: 100
+ *       failure-threshold: 5
+ *       open-duration-ms: 30000
+ *       half-open-probes: 1
+ *       min-timeout-ms: 2000
+ *       max-timeout-ms: 15000
+ *     embedding:
+ *       max-concurrent: 16
+ *       ...
+ */
+@Component
+@ConfigurationProperties(prefix = "rag.resilience")
+public class RagResilienceProperties {
+    
+    /**
+     * Cliente LLM de geração de respostas (OpenAIRagLLMClient)
+     */
+    private Backend llm = new Backend(8, 15000);
+    
+    /**
+     * Providers de embedding remotos (OpenAI / Sentence Transformer)
+     */
+    private Backend embedding = new Backend(16, 10000);
+    
+    /**
+     * Limites de um backend: bulkhead, circuit breaker e timeout adaptativo
+     */
+    public static class Backend {
+        
+        /**
+         * Chamadas simultâneas permitidas (bulkhead).
+         */
+        private int maxConcurrent;
+        
+        /**
+         * Espera máxima por uma vaga no bulkhead antes de rejeitar.
+         * Default: 100 ms
+         */
+        private long acquireTimeoutMs = 100;
+        
+        /**
+         * Falhas consecutivas que abrem o circuito.
+         * Default: 5
+         */
+        private int failureThreshold = 5;
+        
+        /**
+         * Tempo com o circuito aberto antes de testar o serviço novamente (half-open).
+         * Default: 30000 ms
+         */
+        private long openDurationMs = 30000;
+        
+        /**
+         * Chamadas de teste simultâneas no estado half-open.
+         * Default: 1
+         */
+        private int halfOpenProbes = 1;
+        
+        /**
+         * Piso do timeout adaptativo.
+         * Default: 2000 ms
+         */
+        private long minTimeoutMs = 2000;
+        
+        /**
+         * Teto do timeout adaptativo (usado até haver amostras de latência).
+         */
+        private long maxTimeoutMs;
+        
+        public Backend() {
+            this(8, 10000);
+        }
+        
+        Backend(int maxConcurrent, long maxTimeoutMs) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxTimeoutMs = maxTimeoutMs;
+        }
+        
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+        
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+        
+        public long getAcquireTimeoutMs() {
+            return acquireTimeoutMs;
+        }
+        
+        public void setAcquireTimeoutMs(long acquireTimeoutMs) {
+            this.acquireTimeoutMs = acquireTimeoutMs;
+        }
+        
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+        
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+        
+        public long getOpenDurationMs() {
+            return openDurationMs;
+        }
+        
+        public void setOpenDurationMs(long openDurationMs) {
+            this.openDurationMs = openDurationMs;
+        }
+        
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+        
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+        
+        public long getMinTimeoutMs() {
+            return minTimeoutMs;
+        }
+        
+        public void setMinTimeoutMs(long minTimeoutMs) {
+            this.minTimeoutMs = minTimeoutMs;
+        }
+        
+        public long getMaxTimeoutMs() {
+            return maxTimeoutMs;
+        }
+        
+        public void setMaxTimeoutMs(long maxTimeoutMs) {
+            this.maxTimeoutMs = maxTimeoutMs;
+        }
+    }
+    
+    public Backend getLlm() {
+        return llm;
+    }
+    
+    public void setLlm(Backend llm) {
+        this.llm = llm;
+    }
+    
+    public Backend getEmbedding() {
+        return embedding;
+    }
+    
+    public void setEmbedding(Backend embedding) {
+        this.embedding = embedding;
+    }
+}
@@ -0,0 +1,100 @@
+package com.backoffice.alerta.rag.resilience;
+
+import com.backoffice.alerta.rag.embedding.EmbeddingProviderType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro dos backends externos protegidos (um ResilientBackend por nome)
+ * 
+ * Métricas por backend:
+ * - rag.resilience.state{backend,state}: 1 no estado atual, 0 nos demais
+ * - rag.resilience.calls{backend,outcome}: success | failure | rejected_open | rejected_bulkhead
+ * - rag.resilience.transitions{backend,state}: entradas em cada estado
+ * - rag.resilience.in.flight{backend}, rag.resilience.timeout.ms{backend,workload}
+ */
+@Component
+public class RagResilienceRegistry {
+    
+    private static final Logger log = LoggerFactory.getLogger(RagResilienceRegistry.class);
+    
+    public static final String LLM = "llm-openai";
+    public static final String EMBEDDING_OPENAI = "embedding-openai";
+    public static final String EMBEDDING_SENTENCE_TRANSFORMER = "embedding-sentence-transformer";
+    
+    private final RagResilienceProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<String, ResilientBackend> backends = new ConcurrentHashMap<>();
+    
+    public RagResilienceRegistry(RagResilienceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    public ResilientBackend llm() {
+        return backend(LLM, properties.getLlm());
+    }
+    
+    public ResilientBackend embedding(String name) {
+        return backend(name, properties.getEmbedding());
+    }
+    
+    /**
+     * Backend do provider de embeddings de um tipo (null para DUMMY, que é local)
+     */
+    public ResilientBackend embedding(EmbeddingProviderType type) {
+        return switch (type) {
+            case SENTENCE_TRANSFORMER -> embedding(EMBEDDING_SENTENCE_TRANSFORMER);
+            case OPENAI -> embedding(EMBEDDING_OPENAI);
+            default -> null;
+        };
+    }
+    
+    private ResilientBackend backend(String name, RagResilienceProperties.Backend config) {
+        return backends.computeIfAbsent(name, key -> {
+            ResilientBackend backend = new ResilientBackend(key, config);
+            meterRegistry.ifAvailable(registry -> registerMetrics(registry, backend));
+            log.info("🛡️ [RESILIENCE] Backend {} protegido | maxConcurrent={} | failureThreshold={} | open={}ms | timeout={}..{}ms",
+                     key, config.getMaxConcurrent(), config.getFailureThreshold(), config.getOpenDurationMs(),
+                     config.getMinTimeoutMs(), config.getMaxTimeoutMs());
+            return backend;
+        });
+    }
+    
+    public Collection<ResilientBackend> getBackends() {
+        return Collections.unmodifiableCollection(backends.values());
+    }
+    
+    private void registerMetrics(MeterRegistry registry, ResilientBackend backend) {
+        String name = backend.getName();
+        for (ResilientBackend.State state : ResilientBackend.State.values()) {
+            String stateTag = state.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("rag.resilience.state", backend, b -> b.getState() == state ? 1 : 0)
+                    .tag("backend", name).tag("state", stateTag).register(registry);
+            FunctionCounter.builder("rag.resilience.transitions", backend, b -> b.getTransitionCount(state))
+                    .tag("backend", name).tag("state", stateTag).register(registry);
+        }
+        for (ResilientBackend.Outcome outcome : ResilientBackend.Outcome.values()) {
+            FunctionCounter.builder("rag.resilience.calls", backend, b -> b.getOutcomeCount(outcome))
+                    .tag("backend", name).tag("outcome", outcome.name().toLowerCase(Locale.ROOT)).register(registry);
+        }
+        Gauge.builder("rag.resilience.in.flight", backend, ResilientBackend::getInFlight)
+                .tag("backend", name).register(registry);
+        for (ResilientBackend.Workload workload : ResilientBackend.Workload.values()) {
+            Gauge.builder("rag.resilience.timeout.ms", backend, b -> b.currentTimeout(workload).toMillis())
+                    .tag("backend", name).tag("workload", workload.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.backoffice.alerta.rag.resilience;
+
+import com.backoffice.alerta.rag.RagStreamAbortedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Proteção de um backend externo: bulkhead, circuit breaker e timeout adaptativo
+ *
+ * - Bulkhead: semáforo limita chamadas simultâneas; sem vaga em acquireTimeoutMs, rejeita
+ * - Circuit breaker: CLOSED → (failureThreshold falhas seguidas) → OPEN → (openDurationMs)
+ *   → HALF_OPEN (até halfOpenProbes chamadas de teste) → CLOSED em sucesso / OPEN em falha
+ * - Timeout adaptativo: estimativa estilo TCP RTO (média + 4 × desvio das latências de
+ *   sucesso), limitada a [minTimeoutMs, maxTimeoutMs]; uma estimativa por Workload,
+ *   pois um lote leva mais que uma chamada unitária e não deve distorcer o timeout dela.
+ *   Como no RTO, cada timeout dobra o valor (back-off, até maxTimeoutMs) até a próxima
+ *   latência de sucesso; os testes do HALF_OPEN usam sempre maxTimeoutMs, para que um
+ *   backend que ficou mais lento consiga fechar o circuito
+ *
+ * Rejeições lançam BackendUnavailableException imediatamente, sem ocupar a thread.
+ */
+public class ResilientBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientBackend.class);
+
+    /** Peso das novas amostras na média e no desvio de latência */
+    private static final double LATENCY_ALPHA = 0.125;
+    private static final double DEVIATION_BETA = 0.25;
+    /** Limite do multiplicador de back-off (o timeout já é limitado a maxTimeoutMs) */
+    private static final int MAX_BACKOFF = 1 << 10;
+
+    /**
+     * Estado do circuit breaker
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Resultado contabilizado de uma chamada
+     */
+    public enum Outcome {
+        SUCCESS,
+        FAILURE,
+        REJECTED_OPEN,
+        REJECTED_BULKHEAD
+    }
+
+    /**
+     * Tipo de chamada, com estimativa de latência própria
+     */
+    public enum Workload {
+        SINGLE,
+        BATCH
+    }
+
+    /**
+     * Chamada protegida; recebe o timeout a aplicar na requisição
+     */
+    @FunctionalInterface
+    public interface BackendCall<T> {
+        T call(Duration timeout) throws Exception;
+    }
+
+    private final String name;
+    private final RagResilienceProperties.Backend config;
+    private final Semaphore bulkhead;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private int halfOpenInFlight;
+
+    private final Map<Workload, LatencyEstimate> latencies = new EnumMap<>(Workload.class);
+
+    private final Map<Outcome, AtomicLong> outcomes = new EnumMap<>(Outcome.class);
+    private final Map<State, AtomicLong> transitions = new EnumMap<>(State.class);
+
+    public ResilientBackend(String name, RagResilienceProperties.Backend config) {
+        this.name = name;
+        this.config = config;
+        this.bulkhead = new Semaphore(Math.max(1, config.getMaxConcurrent()), true);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new AtomicLong());
+        }
+        for (State target : State.values()) {
+            transitions.put(target, new AtomicLong());
+        }
+        for (Workload workload : Workload.values()) {
+            latencies.put(workload, new LatencyEstimate());
+        }
+    }
+
+    /**
+     * Executa a chamada protegida, usando a latência de sucesso para ajustar o timeout
+     *
+     * @throws BackendUnavailableException circuito aberto ou bulkhead cheio
+     * @throws Exception falha da própria chamada (já contabilizada no breaker)
+     */
+    public <T> T execute(BackendCall<T> call) throws Exception {
+        return execute(call, Workload.SINGLE, true);
+    }
+
+    /**
+     * Como {@link #execute(BackendCall)}, para chamadas em lote (timeout e latência próprios)
+     */
+    public <T> T executeBatch(BackendCall<T> call) throws Exception {
+        return execute(call, Workload.BATCH, true);
+    }
+
+    /**
+     * Como {@link #execute(BackendCall)}, sem amostrar a latência: para respostas em
+     * streaming, cuja duração total não reflete o tempo até a primeira resposta
+     */
+    public <T> T executeStreaming(BackendCall<T> call) throws Exception {
+        return execute(call, Workload.SINGLE, false);
+    }
+
+    private <T> T execute(BackendCall<T> call, Workload workload, boolean sampleLatency) throws Exception {
+        boolean probe = acquirePermission();
+        try {
+            if (!bulkhead.tryAcquire(config.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                outcomes.get(Outcome.REJECTED_BULKHEAD).incrementAndGet();
+                throw new BackendUnavailableException(name, BackendUnavailableException.Reason.BULKHEAD_FULL);
+            }
+        } catch (InterruptedException | BackendUnavailableException e) {
+            releaseProbe(probe);
+            throw e;
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.call(timeoutFor(probe, workload));
+            onSuccess(probe, workload, sampleLatency ? (System.nanoTime() - start) / 1_000_000.0 : -1);
+            return result;
+        } catch (RagStreamAbortedException | InterruptedException e) {
+            // Interrupção do chamador: não diz nada sobre a saúde do backend
+            releaseProbe(probe);
+            throw e;
+        } catch (Exception e) {
+            onFailure(probe, workload, e);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Versão assíncrona: a vaga no bulkhead fica ocupada até o future completar,
+     * sem prender thread. Sem vaga livre, rejeita na hora (não espera acquireTimeoutMs).
+     *
+     * @param call Recebe o timeout a aplicar e devolve o future da chamada
+     * @return Future do resultado; falha com BackendUnavailableException se rejeitada
+     */
+    public <T> CompletableFuture<T> executeAsync(Function<Duration, CompletableFuture<T>> call) {
+        return executeAsync(call, Workload.SINGLE);
+    }
+
+    /**
+     * Como {@link #executeAsync(Function)}, para chamadas em lote (timeout e latência próprios)
+     */
+    public <T> CompletableFuture<T> executeBatchAsync(Function<Duration, CompletableFuture<T>> call) {
+        return executeAsync(call, Workload.BATCH);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(Function<Duration, CompletableFuture<T>> call, Workload workload) {
+        boolean probe;
+        try {
+            probe = acquirePermission();
+        } catch (BackendUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!bulkhead.tryAcquire()) {
+            releaseProbe(probe);
+            outcomes.get(Outcome.REJECTED_BULKHEAD).incrementAndGet();
+            return CompletableFuture.failedFuture(
+                new BackendUnavailableException(name, BackendUnavailableException.Reason.BULKHEAD_FULL));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.apply(timeoutFor(probe, workload));
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            onFailure(probe, workload, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) -> {
+            bulkhead.release();
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            if (cause == null) {
+                onSuccess(probe, workload, (System.nanoTime() - start) / 1_000_000.0);
+            } else if (cause instanceof CancellationException || cause instanceof RagStreamAbortedException) {
+                releaseProbe(probe);
+            } else {
+                onFailure(probe, workload, cause);
+            }
+        });
+    }
+
+    /**
+     * @return true se a chamada é um teste do estado half-open
+     */
+    private synchronized boolean acquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMs())) {
+                outcomes.get(Outcome.REJECTED_OPEN).incrementAndGet();
+                throw new BackendUnavailableException(name, BackendUnavailableException.Reason.CIRCUIT_OPEN);
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= Math.max(1, config.getHalfOpenProbes())) {
+                outcomes.get(Outcome.REJECTED_OPEN).incrementAndGet();
+                throw new BackendUnavailableException(name, BackendUnavailableException.Reason.CIRCUIT_OPEN);
+            }
+            halfOpenInFlight++;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void releaseProbe(boolean probe) {
+        if (probe) {
+            halfOpenInFlight--;
+        }
+    }
+
+    private synchronized void onSuccess(boolean probe, Workload workload, double latencyMs) {
+        outcomes.get(Outcome.SUCCESS).incrementAndGet();
+        releaseProbe(probe);
+        consecutiveFailures = 0;
+        if (latencyMs >= 0) {
+            latencies.get(workload).sample(latencyMs);
+        }
+        if (state == State.HALF_OPEN) {
+            log.info("✅ [RESILIENCE] {} respondeu ao teste, fechando circuito", name);
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    private synchronized void onFailure(boolean probe, Workload workload, Throwable error) {
+        outcomes.get(Outcome.FAILURE).incrementAndGet();
+        releaseProbe(probe);
+        consecutiveFailures++;
+        if (isTimeout(error)) {
+            latencies.get(workload).backOff();
+        }
+        if (state == State.HALF_OPEN) {
+            log.warn("⚠️ [RESILIENCE] {} falhou no teste ({}), reabrindo circuito",
+                     name, error.getClass().getSimpleName());
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= Math.max(1, config.getFailureThreshold())) {
+            log.warn("🔌 [RESILIENCE] {} abriu o circuito após {} falhas seguidas (última: {})",
+                     name, consecutiveFailures, error.getClass().getSimpleName());
+            open();
+        }
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof TimeoutException
+                    || t instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Abre o circuito sem esperar falhas (ex: serviço indisponível no startup);
+     * o serviço volta a ser testado após openDurationMs
+     */
+    public synchronized void forceOpen() {
+        if (state != State.OPEN) {
+            log.warn("🔌 [RESILIENCE] {} marcado como indisponível, novo teste em {}ms",
+                     name, config.getOpenDurationMs());
+            open();
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        transitionTo(State.OPEN);
+    }
+
+    private void transitionTo(State target) {
+        if (state != target) {
+            state = target;
+            transitions.get(target).incrementAndGet();
+            if (target == State.CLOSED) {
+                consecutiveFailures = 0;
+            }
+        }
+    }
+
+    /**
+     * Timeout a aplicar na próxima chamada unitária
+     */
+    public Duration currentTimeout() {
+        return currentTimeout(Workload.SINGLE);
+    }
+
+    /**
+     * Timeout a aplicar na próxima chamada do tipo dado (fora do HALF_OPEN)
+     */
+    public synchronized Duration currentTimeout(Workload workload) {
+        long max = Math.max(config.getMinTimeoutMs(), config.getMaxTimeoutMs());
+        LatencyEstimate latency = latencies.get(workload);
+        if (latency.smoothedMs < 0) {
+            return Duration.ofMillis(max);
+        }
+        long estimate = Math.max(config.getMinTimeoutMs(),
+                                 (long) Math.ceil(latency.smoothedMs + 4 * latency.deviationMs));
+        return Duration.ofMillis(Math.min(max, estimate * latency.backoff));
+    }
+
+    private Duration timeoutFor(boolean probe, Workload workload) {
+        return probe
+            ? Duration.ofMillis(Math.max(config.getMinTimeoutMs(), config.getMaxTimeoutMs()))
+            : currentTimeout(workload);
+    }
+
+    /**
+     * Estado atual (OPEN vencido só passa a HALF_OPEN na próxima chamada)
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInFlight() {
+        return Math.max(1, config.getMaxConcurrent()) - bulkhead.availablePermits();
+    }
+
+    public long getOutcomeCount(Outcome outcome) {
+        return outcomes.get(outcome).get();
+    }
+
+    public long getTransitionCount(State target) {
+        return transitions.get(target).get();
+    }
+
+    /**
+     * Média e desvio suavizados das latências de sucesso, e multiplicador de
+     * back-off dos timeouts (acesso sob o lock do backend)
+     */
+    private static final class LatencyEstimate {
+
+        private double smoothedMs = -1;
+        private double deviationMs;
+        private long backoff = 1;
+
+        void backOff() {
+            backoff = Math.min(MAX_BACKOFF, backoff * 2);
+        }
+
+        void sample(double latencyMs) {
+            backoff = 1;
+            if (smoothedMs < 0) {
+                smoothedMs = latencyMs;
+                deviationMs = latencyMs / 2;
+                return;
+            }
+            deviationMs = (1 - DEVIATION_BETA) * deviationMs + DEVIATION_BETA * Math.abs(smoothedMs - latencyMs);
+            smoothedMs = (1 - LATENCY_ALPHA) * smoothedMs + LATENCY_ALPHA * latencyMs;
+        }
+    }
+}
@@ -1,31 +1,49 @@
 package com.backoffice.alerta.rag.vector;
 
+import com.backoffice.alerta.rag.persistence.RagVectorStoreProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * Vector Store in-memory para embeddings de regras de negócio
- * 
- * Armazena embeddings e realiza busca por similaridade (cosine).
- * Thread-safe usando ConcurrentHashMap.
- * 
+ *
+ * Armazena embeddings pré-normalizados em uma matriz contígua (EmbeddingMatrix)
+ * e realiza busca por similaridade (cosine = produto escalar).
+ *
+ * Acima de rag.vector-store.hnsw.exact-search-threshold embeddings a busca
+ * usa o índice HNSW (aproximado); abaixo disso, busca exata.
+ *
  * US#44 - Busca Semântica com Embeddings
  */
 @Component
 public class BusinessRuleVectorStore {
-    
+
     private static final Logger log = LoggerFactory.getLogger(BusinessRuleVectorStore.class);
-    
-    private final Map<UUID, float[]> embeddings = new ConcurrentHashMap<>();
-    
+
+    // Threshold mínimo de similaridade
+    private static final double SIMILARITY_THRESHOLD = 0.1;
+
+    private final EmbeddingMatrix embeddings = new EmbeddingMatrix();
+
+    private final RagVectorStoreProperties.Hnsw hnswProperties;
+    private final HnswIndex annIndex;
+
+    public BusinessRuleVectorStore(RagVectorStoreProperties properties) {
+        this.hnswProperties = properties.getHnsw();
+        this.annIndex = new HnswIndex(
+            hnswProperties.getM(),
+            hnswProperties.getEfConstruction(),
+            hnswProperties.getEfSearch()
+        );
+    }
+
     /**
      * Salva embedding de uma regra
-     * 
+     *
      * @param ruleId ID da regra de negócio
      * @param embedding Vetor de embedding
      */
@@ -34,123 +52,136 @@ public class BusinessRuleVectorStore {
             log.warn("⚠️ Tentativa de salvar embedding inválido para ruleId={}", ruleId);
             return;
         }
-        
-        embeddings.put(ruleId, embedding);
+
+        if (!embeddings.put(ruleId, embedding)) {
+            log.warn("⚠️ Embedding da regra {} rejeitado: dimensão {} difere do índice ({})",
+                     ruleId, embedding.length, embeddings.dimension());
+            return;
+        }
+        if (hnswProperties.isEnabled()) {
+            annIndex.add(ruleId, embedding);
+        }
         log.debug("✅ Embedding salvo para regra {}", ruleId);
     }
-    
+
     /**
      * US#63: Recupera embedding de uma regra específica
-     * 
+     *
      * @param ruleId ID da regra de negócio
-     * @return Embedding ou null se não encontrado
+     * @return Embedding (normalizado) ou null se não encontrado
      */
     public float[] getEmbedding(UUID ruleId) {
         return embeddings.get(ruleId);
     }
-    
+
     /**
      * Busca Top-K regras mais similares
-     * 
+     *
      * @param queryEmbedding Embedding da pergunta
      * @param k Número máximo de resultados
      * @return Lista de IDs ordenados por similaridade (maior primeiro)
      */
     public List<UUID> findTopK(float[] queryEmbedding, int k) {
+        return findTopKWithScores(queryEmbedding, k).stream()
+            .map(ScoredRule::ruleId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Busca Top-K regras mais similares, com a similaridade de cada uma
+     *
+     * @param queryEmbedding Embedding da pergunta
+     * @param k Número máximo de resultados
+     * @return Resultados ordenados por similaridade (maior primeiro)
+     */
+    public List<ScoredRule> findTopKWithScores(float[] queryEmbedding, int k) {
         if (queryEmbedding == null || queryEmbedding.length == 0) {
             log.warn("⚠️ Query embedding inválido");
             return Collections.emptyList();
         }
-        
-        if (embeddings.isEmpty()) {
+
+        int size = embeddings.size();
+        if (size == 0) {
             log.warn("⚠️ Vector store VAZIO - nenhum embedding indexado!");
             log.warn("⚠️ Verifique se @PostConstruct indexAllRules() foi executado");
             return Collections.emptyList();
         }
-        
-        log.info("🔍 Vector store tem {} embeddings indexados", embeddings.size());
-        
-        // Threshold mínimo de similaridade
-        final double SIMILARITY_THRESHOLD = 0.1;
-        
-        // Calcula similaridade com todas as regras
-        List<SimilarityResult> results = embeddings.entrySet().stream()
-            .map(entry -> {
-                double similarity = cosineSimilarity(queryEmbedding, entry.getValue());
-                log.info("📊 Similarity score for {}: {}", entry.getKey(), similarity);
-                return new SimilarityResult(entry.getKey(), similarity);
-            })
-            .filter(result -> result.similarity() >= SIMILARITY_THRESHOLD)
-            .sorted(Comparator.comparingDouble(SimilarityResult::similarity).reversed())
-            .limit(k)
-            .collect(Collectors.toList());
-        
-        log.info("🔍 Busca semântica retornou {} resultado(s) acima de threshold {} (k={})", 
+
+        if (queryEmbedding.length != embeddings.dimension()) {
+            log.error("❌ Dimensões incompatíveis: {} vs {}", queryEmbedding.length, embeddings.dimension());
+            return Collections.emptyList();
+        }
+
+        log.info("🔍 Vector store tem {} embeddings indexados", size);
+
+        if (useAnnIndex(size)) {
+            List<ScoredRule> annResults = annIndex.search(queryEmbedding, k).stream()
+                .filter(result -> result.similarity() >= SIMILARITY_THRESHOLD)
+                .collect(Collectors.toList());
+
+            log.info("🔍 Busca semântica (HNSW, efSearch={}) retornou {} resultado(s) acima de threshold {} (k={})",
+                     annIndex.getEfSearch(), annResults.size(), SIMILARITY_THRESHOLD, k);
+            return annResults;
+        }
+
+        List<ScoredRule> results = embeddings.topK(queryEmbedding, k, SIMILARITY_THRESHOLD);
+
+        log.info("🔍 Busca semântica retornou {} resultado(s) acima de threshold {} (k={})",
                  results.size(), SIMILARITY_THRESHOLD, k);
-        
-        return results.stream()
-            .map(SimilarityResult::ruleId)
-            .collect(Collectors.toList());
+
+        return results;
     }
-    
+
     /**
-     * Calcula cosine similarity entre dois vetores
-     * 
-     * @param a Vetor A
-     * @param b Vetor B
-     * @return Similaridade [-1, 1] (1 = idênticos)
+     * US#50: Busca Top-K restrita às regras de um projeto
+     *
+     * O filtro é aplicado dentro da busca: só os vetores do projeto são
+     * avaliados, então o escopo não perde recall nem varre o catálogo global.
+     * Sempre exata (o subconjunto de um projeto é pequeno e o HNSW não
+     * suporta filtro sem perda de recall).
+     *
+     * @param queryEmbedding Embedding da pergunta
+     * @param k Número máximo de resultados
+     * @param allowedRuleIds IDs de vetor permitidos; null = sem escopo
+     * @return Resultados ordenados por similaridade (maior primeiro)
      */
-    private double cosineSimilarity(float[] a, float[] b) {
-        if (a == null || b == null) {
-            log.error("❌ Vetores nulos fornecidos para similaridade");
-            return 0.0;
+    public List<ScoredRule> findTopKWithScores(float[] queryEmbedding, int k, Collection<UUID> allowedRuleIds) {
+        if (allowedRuleIds == null) {
+            return findTopKWithScores(queryEmbedding, k);
         }
-        
-        if (a.length != b.length) {
-            log.error("❌ Dimensões incompatíveis: {} vs {}", a.length, b.length);
-            return 0.0;
-        }
-        
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-        
-        for (int i = 0; i < a.length; i++) {
-            dotProduct += a[i] * b[i];
-            normA += a[i] * a[i];
-            normB += b[i] * b[i];
-        }
-        
-        // Proteção contra divisão por zero
-        double sqrtNormA = Math.sqrt(normA);
-        double sqrtNormB = Math.sqrt(normB);
-        
-        if (sqrtNormA < 1e-10 || sqrtNormB < 1e-10) {
-            log.warn("⚠️ Norma próxima de zero: A={}, B={}", sqrtNormA, sqrtNormB);
-            return 0.0;
+        if (queryEmbedding == null || queryEmbedding.length == 0) {
+            log.warn("⚠️ Query embedding inválido");
+            return Collections.emptyList();
         }
-        
-        double denominator = sqrtNormA * sqrtNormB;
-        return dotProduct / denominator;
+
+        List<ScoredRule> results = embeddings.topK(queryEmbedding, k, SIMILARITY_THRESHOLD, allowedRuleIds);
+
+        log.info("🔍 Busca semântica escopada: {} resultado(s) entre {} regra(s) do projeto (k={})",
+                 results.size(), allowedRuleIds.size(), k);
+        return results;
+    }
+
+    /**
+     * Catálogos pequenos usam busca exata (recall 100%, custo desprezível)
+     */
+    private boolean useAnnIndex(int size) {
+        return hnswProperties.isEnabled()
+            && size >= hnswProperties.getExactSearchThreshold();
     }
-    
+
     /**
      * Retorna número de embeddings indexados
      */
     public int size() {
         return embeddings.size();
     }
-    
+
     /**
      * Limpa todos os embeddings
      */
     public void clear() {
         embeddings.clear();
+        annIndex.clear();
         log.info("🗑️ Vector store limpo");
     }
-    
-    /**
-     * Record interno para resultados de similaridade
-     */
-    private record SimilarityResult(UUID ruleId, double similarity) {}
 }
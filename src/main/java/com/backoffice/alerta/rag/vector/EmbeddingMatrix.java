@@ -0,0 +1,246 @@
+package com.backoffice.alerta.rag.vector;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Armazenamento contíguo de embeddings para busca exata (brute force)
+ *
+ * - Uma linha por regra em um único float[] (row-major), vetores pré-normalizados
+ * - Tabela paralela ordinal → UUID e mapa UUID → ordinal
+ * - Remoção por swap com a última linha (mantém a matriz densa)
+ * - Top-K com min-heap limitado a K (sem ordenar todo o catálogo)
+ * - Thread-safe: escritas com write lock, buscas com read lock
+ *
+ * Todos os vetores têm a mesma dimensão. Um vetor de dimensão diferente é
+ * rejeitado (a matriz não muda); a dimensão só é redefinida com a matriz vazia
+ * (clear ou índice novo da migração de modelo).
+ *
+ * US#44 - Busca Semântica com Embeddings
+ */
+public class EmbeddingMatrix implements EmbeddingStorage {
+
+    private static final int INITIAL_ROWS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+
+    private float[] data = new float[0];
+    private UUID[] ruleIds = new UUID[0];
+    private int dimension = 0;
+    private int size = 0;
+
+    /**
+     * Insere ou substitui o embedding de uma regra
+     *
+     * @return false se a dimensão difere da matriz (vetor rejeitado, nada é alterado)
+     */
+    @Override
+    public boolean put(UUID ruleId, float[] embedding) {
+        float[] normalized = VectorMath.normalize(embedding);
+
+        lock.writeLock().lock();
+        try {
+            if (size > 0 && embedding.length != dimension) {
+                return false;
+            }
+            if (size == 0) {
+                dimension = embedding.length;
+            }
+
+            Integer ordinal = ordinals.get(ruleId);
+            if (ordinal == null) {
+                ensureCapacity(size + 1);
+                ordinal = size++;
+                ordinals.put(ruleId, ordinal);
+                ruleIds[ordinal] = ruleId;
+            }
+            System.arraycopy(normalized, 0, data, ordinal * dimension, dimension);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove o embedding de uma regra
+     */
+    @Override
+    public boolean remove(UUID ruleId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(ruleId);
+            if (ordinal == null) {
+                return false;
+            }
+
+            int last = --size;
+            if (ordinal != last) {
+                System.arraycopy(data, last * dimension, data, ordinal * dimension, dimension);
+                ruleIds[ordinal] = ruleIds[last];
+                ordinals.put(ruleIds[ordinal], ordinal);
+            }
+            ruleIds[last] = null;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna cópia do embedding (normalizado) de uma regra, ou null
+     */
+    @Override
+    public float[] get(UUID ruleId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(ruleId);
+            if (ordinal == null) {
+                return null;
+            }
+            return Arrays.copyOfRange(data, ordinal * dimension, (ordinal + 1) * dimension);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(UUID ruleId) {
+        lock.readLock().lock();
+        try {
+            return ordinals.containsKey(ruleId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<UUID> ruleIds() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(Arrays.asList(ruleIds).subList(0, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca exata dos K vetores mais similares
+     *
+     * @param queryEmbedding Embedding da pergunta (não precisa estar normalizado)
+     * @param k Número máximo de resultados
+     * @param minSimilarity Similaridade mínima para entrar no resultado
+     * @return Resultados ordenados por similaridade (maior primeiro);
+     *         vazio se a dimensão da query for diferente da matriz
+     */
+    @Override
+    public List<ScoredRule> topK(float[] queryEmbedding, int k, double minSimilarity) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] query = VectorMath.normalize(queryEmbedding);
+
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return Collections.emptyList();
+            }
+
+            // Min-heap limitado a K: raiz = pior resultado mantido
+            TopKHeap heap = new TopKHeap(Math.min(k, size));
+            for (int row = 0, offset = 0; row < size; row++, offset += dimension) {
+                float score = VectorMath.dot(query, 0, data, offset, dimension);
+                if (score >= minSimilarity) {
+                    heap.offer(row, score);
+                }
+            }
+            return heap.drain(ruleIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca exata restrita aos candidatos (filtro aplicado antes do cálculo de score)
+     */
+    @Override
+    public List<ScoredRule> topK(float[] queryEmbedding, int k, double minSimilarity, Collection<UUID> candidates) {
+        if (k <= 0 || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        float[] query = VectorMath.normalize(queryEmbedding);
+
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return Collections.emptyList();
+            }
+
+            TopKHeap heap = new TopKHeap(Math.min(k, Math.min(size, candidates.size())));
+            for (UUID ruleId : candidates) {
+                Integer row = ordinals.get(ruleId);
+                if (row == null) {
+                    continue;
+                }
+                float score = VectorMath.dot(query, 0, data, row * dimension, dimension);
+                if (score >= minSimilarity) {
+                    heap.offer(row, score);
+                }
+            }
+            return heap.drain(ruleIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            resetUnlocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void resetUnlocked() {
+        ordinals.clear();
+        data = new float[0];
+        ruleIds = new UUID[0];
+        dimension = 0;
+        size = 0;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= ruleIds.length) {
+            return;
+        }
+        int newRows = Math.max(INITIAL_ROWS, ruleIds.length * 2);
+        while (newRows < rows) {
+            newRows *= 2;
+        }
+        data = Arrays.copyOf(data, newRows * dimension);
+        ruleIds = Arrays.copyOf(ruleIds, newRows);
+    }
+}
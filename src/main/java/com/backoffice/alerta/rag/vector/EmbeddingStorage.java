@@ -0,0 +1,68 @@
+package com.backoffice.alerta.rag.vector;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Armazenamento in-memory de embeddings com busca exata Top-K
+ * 
+ * Implementações:
+ * - EmbeddingMatrix: float32 contíguo (precisão total)
+ * - QuantizedEmbeddingMatrix: int8 + scale/offset por vetor (~4x menos heap)
+ * 
+ * US#44 - Busca Semântica com Embeddings
+ */
+public interface EmbeddingStorage {
+    
+    /**
+     * Insere ou substitui o embedding de uma regra
+     * 
+     * Todos os vetores têm a mesma dimensão (definida pelo primeiro vetor
+     * com o armazenamento vazio).
+     * 
+     * @return false se a dimensão difere da armazenada (vetor rejeitado, nada é alterado)
+     */
+    boolean put(UUID ruleId, float[] embedding);
+    
+    boolean remove(UUID ruleId);
+    
+    /**
+     * Retorna cópia do embedding (normalizado) de uma regra, ou null
+     */
+    float[] get(UUID ruleId);
+    
+    boolean contains(UUID ruleId);
+    
+    /**
+     * Snapshot dos IDs armazenados, na ordem dos ordinais
+     */
+    List<UUID> ruleIds();
+    
+    /**
+     * Busca exata dos K vetores mais similares
+     * 
+     * @param queryEmbedding Embedding da pergunta (não precisa estar normalizado)
+     * @param k Número máximo de resultados
+     * @param minSimilarity Similaridade mínima para entrar no resultado
+     * @return Resultados ordenados por similaridade (maior primeiro);
+     *         vazio se a dimensão da query for diferente
+     */
+    List<ScoredRule> topK(float[] queryEmbedding, int k, double minSimilarity);
+    
+    /**
+     * Busca exata restrita a um subconjunto de regras (ex.: regras de um projeto)
+     * 
+     * Apenas as linhas dos candidatos são avaliadas (lookup de ordinal);
+     * o restante da matriz não é lido.
+     * 
+     * @param candidates IDs permitidos; IDs sem embedding são ignorados
+     */
+    List<ScoredRule> topK(float[] queryEmbedding, int k, double minSimilarity, Collection<UUID> candidates);
+    
+    int size();
+    
+    int dimension();
+    
+    void clear();
+}
@@ -0,0 +1,386 @@
+package com.backoffice.alerta.rag.vector;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice HNSW (Hierarchical Navigable Small World) in-process para busca
+ * aproximada de vizinhos mais próximos (ANN) por similaridade de cosseno.
+ *
+ * - Vetores são normalizados na inserção (cosine = produto escalar)
+ * - Inserção incremental; atualização = remoção lógica + nova inserção
+ * - Remoções são lógicas (tombstone) e o grafo é compactado quando
+ *   a proporção de nós removidos fica alta
+ * - Todos os vetores têm a mesma dimensão; vetores de outra dimensão são
+ *   rejeitados (o índice só troca de dimensão após clear())
+ * - Thread-safe: escritas com write lock, buscas com read lock
+ *
+ * US#44 - Busca Semântica com Embeddings
+ */
+public class HnswIndex {
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private volatile int efSearch;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<UUID, Integer> nodeByRuleId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deletedCount = 0;
+    /** Dimensão dos vetores indexados (0 = índice vazio, aceita qualquer uma) */
+    private int dimension = 0;
+
+    /**
+     * @param m Número de conexões por nó nas camadas superiores
+     * @param efConstruction Tamanho da lista dinâmica de candidatos na construção
+     * @param efSearch Tamanho da lista dinâmica de candidatos na busca (recall x latência)
+     */
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+    }
+
+    /**
+     * Insere (ou substitui) o vetor de uma regra
+     *
+     * @return false se a dimensão difere da dos vetores já indexados (vetor
+     *         rejeitado, nada é alterado)
+     */
+    public boolean add(UUID ruleId, float[] embedding) {
+        if (ruleId == null || embedding == null || embedding.length == 0) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (dimension > 0 && dimension != embedding.length) {
+                return false;
+            }
+            markDeleted(ruleId);
+            insert(ruleId, VectorMath.normalize(embedding));
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove logicamente o vetor de uma regra
+     */
+    public void remove(UUID ruleId) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(ruleId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os K vizinhos mais próximos da query
+     *
+     * @param queryEmbedding Embedding da pergunta
+     * @param k Número máximo de resultados
+     * @return Resultados ordenados por similaridade (maior primeiro)
+     */
+    public List<ScoredRule> search(float[] queryEmbedding, int k) {
+        if (queryEmbedding == null || queryEmbedding.length == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        float[] query = VectorMath.normalize(queryEmbedding);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || nodes.get(entryPoint).vector.length != query.length) {
+                return Collections.emptyList();
+            }
+
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedyClosest(query, current, level);
+            }
+
+            PriorityQueue<Candidate> found = searchLayer(query, current, Math.max(efSearch, k), 0);
+
+            List<ScoredRule> results = new ArrayList<>(found.size());
+            for (Candidate candidate : found) {
+                Node node = nodes.get(candidate.node());
+                if (!node.deleted) {
+                    results.add(new ScoredRule(node.ruleId, candidate.similarity()));
+                }
+            }
+            results.sort(Comparator.comparingDouble(ScoredRule::similarity).reversed());
+            return results.size() > k ? new ArrayList<>(results.subList(0, k)) : results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de vetores ativos no índice
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByRuleId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove todos os vetores
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nodes.clear();
+            nodeByRuleId.clear();
+            entryPoint = -1;
+            maxLevel = -1;
+            deletedCount = 0;
+            dimension = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    // ===== Construção do grafo =====
+
+    private void insert(UUID ruleId, float[] vector) {
+        int level = randomLevel();
+        int id = nodes.size();
+        Node node = new Node(ruleId, vector, level, m, maxM0);
+        nodes.add(node);
+        nodeByRuleId.put(ruleId, id);
+
+        if (entryPoint < 0) {
+            entryPoint = id;
+            maxLevel = level;
+            dimension = vector.length;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            PriorityQueue<Candidate> found = searchLayer(vector, current, efConstruction, l);
+            List<Candidate> neighbours = closestFirst(found);
+            int maxConnections = l == 0 ? maxM0 : m;
+
+            for (int i = 0; i < neighbours.size() && i < m; i++) {
+                int neighbour = neighbours.get(i).node();
+                node.connect(l, neighbour);
+                connectPruning(neighbour, id, l, maxConnections);
+            }
+
+            if (!neighbours.isEmpty()) {
+                current = neighbours.get(0).node();
+            }
+        }
+
+        if (level > maxLevel) {
+            entryPoint = id;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Adiciona aresta neighbour -> newNode, mantendo apenas as conexões mais próximas
+     */
+    private void connectPruning(int neighbour, int newNode, int level, int maxConnections) {
+        Node target = nodes.get(neighbour);
+        if (target.connect(level, newNode)) {
+            return;
+        }
+
+        // Lista cheia: mantém as maxConnections conexões mais similares
+        int[] current = target.links[level];
+        List<Candidate> all = new ArrayList<>(current.length + 1);
+        for (int i = 0; i < target.linkCount[level]; i++) {
+            all.add(new Candidate(current[i], VectorMath.dot(target.vector, nodes.get(current[i]).vector)));
+        }
+        all.add(new Candidate(newNode, VectorMath.dot(target.vector, nodes.get(newNode).vector)));
+        all.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+
+        target.linkCount[level] = 0;
+        for (int i = 0; i < maxConnections && i < all.size(); i++) {
+            target.connect(level, all.get(i).node());
+        }
+    }
+
+    private void markDeleted(UUID ruleId) {
+        Integer existing = nodeByRuleId.remove(ruleId);
+        if (existing != null) {
+            nodes.get(existing).deleted = true;
+            deletedCount++;
+        }
+    }
+
+    /**
+     * Reconstrói o grafo quando mais da metade dos nós são tombstones
+     */
+    private void compactIfNeeded() {
+        if (deletedCount > 0 && deletedCount * 2 > nodes.size()) {
+            List<Node> alive = new ArrayList<>(nodeByRuleId.size());
+            for (Node node : nodes) {
+                if (!node.deleted) {
+                    alive.add(node);
+                }
+            }
+            rebuild(alive);
+        }
+    }
+
+    private void rebuild(List<Node> alive) {
+        nodes.clear();
+        nodeByRuleId.clear();
+        entryPoint = -1;
+        maxLevel = -1;
+        deletedCount = 0;
+        dimension = 0;
+        for (Node node : alive) {
+            insert(node.ruleId, node.vector);
+        }
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, Double.MIN_VALUE)) * levelMultiplier);
+    }
+
+    // ===== Busca no grafo =====
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double best = VectorMath.dot(query, nodes.get(current).vector);
+        boolean improved = true;
+
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            int[] links = node.links[level];
+            for (int i = 0; i < node.linkCount[level]; i++) {
+                double similarity = VectorMath.dot(query, nodes.get(links[i]).vector);
+                if (similarity > best) {
+                    best = similarity;
+                    current = links[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Busca em uma camada com lista dinâmica de tamanho ef
+     *
+     * @return Min-heap (pior resultado no topo) com até ef candidatos
+     */
+    private PriorityQueue<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> candidates =
+            new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity).reversed());
+        PriorityQueue<Candidate> results =
+            new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity));
+
+        Candidate first = new Candidate(start, VectorMath.dot(query, nodes.get(start).vector));
+        visited.set(start);
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.size() >= ef && closest.similarity() < results.peek().similarity()) {
+                break;
+            }
+
+            Node node = nodes.get(closest.node());
+            if (node.level < level) {
+                continue;
+            }
+            int[] links = node.links[level];
+            for (int i = 0; i < node.linkCount[level]; i++) {
+                int neighbour = links[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                double similarity = VectorMath.dot(query, nodes.get(neighbour).vector);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Candidate candidate = new Candidate(neighbour, similarity);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<Candidate> closestFirst(PriorityQueue<Candidate> heap) {
+        List<Candidate> list = new ArrayList<>(heap);
+        list.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+        return list;
+    }
+
+    /**
+     * Nó do grafo: vetor normalizado + listas de adjacência por camada
+     */
+    private static final class Node {
+        final UUID ruleId;
+        final float[] vector;
+        final int level;
+        final int[][] links;
+        final int[] linkCount;
+        boolean deleted;
+
+        Node(UUID ruleId, float[] vector, int level, int m, int maxM0) {
+            this.ruleId = ruleId;
+            this.vector = vector;
+            this.level = level;
+            this.links = new int[level + 1][];
+            this.linkCount = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[l == 0 ? maxM0 : m];
+            }
+        }
+
+        boolean connect(int level, int other) {
+            if (linkCount[level] >= links[level].length) {
+                return false;
+            }
+            links[level][linkCount[level]++] = other;
+            return true;
+        }
+    }
+
+    private record Candidate(int node, double similarity) {}
+}
@@ -0,0 +1,290 @@
+package com.backoffice.alerta.rag.vector;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Armazenamento contíguo de embeddings quantizados em int8 (scalar quantization)
+ *
+ * Cada vetor (pré-normalizado) é codificado como x[i] ≈ offset + scale * code[i],
+ * com code em [-128, 127] e scale/offset por vetor (min/max do próprio vetor).
+ * Ocupa 1 byte por dimensão + 8 bytes por vetor, ~4x menos heap que float32.
+ *
+ * O score é calculado direto sobre os códigos:
+ *   dot(q, x) ≈ scale * Σ q[i]·code[i] + offset * Σ q[i]
+ * Os scores são aproximados; o chamador deve re-ranquear os melhores
+ * candidatos com os vetores em precisão total.
+ *
+ * US#66 - Persistência de Vetores (Vector DB)
+ */
+public class QuantizedEmbeddingMatrix implements EmbeddingStorage {
+
+    private static final int INITIAL_ROWS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+
+    private byte[] codes = new byte[0];
+    private float[] scales = new float[0];
+    private float[] offsets = new float[0];
+    private UUID[] ruleIds = new UUID[0];
+    private int dimension = 0;
+    private int size = 0;
+
+    @Override
+    public boolean put(UUID ruleId, float[] embedding) {
+        float[] normalized = VectorMath.normalize(embedding);
+
+        float min = Float.POSITIVE_INFINITY;
+        float max = Float.NEGATIVE_INFINITY;
+        for (float v : normalized) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        float scale = (max - min) / 255f;
+        float offset = min + 128f * scale;
+
+        lock.writeLock().lock();
+        try {
+            if (size > 0 && embedding.length != dimension) {
+                return false;
+            }
+            if (size == 0) {
+                dimension = embedding.length;
+            }
+
+            Integer ordinal = ordinals.get(ruleId);
+            if (ordinal == null) {
+                ensureCapacity(size + 1);
+                ordinal = size++;
+                ordinals.put(ruleId, ordinal);
+                ruleIds[ordinal] = ruleId;
+            }
+
+            int base = ordinal * dimension;
+            for (int i = 0; i < dimension; i++) {
+                int code = scale > 0f ? Math.round((normalized[i] - min) / scale) - 128 : 0;
+                codes[base + i] = (byte) Math.max(-128, Math.min(127, code));
+            }
+            scales[ordinal] = scale;
+            offsets[ordinal] = scale > 0f ? offset : min;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(UUID ruleId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(ruleId);
+            if (ordinal == null) {
+                return false;
+            }
+
+            int last = --size;
+            if (ordinal != last) {
+                System.arraycopy(codes, last * dimension, codes, ordinal * dimension, dimension);
+                scales[ordinal] = scales[last];
+                offsets[ordinal] = offsets[last];
+                ruleIds[ordinal] = ruleIds[last];
+                ordinals.put(ruleIds[ordinal], ordinal);
+            }
+            ruleIds[last] = null;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna o vetor reconstruído (dequantizado) de uma regra, ou null
+     */
+    @Override
+    public float[] get(UUID ruleId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(ruleId);
+            if (ordinal == null) {
+                return null;
+            }
+            float[] vector = new float[dimension];
+            int base = ordinal * dimension;
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = offsets[ordinal] + scales[ordinal] * codes[base + i];
+            }
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(UUID ruleId) {
+        lock.readLock().lock();
+        try {
+            return ordinals.containsKey(ruleId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<UUID> ruleIds() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(Arrays.asList(ruleIds).subList(0, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca Top-K sobre os códigos int8 (scores aproximados)
+     */
+    @Override
+    public List<ScoredRule> topK(float[] queryEmbedding, int k, double minSimilarity) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] query = VectorMath.normalize(queryEmbedding);
+        float querySum = 0f;
+        for (float v : query) {
+            querySum += v;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return Collections.emptyList();
+            }
+
+            TopKHeap heap = new TopKHeap(Math.min(k, size));
+            for (int row = 0, base = 0; row < size; row++, base += dimension) {
+                float score = scales[row] * codeDot(query, base) + offsets[row] * querySum;
+                if (score >= minSimilarity) {
+                    heap.offer(row, score);
+                }
+            }
+            return heap.drain(ruleIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca Top-K aproximada restrita aos candidatos
+     */
+    @Override
+    public List<ScoredRule> topK(float[] queryEmbedding, int k, double minSimilarity, Collection<UUID> candidates) {
+        if (k <= 0 || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        float[] query = VectorMath.normalize(queryEmbedding);
+        float querySum = 0f;
+        for (float v : query) {
+            querySum += v;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (size == 0 || query.length != dimension) {
+                return Collections.emptyList();
+            }
+
+            TopKHeap heap = new TopKHeap(Math.min(k, Math.min(size, candidates.size())));
+            for (UUID ruleId : candidates) {
+                Integer row = ordinals.get(ruleId);
+                if (row == null) {
+                    continue;
+                }
+                float score = scales[row] * codeDot(query, row * dimension) + offsets[row] * querySum;
+                if (score >= minSimilarity) {
+                    heap.offer(row, score);
+                }
+            }
+            return heap.drain(ruleIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int dimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            resetUnlocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Σ query[i] * code[i] com 4 acumuladores independentes
+     */
+    private float codeDot(float[] query, int base) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+
+        int i = 0;
+        int upperBound = dimension & ~3;
+        for (; i < upperBound; i += 4) {
+            s0 += query[i] * codes[base + i];
+            s1 += query[i + 1] * codes[base + i + 1];
+            s2 += query[i + 2] * codes[base + i + 2];
+            s3 += query[i + 3] * codes[base + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += query[i] * codes[base + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private void resetUnlocked() {
+        ordinals.clear();
+        codes = new byte[0];
+        scales = new float[0];
+        offsets = new float[0];
+        ruleIds = new UUID[0];
+        dimension = 0;
+        size = 0;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= ruleIds.length) {
+            return;
+        }
+        int newRows = Math.max(INITIAL_ROWS, ruleIds.length * 2);
+        while (newRows < rows) {
+            newRows *= 2;
+        }
+        codes = Arrays.copyOf(codes, newRows * dimension);
+        scales = Arrays.copyOf(scales, newRows);
+        offsets = Arrays.copyOf(offsets, newRows);
+        ruleIds = Arrays.copyOf(ruleIds, newRows);
+    }
+}
@@ -0,0 +1,10 @@
+package com.backoffice.alerta.rag.vector;
+
+import java.util.UUID;
+
+/**
+ * Resultado de busca vetorial: regra + similaridade de cosseno
+ * 
+ * US#44 - Busca Semântica com Embeddings
+ */
+public record ScoredRule(UUID ruleId, double similarity) {}
@@ -0,0 +1,104 @@
+package com.backoffice.alerta.rag.vector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Min-heap primitivo limitado a K elementos (ordinal, score)
+ * 
+ * A raiz é sempre o pior resultado mantido, então cada candidato custa
+ * uma comparação e, quando entra, O(log K). Evita ordenar todo o catálogo.
+ * 
+ * US#44 - Busca Semântica com Embeddings
+ */
+final class TopKHeap {
+    
+    private final int[] ordinals;
+    private final float[] scores;
+    private int size;
+    
+    TopKHeap(int capacity) {
+        this.ordinals = new int[capacity];
+        this.scores = new float[capacity];
+    }
+    
+    /**
+     * Oferece um candidato; mantém apenas os K maiores scores
+     */
+    void offer(int ordinal, float score) {
+        if (size < ordinals.length) {
+            ordinals[size] = ordinal;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && score > scores[0]) {
+            ordinals[0] = ordinal;
+            scores[0] = score;
+            siftDown(size);
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Esvazia o heap e retorna os resultados em ordem decrescente de score
+     */
+    List<ScoredRule> drain(UUID[] ruleIds) {
+        ScoredRule[] result = new ScoredRule[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = new ScoredRule(ruleIds[ordinals[0]], scores[0]);
+            pollRoot(i);
+        }
+        size = 0;
+        return Arrays.asList(result);
+    }
+    
+    private void pollRoot(int last) {
+        ordinals[0] = ordinals[last];
+        scores[0] = scores[last];
+        size = last;
+        siftDown(last);
+    }
+    
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+    
+    private void siftDown(int heapSize) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < heapSize && scores[right] < scores[left]) {
+                smallest = right;
+            }
+            if (scores[index] <= scores[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+    
+    private void swap(int i, int j) {
+        int ordinal = ordinals[i];
+        ordinals[i] = ordinals[j];
+        ordinals[j] = ordinal;
+        float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
@@ -0,0 +1,68 @@
+package com.backoffice.alerta.rag.vector;
+
+/**
+ * Kernels vetoriais compartilhados pelos vector stores
+ * 
+ * Vetores armazenados são pré-normalizados, então cosine = produto escalar.
+ * O produto escalar usa 4 acumuladores independentes para quebrar a cadeia
+ * de dependência da soma e permitir que o JIT execute as multiplicações em paralelo.
+ * 
+ * US#44 - Busca Semântica com Embeddings
+ */
+public final class VectorMath {
+    
+    private VectorMath() {
+    }
+    
+    /**
+     * Produto escalar entre a[aOffset..aOffset+length) e b[bOffset..bOffset+length)
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        
+        int i = 0;
+        int upperBound = length & ~3;
+        for (; i < upperBound; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+    
+    /**
+     * Produto escalar entre dois vetores de mesma dimensão
+     */
+    public static float dot(float[] a, float[] b) {
+        return dot(a, 0, b, 0, a.length);
+    }
+    
+    /**
+     * Retorna cópia normalizada (norma L2 = 1). Vetor de norma ~0 vira vetor zero.
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        norm = Math.sqrt(norm);
+        
+        float[] normalized = new float[vector.length];
+        if (norm < 1e-10) {
+            return normalized;
+        }
+        
+        float inverse = (float) (1.0 / norm);
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+}
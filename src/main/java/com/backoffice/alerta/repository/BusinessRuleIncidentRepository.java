@@ -1,19 +1,58 @@
 package com.backoffice.alerta.repository;
 
 import com.backoffice.alerta.rules.BusinessRuleIncident;
+import com.backoffice.alerta.rules.BusinessRuleIncidentStats;
+import com.backoffice.alerta.rules.IncidentSeverity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Repositório JPA para incidentes de regras de negócio
- * 
+ *
  * US#30 - Persistência com PostgreSQL/JPA
  */
 @Repository
 public interface BusinessRuleIncidentRepository extends JpaRepository<BusinessRuleIncident, UUID> {
 
     List<BusinessRuleIncident> findByBusinessRuleIdOrderByOccurredAtDesc(UUID businessRuleId);
+
+    /**
+     * Incidentes de várias regras em uma única consulta
+     */
+    List<BusinessRuleIncident> findByBusinessRuleIdInOrderByOccurredAtDesc(Collection<UUID> businessRuleIds);
+
+    /**
+     * Contagem de incidentes por (regra, severidade) para várias regras
+     *
+     * @return Linhas [businessRuleId (UUID), severity (IncidentSeverity), count (Long)]
+     */
+    @Query("SELECT i.businessRuleId, i.severity, COUNT(i) FROM BusinessRuleIncident i "
+         + "WHERE i.businessRuleId IN :businessRuleIds GROUP BY i.businessRuleId, i.severity")
+    List<Object[]> countBySeverityForRules(@Param("businessRuleIds") Collection<UUID> businessRuleIds);
+
+    /**
+     * Estatísticas de incidentes por regra (regras sem incidentes ficam fora do mapa)
+     */
+    default Map<UUID, BusinessRuleIncidentStats> findStatsByBusinessRuleIds(Collection<UUID> businessRuleIds) {
+        if (businessRuleIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Map<IncidentSeverity, Long>> counts = new HashMap<>();
+        for (Object[] row : countBySeverityForRules(businessRuleIds)) {
+            counts.computeIfAbsent((UUID) row[0], id -> new EnumMap<>(IncidentSeverity.class))
+                .put((IncidentSeverity) row[1], ((Number) row[2]).longValue());
+        }
+        Map<UUID, BusinessRuleIncidentStats> stats = new HashMap<>(counts.size());
+        counts.forEach((ruleId, bySeverity) -> stats.put(ruleId, new BusinessRuleIncidentStats(bySeverity)));
+        return stats;
+    }
 }
@@ -19,6 +19,7 @@ public class BusinessRule {
     private UUID projectId;
     private Instant createdAt;
     private Instant updatedAt;
+    private transient UUID vectorId; // US#50: calculado uma vez a partir do id
 
     public BusinessRule() {
     }
@@ -41,6 +42,35 @@ public class BusinessRule {
 
     public void setId(String id) {
         this.id = id;
+        this.vectorId = null;
+    }
+
+    /**
+     * UUID usado como chave da regra no vector store
+     *
+     * Calculado uma única vez e mantido na regra (ver {@link #toVectorId(String)}).
+     */
+    public UUID getVectorId() {
+        UUID cached = vectorId;
+        if (cached == null && id != null) {
+            cached = toVectorId(id);
+            vectorId = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Converte o ID de uma regra para a chave do vector store
+     *
+     * IDs que já são UUID (regras cadastradas/demo) são usados diretamente;
+     * IDs textuais (ex.: "BR-001" de importação) viram UUID determinístico via hash.
+     */
+    public static UUID toVectorId(String ruleId) {
+        try {
+            return UUID.fromString(ruleId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(ruleId.getBytes());
+        }
     }
 
     public String getName() {
@@ -2,87 +2,310 @@ package com.backoffice.alerta.rules;
 
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Repositório in-memory para dependências entre regras de negócio
- * 
+ *
  * Gerencia relacionamentos direcionais entre regras para análise de impacto cruzado.
- * 
+ *
+ * Grafo em listas de adjacência (direta e reversa) sobre ordinais inteiros densos
+ * das regras. A alcançabilidade de cada regra (camadas de BFS em BitSet, uma por
+ * profundidade) é calculada sob demanda e mantida em cache; ao salvar A -> B,
+ * apenas o cache de A e dos seus ancestrais é invalidado.
+ *
  * US#36 - Análise de Impacto Cruzado (Cadeia de Regras Afetadas)
  */
 @Repository
 public class BusinessRuleDependencyRepository {
-    
+
     private final Map<UUID, BusinessRuleDependency> storage = new ConcurrentHashMap<>();
-    
+
+    // Ordinal denso por regra (nunca reaproveitado)
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final List<String> ruleIdsByOrdinal = new CopyOnWriteArrayList<>();
+
+    // Listas de adjacência: ordinal → dependências de saída / de entrada
+    private final Map<Integer, List<BusinessRuleDependency>> outgoing = new ConcurrentHashMap<>();
+    private final Map<Integer, List<BusinessRuleDependency>> incoming = new ConcurrentHashMap<>();
+
+    // Vizinhos em BitSet (copy-on-write: um BitSet publicado nunca é alterado)
+    private final Map<Integer, BitSet> forwardBits = new ConcurrentHashMap<>();
+    private final Map<Integer, BitSet> reverseBits = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Reachability> reachabilityCache = new ConcurrentHashMap<>();
+    private final AtomicLong graphVersion = new AtomicLong();
+
     /**
      * Salva uma dependência entre regras
-     * 
+     *
      * @param dependency Dependência a ser salva
      * @return Dependência salva
      */
-    public BusinessRuleDependency save(BusinessRuleDependency dependency) {
-        storage.put(dependency.getId(), dependency);
+    public synchronized BusinessRuleDependency save(BusinessRuleDependency dependency) {
+        BusinessRuleDependency previous = storage.put(dependency.getId(), dependency);
+        if (previous != null) {
+            unlink(previous);
+        }
+
+        int source = ordinal(dependency.getSourceRuleId());
+        int target = ordinal(dependency.getTargetRuleId());
+        outgoing.computeIfAbsent(source, k -> new CopyOnWriteArrayList<>()).add(dependency);
+        incoming.computeIfAbsent(target, k -> new CopyOnWriteArrayList<>()).add(dependency);
+        forwardBits.put(source, withBit(forwardBits.get(source), target, true));
+        reverseBits.put(target, withBit(reverseBits.get(target), source, true));
+
+        invalidateAncestors(source);
         return dependency;
     }
-    
+
     /**
      * Busca todas as dependências registradas
-     * 
+     *
      * @return Lista de todas as dependências
      */
     public List<BusinessRuleDependency> findAll() {
         return storage.values().stream().toList();
     }
-    
+
     /**
      * Busca dependências onde a regra é a ORIGEM (afeta outras)
-     * 
+     *
      * Exemplo: Se BR-001 FEEDS BR-002, ao buscar sourceRuleId="BR-001",
      * retorna a dependência BR-001 -> BR-002
-     * 
+     *
      * @param sourceRuleId ID da regra de origem
      * @return Lista de dependências onde esta regra afeta outras
      */
     public List<BusinessRuleDependency> findBySourceRuleId(String sourceRuleId) {
-        return storage.values().stream()
-            .filter(dep -> dep.getSourceRuleId().equals(sourceRuleId))
-            .collect(Collectors.toList());
+        return adjacent(outgoing, sourceRuleId);
     }
-    
+
     /**
      * Busca dependências onde a regra é o DESTINO (é afetada por outras)
-     * 
+     *
      * Exemplo: Se BR-001 FEEDS BR-002, ao buscar targetRuleId="BR-002",
      * retorna a dependência BR-001 -> BR-002
-     * 
+     *
      * @param targetRuleId ID da regra de destino
      * @return Lista de dependências onde esta regra é afetada por outras
      */
     public List<BusinessRuleDependency> findByTargetRuleId(String targetRuleId) {
-        return storage.values().stream()
-            .filter(dep -> dep.getTargetRuleId().equals(targetRuleId))
-            .collect(Collectors.toList());
+        return adjacent(incoming, targetRuleId);
     }
-    
+
+    /**
+     * Regras alcançáveis a partir de um conjunto de regras de origem
+     *
+     * Cada regra aparece uma única vez, na menor profundidade em que é alcançada
+     * a partir de qualquer origem; as origens não são retornadas. Ciclos são
+     * tratados pela BFS. Com o cache preenchido, cada profundidade custa um OR
+     * de BitSet por origem.
+     *
+     * @param sourceRuleIds Regras de origem (ex: diretamente impactadas)
+     * @param maxDepth Profundidade máxima (1 = apenas dependentes diretos)
+     * @return Regras alcançadas, ordenadas por profundidade
+     */
+    public List<ReachableRule> findReachable(Collection<String> sourceRuleIds, int maxDepth) {
+        List<Reachability> sources = new ArrayList<>();
+        BitSet seen = new BitSet();
+        for (String ruleId : sourceRuleIds) {
+            Integer ordinal = ordinals.get(ruleId);
+            if (ordinal != null && !seen.get(ordinal)) {
+                seen.set(ordinal);
+                sources.add(reachability(ordinal));
+            }
+        }
+
+        List<ReachableRule> reached = new ArrayList<>();
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            BitSet layer = new BitSet();
+            boolean deeper = false;
+            for (Reachability source : sources) {
+                if (source.layers().length >= depth) {
+                    layer.or(source.layers()[depth - 1]);
+                    deeper = true;
+                }
+            }
+            if (!deeper) {
+                break;
+            }
+            layer.andNot(seen);
+            for (int target = layer.nextSetBit(0); target >= 0; target = layer.nextSetBit(target + 1)) {
+                for (Reachability source : sources) {
+                    if (source.layers().length >= depth && source.layers()[depth - 1].get(target)) {
+                        reached.add(new ReachableRule(ruleIdsByOrdinal.get(target), depth, pathTo(source, target)));
+                        break;
+                    }
+                }
+            }
+            seen.or(layer);
+        }
+        return reached;
+    }
+
     /**
      * Remove todas as dependências (útil para testes)
      */
-    public void clear() {
+    public synchronized void clear() {
         storage.clear();
+        outgoing.clear();
+        incoming.clear();
+        forwardBits.clear();
+        reverseBits.clear();
+        graphVersion.incrementAndGet();
+        reachabilityCache.clear();
     }
-    
+
     /**
      * Conta total de dependências
-     * 
+     *
      * @return Número de dependências registradas
      */
     public long count() {
         return storage.size();
     }
+
+    /**
+     * Regra alcançada na cadeia de dependências
+     *
+     * @param depth Número de arestas a partir da origem (1 = dependente direto)
+     * @param path IDs das regras da origem até esta regra (inclusive)
+     */
+    public record ReachableRule(String ruleId, int depth, List<String> path) {}
+
+    /**
+     * Camadas de BFS de uma regra: layers[d - 1] = regras à distância mínima d;
+     * parent = predecessor de cada regra na árvore de BFS
+     */
+    private record Reachability(int source, BitSet[] layers, Map<Integer, Integer> parent) {}
+
+    private Reachability reachability(int source) {
+        Reachability cached = reachabilityCache.get(source);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = graphVersion.get();
+        List<BitSet> layers = new ArrayList<>();
+        Map<Integer, Integer> parent = new HashMap<>();
+        BitSet visited = new BitSet();
+        visited.set(source);
+        BitSet frontier = new BitSet();
+        frontier.set(source);
+        while (!frontier.isEmpty()) {
+            BitSet next = new BitSet();
+            for (int node = frontier.nextSetBit(0); node >= 0; node = frontier.nextSetBit(node + 1)) {
+                BitSet neighbours = forwardBits.get(node);
+                if (neighbours == null) {
+                    continue;
+                }
+                BitSet discovered = (BitSet) neighbours.clone();
+                discovered.andNot(visited);
+                discovered.andNot(next);
+                for (int target = discovered.nextSetBit(0); target >= 0; target = discovered.nextSetBit(target + 1)) {
+                    parent.put(target, node);
+                }
+                next.or(discovered);
+            }
+            if (next.isEmpty()) {
+                break;
+            }
+            layers.add(next);
+            visited.or(next);
+            frontier = next;
+        }
+
+        Reachability reachability = new Reachability(source, layers.toArray(new BitSet[0]),
+            Collections.unmodifiableMap(parent));
+        // Não publica resultado calculado sobre um grafo que mudou durante a BFS; a
+        // verificação e a publicação ficam sob o lock de save/clear, que mudam a versão
+        synchronized (this) {
+            if (graphVersion.get() == version) {
+                reachabilityCache.putIfAbsent(source, reachability);
+            }
+        }
+        return reachability;
+    }
+
+    private List<String> pathTo(Reachability reachability, int target) {
+        List<String> path = new ArrayList<>();
+        Integer node = target;
+        while (node != null && node != reachability.source()) {
+            path.add(ruleIdsByOrdinal.get(node));
+            node = reachability.parent().get(node);
+        }
+        path.add(ruleIdsByOrdinal.get(reachability.source()));
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Nova aresta saindo de {@code source} muda a alcançabilidade dele e de quem o alcança
+     */
+    private void invalidateAncestors(int source) {
+        graphVersion.incrementAndGet();
+        BitSet visited = new BitSet();
+        visited.set(source);
+        BitSet frontier = new BitSet();
+        frontier.set(source);
+        while (!frontier.isEmpty()) {
+            BitSet next = new BitSet();
+            for (int node = frontier.nextSetBit(0); node >= 0; node = frontier.nextSetBit(node + 1)) {
+                reachabilityCache.remove(node);
+                BitSet predecessors = reverseBits.get(node);
+                if (predecessors != null) {
+                    next.or(predecessors);
+                }
+            }
+            next.andNot(visited);
+            visited.or(next);
+            frontier = next;
+        }
+    }
+
+    private void unlink(BusinessRuleDependency dependency) {
+        int source = ordinal(dependency.getSourceRuleId());
+        int target = ordinal(dependency.getTargetRuleId());
+        outgoing.getOrDefault(source, List.of()).removeIf(d -> d.getId().equals(dependency.getId()));
+        incoming.getOrDefault(target, List.of()).removeIf(d -> d.getId().equals(dependency.getId()));
+
+        // Pode existir outra dependência (de outro tipo) entre as mesmas regras
+        boolean stillLinked = outgoing.getOrDefault(source, List.of()).stream()
+            .anyMatch(d -> d.getTargetRuleId().equals(dependency.getTargetRuleId()));
+        if (!stillLinked) {
+            forwardBits.put(source, withBit(forwardBits.get(source), target, false));
+            reverseBits.put(target, withBit(reverseBits.get(target), source, false));
+        }
+        invalidateAncestors(source);
+    }
+
+    private int ordinal(String ruleId) {
+        return ordinals.computeIfAbsent(ruleId, id -> {
+            ruleIdsByOrdinal.add(id);
+            return ruleIdsByOrdinal.size() - 1;
+        });
+    }
+
+    private List<BusinessRuleDependency> adjacent(Map<Integer, List<BusinessRuleDependency>> adjacency, String ruleId) {
+        Integer ordinal = ruleId != null ? ordinals.get(ruleId) : null;
+        List<BusinessRuleDependency> dependencies = ordinal != null ? adjacency.get(ordinal) : null;
+        return dependencies != null ? new ArrayList<>(dependencies) : new ArrayList<>();
+    }
+
+    private static BitSet withBit(BitSet bits, int index, boolean value) {
+        BitSet copy = bits != null ? (BitSet) bits.clone() : new BitSet();
+        copy.set(index, value);
+        return copy;
+    }
 }
@@ -1,5 +1,6 @@
 package com.backoffice.alerta.rules;
 
+import com.backoffice.alerta.rag.cache.RagDataVersionEntityListener;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.Objects;
@@ -13,6 +14,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "business_rule_incident")
+@EntityListeners(RagDataVersionEntityListener.class)
 public class BusinessRuleIncident {
     
     @Id
@@ -0,0 +1,51 @@
+package com.backoffice.alerta.rules;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Estatísticas de incidentes de uma regra de negócio (read model)
+ *
+ * Contagem por severidade e peso total (soma de IncidentSeverity.getRiskWeight),
+ * montadas a partir de uma única consulta agrupada para várias regras,
+ * sem carregar as entidades de incidente.
+ */
+public class BusinessRuleIncidentStats {
+
+    public static final BusinessRuleIncidentStats EMPTY = new BusinessRuleIncidentStats(Collections.emptyMap());
+
+    private final Map<IncidentSeverity, Long> countBySeverity;
+    private final long total;
+    private final long totalWeight;
+
+    public BusinessRuleIncidentStats(Map<IncidentSeverity, Long> countBySeverity) {
+        this.countBySeverity = countBySeverity.isEmpty()
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(new EnumMap<>(countBySeverity));
+        long count = 0;
+        long weight = 0;
+        for (Map.Entry<IncidentSeverity, Long> entry : countBySeverity.entrySet()) {
+            count += entry.getValue();
+            weight += entry.getValue() * entry.getKey().getRiskWeight();
+        }
+        this.total = count;
+        this.totalWeight = weight;
+    }
+
+    public long getCount(IncidentSeverity severity) {
+        return countBySeverity.getOrDefault(severity, 0L);
+    }
+
+    public Map<IncidentSeverity, Long> getCountBySeverity() {
+        return countBySeverity;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+}
@@ -1,5 +1,6 @@
 package com.backoffice.alerta.rules;
 
+import com.backoffice.alerta.rag.cache.RagDataVersion;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,12 +17,18 @@ import java.util.stream.Collectors;
 public class BusinessRuleOwnershipRepository {
 
     private final ConcurrentHashMap<UUID, BusinessRuleOwnership> ownerships = new ConcurrentHashMap<>();
+    private final RagDataVersion dataVersion;
+
+    public BusinessRuleOwnershipRepository(RagDataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
 
     /**
      * Salva um novo ownership (ou substitui se já existir com mesmo ID)
      */
     public BusinessRuleOwnership save(BusinessRuleOwnership ownership) {
         ownerships.put(ownership.getId(), ownership);
+        dataVersion.bump();
         return ownership;
     }
 
@@ -58,7 +65,11 @@ public class BusinessRuleOwnershipRepository {
      * Retorna true se removido, false se não encontrado
      */
     public boolean deleteById(UUID id) {
-        return ownerships.remove(id) != null;
+        boolean removed = ownerships.remove(id) != null;
+        if (removed) {
+            dataVersion.bump();
+        }
+        return removed;
     }
 
     /**
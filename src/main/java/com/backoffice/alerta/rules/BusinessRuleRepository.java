@@ -1,10 +1,16 @@
 package com.backoffice.alerta.rules;
 
+import com.backoffice.alerta.rag.cache.RagDataVersion;
+import com.backoffice.alerta.rag.keyword.Bm25Index;
+import com.backoffice.alerta.rag.keyword.KeywordMatch;
+import com.backoffice.alerta.rag.keyword.KeywordTokenizer;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -15,6 +21,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public class BusinessRuleRepository {
 
     private final Map<String, BusinessRule> storage = new ConcurrentHashMap<>();
+    private final Map<UUID, BusinessRule> byVectorId = new ConcurrentHashMap<>();
+    private final Bm25Index keywordIndex = new Bm25Index();
+    private final RagDataVersion dataVersion;
+
+    public BusinessRuleRepository(RagDataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
 
     /**
      * Salva uma regra de negócio
@@ -23,9 +36,35 @@ public class BusinessRuleRepository {
      */
     public BusinessRule save(BusinessRule rule) {
         storage.put(rule.getId(), rule);
+        byVectorId.put(rule.getVectorId(), rule);
+        keywordIndex.index(rule.getId(), keywordTokens(rule));
+        dataVersion.bump();
         return rule;
     }
 
+    /**
+     * Busca lexical (BM25) sobre nome, descrição e conteúdo das regras (US#43)
+     * @param query Texto livre da consulta
+     * @param k Número máximo de resultados
+     * @param allowedRuleIds Restringe a busca a estas regras; null = todas
+     * @return Matches ordenados por score (maior primeiro)
+     */
+    public List<KeywordMatch> searchByKeywords(String query, int k, Set<String> allowedRuleIds) {
+        return keywordIndex.search(KeywordTokenizer.tokenize(query), k, allowedRuleIds);
+    }
+
+    /**
+     * Tokens indexados de uma regra (nome com peso dobrado)
+     */
+    private static List<String> keywordTokens(BusinessRule rule) {
+        List<String> name = KeywordTokenizer.tokenize(rule.getName());
+        List<String> tokens = new ArrayList<>(name);
+        tokens.addAll(name);
+        tokens.addAll(KeywordTokenizer.tokenize(rule.getDescription()));
+        tokens.addAll(KeywordTokenizer.tokenize(rule.getContent()));
+        return tokens;
+    }
+
     /**
      * Busca todas as regras de negócio
      * @return Lista de todas as regras
@@ -43,6 +82,15 @@ public class BusinessRuleRepository {
         return Optional.ofNullable(storage.get(id));
     }
 
+    /**
+     * Busca uma regra pela chave usada no vector store (US#50)
+     * @param vectorId UUID retornado pela busca semântica
+     * @return Optional com a regra, se encontrada
+     */
+    public Optional<BusinessRule> findByVectorId(UUID vectorId) {
+        return Optional.ofNullable(byVectorId.get(vectorId));
+    }
+
     /**
      * Verifica se existe uma regra com o ID informado
      * @param id ID da regra
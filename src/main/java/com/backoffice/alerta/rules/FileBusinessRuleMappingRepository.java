@@ -2,27 +2,67 @@ package com.backoffice.alerta.rules;
 
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Repositório em memória para mapeamentos entre arquivos e regras de negócio
+ *
+ * Índices secundários (arquivo → mapeamentos, regra → mapeamentos,
+ * (arquivo, regra) → mapeamento) mantidos no save: as buscas custam
+ * O(resultado), independente do tamanho do catálogo.
+ *
+ * Mapeamentos de diretório/glob (ver FilePathPattern) são compilados no save
+ * e ancorados em uma FilePathTrie: findMatchingFilePath resolve um arquivo
+ * alterado em O(profundidade do caminho).
  */
 @Repository
 public class FileBusinessRuleMappingRepository {
 
     private final Map<String, FileBusinessRuleMapping> storage = new ConcurrentHashMap<>();
 
+    // Índices secundários: chave → (ID do mapeamento → mapeamento)
+    private final Map<String, Map<String, FileBusinessRuleMapping>> byFilePath = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, FileBusinessRuleMapping>> byBusinessRuleId = new ConcurrentHashMap<>();
+    private final Map<FileRuleKey, FileBusinessRuleMapping> byFileAndRule = new ConcurrentHashMap<>();
+
+    // Chaves com que cada mapeamento foi indexado (o objeto salvo é mutável)
+    private final Map<String, FileRuleKey> indexedKeys = new ConcurrentHashMap<>();
+
+    // Mapeamentos de diretório/glob: padrão compilado por ID + trie pelo prefixo literal
+    private final Map<String, FilePathPattern> compiledPatterns = new ConcurrentHashMap<>();
+    private final FilePathTrie patternTrie = new FilePathTrie();
+
+    // Incrementada a cada save (invalida análises de impacto memoizadas)
+    private final AtomicLong version = new AtomicLong();
+
     /**
      * Salva um mapeamento
      * @param mapping Mapeamento a ser salvo
      * @return Mapeamento salvo
      */
-    public FileBusinessRuleMapping save(FileBusinessRuleMapping mapping) {
+    public synchronized FileBusinessRuleMapping save(FileBusinessRuleMapping mapping) {
+        FileRuleKey previous = indexedKeys.get(mapping.getId());
+        if (previous != null) {
+            unindex(mapping.getId(), previous);
+        }
+
+        FileRuleKey key = new FileRuleKey(mapping.getFilePath(), mapping.getBusinessRuleId());
         storage.put(mapping.getId(), mapping);
+        indexedKeys.put(mapping.getId(), key);
+        byFilePath.computeIfAbsent(key.filePath(), k -> new ConcurrentHashMap<>()).put(mapping.getId(), mapping);
+        byBusinessRuleId.computeIfAbsent(key.businessRuleId(), k -> new ConcurrentHashMap<>()).put(mapping.getId(), mapping);
+        byFileAndRule.put(key, mapping);
+        if (FilePathPattern.isPattern(key.filePath())) {
+            FilePathPattern pattern = FilePathPattern.compile(key.filePath());
+            compiledPatterns.put(mapping.getId(), pattern);
+            patternTrie.add(mapping, pattern);
+        }
+        version.incrementAndGet();
         return mapping;
     }
 
@@ -40,9 +80,29 @@ public class FileBusinessRuleMappingRepository {
      * @return Lista de mapeamentos do arquivo
      */
     public List<FileBusinessRuleMapping> findByFilePath(String filePath) {
-        return storage.values().stream()
-            .filter(mapping -> mapping.getFilePath().equals(filePath))
-            .collect(Collectors.toList());
+        return lookup(byFilePath, filePath);
+    }
+
+    /**
+     * Busca os mapeamentos que cobrem um arquivo alterado: caminho exato
+     * + mapeamentos de diretório/glob
+     * @param filePath Caminho do arquivo alterado
+     * @return Lista de mapeamentos aplicáveis ao arquivo (sem repetição)
+     */
+    public List<FileBusinessRuleMapping> findMatchingFilePath(String filePath) {
+        if (filePath == null) {
+            return new ArrayList<>();
+        }
+        Map<String, FileBusinessRuleMapping> matches = new LinkedHashMap<>();
+        for (FileBusinessRuleMapping mapping : findByFilePath(filePath)) {
+            if (!compiledPatterns.containsKey(mapping.getId())) {
+                matches.put(mapping.getId(), mapping);
+            }
+        }
+        if (!compiledPatterns.isEmpty()) {
+            patternTrie.match(filePath, mapping -> matches.putIfAbsent(mapping.getId(), mapping));
+        }
+        return new ArrayList<>(matches.values());
     }
 
     /**
@@ -51,9 +111,7 @@ public class FileBusinessRuleMappingRepository {
      * @return Lista de mapeamentos da regra
      */
     public List<FileBusinessRuleMapping> findByBusinessRuleId(String businessRuleId) {
-        return storage.values().stream()
-            .filter(mapping -> mapping.getBusinessRuleId().equals(businessRuleId))
-            .collect(Collectors.toList());
+        return lookup(byBusinessRuleId, businessRuleId);
     }
 
     /**
@@ -63,10 +121,56 @@ public class FileBusinessRuleMappingRepository {
      * @return true se existe, false caso contrário
      */
     public boolean existsByFilePathAndBusinessRuleId(String filePath, String businessRuleId) {
-        return storage.values().stream()
-            .anyMatch(mapping -> 
-                mapping.getFilePath().equals(filePath) && 
-                mapping.getBusinessRuleId().equals(businessRuleId)
-            );
+        if (filePath == null || businessRuleId == null) {
+            return false;
+        }
+        return byFileAndRule.containsKey(new FileRuleKey(filePath, businessRuleId));
     }
+
+    /**
+     * Versão monotônica dos mapeamentos
+     * @return Versão atual (muda a cada save)
+     */
+    public long version() {
+        return version.get();
+    }
+
+    private static List<FileBusinessRuleMapping> lookup(Map<String, Map<String, FileBusinessRuleMapping>> index,
+                                                        String key) {
+        Map<String, FileBusinessRuleMapping> mappings = key != null ? index.get(key) : null;
+        return mappings != null ? new ArrayList<>(mappings.values()) : new ArrayList<>();
+    }
+
+    private void unindex(String id, FileRuleKey key) {
+        FilePathPattern pattern = compiledPatterns.remove(id);
+        if (pattern != null) {
+            patternTrie.remove(id, pattern);
+        }
+        removeFrom(byFilePath, key.filePath(), id);
+        removeFrom(byBusinessRuleId, key.businessRuleId(), id);
+
+        FileBusinessRuleMapping current = byFileAndRule.get(key);
+        if (current != null && id.equals(current.getId())) {
+            byFileAndRule.remove(key);
+            // Outro mapeamento com o mesmo (arquivo, regra) continua respondendo pelo par
+            for (FileBusinessRuleMapping other : lookup(byFilePath, key.filePath())) {
+                if (key.equals(indexedKeys.get(other.getId()))) {
+                    byFileAndRule.put(key, other);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void removeFrom(Map<String, Map<String, FileBusinessRuleMapping>> index, String key, String id) {
+        Map<String, FileBusinessRuleMapping> mappings = index.get(key);
+        if (mappings != null) {
+            mappings.remove(id);
+            if (mappings.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private record FileRuleKey(String filePath, String businessRuleId) {}
 }
@@ -0,0 +1,119 @@
+package com.backoffice.alerta.rules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Padrão de caminho de um mapeamento arquivo → regra, compilado uma única vez
+ *
+ * Formas aceitas em FileBusinessRuleMapping.filePath:
+ * - Diretório: "src/main/java/com/app/billing/" ou "src/main/java/com/app/billing/**"
+ * - Glob: "**" = qualquer número de diretórios; "*" e "?" não atravessam "/"
+ *   (ex: src/main/java/{@literal **}/billing/{@literal **} ou src/{@literal **}/*Payment*.java)
+ *
+ * O prefixo literal (segmentos antes do primeiro curinga) ancora o padrão
+ * na FilePathTrie; diretórios não precisam de regex.
+ */
+public final class FilePathPattern {
+
+    private final String pattern;
+    private final List<String> anchor;
+    private final Pattern regex; // null = diretório (tudo abaixo da âncora)
+
+    private FilePathPattern(String pattern, List<String> anchor, Pattern regex) {
+        this.pattern = pattern;
+        this.anchor = anchor;
+        this.regex = regex;
+    }
+
+    /**
+     * Indica se o filePath de um mapeamento é diretório/glob (e não um arquivo exato)
+     */
+    public static boolean isPattern(String filePath) {
+        return filePath != null
+            && (filePath.indexOf('*') >= 0 || filePath.indexOf('?') >= 0 || filePath.endsWith("/"));
+    }
+
+    public static FilePathPattern compile(String filePath) {
+        String normalized = normalize(filePath);
+        if (normalized.isEmpty() || normalized.endsWith("/")) {
+            normalized = normalized + "**";
+        }
+
+        List<String> segments = Arrays.asList(normalized.split("/"));
+        int firstWildcard = 0;
+        while (firstWildcard < segments.size() && !isPattern(segments.get(firstWildcard))) {
+            firstWildcard++;
+        }
+        List<String> anchor = Collections.unmodifiableList(new ArrayList<>(segments.subList(0, firstWildcard)));
+
+        boolean directory = firstWildcard == segments.size() - 1 && "**".equals(segments.get(firstWildcard));
+        return new FilePathPattern(filePath, anchor, directory ? null : Pattern.compile(toRegex(normalized)));
+    }
+
+    /**
+     * Caminho relativo ao repositório, com "/" como separador
+     */
+    public static String normalize(String path) {
+        String normalized = path.trim().replace('\\', '/');
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized;
+    }
+
+    /**
+     * Segmentos literais que posicionam o padrão na trie
+     */
+    public List<String> getAnchor() {
+        return anchor;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Verifica um caminho normalizado que já passou pela âncora do padrão
+     *
+     * @param belowAnchor O caminho tem segmentos além da âncora
+     */
+    boolean matches(String normalizedPath, boolean belowAnchor) {
+        return regex == null ? belowAnchor : regex.matcher(normalizedPath).matches();
+    }
+
+    private static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 16);
+        int i = 0;
+        while (i < glob.length()) {
+            if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 3;
+            } else if (glob.startsWith("/**", i) && i + 3 == glob.length()) {
+                regex.append("(?:/.*)?");
+                i += 3;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i += 2;
+            } else {
+                char c = glob.charAt(i++);
+                if (c == '*') {
+                    regex.append("[^/]*");
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                } else if ("\\.[]{}()+-^$|".indexOf(c) >= 0) {
+                    regex.append('\\').append(c);
+                } else {
+                    regex.append(c);
+                }
+            }
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package com.backoffice.alerta.rules;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Trie de caminhos (uma aresta por segmento de diretório) com os mapeamentos
+ * de diretório/glob ancorados no seu prefixo literal
+ *
+ * Resolver um arquivo alterado percorre apenas os segmentos do caminho:
+ * O(profundidade) + os globs ancorados nos diretórios visitados.
+ *
+ * Escritas são serializadas pelo repositório; leituras não bloqueiam.
+ */
+class FilePathTrie {
+
+    private final Node root = new Node();
+
+    void add(FileBusinessRuleMapping mapping, FilePathPattern pattern) {
+        Node node = root;
+        for (String segment : pattern.getAnchor()) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.patterns.put(mapping.getId(), new Entry(mapping, pattern));
+    }
+
+    void remove(String mappingId, FilePathPattern pattern) {
+        Node node = root;
+        for (String segment : pattern.getAnchor()) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+        }
+        node.patterns.remove(mappingId);
+    }
+
+    /**
+     * Entrega cada mapeamento cujo padrão cobre o caminho
+     */
+    void match(String filePath, Consumer<FileBusinessRuleMapping> consumer) {
+        String normalized = FilePathPattern.normalize(filePath);
+        String[] segments = normalized.split("/");
+        Node node = root;
+        collect(node, normalized, segments.length > 0, consumer);
+        for (int i = 0; i < segments.length; i++) {
+            node = node.children.get(segments[i]);
+            if (node == null) {
+                return;
+            }
+            collect(node, normalized, i < segments.length - 1, consumer);
+        }
+    }
+
+    /**
+     * @param below O caminho continua abaixo do diretório do nó (não é o próprio nó)
+     */
+    private static void collect(Node node, String normalizedPath, boolean below,
+                                Consumer<FileBusinessRuleMapping> consumer) {
+        for (Entry entry : node.patterns.values()) {
+            if (entry.pattern().matches(normalizedPath, below)) {
+                consumer.accept(entry.mapping());
+            }
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private final Map<String, Entry> patterns = new ConcurrentHashMap<>();
+    }
+
+    private record Entry(FileBusinessRuleMapping mapping, FilePathPattern pattern) {}
+}
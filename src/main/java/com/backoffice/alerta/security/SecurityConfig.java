@@ -1,5 +1,6 @@
 package com.backoffice.alerta.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -11,8 +12,16 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.DispatcherTypeRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuração de segurança Spring Security com JWT
  * 
@@ -50,6 +59,13 @@ public class SecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 // Endpoints públicos (sem JWT) - ORDEM IMPORTA!
+                // Dispatch ASYNC apenas dos endpoints de streaming (SSE/NDJSON), já autorizados
+                // na requisição original; demais dispatches ASYNC seguem as regras abaixo
+                .requestMatchers(asyncStreamDispatch(
+                    "/risk/rag/query/stream",
+                    "/risk/chat/query/stream",
+                    "/risk/business-impact/batch"
+                )).permitAll()
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers(
                     "/swagger-ui/**", 
@@ -146,6 +162,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Dispatch ASYNC (conclusão de SseEmitter/ResponseBodyEmitter) de um dos caminhos dados
+     */
+    private static RequestMatcher asyncStreamDispatch(String... paths) {
+        List<RequestMatcher> pathMatchers = new ArrayList<>();
+        for (String path : paths) {
+            pathMatchers.add(new AntPathRequestMatcher(path, HttpMethod.POST.name()));
+        }
+        return new AndRequestMatcher(
+            new DispatcherTypeRequestMatcher(DispatcherType.ASYNC),
+            new OrRequestMatcher(pathMatchers)
+        );
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
         AuthenticationManagerBuilder authenticationManagerBuilder =
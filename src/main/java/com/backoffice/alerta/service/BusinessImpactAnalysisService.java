@@ -1,5 +1,6 @@
 package com.backoffice.alerta.service;
 
+import com.backoffice.alerta.dto.BusinessImpactBatchResult;
 import com.backoffice.alerta.dto.BusinessImpactRequest;
 import com.backoffice.alerta.dto.BusinessImpactResponse;
 import com.backoffice.alerta.dto.BusinessRuleOwnershipResponse;
@@ -9,6 +10,14 @@ import com.backoffice.alerta.repository.BusinessRuleIncidentRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -21,15 +30,18 @@ public class BusinessImpactAnalysisService {
     private final BusinessRuleRepository businessRuleRepository;
     private final BusinessRuleIncidentRepository incidentRepository;
     private final BusinessRuleOwnershipRepository ownershipRepository;
+    private final BusinessImpactMemo memo;
 
     public BusinessImpactAnalysisService(FileBusinessRuleMappingRepository mappingRepository,
                                         BusinessRuleRepository businessRuleRepository,
                                         BusinessRuleIncidentRepository incidentRepository,
-                                        BusinessRuleOwnershipRepository ownershipRepository) {
+                                        BusinessRuleOwnershipRepository ownershipRepository,
+                                        BusinessImpactMemo memo) {
         this.mappingRepository = mappingRepository;
         this.businessRuleRepository = businessRuleRepository;
         this.incidentRepository = incidentRepository;
         this.ownershipRepository = ownershipRepository;
+        this.memo = memo;
     }
 
     /**
@@ -41,13 +53,157 @@ public class BusinessImpactAnalysisService {
     public BusinessImpactResponse analyze(BusinessImpactRequest request) {
         validateRequest(request);
 
+        // Mesmos arquivos/projeto/dados: reaproveita a análise (webhook → decisão, CI gate → Git)
+        return memo.getOrCompute(request, () -> {
+            Map<String, RuleImpactData> impactedRulesMap =
+                collectImpactedRules(request.getChangedFiles(), mappingRepository::findMatchingFilePath);
+            Map<String, RuleContext> ruleContexts = loadRuleContexts(impactedRulesMap.keySet());
+
+            return buildResponse(request.getPullRequestId(), impactedRulesMap, ruleContexts);
+        });
+    }
+
+    /**
+     * Analisa vários Pull Requests de uma vez (release train)
+     *
+     * Arquivos alterados e regras impactadas são deduplicados entre os PRs:
+     * mapeamentos são resolvidos uma vez por arquivo; regra, incidentes e
+     * ownerships são carregados uma vez por regra (um future por regra, que os
+     * PRs que a impactam aguardam). Toda a carga roda no executor, um task por PR;
+     * a thread chamadora apenas enfileira.
+     *
+     * Cancelar um future do retorno (ex: timeout do stream) cancela o lote: PRs ainda
+     * na fila não chegam a executar e os em execução param antes da próxima regra.
+     *
+     * @param requests PRs na ordem da requisição
+     * @param executor Pool que avalia os PRs
+     * @return Um future por PR (na ordem da requisição); PRs inválidos completam com status ERROR
+     * @throws RejectedExecutionException se o executor não aceitar o lote inteiro
+     *         (PRs já enfileirados são cancelados)
+     */
+    public List<CompletableFuture<BusinessImpactBatchResult>> analyzeBatch(List<BusinessImpactRequest> requests,
+                                                                          Executor executor) {
+        // Compartilhados entre os PRs do lote
+        Map<String, List<FileBusinessRuleMapping>> mappingsByFile = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<RuleContext>> contextsByRule = new ConcurrentHashMap<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        List<CompletableFuture<BusinessImpactResponse>> analyses = new ArrayList<>(requests.size());
+        try {
+            for (BusinessImpactRequest request : requests) {
+                analyses.add(CompletableFuture.supplyAsync(
+                    () -> analyzeInBatch(request, mappingsByFile, contextsByRule, cancelled), executor));
+            }
+        } catch (RejectedExecutionException e) {
+            // Lote aceito só por inteiro: tasks cancelados não chegam a executar
+            analyses.forEach(analysis -> analysis.cancel(false));
+            throw e;
+        }
+
+        List<CompletableFuture<BusinessImpactBatchResult>> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < analyses.size(); i++) {
+            int index = i;
+            BusinessImpactRequest request = requests.get(i);
+            String pullRequestId = request != null ? request.getPullRequestId() : null;
+            CompletableFuture<BusinessImpactResponse> analysis = analyses.get(i);
+            CompletableFuture<BusinessImpactBatchResult> result = analysis.handle((response, e) -> {
+                if (e == null) {
+                    return BusinessImpactBatchResult.ok(index, response);
+                }
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                return BusinessImpactBatchResult.error(index, pullRequestId, String.valueOf(cause.getMessage()));
+            });
+            // handle() não propaga o cancelamento para a análise: repassa aqui
+            result.whenComplete((ignored, e) -> {
+                if (result.isCancelled()) {
+                    cancelled.set(true);
+                    analysis.cancel(false);
+                }
+            });
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Análise de um PR do lote (roda no executor)
+     */
+    private BusinessImpactResponse analyzeInBatch(BusinessImpactRequest request,
+                                                  Map<String, List<FileBusinessRuleMapping>> mappingsByFile,
+                                                  Map<String, CompletableFuture<RuleContext>> contextsByRule,
+                                                  AtomicBoolean cancelled) {
+        validateRequest(request);
+        Map<String, RuleImpactData> impactedRulesMap = collectImpactedRules(request.getChangedFiles(),
+            filePath -> mappingsByFile.computeIfAbsent(filePath, mappingRepository::findMatchingFilePath));
+
+        Map<String, RuleContext> ruleContexts = new HashMap<>();
+        for (String ruleId : impactedRulesMap.keySet()) {
+            if (cancelled.get()) {
+                throw new CancellationException("Lote cancelado");
+            }
+            RuleContext context = sharedRuleContext(ruleId, contextsByRule);
+            if (context != null) {
+                ruleContexts.put(ruleId, context);
+            }
+        }
+        return buildResponse(request.getPullRequestId(), impactedRulesMap, ruleContexts);
+    }
+
+    /**
+     * Contexto da regra carregado uma única vez no lote: o primeiro PR que pede a
+     * regra carrega na própria thread, os demais aguardam o mesmo future
+     *
+     * @return Contexto ou null se a regra não existe
+     */
+    private RuleContext sharedRuleContext(String ruleId, Map<String, CompletableFuture<RuleContext>> contextsByRule) {
+        CompletableFuture<RuleContext> loading = new CompletableFuture<>();
+        CompletableFuture<RuleContext> existing = contextsByRule.putIfAbsent(ruleId, loading);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            loading.complete(loadRuleContext(ruleId));
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        return loading.join();
+    }
+
+    /**
+     * Carrega regra, incidentes e ownerships de uma única regra
+     *
+     * @return Contexto ou null se a regra não existe
+     */
+    private RuleContext loadRuleContext(String ruleId) {
+        Optional<BusinessRule> ruleOpt = businessRuleRepository.findById(ruleId);
+        if (ruleOpt.isEmpty()) {
+            return null;
+        }
+        UUID ruleUuid;
+        try {
+            ruleUuid = UUID.fromString(ruleId);
+        } catch (IllegalArgumentException e) {
+            // ID fora do formato UUID: sem incidentes/ownerships associados
+            return new RuleContext(ruleOpt.get(), List.of(), List.of());
+        }
+        return new RuleContext(ruleOpt.get(),
+            incidentRepository.findByBusinessRuleIdOrderByOccurredAtDesc(ruleUuid),
+            ownershipsOf(ruleUuid));
+    }
+
+    /**
+     * Agrupa por regra os mapeamentos dos arquivos alterados
+     */
+    private Map<String, RuleImpactData> collectImpactedRules(
+            List<String> changedFiles, Function<String, List<FileBusinessRuleMapping>> mappingsOfFile) {
         // Mapeia regras de negócio impactadas agrupadas por ID
         Map<String, RuleImpactData> impactedRulesMap = new HashMap<>();
 
         // Para cada arquivo alterado
-        for (String filePath : request.getChangedFiles()) {
-            // Busca mapeamentos deste arquivo
-            List<FileBusinessRuleMapping> mappings = mappingRepository.findByFilePath(filePath);
+        for (String filePath : changedFiles) {
+            // Busca mapeamentos deste arquivo (exatos + diretórios/globs)
+            List<FileBusinessRuleMapping> mappings = mappingsOfFile.apply(filePath);
 
             // Para cada mapeamento encontrado
             for (FileBusinessRuleMapping mapping : mappings) {
@@ -55,7 +211,7 @@ public class BusinessImpactAnalysisService {
 
                 // Se a regra ainda não foi processada, cria nova entrada
                 if (!impactedRulesMap.containsKey(ruleId)) {
-                    impactedRulesMap.put(ruleId, new RuleImpactData(mapping));
+                    impactedRulesMap.put(ruleId, new RuleImpactData(mapping, filePath));
                 } else {
                     // Adiciona o arquivo e atualiza o tipo de impacto se necessário
                     RuleImpactData existingData = impactedRulesMap.get(ruleId);
@@ -68,23 +224,67 @@ public class BusinessImpactAnalysisService {
                 }
             }
         }
+        return impactedRulesMap;
+    }
+
+    /**
+     * Carrega regra, incidentes (uma consulta para todas) e ownerships de cada regra
+     *
+     * @return Contexto por ID de regra (regras inexistentes ficam fora do mapa)
+     */
+    private Map<String, RuleContext> loadRuleContexts(Collection<String> ruleIds) {
+        Map<String, BusinessRule> rules = new HashMap<>();
+        Map<String, UUID> ruleUuids = new HashMap<>();
+        for (String ruleId : ruleIds) {
+            Optional<BusinessRule> ruleOpt = businessRuleRepository.findById(ruleId);
+            if (ruleOpt.isPresent()) {
+                rules.put(ruleId, ruleOpt.get());
+                try {
+                    ruleUuids.put(ruleId, UUID.fromString(ruleId));
+                } catch (IllegalArgumentException e) {
+                    // ID fora do formato UUID: sem incidentes/ownerships associados
+                }
+            }
+        }
 
+        Map<UUID, List<BusinessRuleIncident>> incidentsByRule = ruleUuids.isEmpty()
+            ? Map.of()
+            : incidentRepository.findByBusinessRuleIdInOrderByOccurredAtDesc(ruleUuids.values()).stream()
+                .collect(Collectors.groupingBy(BusinessRuleIncident::getBusinessRuleId));
+
+        Map<String, RuleContext> contexts = new HashMap<>();
+        for (Map.Entry<String, BusinessRule> entry : rules.entrySet()) {
+            UUID ruleUuid = ruleUuids.get(entry.getKey());
+            List<BusinessRuleOwnershipResponse> ownershipResponses = ruleUuid == null
+                ? List.of()
+                : ownershipsOf(ruleUuid);
+            contexts.put(entry.getKey(), new RuleContext(entry.getValue(),
+                ruleUuid != null ? incidentsByRule.getOrDefault(ruleUuid, List.of()) : List.of(),
+                ownershipResponses));
+        }
+        return contexts;
+    }
+
+    private List<BusinessRuleOwnershipResponse> ownershipsOf(UUID ruleUuid) {
+        return ownershipRepository.findByBusinessRuleId(ruleUuid).stream()
+            .map(BusinessRuleOwnershipResponse::new)
+            .collect(Collectors.toList());
+    }
+
+    private BusinessImpactResponse buildResponse(String pullRequestId, Map<String, RuleImpactData> impactedRulesMap,
+                                                 Map<String, RuleContext> ruleContexts) {
         // Converte mapa para lista de respostas
         List<ImpactedBusinessRuleResponse> impactedRules = new ArrayList<>();
         RiskLevel overallRisk = null;
 
         for (Map.Entry<String, RuleImpactData> entry : impactedRulesMap.entrySet()) {
-            String ruleId = entry.getKey();
             RuleImpactData impactData = entry.getValue();
 
-            // Busca a regra de negócio completa
-            Optional<BusinessRule> ruleOpt = businessRuleRepository.findById(ruleId);
-            if (ruleOpt.isPresent()) {
-                BusinessRule rule = ruleOpt.get();
-
-                // Busca incidentes históricos da regra
-                UUID ruleUuid = UUID.fromString(ruleId);
-                List<BusinessRuleIncident> incidents = incidentRepository.findByBusinessRuleIdOrderByOccurredAtDesc(ruleUuid);
+            // Regra de negócio completa + incidentes históricos + ownerships
+            RuleContext context = ruleContexts.get(entry.getKey());
+            if (context != null) {
+                BusinessRule rule = context.rule();
+                List<BusinessRuleIncident> incidents = context.incidents();
 
                 // Calcula o nível de risco base
                 RiskLevel riskLevel = RiskLevel.calculateRiskLevel(
@@ -98,13 +298,6 @@ public class BusinessImpactAnalysisService {
                 // Gera explicação incluindo incidentes
                 String explanation = generateExplanation(rule, impactData, incidents);
 
-                // Busca ownerships da regra
-                List<BusinessRuleOwnership> ownerships = ownershipRepository
-                    .findByBusinessRuleId(UUID.fromString(ruleId));
-                List<BusinessRuleOwnershipResponse> ownershipResponses = ownerships.stream()
-                    .map(BusinessRuleOwnershipResponse::new)
-                    .collect(Collectors.toList());
-
                 // Cria resposta
                 ImpactedBusinessRuleResponse ruleResponse = new ImpactedBusinessRuleResponse(
                     rule.getId(),
@@ -115,7 +308,7 @@ public class BusinessImpactAnalysisService {
                     new ArrayList<>(impactData.getFiles()),
                     adjustedRiskLevel,
                     explanation,
-                    ownershipResponses
+                    new ArrayList<>(context.ownerships())
                 );
 
                 impactedRules.add(ruleResponse);
@@ -131,7 +324,7 @@ public class BusinessImpactAnalysisService {
         }
 
         return new BusinessImpactResponse(
-            request.getPullRequestId(),
+            pullRequestId,
             impactedRules,
             overallRisk
         );
@@ -141,6 +334,10 @@ public class BusinessImpactAnalysisService {
      * Valida a requisição
      */
     private void validateRequest(BusinessImpactRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("requisição do Pull Request é obrigatória");
+        }
+
         if (request.getPullRequestId() == null || request.getPullRequestId().trim().isEmpty()) {
             throw new IllegalArgumentException("pullRequestId é obrigatório");
         }
@@ -265,6 +462,12 @@ public class BusinessImpactAnalysisService {
         return lastSlash >= 0 ? filePath.substring(lastSlash + 1) : filePath;
     }
 
+    /**
+     * Dados de uma regra impactada, carregados uma vez e compartilhados entre PRs
+     */
+    private record RuleContext(BusinessRule rule, List<BusinessRuleIncident> incidents,
+                               List<BusinessRuleOwnershipResponse> ownerships) {}
+
     /**
      * Classe auxiliar para agregar dados de impacto por regra
      */
@@ -272,10 +475,10 @@ public class BusinessImpactAnalysisService {
         private ImpactType impactType;
         private final Set<String> files;
 
-        public RuleImpactData(FileBusinessRuleMapping mapping) {
+        public RuleImpactData(FileBusinessRuleMapping mapping, String filePath) {
             this.impactType = mapping.getImpactType();
             this.files = new HashSet<>();
-            this.files.add(mapping.getFilePath());
+            this.files.add(filePath);
         }
 
         public void addFile(String filePath) {
@@ -0,0 +1,77 @@
+package com.backoffice.alerta.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração da análise de impacto em lote (release train)
+ *
+ * Lê configurações de application.yml:
+ *
+ * business-impact:
+ *   batch:
+ *     threads: 0
+ *     queue-capacity: 1000
+ *     max-pull-requests: 200
+ *     timeout-ms: 300000
+ */
+@Component
+@ConfigurationProperties(prefix = "business-impact.batch")
+public class BusinessImpactBatchProperties {
+
+    /**
+     * Threads que avaliam os PRs em paralelo (0 = número de processadores).
+     * Default: 0
+     */
+    private int threads = 0;
+
+    /**
+     * PRs aguardando thread (somados entre lotes); fila cheia = lote recusado com 503.
+     * Default: 1000
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * Máximo de PRs por requisição de lote.
+     * Default: 200
+     */
+    private int maxPullRequests = 200;
+
+    /**
+     * Tempo máximo do stream NDJSON antes de ser encerrado.
+     * Default: 300000 ms
+     */
+    private long timeoutMs = 300000;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxPullRequests() {
+        return maxPullRequests;
+    }
+
+    public void setMaxPullRequests(int maxPullRequests) {
+        this.maxPullRequests = maxPullRequests;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+}
@@ -0,0 +1,181 @@
+package com.backoffice.alerta.service;
+
+import com.backoffice.alerta.dto.BusinessImpactRequest;
+import com.backoffice.alerta.dto.BusinessImpactResponse;
+import com.backoffice.alerta.rag.cache.RagDataVersion;
+import com.backoffice.alerta.rules.FileBusinessRuleMappingRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Memo de análises de impacto de negócio
+ *
+ * Webhook → decisão e CI gate → análise Git pedem a mesma análise mais de uma
+ * vez na mesma requisição; com o memo ela é calculada uma única vez.
+ *
+ * Chave: arquivos alterados (ordenados, sem repetição) + projectId + versão
+ * dos dados (RagDataVersion: regras, ownerships, incidentes, projetos;
+ * versão do FileBusinessRuleMappingRepository: mapeamentos). Qualquer escrita
+ * muda a chave, então uma análise nunca é servida sobre dados alterados.
+ *
+ * - Request-scoped: atributo da requisição HTTP corrente (sem TTL)
+ * - Compartilhado: LRU limitado a maxEntries, com TTL curto
+ * - Análises são instâncias compartilhadas: cada chamador recebe uma cópia
+ *   rasa com o próprio pullRequestId; as regras impactadas não devem ser modificadas
+ */
+@Component
+public class BusinessImpactMemo {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessImpactMemo.class);
+
+    private static final String REQUEST_ATTRIBUTE = BusinessImpactMemo.class.getName() + ".REQUEST";
+
+    private record Key(List<String> changedFiles, UUID projectId, long dataVersion, long mappingVersion) {}
+
+    private record Entry(BusinessImpactResponse analysis, long createdAtNanos) {}
+
+    private final BusinessImpactMemoProperties properties;
+    private final RagDataVersion dataVersion;
+    private final FileBusinessRuleMappingRepository mappingRepository;
+    private final Map<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    public BusinessImpactMemo(BusinessImpactMemoProperties properties, RagDataVersion dataVersion,
+                              FileBusinessRuleMappingRepository mappingRepository,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.dataVersion = dataVersion;
+        this.mappingRepository = mappingRepository;
+        int maxEntries = Math.max(1, properties.getMaxEntries());
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        meterRegistry.ifAvailable(this::registerMetrics);
+
+        log.info("⚡ BusinessImpactMemo inicializado | enabled={} | ttl={}s | maxEntries={}",
+                properties.isEnabled(), properties.getTtlSeconds(), maxEntries);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("business.impact.memo.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("business.impact.memo.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("business.impact.memo.size", entries, Map::size).register(registry);
+    }
+
+    /**
+     * Retorna a análise memoizada para os arquivos/projeto da requisição ou a calcula
+     *
+     * @param request Requisição já validada
+     * @param analysis Cálculo da análise (executado apenas em caso de miss)
+     * @return Análise com o pullRequestId da requisição
+     */
+    public BusinessImpactResponse getOrCompute(BusinessImpactRequest request,
+                                               Supplier<BusinessImpactResponse> analysis) {
+        if (!properties.isEnabled()) {
+            return analysis.get();
+        }
+
+        // Versões lidas ANTES do cálculo: escrita concorrente gera outra chave
+        List<String> changedFiles = request.getChangedFiles().stream()
+                .filter(Objects::nonNull)
+                .sorted()
+                .distinct()
+                .toList();
+        Key key = new Key(changedFiles, request.getProjectId(), dataVersion.current(), mappingRepository.version());
+        Map<Key, BusinessImpactResponse> requestScope = requestScope();
+
+        BusinessImpactResponse cached = requestScope != null ? requestScope.get(key) : null;
+        if (cached == null) {
+            cached = getShared(key);
+            if (cached != null && requestScope != null) {
+                requestScope.put(key, cached);
+            }
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            log.debug("⚡ Impact memo HIT | PR={} | files={}", request.getPullRequestId(), key.changedFiles().size());
+            return forRequest(cached, request.getPullRequestId());
+        }
+
+        misses.incrementAndGet();
+        BusinessImpactResponse computed = analysis.get();
+        if (requestScope != null) {
+            requestScope.put(key, computed);
+        }
+        entries.put(key, new Entry(computed, System.nanoTime()));
+        return forRequest(computed, request.getPullRequestId());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private BusinessImpactResponse getShared(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAtNanos() > TimeUnit.SECONDS.toNanos(properties.getTtlSeconds())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.analysis();
+    }
+
+    /**
+     * Memo da requisição HTTP corrente (null fora de uma requisição, ex: jobs e executores)
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Key, BusinessImpactResponse> requestScope() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object scope = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (scope == null) {
+            scope = new ConcurrentHashMap<Key, BusinessImpactResponse>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, scope, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<Key, BusinessImpactResponse>) scope;
+    }
+
+    private static BusinessImpactResponse forRequest(BusinessImpactResponse analysis, String pullRequestId) {
+        BusinessImpactResponse response = new BusinessImpactResponse(
+            pullRequestId,
+            new ArrayList<>(analysis.getImpactedBusinessRules()),
+            analysis.getOverallBusinessRisk()
+        );
+        response.setProjectContext(analysis.getProjectContext());
+        return response;
+    }
+}
@@ -0,0 +1,62 @@
+package com.backoffice.alerta.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuração do memo de análises de impacto (webhook, decisão, CI gate)
+ *
+ * Lê configurações de application.yml:
+ *
+ * business-impact:
+ *   memo:
+ *     enabled: true
+ *     ttl-seconds: 30
+ *     max-entries: 256
+ */
+@Component
+@ConfigurationProperties(prefix = "business-impact.memo")
+public class BusinessImpactMemoProperties {
+
+    /**
+     * Habilita/desabilita o memo (request-scoped e compartilhado).
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Idade máxima de uma análise compartilhada entre requisições.
+     * Default: 30 segundos
+     */
+    private long ttlSeconds = 30;
+
+    /**
+     * Número máximo de análises compartilhadas (LRU).
+     * Default: 256
+     */
+    private int maxEntries = 256;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+}
@@ -13,7 +13,6 @@ import com.backoffice.alerta.dto.ImpactedBusinessRuleResponse;
 import com.backoffice.alerta.dto.ImpactedRuleChainResponse;
 import com.backoffice.alerta.dto.ImpactedRuleChainResponse.ImpactLevel;
 import com.backoffice.alerta.rules.BusinessRule;
-import com.backoffice.alerta.rules.BusinessRuleDependency;
 import com.backoffice.alerta.rules.BusinessRuleDependencyRepository;
 import com.backoffice.alerta.rules.BusinessRuleOwnership;
 import com.backoffice.alerta.rules.BusinessRuleOwnershipRepository;
@@ -27,7 +26,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +45,9 @@ import java.util.stream.Collectors;
  * 5. Limitar profundidade de análise (máx 3 níveis)
  * 6. Gerar caminhos de dependência explicativos
  * 
+ * A travessia usa a alcançabilidade em cache do BusinessRuleDependencyRepository
+ * (camadas de BFS em BitSet por regra): custo por nível, não por dependência.
+ * 
  * ⚠️ READ-ONLY: NÃO recalcula risco, NÃO altera dados, NÃO gera side-effects
  * 
  * US#36 - Análise de Impacto Cruzado (Cadeia de Regras Afetadas)
@@ -114,21 +115,11 @@ public class BusinessRuleImpactChainService {
             .map(ImpactedRuleChainResponse::getBusinessRuleId)
             .collect(Collectors.toSet());
         
-        // 3. Descobrir impactos indiretos (1 nível de profundidade)
-        List<ImpactedRuleChainResponse> indirectImpacts = discoverIndirectImpacts(directRuleIds);
+        // 3-4. Descobrir impactos indiretos (1 nível) e em cascata (2-3 níveis), sem ciclos
+        List<ImpactedRuleChainResponse> indirectImpacts = new ArrayList<>();
+        List<ImpactedRuleChainResponse> cascadeImpacts = new ArrayList<>();
+        discoverChainImpacts(directRuleIds, indirectImpacts, cascadeImpacts);
         log.info("🔄 [CHAIN] {} regras indiretamente impactadas", indirectImpacts.size());
-        
-        // 4. Descobrir impactos em cascata (2-3 níveis de profundidade)
-        Set<String> processedRuleIds = new HashSet<>();
-        processedRuleIds.addAll(directRuleIds);
-        processedRuleIds.addAll(indirectImpacts.stream()
-            .map(ImpactedRuleChainResponse::getBusinessRuleId)
-            .collect(Collectors.toSet()));
-        
-        List<ImpactedRuleChainResponse> cascadeImpacts = discoverCascadeImpacts(
-            indirectImpacts,
-            processedRuleIds
-        );
         log.info("🌊 [CHAIN] {} regras impactadas em cascata", cascadeImpacts.size());
         
         // 5. Gerar sumário executivo
@@ -158,106 +149,31 @@ public class BusinessRuleImpactChainService {
     }
     
     /**
-     * Descobre impactos indiretos (1 nível além dos impactos diretos)
+     * Descobre impactos indiretos (1 nível além dos impactos diretos) e em cascata
+     * (até MAX_DEPTH regras no caminho). Cada regra aparece uma vez, no menor nível.
      */
-    private List<ImpactedRuleChainResponse> discoverIndirectImpacts(Set<String> directRuleIds) {
-        List<ImpactedRuleChainResponse> indirectImpacts = new ArrayList<>();
+    private void discoverChainImpacts(Set<String> directRuleIds,
+                                      List<ImpactedRuleChainResponse> indirectImpacts,
+                                      List<ImpactedRuleChainResponse> cascadeImpacts) {
         
-        for (String directRuleId : directRuleIds) {
-            // Busca regras que dependem desta regra diretamente impactada
-            List<BusinessRuleDependency> dependencies = 
-                dependencyRepository.findBySourceRuleId(directRuleId);
-            
-            for (BusinessRuleDependency dep : dependencies) {
-                String targetRuleId = dep.getTargetRuleId();
-                
-                // Evita duplicação
-                if (directRuleIds.contains(targetRuleId)) {
-                    continue;
-                }
-                
-                Optional<BusinessRule> targetRuleOpt = 
-                    businessRuleRepository.findById(targetRuleId);
-                
-                if (targetRuleOpt.isPresent()) {
-                    BusinessRule targetRule = targetRuleOpt.get();
-                    List<String> path = List.of(directRuleId, targetRuleId);
-                    
-                    ImpactedRuleChainResponse chainResponse = createChainResponse(
-                        targetRule,
-                        ImpactLevel.INDIRECT,
-                        path
-                    );
-                    
-                    indirectImpacts.add(chainResponse);
-                    
-                    log.debug("🔗 Impacto indireto: {} -> {} ({})",
-                        directRuleId, targetRuleId, dep.getDependencyType().getLabel());
-                }
-            }
-        }
+        List<BusinessRuleDependencyRepository.ReachableRule> reachable =
+            dependencyRepository.findReachable(directRuleIds, MAX_DEPTH - 1);
         
-        return indirectImpacts;
-    }
-    
-    /**
-     * Descobre impactos em cascata (2-3 níveis de profundidade)
-     */
-    private List<ImpactedRuleChainResponse> discoverCascadeImpacts(
-            List<ImpactedRuleChainResponse> indirectImpacts,
-            Set<String> processedRuleIds) {
-        
-        List<ImpactedRuleChainResponse> cascadeImpacts = new ArrayList<>();
-        
-        for (ImpactedRuleChainResponse indirect : indirectImpacts) {
-            String indirectRuleId = indirect.getBusinessRuleId();
-            List<String> currentPath = indirect.getDependencyPath();
-            
-            // Limita profundidade a MAX_DEPTH
-            if (currentPath.size() >= MAX_DEPTH) {
-                log.debug("⚠️ Profundidade máxima atingida para regra: {}", indirectRuleId);
+        for (BusinessRuleDependencyRepository.ReachableRule reached : reachable) {
+            Optional<BusinessRule> targetRuleOpt = businessRuleRepository.findById(reached.ruleId());
+            if (targetRuleOpt.isEmpty()) {
                 continue;
             }
             
-            // Busca próximo nível de dependências
-            List<BusinessRuleDependency> nextDependencies = 
-                dependencyRepository.findBySourceRuleId(indirectRuleId);
-            
-            for (BusinessRuleDependency dep : nextDependencies) {
-                String targetRuleId = dep.getTargetRuleId();
-                
-                // Evita ciclos e duplicação
-                if (processedRuleIds.contains(targetRuleId)) {
-                    log.debug("🔄 Ciclo detectado ou regra já processada: {}", targetRuleId);
-                    continue;
-                }
-                
-                Optional<BusinessRule> targetRuleOpt = 
-                    businessRuleRepository.findById(targetRuleId);
-                
-                if (targetRuleOpt.isPresent()) {
-                    BusinessRule targetRule = targetRuleOpt.get();
-                    
-                    // Constrói caminho completo
-                    List<String> newPath = new ArrayList<>(currentPath);
-                    newPath.add(targetRuleId);
-                    
-                    ImpactedRuleChainResponse chainResponse = createChainResponse(
-                        targetRule,
-                        ImpactLevel.CASCADE,
-                        newPath
-                    );
-                    
-                    cascadeImpacts.add(chainResponse);
-                    processedRuleIds.add(targetRuleId);
-                    
-                    log.debug("🌊 Impacto cascata: {} (profundidade: {})",
-                        targetRuleId, newPath.size());
-                }
+            if (reached.depth() == 1) {
+                indirectImpacts.add(createChainResponse(targetRuleOpt.get(), ImpactLevel.INDIRECT, reached.path()));
+                log.debug("🔗 Impacto indireto: {}", String.join(" -> ", reached.path()));
+            } else {
+                cascadeImpacts.add(createChainResponse(targetRuleOpt.get(), ImpactLevel.CASCADE, reached.path()));
+                log.debug("🌊 Impacto cascata: {} (profundidade: {})",
+                    reached.ruleId(), reached.path().size());
             }
         }
-        
-        return cascadeImpacts;
     }
     
     /**
@@ -3,16 +3,25 @@ package com.backoffice.alerta.service;
 import com.backoffice.alerta.rules.BusinessRule;
 import com.backoffice.alerta.rules.BusinessRuleRepository;
 import com.backoffice.alerta.rag.embedding.BusinessRuleEmbeddingProvider;
+import com.backoffice.alerta.rag.persistence.RagVectorStoreProperties;
+import com.backoffice.alerta.rag.vector.EmbeddingMatrix;
+import com.backoffice.alerta.rag.vector.HnswIndex;
+import com.backoffice.alerta.rag.vector.ScoredRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,10 +38,27 @@ public class CodeIndexingService {
     private final BusinessRuleRepository businessRuleRepository;
     private final JdbcTemplate jdbcTemplate;
     private final BusinessRuleEmbeddingProvider embeddingProvider;
+    private final RagVectorStoreProperties.Hnsw hnswProperties;
 
     @Value("${rag.code.max-file-size-kb:500}")
     private int maxFileSizeKb;
 
+    @Value("${rag.code.snippet-chars:500}")
+    private int snippetChars;
+
+    // Detectado no primeiro uso (ver vectorMode())
+    private volatile VectorMode vectorMode;
+    private volatile boolean postgres;
+    private volatile int vectorDimension = -1;
+
+    // Índice in-JVM (modo JVM_ANN, ou fallback do PGVECTOR para queries de outra dimensão):
+    // id derivado do file_path; só vetores da dimensão do provider ativo.
+    // Busca exata abaixo de exactSearchThreshold arquivos, HNSW acima
+    private final EmbeddingMatrix jvmEmbeddings = new EmbeddingMatrix();
+    private final HnswIndex jvmIndex;
+    private final Map<UUID, String> filePathsById = new ConcurrentHashMap<>();
+    private volatile int jvmIndexDimension = -1; // -1 = ainda não carregado
+
     // Padrões para detectar relações entre código e regras
     private static final List<Pattern> CODE_PATTERNS = Arrays.asList(
         Pattern.compile("@RuleId\\(\"([^\"]+)\"\\)", Pattern.CASE_INSENSITIVE),
@@ -44,10 +70,14 @@ public class CodeIndexingService {
     public CodeIndexingService(
             BusinessRuleRepository businessRuleRepository,
             JdbcTemplate jdbcTemplate,
-            BusinessRuleEmbeddingProvider embeddingProvider) {
+            BusinessRuleEmbeddingProvider embeddingProvider,
+            RagVectorStoreProperties vectorStoreProperties) {
         this.businessRuleRepository = businessRuleRepository;
         this.jdbcTemplate = jdbcTemplate;
         this.embeddingProvider = embeddingProvider;
+        this.hnswProperties = vectorStoreProperties.getHnsw();
+        this.jvmIndex = new HnswIndex(
+            hnswProperties.getM(), hnswProperties.getEfConstruction(), hnswProperties.getEfSearch());
     }
 
     /**
@@ -56,102 +86,166 @@ public class CodeIndexingService {
      */
     @Transactional
     public void indexBusinessRuleCode(BusinessRule rule, UUID projectId) {
-        if (rule.getSourceFile() == null || rule.getSourceFile().isBlank()) {
-            logger.debug("Rule {} has no sourceFile, skipping code indexing", rule.getId());
-            return;
-        }
-
-        if (rule.getContent() == null || rule.getContent().isBlank()) {
-            logger.debug("Rule {} has no content, skipping code indexing", rule.getId());
+        if (!isIndexable(rule)) {
             return;
         }
 
         try {
-            // Detectar linguagem do arquivo
-            String language = detectLanguage(rule.getSourceFile());
-            
-            // Criar embedding do código
-            float[] embedding = embeddingProvider.embed(rule.getContent());
-            
-            // Salvar embedding do arquivo
-            saveFileEmbedding(
-                rule.getSourceFile(),
-                projectId,
-                rule.getContent(),
-                language,
-                embedding
-            );
-
-            // Criar mapeamento código -> regra
-            createCodeRuleMapping(
-                rule.getSourceFile(),
-                rule.getId(),
-                1.0, // Alta confiança pois veio do sourceFile da regra
-                "DIRECT",
-                "SOURCE_FILE_FIELD"
-            );
-
-            logger.info("Successfully indexed code for rule {}: {}", rule.getId(), rule.getSourceFile());
-
+            indexWithEmbedding(rule, projectId, embeddingProvider.embed(rule.getContent()));
         } catch (Exception e) {
             logger.error("Failed to index code for rule {}: {}", rule.getId(), e.getMessage(), e);
         }
     }
 
     /**
-     * Indexa múltiplas regras de negócio.
-     * @deprecated Não usado no fluxo atual. Use indexBusinessRuleCode(rule, projectId) individual
+     * Indexa código de várias regras, gerando os embeddings em lote (embedBatch).
+     * Uma regra que falhar não interrompe as demais.
      */
-    /*
     @Transactional
-    public void indexBusinessRules(List<BusinessRule> rules) {
-        logger.info("Indexing code for {} business rules", rules.size());
-        
-        int indexed = 0;
-        int skipped = 0;
+    public void indexBusinessRulesCode(List<BusinessRule> rules, UUID projectId) {
+        List<BusinessRule> indexable = rules.stream()
+            .filter(this::isIndexable)
+            .toList();
+        if (indexable.isEmpty()) {
+            return;
+        }
 
-        for (BusinessRule rule : rules) {
-            if (rule.getSourceFile() != null && !rule.getSourceFile().isBlank()) {
-                indexBusinessRuleCode(rule, null); // TODO: passar projectId
+        List<float[]> embeddings = embeddingProvider.embedBatch(
+            indexable.stream().map(BusinessRule::getContent).toList());
+
+        int indexed = 0;
+        for (int i = 0; i < indexable.size(); i++) {
+            BusinessRule rule = indexable.get(i);
+            float[] embedding = embeddings.get(i);
+            if (embedding == null || embedding.length == 0) {
+                logger.warn("No embedding generated for rule {}, skipping code indexing", rule.getId());
+                continue;
+            }
+            try {
+                indexWithEmbedding(rule, projectId, embedding);
                 indexed++;
-            } else {
-                skipped++;
+            } catch (Exception e) {
+                logger.error("Failed to index code for rule {}: {}", rule.getId(), e.getMessage(), e);
             }
         }
 
-        logger.info("Code indexing complete: {} indexed, {} skipped", indexed, skipped);
+        logger.info("Code indexing complete: {} indexed, {} skipped", indexed, rules.size() - indexed);
+    }
+
+    private boolean isIndexable(BusinessRule rule) {
+        if (rule.getSourceFile() == null || rule.getSourceFile().isBlank()) {
+            logger.debug("Rule {} has no sourceFile, skipping code indexing", rule.getId());
+            return false;
+        }
+
+        if (rule.getContent() == null || rule.getContent().isBlank()) {
+            logger.debug("Rule {} has no content, skipping code indexing", rule.getId());
+            return false;
+        }
+        return true;
+    }
+
+    private void indexWithEmbedding(BusinessRule rule, UUID projectId, float[] embedding) {
+        // Detectar linguagem do arquivo
+        String language = detectLanguage(rule.getSourceFile());
+
+        // Salvar embedding do arquivo
+        saveFileEmbedding(
+            rule.getSourceFile(),
+            projectId,
+            rule.getContent(),
+            language,
+            embedding
+        );
+
+        // Criar mapeamento código -> regra
+        createCodeRuleMapping(
+            rule.getSourceFile(),
+            rule.getId(),
+            1.0, // Alta confiança pois veio do sourceFile da regra
+            "DIRECT",
+            "SOURCE_FILE_FIELD"
+        );
+
+        logger.info("Successfully indexed code for rule {}: {}", rule.getId(), rule.getSourceFile());
     }
-    */
 
     /**
      * Salva embedding de um arquivo de código.
+     * 
+     * PostgreSQL: upsert com ON CONFLICT, gravando também a coluna pgvector quando existir.
+     * H2: MERGE equivalente. Nos dois casos o vetor entra no índice in-JVM, se já carregado.
      */
     private void saveFileEmbedding(String filePath, UUID projectId, String content, String language, float[] embedding) {
-        String sql = """
-            INSERT INTO code_file_embeddings 
-                (file_path, project_id, content, language, embedding, dimension, provider, created_at, updated_at)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-            ON CONFLICT (file_path) 
-            DO UPDATE SET 
-                content = EXCLUDED.content,
-                embedding = EXCLUDED.embedding,
-                updated_at = EXCLUDED.updated_at
-        """;
-
+        VectorMode mode = vectorMode();
         LocalDateTime now = LocalDateTime.now();
         byte[] embeddingBytes = floatArrayToBytes(embedding);
 
-        jdbcTemplate.update(sql, 
-            filePath,
-            projectId,
-            content,
-            language,
-            embeddingBytes,
-            embedding.length,
-            "openai",
-            now,
-            now
-        );
+        if (mode == VectorMode.JVM_ANN && !postgres) {
+            jdbcTemplate.update("""
+                MERGE INTO code_file_embeddings 
+                    (file_path, project_id, content, language, embedding, dimension, provider, created_at, updated_at)
+                KEY (file_path)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """, filePath, projectId, content, language, embeddingBytes, embedding.length, "openai", now, now);
+        } else {
+            // Dimensão diferente da coluna vector(n): fica só no BYTEA até re-indexar
+            String vector = mode == VectorMode.PGVECTOR && embedding.length == vectorDimension
+                ? toVectorLiteral(embedding) : null;
+            jdbcTemplate.update("""
+                INSERT INTO code_file_embeddings 
+                    (file_path, project_id, content, language, embedding, dimension, provider, created_at, updated_at%s)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?%s)
+                ON CONFLICT (file_path) 
+                DO UPDATE SET 
+                    content = EXCLUDED.content,
+                    embedding = EXCLUDED.embedding,
+                    dimension = EXCLUDED.dimension,
+                    updated_at = EXCLUDED.updated_at%s
+            """.formatted(
+                    mode == VectorMode.PGVECTOR ? ", embedding_vec" : "",
+                    mode == VectorMode.PGVECTOR ? ", ?::vector" : "",
+                    mode == VectorMode.PGVECTOR ? ",\n                    embedding_vec = EXCLUDED.embedding_vec" : ""),
+                mode == VectorMode.PGVECTOR
+                    ? new Object[] {filePath, projectId, content, language, embeddingBytes, embedding.length,
+                                    "openai", now, now, vector}
+                    : new Object[] {filePath, projectId, content, language, embeddingBytes, embedding.length,
+                                    "openai", now, now});
+        }
+
+        // Mantido nos dois modos: o PGVECTOR também cai no índice in-JVM (ver searchWithPgVector)
+        synchronized (jvmIndex) {
+            if (jvmIndexDimension > 0) {
+                cacheJvm(filePath, embedding, jvmIndexDimension);
+            }
+        }
+    }
+
+    /**
+     * Copia para embedding_vec os embeddings BYTEA que já têm a dimensão da coluna
+     * mas ainda estão sem vetor (ex.: após uma migração que trocou a dimensão de
+     * vector(n)). Arquivos de outra dimensão continuam BYTEA-only até serem re-indexados.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVectorColumn() {
+        if (vectorMode() != VectorMode.PGVECTOR) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT file_path, embedding FROM code_file_embeddings
+                WHERE embedding_vec IS NULL AND dimension = ?
+            """,
+            rs -> {
+                rows.add(new Object[] {
+                    toVectorLiteral(bytesToFloatArray(rs.getBytes("embedding"))), rs.getString("file_path")});
+            },
+            vectorDimension);
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE code_file_embeddings SET embedding_vec = ?::vector WHERE file_path = ?", rows);
+        logger.info("Backfilled embedding_vec({}) for {} code files", vectorDimension, rows.size());
     }
 
     /**
@@ -159,15 +253,22 @@ public class CodeIndexingService {
      */
     private void createCodeRuleMapping(String filePath, String ruleId, double confidence, 
                                       String relationshipType, String detectionMethod) {
-        String sql = """
-            INSERT INTO code_business_rule_mapping 
-                (file_path, business_rule_id, confidence, relationship_type, detected_at, detection_method)
-            VALUES (?, ?, ?, ?, ?, ?)
-            ON CONFLICT (file_path, business_rule_id) 
-            DO UPDATE SET 
-                confidence = EXCLUDED.confidence,
-                detected_at = EXCLUDED.detected_at
-        """;
+        String sql = postgres
+            ? """
+                INSERT INTO code_business_rule_mapping 
+                    (file_path, business_rule_id, confidence, relationship_type, detected_at, detection_method)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (file_path, business_rule_id) 
+                DO UPDATE SET 
+                    confidence = EXCLUDED.confidence,
+                    detected_at = EXCLUDED.detected_at
+            """
+            : """
+                MERGE INTO code_business_rule_mapping 
+                    (file_path, business_rule_id, confidence, relationship_type, detected_at, detection_method)
+                KEY (file_path, business_rule_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+            """;
 
         jdbcTemplate.update(sql,
             filePath,
@@ -209,40 +310,50 @@ public class CodeIndexingService {
         return bytes;
     }
 
+    /**
+     * Converte bytes (PostgreSQL bytea) de volta para array de floats.
+     */
+    private float[] bytesToFloatArray(byte[] bytes) {
+        float[] floats = new float[bytes.length / 4];
+        for (int i = 0; i < floats.length; i++) {
+            int bits = (bytes[i * 4] & 0xFF) << 24
+                | (bytes[i * 4 + 1] & 0xFF) << 16
+                | (bytes[i * 4 + 2] & 0xFF) << 8
+                | (bytes[i * 4 + 3] & 0xFF);
+            floats[i] = Float.intBitsToFloat(bits);
+        }
+        return floats;
+    }
+
+    /**
+     * Literal de texto aceito por ?::vector ("[0.1,0.2,...]").
+     */
+    private String toVectorLiteral(float[] floats) {
+        StringBuilder literal = new StringBuilder(floats.length * 10).append('[');
+        for (int i = 0; i < floats.length; i++) {
+            if (i > 0) {
+                literal.append(',');
+            }
+            literal.append(floats[i]);
+        }
+        return literal.append(']').toString();
+    }
+
     /**
      * Busca arquivos de código relacionados a uma query.
+     * 
+     * Top-K indexado: HNSW/IVFFlat do pgvector (ef_search por consulta) ou,
+     * em H2/sem pgvector, o índice in-JVM (busca exata em corpora pequenos). Cada arquivo retorna apenas
+     * um trecho (rag.code.snippet-chars), com uma linha por regra mapeada.
      */
+    @Transactional(readOnly = true)
     public List<CodeSearchResult> searchCode(String query, int limit) {
         try {
             float[] queryEmbedding = embeddingProvider.embed(query);
-            byte[] queryBytes = floatArrayToBytes(queryEmbedding);
-
-            String sql = """
-                SELECT 
-                    c.file_path,
-                    c.content,
-                    c.language,
-                    m.business_rule_id,
-                    m.confidence,
-                    m.relationship_type
-                FROM code_file_embeddings c
-                LEFT JOIN code_business_rule_mapping m ON c.file_path = m.file_path
-                ORDER BY c.embedding <-> ?::bytea
-                LIMIT ?
-            """;
 
-            return jdbcTemplate.query(sql, 
-                (rs, rowNum) -> new CodeSearchResult(
-                    rs.getString("file_path"),
-                    rs.getString("content"),
-                    rs.getString("language"),
-                    rs.getString("business_rule_id"),
-                    rs.getDouble("confidence"),
-                    rs.getString("relationship_type")
-                ),
-                queryBytes,
-                limit
-            );
+            return vectorMode() == VectorMode.PGVECTOR
+                ? searchWithPgVector(queryEmbedding, limit)
+                : searchWithJvmIndex(queryEmbedding, limit);
 
         } catch (Exception e) {
             logger.error("Failed to search code: {}", e.getMessage(), e);
@@ -250,13 +361,216 @@ public class CodeIndexingService {
         }
     }
 
+    private List<CodeSearchResult> searchWithPgVector(float[] queryEmbedding, int limit) {
+        if (queryEmbedding.length != vectorDimension) {
+            logger.warn("Query embedding dimension {} does not match embedding_vec({}), using in-JVM index",
+                        queryEmbedding.length, vectorDimension);
+            return searchWithJvmIndex(queryEmbedding, limit);
+        }
+
+        // Vale só para esta transação (recall x latência do HNSW)
+        jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)", String.class,
+            String.valueOf(Math.max(limit, hnswProperties.getEfSearch())));
+
+        String vector = toVectorLiteral(queryEmbedding);
+        String sql = """
+            SELECT 
+                t.file_path,
+                t.snippet,
+                t.language,
+                t.distance,
+                m.business_rule_id,
+                m.confidence,
+                m.relationship_type
+            FROM (
+                SELECT c.file_path, c.language, LEFT(c.content, ?) AS snippet,
+                       c.embedding_vec <=> ?::vector AS distance
+                FROM code_file_embeddings c
+                WHERE c.embedding_vec IS NOT NULL
+                ORDER BY c.embedding_vec <=> ?::vector
+                LIMIT ?
+            ) t
+            LEFT JOIN code_business_rule_mapping m ON t.file_path = m.file_path
+            ORDER BY t.distance, m.confidence DESC
+        """;
+
+        return jdbcTemplate.query(sql,
+            (rs, rowNum) -> new CodeSearchResult(
+                rs.getString("file_path"),
+                rs.getString("snippet"),
+                rs.getString("language"),
+                1.0 - rs.getDouble("distance"),
+                rs.getString("business_rule_id"),
+                rs.getDouble("confidence"),
+                rs.getString("relationship_type")
+            ),
+            snippetChars,
+            vector,
+            vector,
+            limit
+        );
+    }
+
+    private List<CodeSearchResult> searchWithJvmIndex(float[] queryEmbedding, int limit) {
+        ensureJvmIndexLoaded();
+
+        List<ScoredRule> hits = hnswProperties.isEnabled()
+                && jvmEmbeddings.size() >= hnswProperties.getExactSearchThreshold()
+            ? jvmIndex.search(queryEmbedding, limit)
+            : jvmEmbeddings.topK(queryEmbedding, limit, -1.0);
+        if (hits.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Double> similarityByPath = new LinkedHashMap<>();
+        for (ScoredRule hit : hits) {
+            String filePath = filePathsById.get(hit.ruleId());
+            if (filePath != null) {
+                similarityByPath.put(filePath, hit.similarity());
+            }
+        }
+        if (similarityByPath.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String sql = """
+            SELECT 
+                c.file_path,
+                LEFT(c.content, ?) AS snippet,
+                c.language,
+                m.business_rule_id,
+                m.confidence,
+                m.relationship_type
+            FROM code_file_embeddings c
+            LEFT JOIN code_business_rule_mapping m ON c.file_path = m.file_path
+            WHERE c.file_path IN (%s)
+        """.formatted(String.join(", ", Collections.nCopies(similarityByPath.size(), "?")));
+
+        List<Object> args = new ArrayList<>(similarityByPath.size() + 1);
+        args.add(snippetChars);
+        args.addAll(similarityByPath.keySet());
+
+        List<CodeSearchResult> results = new ArrayList<>(jdbcTemplate.query(sql,
+            (rs, rowNum) -> new CodeSearchResult(
+                rs.getString("file_path"),
+                rs.getString("snippet"),
+                rs.getString("language"),
+                similarityByPath.get(rs.getString("file_path")),
+                rs.getString("business_rule_id"),
+                rs.getDouble("confidence"),
+                rs.getString("relationship_type")
+            ),
+            args.toArray()
+        ));
+        results.sort(Comparator.comparingDouble(CodeSearchResult::similarity).reversed()
+            .thenComparing(Comparator.comparingDouble(CodeSearchResult::confidence).reversed()));
+        return results;
+    }
+
+    /**
+     * Carrega o índice in-JVM a partir da coluna BYTEA, só com as linhas da
+     * dimensão do provider ativo (a tabela pode ter embeddings de modelos
+     * anteriores). Depois é mantido incrementalmente por saveFileEmbedding;
+     * recarrega se o provider passar a gerar outra dimensão.
+     */
+    private void ensureJvmIndexLoaded() {
+        int dimension = embeddingProvider.getDimension();
+        if (jvmIndexDimension == dimension) {
+            return;
+        }
+        synchronized (jvmIndex) {
+            if (jvmIndexDimension == dimension) {
+                return;
+            }
+            jvmEmbeddings.clear();
+            jvmIndex.clear();
+            filePathsById.clear();
+            jdbcTemplate.query("SELECT file_path, embedding FROM code_file_embeddings WHERE dimension = ?",
+                rs -> {
+                    cacheJvm(rs.getString("file_path"), bytesToFloatArray(rs.getBytes("embedding")), dimension);
+                },
+                dimension);
+            jvmIndexDimension = dimension;
+            logger.info("In-JVM code search index loaded: {} files ({} dimensions)", jvmEmbeddings.size(), dimension);
+        }
+    }
+
+    /**
+     * Atualiza o índice in-JVM com o embedding de um arquivo (chamado com o lock de jvmIndex).
+     * Embedding de outra dimensão tira o arquivo do índice em vez de misturar dimensões.
+     */
+    private void cacheJvm(String filePath, float[] embedding, int dimension) {
+        UUID id = fileId(filePath);
+        if (embedding.length != dimension) {
+            jvmEmbeddings.remove(id);
+            jvmIndex.remove(id);
+            filePathsById.remove(id);
+            return;
+        }
+        jvmEmbeddings.put(id, embedding);
+        if (hnswProperties.isEnabled()) {
+            jvmIndex.add(id, embedding);
+        }
+        filePathsById.put(id, filePath);
+    }
+
+    private static UUID fileId(String filePath) {
+        return UUID.nameUUIDFromBytes(filePath.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Detecta (uma vez) se a coluna pgvector da V16 existe e com qual dimensão.
+     */
+    private VectorMode vectorMode() {
+        VectorMode mode = vectorMode;
+        if (mode != null) {
+            return mode;
+        }
+        synchronized (this) {
+            if (vectorMode != null) {
+                return vectorMode;
+            }
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+            if (postgres) {
+                List<Integer> dimensions = jdbcTemplate.queryForList("""
+                    SELECT atttypmod FROM pg_attribute
+                    WHERE attrelid = 'code_file_embeddings'::regclass
+                      AND attname = 'embedding_vec' AND NOT attisdropped
+                """, Integer.class);
+                vectorDimension = dimensions.isEmpty() ? -1 : dimensions.get(0);
+            }
+            vectorMode = vectorDimension > 0 ? VectorMode.PGVECTOR : VectorMode.JVM_ANN;
+            if (vectorMode == VectorMode.PGVECTOR && vectorDimension != embeddingProvider.getDimension()) {
+                logger.warn("embedding_vec is vector({}) but provider generates {} dimensions: "
+                            + "new embeddings stay BYTEA-only and search falls back to the in-JVM index "
+                            + "until a new migration changes the column dimension",
+                            vectorDimension, embeddingProvider.getDimension());
+            }
+            logger.info("Code search mode: {} (database={})", vectorMode, product);
+            return vectorMode;
+        }
+    }
+
+    /**
+     * Estratégia de busca vetorial de código.
+     */
+    private enum VectorMode {
+        /** Coluna vector(n) + índice HNSW/IVFFlat no PostgreSQL */
+        PGVECTOR,
+        /** BYTEA no banco + HnswIndex in-JVM (H2 ou PostgreSQL sem pgvector) */
+        JVM_ANN
+    }
+
     /**
      * Resultado de busca de código.
      */
     public record CodeSearchResult(
         String filePath,
-        String content,
+        String snippet,
         String language,
+        double similarity,
         String businessRuleId,
         double confidence,
         String relationshipType
@@ -2,20 +2,15 @@ package com.backoffice.alerta.service;
 
 import com.backoffice.alerta.dto.*;
 import com.backoffice.alerta.project.domain.Project;
-import com.backoffice.alerta.project.dto.ProjectContext;
 import com.backoffice.alerta.project.repository.ProjectRepository;
-import com.backoffice.alerta.rag.RagQueryResponse;
-import com.backoffice.alerta.rag.RagRuleScoreDetail;
-import com.backoffice.alerta.rag.RagMatchType;
-import com.backoffice.alerta.rag.ConfidenceLevel;
-import com.backoffice.alerta.rag.BusinessRuleRagService;
+import com.backoffice.alerta.rag.quality.RagQualityAggregate;
+import com.backoffice.alerta.rag.quality.RagQualityRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * US#67 - Serviço de avaliação de qualidade do RAG.
@@ -31,6 +26,7 @@ import java.util.stream.Collectors;
  * - Determinístico
  * - Sem IA / ML / LLM
  * - Sem persistência
+ * - Métricas lidas dos agregados incrementais do RagQualityRecorder (tráfego real)
  * - Try-catch em todos métodos públicos
  * - Nunca propagar exceções
  */
@@ -39,17 +35,13 @@ public class RagQualityEvaluationService {
 
     private static final Logger log = LoggerFactory.getLogger(RagQualityEvaluationService.class);
 
-    private final BusinessRuleRagService ragService;
+    private final RagQualityRecorder qualityRecorder;
     private final ProjectRepository projectRepository;
 
-    // Cache simulado de queries recentes (em produção viria de logs ou analytics)
-    private final List<RagQueryResponse> recentQueries = new ArrayList<>();
-
-    public RagQualityEvaluationService(BusinessRuleRagService ragService,
+    public RagQualityEvaluationService(RagQualityRecorder qualityRecorder,
                                        ProjectRepository projectRepository) {
-        this.ragService = ragService;
+        this.qualityRecorder = qualityRecorder;
         this.projectRepository = projectRepository;
-        initializeMockQueries();
     }
 
     /**
@@ -60,33 +52,27 @@ public class RagQualityEvaluationService {
             log.info("📊 [US#67] Calculando métricas de qualidade | projectId={}", 
                     projectId != null ? projectId : "GLOBAL");
 
-            List<RagQueryResponse> queries = filterQueriesByProject(projectId);
+            RagQualityAggregate aggregate = qualityRecorder.aggregate(projectId);
 
-            if (queries.isEmpty()) {
+            if (aggregate.getQueries() == 0) {
                 log.warn("⚠️ [US#67] Nenhuma query encontrada para avaliação");
                 return createEmptyMetrics(projectId);
             }
 
             RagQualityMetricsResponse metrics = new RagQualityMetricsResponse();
             metrics.setProjectContext(projectId);
-            metrics.setTotalQueriesEvaluated(queries.size());
-
-            // Contar regras únicas
-            Set<String> uniqueRules = queries.stream()
-                    .flatMap(q -> q.getRuleScores().stream())
-                    .map(RagRuleScoreDetail::getBusinessRuleId)
-                    .collect(Collectors.toSet());
-            metrics.setTotalRulesEvaluated(uniqueRules.size());
-
-            // Calcular métricas
-            metrics.setFallbackRate(calculateFallbackRate(queries));
-            metrics.setAvgSemanticScore(calculateAvgSemanticScore(queries));
-            metrics.setAvgKeywordScore(calculateAvgKeywordScore(queries));
-            metrics.setHybridMatchRate(calculateHybridMatchRate(queries));
-            metrics.setSemanticOnlyRate(calculateSemanticOnlyRate(queries));
-            metrics.setKeywordOnlyRate(calculateKeywordOnlyRate(queries));
-            metrics.setFallbackInclusionRate(calculateFallbackInclusionRate(queries));
-            metrics.setConfidenceMismatchRate(calculateConfidenceMismatchRate(queries));
+            metrics.setTotalQueriesEvaluated((int) aggregate.getQueries());
+            metrics.setTotalRulesEvaluated((int) aggregate.getActiveRules());
+
+            metrics.setFallbackRate(aggregate.getFallbackRate());
+            metrics.setAvgSemanticScore(aggregate.getAvgSemanticScore());
+            metrics.setAvgKeywordScore(aggregate.getAvgKeywordScore());
+            metrics.setHybridMatchRate(aggregate.getHybridMatchRate());
+            metrics.setSemanticOnlyRate(aggregate.getSemanticOnlyRate());
+            metrics.setKeywordOnlyRate(aggregate.getKeywordOnlyRate());
+            metrics.setFallbackInclusionRate(aggregate.getFallbackInclusionRate());
+            metrics.setConfidenceMismatchRate(aggregate.getConfidenceMismatchRate());
+            metrics.setCacheHitRate(aggregate.getCacheHitRate());
 
             log.info("✅ [US#67] Métricas calculadas | fallbackRate={} | avgSemantic={}", 
                     metrics.getFallbackRate(), metrics.getAvgSemanticScore());
@@ -134,22 +120,11 @@ public class RagQualityEvaluationService {
             log.info("📊 [US#67] Calculando qualidade por regra | projectId={}", 
                     projectId != null ? projectId : "GLOBAL");
 
-            List<RagQueryResponse> queries = filterQueriesByProject(projectId);
-
-            // Agrupar scores por regra
-            Map<String, List<RagRuleScoreDetail>> scoresByRule = new HashMap<>();
-            for (RagQueryResponse query : queries) {
-                for (RagRuleScoreDetail score : query.getRuleScores()) {
-                    scoresByRule.computeIfAbsent(score.getBusinessRuleId(), k -> new ArrayList<>())
-                            .add(score);
-                }
-            }
-
-            // Calcular métricas por regra
             List<RagRuleQualityResponse> result = new ArrayList<>();
-            for (Map.Entry<String, List<RagRuleScoreDetail>> entry : scoresByRule.entrySet()) {
-                RagRuleQualityResponse ruleQuality = calculateRuleQuality(entry.getKey(), entry.getValue());
-                result.add(ruleQuality);
+            for (RagQualityAggregate.RuleAggregate rule : qualityRecorder.aggregate(projectId).getRules()) {
+                if (rule.getOccurrences() > 0) {
+                    result.add(toRuleQuality(rule));
+                }
             }
 
             // Ordenar por avgSemanticScore decrescente
@@ -175,22 +150,20 @@ public class RagQualityEvaluationService {
             log.info("📊 [US#67] Calculando tendências | projectId={} | from={} | to={}", 
                     projectId != null ? projectId : "GLOBAL", fromDate, toDate);
 
-            // Em produção, isso viria de logs agregados ou analytics
-            // Para esta US, simulamos com dados mock
+            RagQualityAggregate aggregate = qualityRecorder.aggregate(projectId);
             List<RagQualityTrendPoint> trends = new ArrayList<>();
 
             LocalDate currentDate = fromDate != null ? fromDate : LocalDate.now().minusDays(7);
             LocalDate endDate = toDate != null ? toDate : LocalDate.now();
 
             while (!currentDate.isAfter(endDate)) {
+                RagQualityAggregate.DayAggregate day = aggregate.getDay(currentDate);
                 RagQualityTrendPoint point = new RagQualityTrendPoint();
                 point.setDate(currentDate);
-                
-                // Simular variação (em produção viriam de dados reais)
-                point.setFallbackRate(0.10 + Math.random() * 0.15);
-                point.setAvgSemanticScore(0.60 + Math.random() * 0.25);
-                point.setQueryCount((int) (20 + Math.random() * 30));
-                
+                point.setFallbackRate(day != null ? day.getFallbackRate() : 0.0);
+                point.setAvgSemanticScore(day != null ? day.getAvgSemanticScore() : 0.0);
+                point.setQueryCount(day != null ? (int) day.getQueries() : 0);
+
                 trends.add(point);
                 currentDate = currentDate.plusDays(1);
             }
@@ -212,7 +185,8 @@ public class RagQualityEvaluationService {
             Map<String, Object> health = new HashMap<>();
             health.put("status", "UP");
             health.put("service", "RagQualityEvaluationService");
-            health.put("queriesAvailable", recentQueries.size());
+            health.put("queriesAvailable", qualityRecorder.bufferedQueries());
+            health.put("bufferCapacity", qualityRecorder.capacity());
             health.put("timestamp", LocalDate.now());
             return health;
         } catch (Exception e) {
@@ -226,154 +200,21 @@ public class RagQualityEvaluationService {
 
     // ==================== MÉTODOS PRIVADOS ====================
 
-    private List<RagQueryResponse> filterQueriesByProject(UUID projectId) {
-        if (projectId == null) {
-            return recentQueries; // GLOBAL
-        }
-        return recentQueries.stream()
-                .filter(q -> q.getProjectContext() != null && 
-                             q.getProjectContext().isScoped() &&
-                             projectId.equals(q.getProjectContext().getProjectId()))
-                .collect(Collectors.toList());
-    }
-
-    private Double calculateFallbackRate(List<RagQueryResponse> queries) {
-        if (queries.isEmpty()) return 0.0;
-        long fallbackCount = queries.stream()
-                .filter(RagQueryResponse::isUsedFallback)
-                .count();
-        return (double) fallbackCount / queries.size();
-    }
-
-    private Double calculateAvgSemanticScore(List<RagQueryResponse> queries) {
-        List<Double> semanticScores = queries.stream()
-                .flatMap(q -> q.getRuleScores().stream())
-                .map(RagRuleScoreDetail::getSemanticScore)
-                .filter(score -> score != null && score > 0.0)
-                .collect(Collectors.toList());
-
-        if (semanticScores.isEmpty()) return 0.0;
-        return semanticScores.stream()
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-    }
-
-    private Double calculateAvgKeywordScore(List<RagQueryResponse> queries) {
-        List<Integer> keywordScores = queries.stream()
-                .flatMap(q -> q.getRuleScores().stream())
-                .map(RagRuleScoreDetail::getKeywordScore)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        if (keywordScores.isEmpty()) return 0.0;
-        return keywordScores.stream()
-                .mapToDouble(Integer::doubleValue)
-                .average()
-                .orElse(0.0);
-    }
-
-    private Double calculateHybridMatchRate(List<RagQueryResponse> queries) {
-        if (queries.isEmpty()) return 0.0;
-        long hybridCount = queries.stream()
-                .flatMap(q -> q.getRuleScores().stream())
-                .filter(s -> s.getMatchType() == RagMatchType.HYBRID)
-                .count();
-        long totalScores = queries.stream()
-                .mapToLong(q -> q.getRuleScores().size())
-                .sum();
-        return totalScores > 0 ? (double) hybridCount / totalScores : 0.0;
-    }
-
-    private Double calculateSemanticOnlyRate(List<RagQueryResponse> queries) {
-        if (queries.isEmpty()) return 0.0;
-        long semanticCount = queries.stream()
-                .flatMap(q -> q.getRuleScores().stream())
-                .filter(s -> s.getMatchType() == RagMatchType.SEMANTIC)
-                .count();
-        long totalScores = queries.stream()
-                .mapToLong(q -> q.getRuleScores().size())
-                .sum();
-        return totalScores > 0 ? (double) semanticCount / totalScores : 0.0;
-    }
-
-    private Double calculateKeywordOnlyRate(List<RagQueryResponse> queries) {
-        if (queries.isEmpty()) return 0.0;
-        long keywordCount = queries.stream()
-                .flatMap(q -> q.getRuleScores().stream())
-                .filter(s -> s.getMatchType() == RagMatchType.KEYWORD)
-                .count();
-        long totalScores = queries.stream()
-                .mapToLong(q -> q.getRuleScores().size())
-                .sum();
-        return totalScores > 0 ? (double) keywordCount / totalScores : 0.0;
-    }
-
-    private Double calculateFallbackInclusionRate(List<RagQueryResponse> queries) {
-        if (queries.isEmpty()) return 0.0;
-        long fallbackIncludedCount = queries.stream()
-                .flatMap(q -> q.getRuleScores().stream())
-                .filter(RagRuleScoreDetail::isIncludedByFallback)
-                .count();
-        long totalScores = queries.stream()
-                .mapToLong(q -> q.getRuleScores().size())
-                .sum();
-        return totalScores > 0 ? (double) fallbackIncludedCount / totalScores : 0.0;
-    }
-
-    private Double calculateConfidenceMismatchRate(List<RagQueryResponse> queries) {
-        if (queries.isEmpty()) return 0.0;
-        
-        long mismatchCount = 0;
-        long highConfidenceCount = 0;
-
-        for (RagQueryResponse query : queries) {
-            if (ConfidenceLevel.HIGH.equals(query.getConfidence())) {
-                highConfidenceCount++;
-                
-                // Calcular média semântica desta query
-                double avgSemantic = query.getRuleScores().stream()
-                        .map(RagRuleScoreDetail::getSemanticScore)
-                        .filter(s -> s != null && s > 0.0)
-                        .mapToDouble(Double::doubleValue)
-                        .average()
-                        .orElse(0.0);
-
-                if (avgSemantic < 0.4) {
-                    mismatchCount++;
-                }
+    private RagRuleQualityResponse toRuleQuality(RagQualityAggregate.RuleAggregate rule) {
+        RagRuleQualityResponse quality = new RagRuleQualityResponse();
+        try {
+            if (rule.getBusinessRuleId() != null) {
+                quality.setBusinessRuleId(UUID.fromString(rule.getBusinessRuleId()));
             }
+        } catch (IllegalArgumentException e) {
+            // ID fora do formato UUID (ex: regras importadas): métrica mantida, sem ID
+            log.debug("⚠️ [US#67] ID de regra fora do formato UUID: {}", rule.getBusinessRuleId());
         }
-
-        return highConfidenceCount > 0 ? (double) mismatchCount / highConfidenceCount : 0.0;
-    }
-
-    private RagRuleQualityResponse calculateRuleQuality(String ruleId, List<RagRuleScoreDetail> scores) {
-        RagRuleQualityResponse quality = new RagRuleQualityResponse();
-        quality.setBusinessRuleId(UUID.fromString(ruleId));
-        quality.setBusinessRuleName(scores.get(0).getBusinessRuleName());
-        quality.setOccurrences(scores.size());
-
-        // Avg Semantic Score
-        double avgSemantic = scores.stream()
-                .map(RagRuleScoreDetail::getSemanticScore)
-                .filter(s -> s != null && s > 0.0)
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-        quality.setAvgSemanticScore(avgSemantic);
-
-        // Keyword Dependency Rate
-        long keywordOnlyCount = scores.stream()
-                .filter(s -> s.getMatchType() == RagMatchType.KEYWORD)
-                .count();
-        quality.setKeywordDependencyRate((double) keywordOnlyCount / scores.size());
-
-        // Fallback Inclusion Rate
-        long fallbackCount = scores.stream()
-                .filter(RagRuleScoreDetail::isIncludedByFallback)
-                .count();
-        quality.setFallbackInclusionRate((double) fallbackCount / scores.size());
+        quality.setBusinessRuleName(rule.getBusinessRuleName());
+        quality.setOccurrences((int) rule.getOccurrences());
+        quality.setAvgSemanticScore(rule.getAvgSemanticScore());
+        quality.setKeywordDependencyRate(rule.getKeywordDependencyRate());
+        quality.setFallbackInclusionRate(rule.getFallbackInclusionRate());
 
         // Observações
         quality.setObservations(generateObservations(quality));
@@ -424,79 +265,7 @@ public class RagQualityEvaluationService {
         metrics.setKeywordOnlyRate(0.0);
         metrics.setFallbackInclusionRate(0.0);
         metrics.setConfidenceMismatchRate(0.0);
+        metrics.setCacheHitRate(0.0);
         return metrics;
     }
-
-    /**
-     * Mock de queries recentes para demonstração.
-     * Em produção, isso viria de logs, analytics ou cache de queries reais.
-     */
-    private void initializeMockQueries() {
-        // Simular algumas queries para demonstração
-        UUID project1 = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
-        String rule1 = "550e8400-e29b-41d4-a716-446655440001";
-        String rule2 = "550e8400-e29b-41d4-a716-446655440003";
-
-        // Query 1: HYBRID, sem fallback
-        RagQueryResponse query1 = new RagQueryResponse();
-        ProjectContext ctx1 = new ProjectContext(true);
-        ctx1.setProjectId(project1);
-        ctx1.setProjectName("Backoffice Pagamentos");
-        query1.setProjectContext(ctx1);
-        query1.setUsedFallback(false);
-        query1.setConfidence(ConfidenceLevel.HIGH);
-        
-        RagRuleScoreDetail score1 = new RagRuleScoreDetail();
-        score1.setBusinessRuleId(rule1);
-        score1.setBusinessRuleName("REGRA_CALCULO_HORAS_PJ");
-        score1.setSemanticScore(0.78);
-        score1.setKeywordScore(2);
-        score1.setMatchType(RagMatchType.HYBRID);
-        score1.setFinalRankPosition(1);
-        score1.setIncludedByFallback(false);
-        
-        query1.setRuleScores(List.of(score1));
-        recentQueries.add(query1);
-
-        // Query 2: SEMANTIC only
-        RagQueryResponse query2 = new RagQueryResponse();
-        ProjectContext ctx2 = new ProjectContext(true);
-        ctx2.setProjectId(project1);
-        ctx2.setProjectName("Backoffice Pagamentos");
-        query2.setProjectContext(ctx2);
-        query2.setUsedFallback(false);
-        query2.setConfidence(ConfidenceLevel.MEDIUM);
-        
-        RagRuleScoreDetail score2 = new RagRuleScoreDetail();
-        score2.setBusinessRuleId(rule2);
-        score2.setBusinessRuleName("REGRA_CALCULO_TRIBUTOS");
-        score2.setSemanticScore(0.65);
-        score2.setKeywordScore(0);
-        score2.setMatchType(RagMatchType.SEMANTIC);
-        score2.setFinalRankPosition(1);
-        score2.setIncludedByFallback(false);
-        
-        query2.setRuleScores(List.of(score2));
-        recentQueries.add(query2);
-
-        // Query 3: FALLBACK
-        RagQueryResponse query3 = new RagQueryResponse();
-        query3.setProjectContext(null); // GLOBAL
-        query3.setUsedFallback(true);
-        query3.setConfidence(ConfidenceLevel.LOW);
-        
-        RagRuleScoreDetail score3 = new RagRuleScoreDetail();
-        score3.setBusinessRuleId(rule1);
-        score3.setBusinessRuleName("REGRA_CALCULO_HORAS_PJ");
-        score3.setSemanticScore(0.0);
-        score3.setKeywordScore(0);
-        score3.setMatchType(RagMatchType.FALLBACK);
-        score3.setFinalRankPosition(1);
-        score3.setIncludedByFallback(true);
-        
-        query3.setRuleScores(List.of(score3));
-        recentQueries.add(query3);
-
-        log.info("✅ [US#67] Mock de {} queries inicializadas", recentQueries.size());
-    }
 }
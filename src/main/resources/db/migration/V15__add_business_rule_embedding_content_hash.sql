@@ -0,0 +1,6 @@
+-- US#66: Indexação incremental de embeddings
+-- Hash do texto usado para gerar o embedding: permite re-embedar apenas regras alteradas
+
+ALTER TABLE business_rule_embeddings ADD COLUMN content_hash VARCHAR(64);
+
+COMMENT ON COLUMN business_rule_embeddings.content_hash IS 'SHA-256 (hex) do texto da regra usado no embedding; NULL = legado, será re-embedado';
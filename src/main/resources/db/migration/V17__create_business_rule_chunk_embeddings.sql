@@ -0,0 +1,25 @@
+-- US#44: Embeddings por trecho do conteúdo das regras (multi-vetor)
+-- Conteúdos longos são divididos em trechos sobrepostos; a busca agrega por regra (max-sim)
+-- e o contexto do LLM recebe apenas o trecho vencedor
+
+CREATE TABLE business_rule_chunk_embeddings (
+    rule_vector_id UUID NOT NULL,
+    chunk_no INTEGER NOT NULL,
+    start_offset INTEGER NOT NULL,
+    end_offset INTEGER NOT NULL,
+    dimension INTEGER NOT NULL,
+    provider VARCHAR(50) NOT NULL,
+    embedding BYTEA NOT NULL,
+    content_hash VARCHAR(64),
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (rule_vector_id, chunk_no)
+);
+
+-- Índice para carga por provider
+CREATE INDEX idx_chunk_embedding_provider ON business_rule_chunk_embeddings(provider);
+
+COMMENT ON TABLE business_rule_chunk_embeddings IS 'Embeddings por trecho de BusinessRule.content (chave: vetor da regra + número do trecho)';
+COMMENT ON COLUMN business_rule_chunk_embeddings.rule_vector_id IS 'BusinessRule.vectorId (sem FK pois regras são in-memory)';
+COMMENT ON COLUMN business_rule_chunk_embeddings.start_offset IS 'Início do trecho no conteúdo da regra (inclusivo)';
+COMMENT ON COLUMN business_rule_chunk_embeddings.end_offset IS 'Fim do trecho no conteúdo da regra (exclusivo)';
+COMMENT ON COLUMN business_rule_chunk_embeddings.content_hash IS 'SHA-256 do conteúdo + parâmetros de chunking; muda = re-embedar todos os trechos';
@@ -0,0 +1,20 @@
+-- US#66: Migração online de modelo de embeddings
+-- Índice sombra: embeddings do novo provider gerados em background enquanto o índice
+-- ativo (business_rule_embeddings) continua servindo; na virada (cobertura 100%)
+-- as linhas são copiadas para a tabela ativa em uma única transação
+
+CREATE TABLE business_rule_embeddings_shadow (
+    business_rule_id UUID PRIMARY KEY,
+    dimension INTEGER NOT NULL,
+    provider VARCHAR(50) NOT NULL,
+    embedding BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    content_hash VARCHAR(64)
+);
+
+-- Índice para carga/limpeza por provider
+CREATE INDEX idx_shadow_embedding_provider ON business_rule_embeddings_shadow(provider);
+
+COMMENT ON TABLE business_rule_embeddings_shadow IS 'Índice sombra de embeddings durante a troca de rag.embedding.provider (vazio fora de migração)';
+COMMENT ON COLUMN business_rule_embeddings_shadow.provider IS 'Provider de destino da migração';
+COMMENT ON COLUMN business_rule_embeddings_shadow.content_hash IS 'SHA-256 do texto embedado (com a dimensão do novo provider); cobertura = hash igual ao da regra atual';